@@ -0,0 +1,515 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Synthetic data set generator writing directly in the tables of the plug-in core: the node tree, the projects, the
+ * subscriptions, the delegates, the IAM cache and the events. The rows are inserted with JDBC batches, so millions of
+ * events are affordable on the embedded database. The popularity of the projects, the nodes, the groups and the
+ * subscriptions follows a Zipf law of the given skew, <code>0</code> meaning uniform. All the identifiers are derived
+ * from the prefix and the integer identifiers start at the offset, so the generated data is removed by
+ * {@link #clean(DataSource)}.
+ */
+@Getter
+@Setter
+@Slf4j
+public class DatasetGenerator {
+
+	private static final String BASE_DN = "dc=sample,dc=com";
+
+	/**
+	 * Prefix of the generated identifiers.
+	 */
+	private String prefix = "load";
+
+	/**
+	 * Amount of services.
+	 */
+	private int services = 5;
+
+	/**
+	 * Amount of tools per service.
+	 */
+	private int tools = 4;
+
+	/**
+	 * Amount of node instances per tool.
+	 */
+	private int instances = 3;
+
+	/**
+	 * Amount of projects.
+	 */
+	private int projects = 100;
+
+	/**
+	 * Amount of subscriptions.
+	 */
+	private int subscriptions = 1000;
+
+	/**
+	 * Amount of companies, as a tree.
+	 */
+	private int companies = 20;
+
+	/**
+	 * Amount of groups, as a tree.
+	 */
+	private int groups = 50;
+
+	/**
+	 * Children per company or group.
+	 */
+	private int fanout = 3;
+
+	/**
+	 * Amount of users.
+	 */
+	private int users = 1000;
+
+	/**
+	 * Amount of groups per user.
+	 */
+	private int memberships = 2;
+
+	/**
+	 * Amount of delegates, on the organizations and on the nodes.
+	 */
+	private int delegates = 50;
+
+	/**
+	 * Amount of events.
+	 */
+	private int events = 10000;
+
+	/**
+	 * Amount of days the events are spread over, until now.
+	 */
+	private int days = 365;
+
+	/**
+	 * Zipf exponent of the popularity distributions.
+	 */
+	private double skew = 1.0;
+
+	/**
+	 * Random seed, the same seed generates the same data set.
+	 */
+	private long seed = 42;
+
+	/**
+	 * Amount of rows per JDBC batch and per transaction.
+	 */
+	private int batchSize = 1000;
+
+	/**
+	 * First integer identifier, far beyond the identifiers of the JPA sequences.
+	 */
+	private int idOffset = 1000000;
+
+	/**
+	 * Inverse cumulative distribution of a Zipf law over <code>[0, n)</code>.
+	 */
+	static class Zipf {
+
+		private final double[] cumulative;
+		private final Random random;
+
+		Zipf(final int n, final double skew, final Random random) {
+			this.random = random;
+			cumulative = new double[Math.max(n, 1)];
+			var sum = 0d;
+			for (var i = 0; i < cumulative.length; i++) {
+				sum += 1d / Math.pow(i + 1d, skew);
+				cumulative[i] = sum;
+			}
+			for (var i = 0; i < cumulative.length; i++) {
+				cumulative[i] /= sum;
+			}
+		}
+
+		/**
+		 * Return the next rank, <code>0</code> being the most popular.
+		 */
+		int next() {
+			final var index = Arrays.binarySearch(cumulative, random.nextDouble());
+			return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+		}
+	}
+
+	/**
+	 * Return the identifier of a service node.
+	 *
+	 * @param service The service index.
+	 * @return The node identifier, such as <code>service:load0</code>.
+	 */
+	public String getService(final int service) {
+		return "service:" + prefix + service;
+	}
+
+	/**
+	 * Return the identifier of a tool node.
+	 *
+	 * @param service The service index.
+	 * @param tool    The tool index.
+	 * @return The node identifier, such as <code>service:load0:t1</code>.
+	 */
+	public String getTool(final int service, final int tool) {
+		return getService(service) + ":t" + tool;
+	}
+
+	/**
+	 * Return the identifier of a node instance.
+	 *
+	 * @param instance The instance index, among all the instances.
+	 * @return The node identifier, such as <code>service:load0:t1:i2</code>.
+	 */
+	public String getInstance(final int instance) {
+		final var tool = instance / instances;
+		return getTool(tool / tools, tool % tools) + ":i" + instance % instances;
+	}
+
+	/**
+	 * Return the identifier of a project.
+	 *
+	 * @param project The project index.
+	 * @return The project identifier.
+	 */
+	public int getProject(final int project) {
+		return idOffset + project;
+	}
+
+	/**
+	 * Return the key of a project.
+	 *
+	 * @param project The project index.
+	 * @return The project key, such as <code>load-0</code>.
+	 */
+	public String getProjectKey(final int project) {
+		return prefix + "-" + project;
+	}
+
+	/**
+	 * Return the identifier of a subscription.
+	 *
+	 * @param subscription The subscription index.
+	 * @return The subscription identifier.
+	 */
+	public int getSubscription(final int subscription) {
+		return idOffset + subscription;
+	}
+
+	/**
+	 * Return the identifier of a user.
+	 *
+	 * @param user The user index.
+	 * @return The user identifier, such as <code>load-user-0</code>.
+	 */
+	public String getUser(final int user) {
+		return prefix + "-user-" + user;
+	}
+
+	/**
+	 * Return the identifier of a group.
+	 *
+	 * @param group The group index.
+	 * @return The group identifier, such as <code>load-group-0</code>.
+	 */
+	public String getGroup(final int group) {
+		return prefix + "-group-" + group;
+	}
+
+	/**
+	 * Return the identifier of a company.
+	 *
+	 * @param company The company index.
+	 * @return The company identifier, such as <code>load-company-0</code>.
+	 */
+	public String getCompany(final int company) {
+		return prefix + "-company-" + company;
+	}
+
+	/**
+	 * Return the DN of a company or a group of a tree: the parent of the node <code>i</code> is
+	 * <code>(i-1)/fanout</code>.
+	 */
+	private String toDn(final String[] dns, final int index, final String attribute, final String id,
+			final String root) {
+		final var parent = index == 0 ? root : dns[(index - 1) / fanout];
+		return attribute + "=" + id + "," + parent;
+	}
+
+	/**
+	 * Batched insertions of a table.
+	 */
+	private class Batch implements AutoCloseable {
+
+		private final Connection connection;
+		private final PreparedStatement statement;
+		private int rows;
+		private int pending;
+
+		private Batch(final Connection connection, final String sql) throws SQLException {
+			this.connection = connection;
+			this.statement = connection.prepareStatement(sql);
+		}
+
+		private void add(final Object... values) throws SQLException {
+			for (var i = 0; i < values.length; i++) {
+				statement.setObject(i + 1, values[i]);
+			}
+			statement.addBatch();
+			rows++;
+			if (++pending == batchSize) {
+				flush();
+			}
+		}
+
+		private void flush() throws SQLException {
+			if (pending > 0) {
+				statement.executeBatch();
+				connection.commit();
+				pending = 0;
+			}
+		}
+
+		@Override
+		public void close() throws SQLException {
+			try {
+				flush();
+			} finally {
+				statement.close();
+			}
+		}
+	}
+
+	/**
+	 * Insert the rows and return the amount of inserted rows.
+	 */
+	@FunctionalInterface
+	private interface Rows {
+		void insert(Batch batch) throws SQLException;
+	}
+
+	private int insert(final Connection connection, final String sql, final Rows rows) throws SQLException {
+		try (var batch = new Batch(connection, sql)) {
+			rows.insert(batch);
+			return batch.rows;
+		}
+	}
+
+	/**
+	 * Generate the data set.
+	 *
+	 * @param dataSource The target data source. The schema must exist.
+	 * @return The amount of inserted rows by table, in insertion order.
+	 * @throws SQLException When an insertion failed.
+	 */
+	public Map<String, Integer> generate(final DataSource dataSource) throws SQLException {
+		final var random = new Random(seed);
+		final var counts = new LinkedHashMap<String, Integer>();
+		final var start = System.currentTimeMillis();
+		try (var connection = dataSource.getConnection()) {
+			final var autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				final var q = connection.getMetaData().getIdentifierQuoteString().trim();
+				generateNodes(connection, counts);
+				generateIam(connection, counts, random, q);
+				generateProjects(connection, counts, random, q);
+				generateSubscriptions(connection, counts, random, q);
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+		log.info("Data set {} generated in {}ms: {}", prefix, System.currentTimeMillis() - start, counts);
+		return counts;
+	}
+
+	private void generateNodes(final Connection connection, final Map<String, Integer> counts)
+			throws SQLException {
+		final var sql = "INSERT INTO ligoj_node (id, name, mode, refined) VALUES (?,?,?,?)";
+		counts.put("node", insert(connection, sql, batch -> {
+			for (var s = 0; s < services; s++) {
+				batch.add(getService(s), prefix + " " + s, "ALL", null);
+				for (var t = 0; t < tools; t++) {
+					batch.add(getTool(s, t), prefix + " " + s + " " + t, "ALL", getService(s));
+				}
+			}
+			for (var i = 0; i < services * tools * instances; i++) {
+				final var tool = i / instances;
+				batch.add(getInstance(i), prefix + " instance " + i, "ALL", getTool(tool / tools, tool % tools));
+			}
+		}));
+	}
+
+	private void generateIam(final Connection connection, final Map<String, Integer> counts, final Random random,
+			final String q) throws SQLException {
+		final var companyDns = new String[companies];
+		counts.put("cache_company", insert(connection,
+				"INSERT INTO ligoj_cache_company (id, name, description) VALUES (?,?,?)", batch -> {
+					for (var i = 0; i < companies; i++) {
+						companyDns[i] = toDn(companyDns, i, "ou", getCompany(i), "ou=people," + BASE_DN);
+						batch.add(getCompany(i), getCompany(i), companyDns[i]);
+					}
+				}));
+		final var groupDns = new String[groups];
+		counts.put("cache_group", insert(connection,
+				"INSERT INTO ligoj_cache_group (id, name, description) VALUES (?,?,?)", batch -> {
+					for (var i = 0; i < groups; i++) {
+						groupDns[i] = toDn(groupDns, i, "cn", getGroup(i), "ou=groups," + BASE_DN);
+						batch.add(getGroup(i), getGroup(i), groupDns[i]);
+					}
+				}));
+		final var companyZipf = new Zipf(companies, skew, random);
+		counts.put("cache_user", insert(connection,
+				"INSERT INTO ligoj_cache_user (id, first_name, last_name, mails, company) VALUES (?,?,?,?,?)",
+				batch -> {
+					for (var i = 0; i < users; i++) {
+						batch.add(getUser(i), "First" + i, "Last" + i, getUser(i) + "@sample.com",
+								companies == 0 ? null : getCompany(companyZipf.next()));
+					}
+				}));
+		final var groupZipf = new Zipf(groups, skew, random);
+		final var id = new int[] { idOffset };
+		counts.put("cache_membership", insert(connection, "INSERT INTO ligoj_cache_membership (id, " + q + "group"
+				+ q + ", sub_group, " + q + "user" + q + ") VALUES (?,?,?,?)", batch -> {
+					for (var i = 1; i < groups; i++) {
+						batch.add(id[0]++, getGroup((i - 1) / fanout), getGroup(i), null);
+					}
+					for (var i = 0; groups > 0 && i < users; i++) {
+						for (var m = 0; m < memberships; m++) {
+							batch.add(id[0]++, getGroup(groupZipf.next()), null, getUser(i));
+						}
+					}
+				}));
+		counts.put("delegate_org", insert(connection, "INSERT INTO ligoj_delegate_org (id, name, can_admin, can_write,"
+				+ " receiver, receiver_type, dn, type) VALUES (?,?,?,?,?,?,?,?)", batch -> {
+					for (var i = 0; users > 0 && companies > 0 && i < delegates; i++) {
+						final var company = companyZipf.next();
+						batch.add(idOffset + i, getCompany(company), i % 2 == 0, i % 3 != 0,
+								getUser(random.nextInt(users)), "USER", companyDns[company], "COMPANY");
+					}
+				}));
+	}
+
+	private void generateProjects(final Connection connection, final Map<String, Integer> counts,
+			final Random random, final String q) throws SQLException {
+		counts.put("project", insert(connection,
+				"INSERT INTO ligoj_project (id, name, pkey, description, team_leader) VALUES (?,?,?,?,?)", batch -> {
+					for (var i = 0; i < projects; i++) {
+						batch.add(getProject(i), prefix + " project " + i, getProjectKey(i), "Project " + i,
+								users == 0 ? null : getUser(random.nextInt(users)));
+					}
+				}));
+		final var groupZipf = new Zipf(groups, skew, random);
+		counts.put("cache_project_group", insert(connection, "INSERT INTO ligoj_cache_project_group (id, " + q
+				+ "group" + q + ", project) VALUES (?,?,?)", batch -> {
+					for (var i = 0; groups > 0 && i < projects; i++) {
+						batch.add(idOffset + i, getGroup(groupZipf.next()), getProject(i));
+					}
+				}));
+		counts.put("delegate_node", insert(connection, "INSERT INTO ligoj_delegate_node (id, name, can_admin,"
+				+ " can_write, can_subscribe, receiver, receiver_type) VALUES (?,?,?,?,?,?,?)", batch -> {
+					for (var i = 0; users > 0 && services > 0 && i < delegates; i++) {
+						batch.add(idOffset + i, getService(random.nextInt(services)), i % 2 == 0, true, true,
+								getUser(random.nextInt(users)), "USER");
+					}
+				}));
+	}
+
+	private void generateSubscriptions(final Connection connection, final Map<String, Integer> counts,
+			final Random random, final String q) throws SQLException {
+		final var nodes = services * tools * instances;
+		final var projectZipf = new Zipf(projects, skew, random);
+		final var nodeZipf = new Zipf(nodes, skew, random);
+		final var subscriptionNodes = new String[subscriptions];
+		counts.put("subscription",
+				insert(connection, "INSERT INTO ligoj_subscription (id, node, project) VALUES (?,?,?)", batch -> {
+					for (var i = 0; projects > 0 && nodes > 0 && i < subscriptions; i++) {
+						subscriptionNodes[i] = getInstance(nodeZipf.next());
+						batch.add(getSubscription(i), subscriptionNodes[i], getProject(projectZipf.next()));
+					}
+				}));
+		final var subscriptionZipf = new Zipf(subscriptions, skew, random);
+		final var now = System.currentTimeMillis();
+		final var period = days * 24L * 3600L * 1000L;
+		counts.put("event", insert(connection, "INSERT INTO ligoj_event (id, " + q + "date" + q + ", type, " + q
+				+ "value" + q + ", node, subscription) VALUES (?,?,?,?,?,?)", batch -> {
+					for (var i = 0; nodes > 0 && i < events; i++) {
+						final var date = new Timestamp(now - (long) (random.nextDouble() * period));
+						final var value = random.nextInt(10) == 0 ? "DOWN" : "UP";
+						if (subscriptions == 0 || projects == 0 || random.nextInt(10) == 0) {
+							// Node event
+							batch.add(idOffset + i, date, "STATUS", value, getInstance(nodeZipf.next()), null);
+						} else {
+							batch.add(idOffset + i, date, "STATUS", value, null,
+									getSubscription(subscriptionZipf.next()));
+						}
+					}
+				}));
+	}
+
+	/**
+	 * Remove the generated data set, and the rows created since and depending on it.
+	 *
+	 * @param dataSource The target data source.
+	 * @throws SQLException When a deletion failed.
+	 */
+	public void clean(final DataSource dataSource) throws SQLException {
+		final var nodes = "service:" + prefix + "%";
+		final var like = prefix + "-%";
+		try (var connection = dataSource.getConnection()) {
+			final var q = connection.getMetaData().getIdentifierQuoteString().trim();
+			final var group = q + "group" + q;
+			final var user = q + "user" + q;
+			delete(connection, "ligoj_event WHERE id>=? OR node LIKE ? OR subscription IN"
+					+ " (SELECT id FROM ligoj_subscription WHERE id>=? OR node LIKE ? OR project>=?)", idOffset,
+					nodes, idOffset, nodes, idOffset);
+			delete(connection, "ligoj_parameter_value WHERE node LIKE ? OR subscription IN"
+					+ " (SELECT id FROM ligoj_subscription WHERE id>=? OR node LIKE ? OR project>=?)", nodes,
+					idOffset, nodes, idOffset);
+			delete(connection, "ligoj_subscription WHERE id>=? OR node LIKE ? OR project>=?", idOffset, nodes,
+					idOffset);
+			delete(connection, "ligoj_cache_project_group WHERE id>=? OR project>=? OR " + group + " LIKE ?",
+					idOffset, idOffset, like);
+			delete(connection, "ligoj_project WHERE id>=?", idOffset);
+			delete(connection, "ligoj_delegate_node WHERE id>=? OR name LIKE ?", idOffset, nodes);
+			delete(connection, "ligoj_delegate_org WHERE id>=? OR receiver LIKE ?", idOffset, like);
+			delete(connection, "ligoj_cache_membership WHERE id>=? OR " + group + " LIKE ? OR " + user + " LIKE ?",
+					idOffset, like, like);
+			delete(connection, "ligoj_cache_user WHERE id LIKE ?", like);
+			delete(connection, "ligoj_cache_group WHERE id LIKE ?", like);
+			delete(connection, "ligoj_cache_company WHERE id LIKE ?", like);
+			delete(connection, "ligoj_node WHERE id LIKE ?", nodes + ":%:%");
+			delete(connection, "ligoj_node WHERE id LIKE ?", nodes + ":%");
+			delete(connection, "ligoj_node WHERE id LIKE ?", nodes);
+		}
+	}
+
+	private void delete(final Connection connection, final String from, final Object... parameters)
+			throws SQLException {
+		try (var statement = connection.prepareStatement("DELETE FROM " + from)) {
+			for (var i = 0; i < parameters.length; i++) {
+				statement.setObject(i + 1, parameters[i]);
+			}
+			statement.executeUpdate();
+		}
+	}
+}
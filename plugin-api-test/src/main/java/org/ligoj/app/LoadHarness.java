@@ -0,0 +1,172 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Run scenarios concurrently and report their throughput and latency percentiles. The scenarios are usually the
+ * resources calls against a data set built by {@link DatasetGenerator}. Each scenario is run in turn: each thread
+ * executes the initializer, such as the security context setup, then the warm-up calls, then the measured calls.
+ */
+@Setter
+@Slf4j
+public class LoadHarness {
+
+	/**
+	 * Amount of concurrent threads.
+	 */
+	private int threads = 4;
+
+	/**
+	 * Amount of measured calls per thread.
+	 */
+	private int iterations = 100;
+
+	/**
+	 * Amount of ignored calls per thread, before the measured ones.
+	 */
+	private int warmup = 10;
+
+	/**
+	 * Executed once by each thread before the calls.
+	 */
+	private Runnable initializer = () -> {
+		// Nothing by default
+	};
+
+	private final Map<String, Callable<?>> scenarios = new LinkedHashMap<>();
+
+	/**
+	 * Add a scenario.
+	 *
+	 * @param name     The scenario name.
+	 * @param scenario The called code. An exception counts as an error.
+	 * @return This harness.
+	 */
+	public LoadHarness add(final String name, final Callable<?> scenario) {
+		scenarios.put(name, scenario);
+		return this;
+	}
+
+	/**
+	 * Run all the scenarios.
+	 *
+	 * @return The reports by scenario name, in addition order.
+	 * @throws InterruptedException When interrupted while waiting the threads.
+	 * @throws IllegalStateException When a thread fails, for sample in the initializer. The failure is the cause.
+	 */
+	public Map<String, LoadReport> run() throws InterruptedException {
+		final var result = new LinkedHashMap<String, LoadReport>();
+		for (final var scenario : scenarios.entrySet()) {
+			final var report = run(scenario.getKey(), scenario.getValue());
+			log.info("{}", report);
+			result.put(scenario.getKey(), report);
+		}
+		return result;
+	}
+
+	private LoadReport run(final String name, final Callable<?> scenario) throws InterruptedException {
+		final var executor = Executors.newFixedThreadPool(threads);
+		try {
+			final var ready = new CountDownLatch(threads);
+			final var go = new CountDownLatch(1);
+			final var failure = new AtomicReference<RuntimeException>();
+			final var futures = new ArrayList<Future<long[]>>();
+			for (var t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					try {
+						initializer.run();
+						for (var i = 0; i < warmup; i++) {
+							call(scenario);
+						}
+					} catch (final RuntimeException e) {
+						failure.compareAndSet(null, e);
+						throw e;
+					} finally {
+						// A failed initializer must not block the other threads
+						ready.countDown();
+					}
+					go.await();
+					final var durations = new long[iterations];
+					for (var i = 0; i < iterations; i++) {
+						final var start = System.nanoTime();
+						final var success = call(scenario);
+						final var duration = System.nanoTime() - start;
+						// Errors are kept negative
+						durations[i] = success ? duration : -duration - 1;
+					}
+					return durations;
+				}));
+			}
+			ready.await();
+			if (failure.get() != null) {
+				// The waiting threads are interrupted by the shutdown
+				throw new IllegalStateException("Load thread initialization failed", failure.get());
+			}
+			final var start = System.nanoTime();
+			go.countDown();
+			final var durations = new ArrayList<long[]>();
+			for (final var future : futures) {
+				durations.add(get(future));
+			}
+			return toReport(name, durations, System.nanoTime() - start);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static long[] get(final Future<long[]> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException("Load thread failed", e.getCause());
+		}
+	}
+
+	private static boolean call(final Callable<?> scenario) {
+		try {
+			scenario.call();
+			return true;
+		} catch (final Exception e) { // NOSONAR Counted as an error
+			return false;
+		}
+	}
+
+	private static double percentile(final long[] sorted, final double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		final var index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000000d;
+	}
+
+	private static LoadReport toReport(final String name, final List<long[]> durations, final long elapsed) {
+		final var all = durations.stream().flatMapToLong(Arrays::stream).toArray();
+		final var report = new LoadReport();
+		report.setName(name);
+		report.setCalls(all.length);
+		report.setErrors((int) Arrays.stream(all).filter(d -> d < 0).count());
+		final var sorted = Arrays.stream(all).map(d -> d < 0 ? -d - 1 : d).sorted().toArray();
+		report.setThroughput(elapsed == 0 ? 0 : all.length * 1000000000d / elapsed);
+		report.setP50(percentile(sorted, 0.5));
+		report.setP90(percentile(sorted, 0.9));
+		report.setP99(percentile(sorted, 0.99));
+		report.setMax(percentile(sorted, 1));
+		return report;
+	}
+}
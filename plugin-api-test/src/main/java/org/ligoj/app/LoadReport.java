@@ -0,0 +1,61 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Result of a load scenario, see {@link LoadHarness}.
+ */
+@Getter
+@Setter
+public class LoadReport {
+
+	/**
+	 * The scenario name.
+	 */
+	private String name;
+
+	/**
+	 * Amount of measured calls.
+	 */
+	private int calls;
+
+	/**
+	 * Amount of calls ended with an exception.
+	 */
+	private int errors;
+
+	/**
+	 * Amount of calls per second.
+	 */
+	private double throughput;
+
+	/**
+	 * Median duration, in milliseconds.
+	 */
+	private double p50;
+
+	/**
+	 * 90th percentile duration, in milliseconds.
+	 */
+	private double p90;
+
+	/**
+	 * 99th percentile duration, in milliseconds.
+	 */
+	private double p99;
+
+	/**
+	 * Maximal duration, in milliseconds.
+	 */
+	private double max;
+
+	@Override
+	public String toString() {
+		return String.format("%-30s calls=%d errors=%d throughput=%.1f/s p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+				name, calls, errors, throughput, p50, p90, p99, max);
+	}
+}
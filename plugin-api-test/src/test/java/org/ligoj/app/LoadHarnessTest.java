@@ -0,0 +1,105 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link LoadHarness} and of the {@link DatasetGenerator} distributions. No Spring involved.
+ */
+class LoadHarnessTest {
+
+	@Test
+	void run() throws InterruptedException {
+		final var initialized = new AtomicInteger();
+		final var calls = new AtomicInteger();
+		final var harness = new LoadHarness();
+		harness.setThreads(3);
+		harness.setIterations(20);
+		harness.setWarmup(5);
+		harness.setInitializer(initialized::incrementAndGet);
+		harness.add("sleep", () -> {
+			Thread.sleep(1);
+			return calls.incrementAndGet();
+		}).add("fail", () -> {
+			if (calls.incrementAndGet() % 2 == 0) {
+				throw new IllegalStateException();
+			}
+			return null;
+		});
+		final var reports = harness.run();
+		Assertions.assertEquals(6, initialized.get());
+		Assertions.assertEquals(150, calls.get());
+
+		final var sleep = reports.get("sleep");
+		Assertions.assertEquals("sleep", sleep.getName());
+		Assertions.assertEquals(60, sleep.getCalls());
+		Assertions.assertEquals(0, sleep.getErrors());
+		Assertions.assertTrue(sleep.getP50() >= 1);
+		Assertions.assertTrue(sleep.getP50() <= sleep.getP90());
+		Assertions.assertTrue(sleep.getP90() <= sleep.getP99());
+		Assertions.assertTrue(sleep.getP99() <= sleep.getMax());
+		Assertions.assertTrue(sleep.getThroughput() > 0);
+		Assertions.assertTrue(sleep.toString().startsWith("sleep"));
+
+		final var fail = reports.get("fail");
+		Assertions.assertEquals(60, fail.getCalls());
+		Assertions.assertTrue(fail.getErrors() > 0);
+	}
+
+	@Test
+	void runInitializerFailed() {
+		final var harness = new LoadHarness();
+		harness.setThreads(3);
+		final var initialized = new AtomicInteger();
+		harness.setInitializer(() -> {
+			if (initialized.incrementAndGet() == 2) {
+				throw new IllegalArgumentException("setup");
+			}
+		});
+		harness.add("noop", () -> null);
+		final var e = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+				() -> Assertions.assertThrows(IllegalStateException.class, harness::run));
+		Assertions.assertTrue(e.getCause() instanceof IllegalArgumentException);
+		Assertions.assertEquals("setup", e.getCause().getMessage());
+	}
+
+	@Test
+	void zipf() {
+		final var counts = new int[10];
+		final var zipf = new DatasetGenerator.Zipf(10, 1, new Random(1));
+		for (var i = 0; i < 10000; i++) {
+			counts[zipf.next()]++;
+		}
+		// The first rank is about ten times more popular than the last one
+		Assertions.assertTrue(counts[0] > counts[9] * 5);
+
+		final var uniform = new DatasetGenerator.Zipf(10, 0, new Random(1));
+		final var uniformCounts = new int[10];
+		for (var i = 0; i < 10000; i++) {
+			uniformCounts[uniform.next()]++;
+		}
+		Assertions.assertTrue(uniformCounts[0] < uniformCounts[9] * 2);
+	}
+
+	@Test
+	void identifiers() {
+		final var generator = new DatasetGenerator();
+		Assertions.assertEquals("service:load1", generator.getService(1));
+		Assertions.assertEquals("service:load1:t2", generator.getTool(1, 2));
+		Assertions.assertEquals("service:load0:t0:i0", generator.getInstance(0));
+		Assertions.assertEquals("service:load1:t1:i2", generator.getInstance(17));
+		Assertions.assertEquals(1000001, generator.getProject(1));
+		Assertions.assertEquals("load-1", generator.getProjectKey(1));
+		Assertions.assertEquals(1000002, generator.getSubscription(2));
+		Assertions.assertEquals("load-user-3", generator.getUser(3));
+		Assertions.assertEquals("load-group-3", generator.getGroup(3));
+		Assertions.assertEquals("load-company-3", generator.getCompany(3));
+	}
+}
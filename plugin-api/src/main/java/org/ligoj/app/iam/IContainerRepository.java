@@ -3,8 +3,11 @@
  */
 package org.ligoj.app.iam;
 
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
@@ -30,6 +33,21 @@ public interface IContainerRepository<T extends ContainerOrg> {
 		return findAll().get(id);
 	}
 
+	/**
+	 * Return the containers corresponding to the given identifiers using the cache. Implementations should resolve them
+	 * with a single lookup.
+	 *
+	 * @param ids The containers' identifiers. Case is sensitive. Correspond to the normalized containers' names.
+	 * @return The found containers, key is the identifier. The unknown identifiers are ignored.
+	 * @since 4.0.5
+	 */
+	default Map<String, T> findAllById(final Collection<String> ids) {
+		final var all = findAll();
+		final var result = new HashMap<String, T>();
+		ids.stream().filter(Objects::nonNull).filter(all::containsKey).forEach(id -> result.put(id, all.get(id)));
+		return result;
+	}
+
 	/**
 	 * Find a container from its identifier. Security is applied regarding the given user.
 	 *
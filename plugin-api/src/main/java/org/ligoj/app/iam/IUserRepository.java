@@ -4,10 +4,13 @@
 package org.ligoj.app.iam;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 import org.ligoj.bootstrap.core.resource.BusinessException;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
@@ -92,6 +95,21 @@ public interface IUserRepository {
 		return findAll().get(id);
 	}
 
+	/**
+	 * Return the {@link UserOrg} instances corresponding to the given identifiers using the user cache. Implementations
+	 * should resolve them with a single lookup.
+	 *
+	 * @param ids The user identifiers.
+	 * @return The found users, key is the identifier. The unknown identifiers are ignored.
+	 * @since 4.0.5
+	 */
+	default Map<String, UserOrg> findAllById(final Collection<String> ids) {
+		final var all = findAll();
+		final var result = new HashMap<String, UserOrg>();
+		ids.stream().filter(Objects::nonNull).filter(all::containsKey).forEach(id -> result.put(id, all.get(id)));
+		return result;
+	}
+
 	/**
 	 * Return the {@link UserOrg} corresponding to the given identifier using the user cache and the relevant security
 	 * to check the current user has the rights to perform this request.
@@ -179,6 +197,30 @@ public interface IUserRepository {
 	 */
 	void setPassword(UserOrg user, @Nullable String password, String newPassword);
 
+	/**
+	 * Return a converter of identifiers to safe {@link UserOrg} instances, see {@link #toUser(String)}, resolving the
+	 * given identifiers with a single lookup.
+	 *
+	 * @param ids The user identifiers to resolve.
+	 * @return A converter returning a not <code>null</code> {@link UserOrg} instance for a not <code>null</code>
+	 *         identifier.
+	 * @since 4.0.5
+	 */
+	default Function<String, UserOrg> toUsers(final Collection<String> ids) {
+		final var users = findAllById(ids);
+		return id -> {
+			if (id == null) {
+				return null;
+			}
+			var result = users.get(id);
+			if (result == null) {
+				result = new UserOrg();
+				result.setId(id);
+			}
+			return result;
+		};
+	}
+
 	/**
 	 * Return a safe {@link UserOrg} instance, even if the user is not in LDAP directory.
 	 *
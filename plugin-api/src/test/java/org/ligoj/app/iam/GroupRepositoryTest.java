@@ -3,7 +3,9 @@
  */
 package org.ligoj.app.iam;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -19,6 +21,19 @@ class GroupRepositoryTest {
 		Assertions.assertTrue(new EmptyGroupRepository().findAll().isEmpty());
 	}
 
+	@Test
+	void findAllById() {
+		final var repository = new EmptyGroupRepository() {
+			@Override
+			public Map<String, GroupOrg> findAll() {
+				return Map.of("group", new GroupOrg("cn=group", "Group", Collections.emptySet()));
+			}
+		};
+		final var groups = repository.findAllById(Arrays.asList("group", "any", null));
+		Assertions.assertEquals(1, groups.size());
+		Assertions.assertEquals("Group", groups.get("group").getName());
+	}
+
 	@Test
 	void delete() {
 		new EmptyGroupRepository().delete(null);
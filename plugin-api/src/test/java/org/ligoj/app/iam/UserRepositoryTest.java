@@ -3,6 +3,7 @@
  */
 package org.ligoj.app.iam;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -170,6 +171,22 @@ class UserRepositoryTest {
 		Assertions.assertEquals("login", new MockUserRepository().toUser("login").getId());
 	}
 
+	@Test
+	void findAllById() {
+		final var users = new MockUserRepository().findAllById(Arrays.asList("some", "any", null));
+		Assertions.assertEquals(1, users.size());
+		Assertions.assertNotNull(users.get("some"));
+	}
+
+	@Test
+	void toUsers() {
+		final var toUser = new MockUserRepository().toUsers(List.of("some", "login"));
+		Assertions.assertNull(toUser.apply(null));
+		Assertions.assertEquals("login", toUser.apply("login").getId());
+		// The cached instance is used
+		Assertions.assertNull(toUser.apply("some").getId());
+	}
+
 	@Test
 	void checkLockStatus() {
 		// Nothing by default
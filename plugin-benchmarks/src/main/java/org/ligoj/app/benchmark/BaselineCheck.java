@@ -0,0 +1,129 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compare the JMH JSON results with the stored baseline. A benchmark has regressed when its confidence interval is
+ * worse than the baseline one by more than the tolerance, so the noise of a short run is not reported: the lower bound
+ * of the new score is compared to the upper bound of the baseline for the time modes, the upper bound of the new score
+ * is compared to the lower bound of the baseline for the throughput mode. Arguments:
+ * <ol>
+ * <li>The JMH JSON result file.</li>
+ * <li>The JMH JSON baseline file, produced by the same run on the same kind of machine.</li>
+ * <li>The tolerance, such as <code>0.2</code> for 20%.</li>
+ * </ol>
+ * The process exit code is <code>1</code> when at least one benchmark has regressed, <code>2</code> when the baseline
+ * is missing.
+ */
+public final class BaselineCheck {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private BaselineCheck() {
+		// Main class
+	}
+
+	/**
+	 * Return the scores by benchmark and parameters.
+	 */
+	private static Map<String, JsonNode> read(final File file) throws IOException {
+		final var result = new TreeMap<String, JsonNode>();
+		for (final var benchmark : MAPPER.readTree(file)) {
+			result.put(benchmark.path("benchmark").asText() + benchmark.path("params"), benchmark);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the regression ratio of a score, positive when worse than the baseline.
+	 *
+	 * @param mode     The JMH mode: <code>thrpt</code>, <code>avgt</code>, <code>sample</code>, <code>ss</code>.
+	 * @param score    The new score.
+	 * @param baseline The baseline score.
+	 * @return The regression ratio.
+	 */
+	static double regression(final String mode, final double score, final double baseline) {
+		if ("thrpt".equals(mode)) {
+			return (baseline - score) / baseline;
+		}
+		return (score - baseline) / baseline;
+	}
+
+	/**
+	 * Return the confidence interval of a score: the one computed by JMH, or the score and its error.
+	 *
+	 * @param benchmark The JMH benchmark result.
+	 * @return The lower and upper bounds.
+	 */
+	static double[] interval(final JsonNode benchmark) {
+		final var metric = benchmark.path("primaryMetric");
+		final var confidence = metric.path("scoreConfidence");
+		if (confidence.size() == 2 && confidence.get(0).isNumber() && confidence.get(1).isNumber()) {
+			return new double[] { confidence.get(0).asDouble(), confidence.get(1).asDouble() };
+		}
+		final var score = metric.path("score").asDouble();
+		final var error = metric.path("scoreError").isNumber() ? metric.path("scoreError").asDouble() : 0;
+		return new double[] { score - error, score + error };
+	}
+
+	/**
+	 * Return the regression ratio of a score from the confidence intervals, positive when worse than the baseline even
+	 * with the most favorable bounds.
+	 *
+	 * @param mode     The JMH mode: <code>thrpt</code>, <code>avgt</code>, <code>sample</code>, <code>ss</code>.
+	 * @param score    The new score interval.
+	 * @param baseline The baseline score interval.
+	 * @return The regression ratio.
+	 */
+	static double regression(final String mode, final double[] score, final double[] baseline) {
+		if ("thrpt".equals(mode)) {
+			return regression(mode, score[1], baseline[0]);
+		}
+		return regression(mode, score[0], baseline[1]);
+	}
+
+	/**
+	 * Compare the results and the baseline.
+	 *
+	 * @param args The result file, the baseline file and the tolerance.
+	 * @throws IOException When a file cannot be read.
+	 */
+	public static void main(final String[] args) throws IOException {
+		final var baselineFile = new File(args[1]);
+		if (!baselineFile.exists()) {
+			System.out.println("No baseline " + baselineFile + ". Run the Benchmarks workflow with the baseline input,"
+					+ " then commit its jmh-result artifact as this file.");
+			System.exit(2);
+		}
+		final var tolerance = Double.parseDouble(args[2]);
+		final var baseline = read(baselineFile);
+		var regressions = 0;
+		for (final var entry : read(new File(args[0])).entrySet()) {
+			final var reference = baseline.get(entry.getKey());
+			if (reference == null) {
+				System.out.println("NEW       " + entry.getKey());
+				continue;
+			}
+			final var ratio = regression(entry.getValue().path("mode").asText(), interval(entry.getValue()),
+					interval(reference));
+			final var regressed = ratio > tolerance;
+			if (regressed) {
+				regressions++;
+			}
+			System.out.printf("%-9s %s %+.1f%%%n", regressed ? "REGRESSED" : "OK", entry.getKey(), ratio * 100);
+		}
+		if (regressions > 0) {
+			System.out.println(regressions + " benchmark(s) regressed by more than " + tolerance * 100 + "%");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ligoj.app.api.ToolPlugin;
+import org.ligoj.app.model.Node;
+import org.ligoj.app.resource.ServicePluginLocator;
+import org.ligoj.app.resource.plugin.AbstractServicePlugin;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * In-memory data shared by the benchmarks: a node tree and the plug-ins of its services and tools.
+ */
+public final class BenchmarkData {
+
+	/**
+	 * Amount of services.
+	 */
+	public static final int SERVICES = 10;
+
+	/**
+	 * Amount of tools per service.
+	 */
+	public static final int TOOLS = 5;
+
+	private BenchmarkData() {
+		// Factory class
+	}
+
+	/**
+	 * A plug-in bean with a key.
+	 */
+	private static class KeyPlugin extends AbstractServicePlugin {
+
+		private final String key;
+
+		private KeyPlugin(final String key) {
+			this.key = key;
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+	}
+
+	/**
+	 * A tool plug-in bean with a key.
+	 */
+	private static class KeyToolPlugin extends KeyPlugin implements ToolPlugin {
+
+		private KeyToolPlugin(final String key) {
+			super(key);
+		}
+	}
+
+	/**
+	 * Return the key of a service.
+	 *
+	 * @param service The service index.
+	 * @return The service key, such as <code>service:s1</code>.
+	 */
+	public static String toService(final int service) {
+		return "service:s" + service;
+	}
+
+	/**
+	 * Return the key of a tool.
+	 *
+	 * @param service The service index.
+	 * @param tool    The tool index.
+	 * @return The tool key, such as <code>service:s1:t2</code>.
+	 */
+	public static String toTool(final int service, final int tool) {
+		return toService(service) + ":t" + tool;
+	}
+
+	private static Node newNode(final String id, final Node refined) {
+		final var node = new Node();
+		node.setId(id);
+		node.setName(id.toUpperCase());
+		node.setRefined(refined);
+		return node;
+	}
+
+	/**
+	 * Return a node tree: the services, their tools, and the given amount of nodes spread among the tools.
+	 *
+	 * @param nodes The amount of leaf nodes.
+	 * @return All the nodes, the parents first.
+	 */
+	public static List<Node> newNodes(final int nodes) {
+		final var result = new ArrayList<Node>();
+		final var tools = new ArrayList<Node>();
+		for (var s = 0; s < SERVICES; s++) {
+			final var service = newNode(toService(s), null);
+			result.add(service);
+			for (var t = 0; t < TOOLS; t++) {
+				final var tool = newNode(toTool(s, t), service);
+				tools.add(tool);
+				result.add(tool);
+			}
+		}
+		for (var n = 0; n < nodes; n++) {
+			final var tool = tools.get(n % tools.size());
+			result.add(newNode(tool.getId() + ":n" + n, tool));
+		}
+		return result;
+	}
+
+	/**
+	 * Return a locator of the plug-ins of all the services, and of the first tool of each service as a tool plug-in.
+	 *
+	 * @return The locator backed by a standalone context.
+	 */
+	public static ServicePluginLocator newLocator() {
+		final var context = new GenericApplicationContext();
+		for (var s = 0; s < SERVICES; s++) {
+			final var service = toService(s);
+			context.registerBean(service, KeyPlugin.class, () -> new KeyPlugin(service));
+			final var tool = toTool(s, 0);
+			context.registerBean(tool, KeyToolPlugin.class, () -> new KeyToolPlugin(tool));
+		}
+		context.refresh();
+		final var locator = new ServicePluginLocator();
+		locator.setApplicationContext(context);
+		return locator;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.dialect.HSQLDialect;
+import org.hibernate.dialect.function.StandardSQLFunction;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.ligoj.app.dao.SecuritySpringDataListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.objenesis.ObjenesisStd;
+
+/**
+ * SQL rendering of the DN functions of {@link SecuritySpringDataListener}. The listener is built without entity
+ * manager factory, and the private function type is reached by reflection: the rendering itself is called directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DnFunctionBenchmark {
+
+	/**
+	 * The rendered function.
+	 */
+	@Param({ "visibleProject", "writeDN", "inProject" })
+	public String function;
+
+	private StandardSQLFunction sqlFunction;
+
+	private List<SqlAstNode> arguments;
+
+	private final StringBuilder sql = new StringBuilder();
+
+	private final SqlAppender appender = sql::append;
+
+	private SqlAstTranslator<?> translator;
+
+	private static String constant(final String name) throws ReflectiveOperationException {
+		final var field = SecuritySpringDataListener.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return (String) field.get(null);
+	}
+
+	/**
+	 * Build the function as registered by the listener.
+	 *
+	 * @throws ReflectiveOperationException When the listener structure has changed.
+	 */
+	@Setup
+	public void setup() throws ReflectiveOperationException {
+		final var listener = new ObjenesisStd().newInstance(SecuritySpringDataListener.class);
+		final var dialect = SecuritySpringDataListener.class.getDeclaredField("dialect");
+		dialect.setAccessible(true);
+		dialect.set(listener, new HSQLDialect());
+
+		final var definitions = Map.of("visibleProject",
+				new Object[] { List.of("$team_leader", "$arg", "$user"),
+						constant("VISIBLE_PROJECT") + constant("DELEGATED"), null },
+				"writeDN", new Object[] { List.of("$arg", "$user"), constant("DELEGATED"), "can_write" }, "inProject",
+				new Object[] { List.of("$user", "$project"),
+						constant("IS_TEAM_LEADER_ID") + constant("IN_PROJECT"), null });
+		final var definition = definitions.get(function);
+		final var type = Class.forName(SecuritySpringDataListener.class.getName() + "$DnFunction");
+		final var constructor = type.getDeclaredConstructor(SecuritySpringDataListener.class, String.class,
+				List.class, String.class, String.class);
+		constructor.setAccessible(true);
+		sqlFunction = (StandardSQLFunction) constructor.newInstance(listener, function, definition[0], definition[1],
+				definition[2]);
+		arguments = Collections.nCopies(((List<?>) definition[0]).size(), null);
+
+		// Each argument is rendered as a parameter marker
+		translator = (SqlAstTranslator<?>) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { SqlAstTranslator.class }, (proxy, method, args) -> {
+					if (method.getName().equals("render")) {
+						sql.append('?');
+					}
+					return null;
+				});
+	}
+
+	/**
+	 * Render the function.
+	 *
+	 * @return The rendered SQL length.
+	 */
+	@Benchmark
+	public int render() {
+		sql.setLength(0);
+		sqlFunction.render(appender, arguments, translator);
+		return sql.length();
+	}
+}
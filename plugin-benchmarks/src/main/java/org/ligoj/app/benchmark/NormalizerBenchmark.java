@@ -0,0 +1,99 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.ligoj.app.api.Normalizer;
+import org.ligoj.app.validation.DistinguishNameValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Identifier normalization of {@link Normalizer} and DN validation of {@link DistinguishNameValidator}, over 1000
+ * organizational names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizerBenchmark {
+
+	private static final String[] NAMES = { "Équipe Sécurité", "Direction Générale", "ÀÉÈ Ligoj Öüß", "Ops",
+			"Réseau et Télécom" };
+
+	private final DistinguishNameValidator validator = new DistinguishNameValidator();
+
+	private final List<String> items = new ArrayList<>();
+
+	private final List<String> dns = new ArrayList<>();
+
+	/**
+	 * Build the names and their DN.
+	 */
+	@Setup
+	public void setup() {
+		for (var i = 0; i < 1000; i++) {
+			final var name = NAMES[i % NAMES.length] + " " + i;
+			items.add(name);
+			dns.add("cn=" + name + ",ou=" + NAMES[(i + 1) % NAMES.length] + ",ou=people,dc=sample,dc=com");
+		}
+		// Some invalid DN
+		dns.set(0, "cn=,ou=people");
+		dns.set(1, "cn=a+b,ou=people");
+	}
+
+	/**
+	 * Normalization item by item.
+	 *
+	 * @return The amount of characters.
+	 */
+	@Benchmark
+	public int normalize() {
+		var count = 0;
+		for (final var item : items) {
+			count += Normalizer.normalize(item).length();
+		}
+		return count;
+	}
+
+	/**
+	 * Normalization of a collection.
+	 *
+	 * @return The normalized items.
+	 */
+	@Benchmark
+	public Set<String> normalizeAll() {
+		return Normalizer.normalize(items);
+	}
+
+	/**
+	 * DN validation.
+	 *
+	 * @return The amount of valid DN.
+	 */
+	@Benchmark
+	public int isValidDn() {
+		var count = 0;
+		for (final var dn : dns) {
+			if (validator.isValid(dn, null)) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
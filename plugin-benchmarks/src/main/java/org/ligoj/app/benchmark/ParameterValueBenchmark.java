@@ -0,0 +1,85 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.ligoj.app.model.Parameter;
+import org.ligoj.app.model.ParameterType;
+import org.ligoj.app.model.ParameterValue;
+import org.ligoj.app.resource.node.ParameterValueResource;
+import org.ligoj.app.resource.node.ParameterValueVo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parameter value conversions of {@link ParameterValueResource}, for each parameter type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterValueBenchmark {
+
+	private static final Map<ParameterType, String> DATA = Map.of(ParameterType.TEXT, "some text value",
+			ParameterType.INTEGER, "42", ParameterType.BOOL, "true", ParameterType.DATE, "1577836800000",
+			ParameterType.SELECT, "2", ParameterType.MULTIPLE, "[0,2,3]", ParameterType.TAGS, "[\"A\",\"B\",\"C\"]");
+
+	/**
+	 * The parameter type.
+	 */
+	@Param({ "TEXT", "INTEGER", "BOOL", "DATE", "SELECT", "MULTIPLE", "TAGS" })
+	public ParameterType type;
+
+	private ParameterValue value;
+
+	private ParameterValueVo vo;
+
+	/**
+	 * Build the raw value and its parsed form.
+	 */
+	@Setup
+	public void setup() {
+		final var parameter = new Parameter();
+		parameter.setId("service:s1:p");
+		parameter.setType(type);
+		value = new ParameterValue();
+		value.setParameter(parameter);
+		value.setData(DATA.get(type));
+		vo = new ParameterValueVo();
+		ParameterValueResource.parseValue(value, vo);
+	}
+
+	/**
+	 * Raw data to typed value.
+	 *
+	 * @return The typed value.
+	 */
+	@Benchmark
+	public Object parseValue() {
+		return ParameterValueResource.parseValue(value, new ParameterValueVo());
+	}
+
+	/**
+	 * Typed value to raw data.
+	 *
+	 * @return The raw data.
+	 */
+	@Benchmark
+	public String toData() {
+		return ParameterValueResource.toData(vo);
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ligoj.app.api.ServicePlugin;
+import org.ligoj.app.api.ToolPlugin;
+import org.ligoj.app.resource.ServicePluginLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Plug-in resolution of {@link ServicePluginLocator}: exact key, nearest parent and missing plug-in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServicePluginLocatorBenchmark {
+
+	/**
+	 * The resolved node: a tool, a node of a tool, a node of a service without tool plug-in, and an unknown one.
+	 */
+	@Param({ "service:s3:t0", "service:s3:t0:n42", "service:s3:t2:n42", "service:any:t0" })
+	public String node;
+
+	private ServicePluginLocator locator;
+
+	/**
+	 * Build the locator.
+	 */
+	@Setup
+	public void setup() {
+		locator = BenchmarkData.newLocator();
+		locator.getPlugins();
+	}
+
+	/**
+	 * Nearest plug-in.
+	 *
+	 * @return The resolved plug-in.
+	 */
+	@Benchmark
+	public ServicePlugin getResource() {
+		return locator.getResource(node);
+	}
+
+	/**
+	 * Nearest plug-in of a type.
+	 *
+	 * @return The resolved plug-in.
+	 */
+	@Benchmark
+	public ToolPlugin getResourceType() {
+		return locator.getResource(node, ToolPlugin.class);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.ligoj.app.resource.plugin.XmlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+/**
+ * XPATH evaluation of {@link XmlUtils}: compiled expression cache against a compilation per call, and batch
+ * evaluation against a parse per expression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlUtilsBenchmark {
+
+	private static final String[] EXPRESSIONS = { "hudson/job/name", "hudson/job/color", "hudson/job[color='red']" };
+
+	private final XmlUtils xmlUtils = new XmlUtils();
+
+	private String xml;
+
+	private Document document;
+
+	/**
+	 * Build a Jenkins like job list.
+	 *
+	 * @throws Exception When the document cannot be parsed.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		final var builder = new StringBuilder("<hudson>");
+		for (var i = 0; i < 200; i++) {
+			builder.append("<job><name>job-").append(i).append("</name><color>").append(i % 3 == 0 ? "red" : "blue")
+					.append("</color></job>");
+		}
+		xml = builder.append("</hudson>").toString();
+		document = xmlUtils.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Former implementation: a new XPATH and a compilation per call.
+	 *
+	 * @return The matching tags.
+	 * @throws Exception When the expression cannot be evaluated.
+	 */
+	@Benchmark
+	public NodeList compilePerCall() throws Exception {
+		return (NodeList) XPathFactory.newInstance().newXPath().compile(EXPRESSIONS[2]).evaluate(document,
+				XPathConstants.NODESET);
+	}
+
+	/**
+	 * Compiled expression cache.
+	 *
+	 * @return The matching tags.
+	 * @throws Exception When the expression cannot be evaluated.
+	 */
+	@Benchmark
+	public NodeList compileCached() throws Exception {
+		return xmlUtils.getXpath(document, EXPRESSIONS[2]);
+	}
+
+	/**
+	 * One parse per expression.
+	 *
+	 * @return The amount of matching tags.
+	 * @throws Exception When the input cannot be parsed.
+	 */
+	@Benchmark
+	public int parsePerExpression() throws Exception {
+		var count = 0;
+		for (final var expression : EXPRESSIONS) {
+			count += xmlUtils.getXpath(xml, expression).getLength();
+		}
+		return count;
+	}
+
+	/**
+	 * One parse for all the expressions.
+	 *
+	 * @return The amount of matching tags.
+	 * @throws Exception When the input cannot be parsed.
+	 */
+	@Benchmark
+	public int parseBatch() throws Exception {
+		return xmlUtils.getXpaths(xml, EXPRESSIONS).values().stream().mapToInt(NodeList::getLength).sum();
+	}
+}
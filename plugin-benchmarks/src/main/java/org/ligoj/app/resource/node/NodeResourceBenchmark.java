@@ -0,0 +1,126 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.node;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.ligoj.app.benchmark.BenchmarkData;
+import org.ligoj.app.model.Parameter;
+import org.ligoj.app.model.ParameterType;
+import org.ligoj.app.model.ParameterValue;
+import org.ligoj.app.resource.ServicePluginLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Node conversions of {@link NodeResource} and parameter ordering of {@link DependencyComparator}. This benchmark is
+ * in the package of the resources to reach the comparator, the private converter is reached with a method handle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeResourceBenchmark {
+
+	private static final DependencyComparator COMPARATOR = new DependencyComparator();
+
+	/**
+	 * The amount of leaf nodes and parameters.
+	 */
+	@Param({ "100", "1000" })
+	public int size;
+
+	private MethodHandle toVoParameters;
+
+	private ServicePluginLocator locator;
+
+	private final List<Object[]> nodesAndValues = new ArrayList<>();
+
+	private final List<ParameterVo> parameters = new ArrayList<>();
+
+	/**
+	 * Build the nodes with two values each, and the parameters with dependencies.
+	 *
+	 * @throws ReflectiveOperationException When the converter signature has changed.
+	 */
+	@Setup
+	public void setup() throws ReflectiveOperationException {
+		toVoParameters = MethodHandles.privateLookupIn(NodeResource.class, MethodHandles.lookup()).findStatic(
+				NodeResource.class, "toVoParameters",
+				MethodType.methodType(Map.class, List.class, ServicePluginLocator.class));
+		locator = BenchmarkData.newLocator();
+		final var url = new Parameter();
+		url.setId("service:s0:url");
+		final var port = new Parameter();
+		port.setId("service:s0:port");
+		port.setType(ParameterType.INTEGER);
+		for (final var node : BenchmarkData.newNodes(size)) {
+			if (node.isRefining()) {
+				nodesAndValues.add(new Object[] { node, newValue(url, "https://" + node.getId()) });
+				nodesAndValues.add(new Object[] { node, newValue(port, "443") });
+			} else {
+				nodesAndValues.add(new Object[] { node, null });
+			}
+		}
+
+		for (var i = 0; i < size; i++) {
+			final var parameter = new ParameterVo();
+			parameter.setId("service:s0:p" + i);
+			parameter.setDepends(new HashSet<>());
+			if (i % 3 != 0) {
+				parameter.getDepends().add("service:s0:p" + (i / 3));
+			}
+			parameters.add(parameter);
+		}
+	}
+
+	private static ParameterValue newValue(final Parameter parameter, final String data) {
+		final var value = new ParameterValue();
+		value.setParameter(parameter);
+		value.setData(data);
+		return value;
+	}
+
+	/**
+	 * Nodes and values to the node tree.
+	 *
+	 * @return The nodes by identifier.
+	 * @throws Throwable When the conversion failed.
+	 */
+	@Benchmark
+	public Object toVoParameters() throws Throwable {
+		return toVoParameters.invoke(nodesAndValues, locator);
+	}
+
+	/**
+	 * Parameter ordering, as done by {@link ParameterResource}.
+	 *
+	 * @return The ordered parameters.
+	 */
+	@Benchmark
+	public List<ParameterVo> sortDependencies() {
+		final var clone = new ArrayList<>(parameters);
+		clone.sort((o1, o2) -> o1.getId().compareTo(o2.getId()));
+		clone.sort(COMPARATOR);
+		return clone;
+	}
+}
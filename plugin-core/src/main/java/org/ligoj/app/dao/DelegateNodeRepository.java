@@ -28,6 +28,13 @@ public interface DelegateNodeRepository extends RestRepository<DelegateNode, Int
 	 */
 	String VISIBLE_DELEGATE = VISIBLE_DELEGATE_PART + ")";
 
+	/**
+	 * Visible delegates matching the criteria. Parameters are <code>user</code> and <code>criteria</code>.
+	 */
+	String FIND_ALL = "FROM DelegateNode d WHERE (CAST(:criteria as string) IS NULL"
+			+ "       OR (UPPER(d.receiver) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
+			+ "           OR UPPER(d.name) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%')))) AND " + VISIBLE_DELEGATE;
+
 	/**
 	 * Return all {@link DelegateNode} objects regarding the given criteria.
 	 *
@@ -37,10 +44,7 @@ public interface DelegateNodeRepository extends RestRepository<DelegateNode, Int
 	 * @return all {@link DelegateNode} objects with the given name. Insensitive case search is used.
 	 */
 	@SuppressWarnings("unused")
-	@Query("SELECT d FROM DelegateNode d WHERE (CAST(:criteria as string) IS NULL                                                           "
-			+ "       OR (UPPER(d.receiver) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
-			+ "           OR UPPER(d.name) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))))" + " AND "
-			+ VISIBLE_DELEGATE)
+	@Query("SELECT d " + FIND_ALL)
 	Page<DelegateNode> findAll(String user, String criteria, Pageable page);
 
 	/**
@@ -3,6 +3,7 @@
  */
 package org.ligoj.app.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ligoj.app.model.Event;
@@ -96,4 +97,26 @@ public interface EventRepository extends RestRepository<Event, String> {
 	@Query("DELETE Event WHERE node.id = :node OR node.id LIKE CONCAT(:node, ':%')"
 			+ " OR subscription.id IN (SELECT id FROM Subscription WHERE node.id = :node OR node.id LIKE CONCAT(:node, ':%'))")
 	void deleteByNode(String node);
+
+	/**
+	 * Delete all events of the given subscriptions.
+	 *
+	 * @param subscriptions The subscription identifiers.
+	 * @return The amount of deleted events.
+	 */
+	@SuppressWarnings("unused")
+	@Modifying
+	@Query("DELETE Event WHERE subscription.id IN :subscriptions")
+	int deleteBySubscriptions(Collection<Integer> subscriptions);
+
+	/**
+	 * Delete all events of the given nodes. The events of the related subscriptions are not deleted.
+	 *
+	 * @param nodes The node identifiers.
+	 * @return The amount of deleted events.
+	 */
+	@SuppressWarnings("unused")
+	@Modifying
+	@Query("DELETE Event WHERE node.id IN :nodes")
+	int deleteByNodes(Collection<String> nodes);
 }
@@ -119,6 +119,16 @@ public interface NodeRepository extends RestRepository<Node, String> {
 	@Query("FROM Node n WHERE n.id=:id AND " + ADMIN_NODES)
 	Node findOneAdministerable(String id, String user);
 
+	/**
+	 * Visible nodes matching the criteria, the parent, the mode and the depth. Parameters are <code>user</code>,
+	 * <code>criteria</code>, <code>parent</code>, <code>mode</code> and <code>depth</code>.
+	 */
+	String FIND_ALL_VISIBLE = "FROM Node n LEFT JOIN n.refined nr1 LEFT JOIN nr1.refined nr2"
+			+ " WHERE (CAST(:parent as string) IS NULL OR (:parent = 'service' AND n.refined IS NULL) OR n.refined.id = :parent)"
+			+ " AND (:depth < 0 OR :depth > 1 OR (:depth = 0 AND nr1 IS NULL) OR (:depth = 1 AND nr2 IS NULL))"
+			+ " AND (CAST(:mode as string) IS NULL OR n.mode = :mode OR n.mode = org.ligoj.app.api.SubscriptionMode.ALL)"
+			+ " AND (UPPER(n.name) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))) AND " + VISIBLE_NODES;
+
 	/**
 	 * Return all visible {@link Node} for current user.
 	 *
@@ -133,12 +143,7 @@ public interface NodeRepository extends RestRepository<Node, String> {
 	 * @param page     The pagination.
 	 * @return The visible nodes. Ordered by their identifier.
 	 */
-	@Query("SELECT n FROM Node n LEFT JOIN n.refined nr1 LEFT JOIN nr1.refined nr2"
-			+ " WHERE (CAST(:parent as string) IS NULL OR (:parent = 'service' AND n.refined IS NULL) OR n.refined.id = :parent)"
-			+ " AND (:depth < 0 OR :depth > 1 OR (:depth = 0 AND nr1 IS NULL) OR (:depth = 1 AND nr2 IS NULL))  "
-			+ " AND (CAST(:mode as string) IS NULL OR n.mode = :mode OR n.mode = org.ligoj.app.api.SubscriptionMode.ALL)        "
-			+ " AND (UPPER(n.name) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))) AND " + VISIBLE_NODES
-			+ " ORDER BY n.id")
+	@Query("SELECT n " + FIND_ALL_VISIBLE + " ORDER BY n.id")
 	Page<Node> findAllVisible(String user, String criteria, String parent, SubscriptionMode mode, int depth,
 			Pageable page);
 
@@ -162,4 +167,13 @@ public interface NodeRepository extends RestRepository<Node, String> {
 	@Query("SELECT count(id) FROM Node WHERE refined.refined.id = :node OR refined.id = :node")
 	int countByRefined(String node);
 
+	/**
+	 * Return the identifiers of the given node and its sub-nodes.
+	 *
+	 * @param node The root node identifier.
+	 * @return The node identifiers, the root included.
+	 */
+	@SuppressWarnings("unused")
+	@Query("SELECT id FROM Node WHERE id = :node OR id LIKE CONCAT(:node, ':%')")
+	List<String> findAllIdentifiers(String node);
 }
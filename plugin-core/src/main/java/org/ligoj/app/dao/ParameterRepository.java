@@ -3,6 +3,7 @@
  */
 package org.ligoj.app.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ligoj.app.api.SubscriptionMode;
@@ -72,4 +73,14 @@ public interface ParameterRepository extends RestRepository<Parameter, String> {
 	@Modifying
 	@Query("DELETE Parameter WHERE owner.id = :node OR owner.id LIKE CONCAT(:node, ':%')")
 	void deleteByNode(String node);
+
+	/**
+	 * Delete all parameters owned by the given nodes.
+	 *
+	 * @param nodes The node identifiers.
+	 */
+	@SuppressWarnings("unused")
+	@Modifying
+	@Query("DELETE Parameter WHERE owner.id IN :nodes")
+	void deleteByNodes(Collection<String> nodes);
 }
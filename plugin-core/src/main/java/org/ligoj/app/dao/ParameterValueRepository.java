@@ -3,6 +3,7 @@
  */
 package org.ligoj.app.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ligoj.app.model.ParameterValue;
@@ -29,6 +30,41 @@ public interface ParameterValueRepository extends RestRepository<ParameterValue,
 			+ " WHERE n0.id = :node OR n1.refined.id = :node OR n2.refined.id = :node")
 	List<ParameterValue> getParameterValues(String node);
 
+	/**
+	 * Return the parameter values directly attached to the given nodes. Inherited values are not resolved there.
+	 *
+	 * @param nodes The node identifiers.
+	 * @return The parameter values attached to the given nodes, with the fetched parameter.
+	 */
+	@SuppressWarnings("unused")
+	@Query("SELECT v FROM ParameterValue v INNER JOIN FETCH v.parameter INNER JOIN FETCH v.node WHERE v.node.id IN (:nodes)")
+	List<ParameterValue> findAllByNodes(Collection<String> nodes);
+
+	/**
+	 * Return the parameter values directly attached to the given subscription. The node values are not returned.
+	 *
+	 * @param subscription The subscription identifier.
+	 * @return The parameter values attached to the given subscription, with the fetched parameter.
+	 */
+	@SuppressWarnings("unused")
+	@Query("SELECT v FROM ParameterValue v INNER JOIN FETCH v.parameter WHERE v.subscription.id = :subscription")
+	List<ParameterValue> findAllOwnedBySubscription(int subscription);
+
+	/**
+	 * Return the non secured parameter values of the subscriptions of a project and of the given nodes, without
+	 * loading the entities.
+	 *
+	 * @param project The subscribing project.
+	 * @param nodes   The node identifiers, usually the subscribed nodes and their parents.
+	 * @return The parameter values: subscription identifier, node identifier, parameter identifier, parameter type and
+	 *         data.
+	 */
+	@SuppressWarnings("unused")
+	@Query("SELECT sub.id, n.id, param.id, param.type, v.data FROM ParameterValue v INNER JOIN v.parameter param"
+			+ " LEFT JOIN v.subscription sub LEFT JOIN v.node n"
+			+ " WHERE param.secured != TRUE AND (sub.project.id = :project OR n.id IN (:nodes))")
+	List<Object[]> findAllSecureByProject(int project, Collection<String> nodes);
+
 	/**
 	 * Return a parameter value related to the subscription to the given service for a project.
 	 *
@@ -66,7 +102,6 @@ public interface ParameterValueRepository extends RestRepository<ParameterValue,
 			+ " WHERE param.secured != TRUE AND " + RELATED_SUBSCRIPTION)
 	List<ParameterValue> findAllSecureBySubscription(int subscription);
 
-
 	/**
 	 * Delete all parameter values related to the given node or sub-nodes.
 	 *
@@ -109,4 +144,25 @@ public interface ParameterValueRepository extends RestRepository<ParameterValue,
 			" AND param.id = :parameter AND UPPER(v.data) LIKE UPPER(CONCAT(CONCAT('%', :criteria),'%')) AND param.secured != TRUE ORDER BY v.data, v.id")
 	List<ParameterValue> findAll(String node, String parameter, int project, String criteria);
 
+	/**
+	 * Delete all parameter values of the given subscriptions.
+	 *
+	 * @param subscriptions The subscription identifiers.
+	 */
+	@SuppressWarnings("unused")
+	@Modifying
+	@Query("DELETE ParameterValue WHERE subscription.id IN :subscriptions")
+	void deleteBySubscriptions(Collection<Integer> subscriptions);
+
+	/**
+	 * Delete all parameter values of the given nodes, and the values of their parameters. The values of the related
+	 * subscriptions are not deleted.
+	 *
+	 * @param nodes The node identifiers.
+	 */
+	@SuppressWarnings("unused")
+	@Modifying
+	@Query("DELETE ParameterValue WHERE node.id IN :nodes"
+			+ " OR parameter.id IN (SELECT id FROM Parameter WHERE owner.id IN :nodes)")
+	void deleteByNodes(Collection<String> nodes);
 }
@@ -3,6 +3,7 @@
  */
 package org.ligoj.app.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ligoj.app.iam.dao.DelegateOrgRepository;
@@ -31,6 +32,21 @@ public interface ProjectRepository extends RestRepository<Project, Integer> {
 	String VISIBLE_PROJECTS = "(" + SystemUser.IS_ADMIN
 			+ " OR visibleproject(p.teamLeader, cg.description, :user) = true)";
 
+	/**
+	 * Case-insensitive match of the criteria in the name, description, pkey or team leader.
+	 */
+	String MATCH_PROJECTS = "UPPER(p.name) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
+			+ " OR UPPER(p.description) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
+			+ " OR UPPER(p.pkey) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
+			+ " OR UPPER(p.teamLeader) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))";
+
+	/**
+	 * Visible projects matching the criteria, with their subscriptions to be counted. Parameters are <code>user</code>
+	 * and <code>criteria</code>.
+	 */
+	String FIND_ALL_LIGHT = "FROM Project AS p LEFT JOIN p.subscriptions AS s LEFT JOIN p.cacheGroups AS cpg LEFT JOIN cpg.group AS cg"
+			+ " WHERE " + VISIBLE_PROJECTS + " AND (" + MATCH_PROJECTS + ")";
+
 	/**
 	 * Return all {@link Project} objects with visible by <code>user</code> and also filtered by a criteria. The
 	 * constraints are:
@@ -41,20 +57,48 @@ public interface ProjectRepository extends RestRepository<Project, Integer> {
 	 * </ul>
 	 *
 	 * @param user     The principal username
-	 * @param criteria the optional criteria to match: name, description or pkey. Case is insensitive.
+	 * @param criteria the optional criteria to match: name, description, pkey or team leader. Case is insensitive.
 	 * @param page     the pagination.
 	 * @return all {@link Project} objects with the given name. Insensitive case search is used.
 	 */
-	@Query(value = "SELECT p, COUNT(DISTINCT s.id) FROM Project AS p LEFT JOIN p.subscriptions AS s LEFT JOIN p.cacheGroups AS cpg LEFT JOIN cpg.group AS cg"
-			+ " WHERE " + VISIBLE_PROJECTS + " AND (UPPER(p.name) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
-			+ "       OR UPPER(p.description) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
-			+ "       OR UPPER(p.pkey)        LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))) GROUP BY p                ",
+	@Query(value = "SELECT p, COUNT(DISTINCT s.id) " + FIND_ALL_LIGHT + " GROUP BY p",
 			countQuery = "SELECT COUNT(DISTINCT p) FROM Project AS p LEFT JOIN p.cacheGroups AS cpg LEFT JOIN cpg.group AS cg"
-					+ " WHERE " + VISIBLE_PROJECTS + " AND (UPPER(p.name) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
-					+ "       OR UPPER(p.description) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
-					+ "       OR UPPER(p.pkey)        LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))) GROUP BY p")
+					+ " WHERE " + VISIBLE_PROJECTS + " AND (" + MATCH_PROJECTS + ")")
 	Page<Object[]> findAllLight(String user, String criteria, Pageable page);
 
+	/**
+	 * Return the visible {@link Project} objects among the given candidates and also filtered by a criteria. The
+	 * visibility constraints are the ones of {@link #findAllLight(String, String, Pageable)}, and the criteria also
+	 * matches the team leader.
+	 *
+	 * @param user     The principal username
+	 * @param criteria the criteria to match: name, description, pkey or team leader. Case is insensitive.
+	 * @param ids      The candidate project identifiers.
+	 * @param page     the pagination.
+	 * @return The visible candidates with their subscription count.
+	 */
+	@Query(value = "SELECT p, COUNT(DISTINCT s.id) FROM Project AS p LEFT JOIN p.subscriptions AS s LEFT JOIN p.cacheGroups AS cpg LEFT JOIN cpg.group AS cg"
+			+ " WHERE p.id IN (:ids) AND " + VISIBLE_PROJECTS + " AND (" + MATCH_PROJECTS + ") GROUP BY p",
+			countQuery = "SELECT COUNT(DISTINCT p) FROM Project AS p LEFT JOIN p.cacheGroups AS cpg LEFT JOIN cpg.group AS cg"
+					+ " WHERE p.id IN (:ids) AND " + VISIBLE_PROJECTS + " AND (" + MATCH_PROJECTS + ")")
+	Page<Object[]> findAllLight(String user, String criteria, Collection<Integer> ids, Pageable page);
+
+	/**
+	 * Return the searchable attributes of all projects.
+	 *
+	 * @return The identifier, name, pkey, description and team leader of all projects.
+	 */
+	@Query("SELECT p.id, p.name, p.pkey, p.description, p.teamLeader FROM Project AS p")
+	List<Object[]> findAllSearchable();
+
+	/**
+	 * Return a light signature of the project table, used to detect the changes.
+	 *
+	 * @return A single row: the project count, the sum of the identifiers and the last modification date.
+	 */
+	@Query("SELECT COUNT(p.id), SUM(cast(p.id as Long)), MAX(p.lastModifiedDate) FROM Project AS p")
+	List<Object[]> getSearchSignature();
+
 	/**
 	 * Return all {@link Project} objects having at least one subscription and with light information. The visibility is
 	 * checked:
@@ -0,0 +1,240 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.dao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.ligoj.app.metrics.MetricsRegistry;
+import org.ligoj.app.metrics.MetricsVo;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Instrumentation of the Spring Data repositories. Each repository method call is timed, its returned rows and its SQL
+ * statements are counted, and the slowest calls are sampled with their SQL. The statements are collected by
+ * {@link QueryStatementInspector}, the literals are redacted. Supported properties:
+ * <ul>
+ * <li><code>query.slow</code>: minimal duration of a sampled call, in milliseconds.</li>
+ * <li><code>query.samples</code>: maximal amount of kept samples, the oldest are dropped.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class QueryMetrics implements BeanPostProcessor {
+
+	/**
+	 * Upper bounds of the latency histogram buckets, in milliseconds. The last bucket is unbounded.
+	 */
+	static final long[] BUCKETS = { 1, 5, 10, 50, 100, 500, 1000 };
+
+	/**
+	 * Maximal amount of statements kept in a sample.
+	 */
+	private static final int SAMPLE_STATEMENTS = 5;
+
+	/**
+	 * String and numeric literals.
+	 */
+	private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+	/**
+	 * The repository calls of the current thread, the innermost first.
+	 */
+	private static final ThreadLocal<Deque<Call>> CALLS = ThreadLocal.withInitial(ArrayDeque::new);
+
+	@Setter
+	@Value("${query.slow:500}")
+	private long slow = 500;
+
+	@Setter
+	@Value("${query.samples:50}")
+	private int maxSamples = 50;
+
+	/**
+	 * Statements of a running repository call.
+	 */
+	private static final class Call {
+		private int statements;
+		private final List<String> sql = new ArrayList<>();
+	}
+
+	/**
+	 * Metrics, name is the repository and the method name, with the <code>rows</code> and <code>statements</code>
+	 * counters.
+	 */
+	private final MetricsRegistry registry = new MetricsRegistry(BUCKETS);
+
+	/**
+	 * The slowest calls samples, the most recent last.
+	 */
+	private final Deque<QuerySampleVo> samples = new ArrayDeque<>();
+
+	/**
+	 * Interceptor of a repository.
+	 */
+	private class RepositoryInterceptor implements MethodInterceptor {
+
+		private final String repository;
+
+		private RepositoryInterceptor(final String repository) {
+			this.repository = repository;
+		}
+
+		@Override
+		public Object invoke(final MethodInvocation invocation) throws Throwable {
+			if (invocation.getMethod().getDeclaringClass() == Object.class) {
+				return invocation.proceed();
+			}
+			final var calls = CALLS.get();
+			final var call = new Call();
+			calls.push(call);
+			final var key = repository + "." + invocation.getMethod().getName();
+			final var timer = registry.timer(key);
+			final var start = timer.start();
+			Object result = null;
+			var failed = true;
+			try {
+				result = invocation.proceed();
+				failed = false;
+				return result;
+			} finally {
+				calls.pop();
+				timer.add("rows", toRows(result));
+				timer.add("statements", call.statements);
+				sample(key, invocation.getArguments(), call, timer.stop(start, failed), failed);
+			}
+		}
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+		if (bean instanceof Repository && bean instanceof Advised advised) {
+			final var repository = Arrays.stream(advised.getProxiedInterfaces())
+					.filter(Repository.class::isAssignableFrom).findFirst();
+			if (repository.isEmpty() || advised.isFrozen()) {
+				log.info("Repository bean {} cannot be instrumented", beanName);
+			} else {
+				advised.addAdvice(0, new RepositoryInterceptor(repository.get().getSimpleName()));
+			}
+		}
+		return bean;
+	}
+
+	/**
+	 * Attach a statement to the current repository call, if any.
+	 *
+	 * @param sql The prepared SQL statement.
+	 */
+	static void onStatement(final String sql) {
+		final var call = CALLS.get().peek();
+		if (call != null) {
+			call.statements++;
+			if (call.sql.size() < SAMPLE_STATEMENTS) {
+				call.sql.add(redact(sql));
+			}
+		}
+	}
+
+	/**
+	 * Replace the string and numeric literals of a SQL statement. The bound parameters are not part of the statement.
+	 *
+	 * @param sql The SQL statement.
+	 * @return The statement without literal.
+	 */
+	static String redact(final String sql) {
+		return LITERALS.matcher(sql).replaceAll("?");
+	}
+
+	/**
+	 * Return the amount of rows of a repository call result.
+	 */
+	private static long toRows(final Object result) {
+		if (result == null) {
+			return 0;
+		}
+		if (result instanceof Collection<?> collection) {
+			return collection.size();
+		}
+		if (result instanceof Slice<?> slice) {
+			return slice.getNumberOfElements();
+		}
+		if (result instanceof Optional<?> optional) {
+			return optional.isPresent() ? 1 : 0;
+		}
+		if (result instanceof Number || result instanceof Boolean) {
+			// Count or update statements
+			return 0;
+		}
+		return 1;
+	}
+
+	private void sample(final String key, final Object[] args, final Call call, final long duration,
+			final boolean failed) {
+		final var millis = duration / 1000000;
+		if (millis >= slow) {
+			final var sample = new QuerySampleVo();
+			sample.setQuery(key);
+			sample.setDuration(millis);
+			sample.setFailed(failed);
+			sample.setParameters(Arrays.stream(Optional.ofNullable(args).orElse(new Object[0]))
+					.map(a -> a == null ? "null" : a.getClass().getSimpleName()).toList());
+			sample.setStatements(List.copyOf(call.sql));
+			synchronized (samples) {
+				samples.addLast(sample);
+				while (samples.size() > maxSamples) {
+					samples.removeFirst();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the metrics of the repository methods, the slowest first.
+	 *
+	 * @return The metrics ordered by descending mean duration.
+	 */
+	public List<MetricsVo> getMetrics() {
+		return registry.getMetrics();
+	}
+
+	/**
+	 * Return the slow calls samples.
+	 *
+	 * @return The samples, the most recent first.
+	 */
+	public List<QuerySampleVo> getSamples() {
+		synchronized (samples) {
+			final var result = new ArrayList<>(samples);
+			Collections.reverse(result);
+			return result;
+		}
+	}
+
+	/**
+	 * Forget all the metrics and samples.
+	 */
+	public void reset() {
+		registry.reset();
+		synchronized (samples) {
+			samples.clear();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.dao;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A slow repository call.
+ */
+@Getter
+@Setter
+public class QuerySampleVo {
+
+	/**
+	 * The repository and the method name.
+	 */
+	private String query;
+
+	/**
+	 * Duration of the call, in milliseconds.
+	 */
+	private long duration;
+
+	/**
+	 * When <code>true</code>, the call ended with an exception.
+	 */
+	private boolean failed;
+
+	/**
+	 * The parameter types, the values are redacted.
+	 */
+	private List<String> parameters;
+
+	/**
+	 * The first executed SQL statements, the literals are redacted.
+	 */
+	private List<String> statements;
+}
@@ -0,0 +1,24 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.dao;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector feeding the current repository call of {@link QueryMetrics}. Registered in the
+ * persistence unit, the statements are not modified.
+ */
+public class QueryStatementInspector implements StatementInspector {
+
+	/**
+	 * SID, the inspector is serializable with the session factory options.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public String inspect(final String sql) {
+		QueryMetrics.onStatement(sql);
+		return sql;
+	}
+}
@@ -7,6 +7,7 @@ import java.util.List;
 
 import org.ligoj.app.model.Subscription;
 import org.ligoj.bootstrap.core.dao.RestRepository;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 
 /**
@@ -15,6 +16,42 @@ import org.springframework.data.jpa.repository.Query;
 @SuppressWarnings("ALL")
 public interface SubscriptionRepository extends RestRepository<Subscription, Integer> {
 
+	/**
+	 * Visible subscriptions condition: the project <code>sp</code> of the subscription is visible by <code>user</code>.
+	 */
+	String VISIBLE_SUBSCRIPTIONS = "EXISTS(SELECT 1 FROM Project AS p LEFT JOIN p.cacheGroups AS cpg LEFT JOIN cpg.group AS cg"
+			+ " WHERE p.id = sp.id AND " + ProjectRepository.VISIBLE_PROJECTS + ")";
+
+	/**
+	 * Return a page of the subscriptions of the projects visible by the given user, ordered by project name then by
+	 * identifier. The page starts after the given position (keyset pagination).
+	 *
+	 * @param user     The principal username.
+	 * @param criteria The criteria to match: project name, project pkey or node identifier. Case is insensitive, node
+	 *                 identifiers being lower case. Empty string matches all subscriptions.
+	 * @param name     The upper case project name of the last returned subscription. Empty string for the first page.
+	 * @param id       The identifier of the last returned subscription. <code>0</code> for the first page.
+	 * @param page     The page size, only the first page is used.
+	 * @return The subscription's data: subscription identifier, project identifier, node identifier, project name,
+	 *         project pkey and upper case project name.
+	 */
+	@Query("SELECT s.id, sp.id, s.node.id, sp.name, sp.pkey, UPPER(sp.name) FROM Subscription s INNER JOIN s.project sp"
+			+ " WHERE " + VISIBLE_SUBSCRIPTIONS
+			+ " AND (UPPER(sp.name) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
+			+ "   OR UPPER(sp.pkey) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
+			+ "   OR s.node.id LIKE LOWER(CONCAT(CONCAT('%',:criteria),'%')))"
+			+ " AND (UPPER(sp.name) > :name OR (UPPER(sp.name) = :name AND s.id > :id)) ORDER BY UPPER(sp.name), s.id")
+	List<Object[]> findAllVisible(String user, String criteria, String name, int id, Pageable page);
+
+	/**
+	 * Return the upper case project name of a subscription. Used as keyset pagination position.
+	 *
+	 * @param id The subscription identifier.
+	 * @return The upper case project name or <code>null</code> when the subscription does not exist.
+	 */
+	@Query("SELECT UPPER(s.project.name) FROM Subscription s WHERE s.id = :id")
+	String findProjectName(int id);
+
 	/**
 	 * Return all subscriptions with only little information.
 	 *
@@ -104,4 +141,26 @@ public interface SubscriptionRepository extends RestRepository<Subscription, Int
 	 */
 	@Query("SELECT COUNT(id) FROM Subscription WHERE project.id = :project")
 	long countByProject(int project);
+
+	/**
+	 * Return the subscribed node identifier of a subscription.
+	 *
+	 * @param subscription The subscription identifier.
+	 * @return The subscribed node identifier or <code>null</code> when the subscription does not exist.
+	 */
+	@Query("SELECT s.node.id FROM Subscription s WHERE s.id = :subscription")
+	String findNodeId(int subscription);
+
+	/**
+	 * Return the subscriptions of the given project with their last event, without loading the entities.
+	 *
+	 * @param project The subscribing project.
+	 * @return The subscriptions: identifier, node identifier, created by, created date, last modified by, last modified
+	 *         date and value of the last event or <code>null</code>.
+	 */
+	@Query("SELECT s.id, s.node.id, s.createdBy, s.createdDate, s.lastModifiedBy, s.lastModifiedDate, e.value"
+			+ " FROM Subscription s LEFT JOIN Event e ON (e.subscription.id = s.id"
+			+ "   AND e.id = (SELECT MAX(cast(le.id as Integer)) FROM Event le WHERE le.subscription.id = s.id))"
+			+ " WHERE s.project.id = :project")
+	List<Object[]> findAllLightByProject(int project);
 }
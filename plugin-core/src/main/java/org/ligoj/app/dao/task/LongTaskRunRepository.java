@@ -0,0 +1,70 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.dao.task;
+
+import java.util.Date;
+import java.util.List;
+
+import org.ligoj.app.model.LongTaskRun;
+import org.ligoj.bootstrap.core.dao.RestRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * {@link LongTaskRun} repository.
+ */
+@SuppressWarnings("ALL")
+public interface LongTaskRunRepository extends RestRepository<LongTaskRun, Integer> {
+
+	/**
+	 * Return the runs matching the optional filters.
+	 *
+	 * @param type   The optional task entity class name.
+	 * @param locked The optional locked entity's identifier.
+	 * @param page   The pagination.
+	 * @return The matching runs.
+	 */
+	@SuppressWarnings("unused")
+	@Query("FROM LongTaskRun r WHERE (CAST(:type as string) IS NULL OR r.type = :type)"
+			+ " AND (CAST(:locked as string) IS NULL OR r.locked = :locked)")
+	Page<LongTaskRun> findAll(String type, String locked, Pageable page);
+
+	/**
+	 * Return the type, the amount of runs, the amount of failed runs and the maximal duration of the runs ended since
+	 * the given date, by type.
+	 *
+	 * @param since The minimal end date.
+	 * @return The runs aggregates ordered by type.
+	 */
+	@SuppressWarnings("unused")
+	@Query("SELECT r.type, COUNT(r), SUM(CASE WHEN r.failed = true THEN 1 ELSE 0 END), MAX(r.duration)"
+			+ " FROM LongTaskRun r WHERE r.end >= :since GROUP BY r.type ORDER BY r.type")
+	List<Object[]> findAllStatistics(Date since);
+
+	/**
+	 * Return the durations of the runs of a type ended since the given date. Used with a single element page to get a
+	 * duration by rank.
+	 *
+	 * @param type  The task entity class name.
+	 * @param since The minimal end date.
+	 * @param page  The pagination.
+	 * @return The durations in ascending order.
+	 */
+	@SuppressWarnings("unused")
+	@Query("SELECT r.duration FROM LongTaskRun r WHERE r.type = :type AND r.end >= :since ORDER BY r.duration")
+	List<Long> findAllDurations(String type, Date since, Pageable page);
+
+	/**
+	 * Delete the runs ended before the given date.
+	 *
+	 * @param before The maximal end date, excluded.
+	 * @return The amount of deleted runs.
+	 */
+	@SuppressWarnings("unused")
+	@Modifying
+	@Query("DELETE LongTaskRun WHERE end < :before")
+	int deleteAllBefore(Date before);
+}
@@ -0,0 +1,20 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.dao.task;
+
+import org.ligoj.app.model.Project;
+import org.ligoj.app.model.ProjectDeletionTask;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * {@link ProjectDeletionTask} repository.
+ */
+@SuppressWarnings("ALL")
+public interface ProjectDeletionTaskRepository extends LongTaskRepository<ProjectDeletionTask, Project, Integer> {
+
+	@Override
+	@Query("FROM ProjectDeletionTask t WHERE t.locked.id = :locked AND t.end IS NULL")
+	ProjectDeletionTask findNotFinishedByLocked(Integer locked);
+
+}
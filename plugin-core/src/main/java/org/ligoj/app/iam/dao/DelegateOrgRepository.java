@@ -114,6 +114,18 @@ public interface DelegateOrgRepository extends RestRepository<DelegateOrg, Integ
 			+ MATCH_DELEGATE_DN + ")")
 	boolean canCreate(String user, String dn, DelegateType type);
 
+	/**
+	 * Visible delegates matching the criteria and the type. Parameters are <code>user</code>, <code>criteria</code> and
+	 * <code>type</code>.
+	 */
+	String FIND_ALL = "FROM DelegateOrg d WHERE " + VISIBLE_DELEGATE
+			+ " AND (CAST(:type as string) IS NULL OR d.type = :type)"
+			+ " AND (:criteria = ''"
+			+ "  OR   UPPER(d.receiver) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
+			+ "  OR   UPPER(d.name)     LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
+			+ "  OR   (d.type=org.ligoj.app.iam.model.DelegateType.TREE"
+			+ "   AND UPPER(d.dn)       LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))))";
+
 	/**
 	 * Return all {@link DelegateOrg} objects regarding the given criteria.
 	 *
@@ -123,13 +135,7 @@ public interface DelegateOrgRepository extends RestRepository<DelegateOrg, Integ
 	 * @param page     The pagination.
 	 * @return All {@link DelegateOrg} objects with the given name. Insensitive case search is used.
 	 */
-	@Query("SELECT d FROM DelegateOrg d WHERE " + VISIBLE_DELEGATE
-			+ " AND (CAST(:type as string) IS NULL OR d.type = :type)                                                                "
-			+ " AND (:criteria = ''                                                                                  "
-			+ "  OR   UPPER(d.receiver) LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))                                "
-			+ "  OR   UPPER(d.name)     LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))"
-			+ "  OR   (d.type=org.ligoj.app.iam.model.DelegateType.TREE"
-			+ "   AND UPPER(d.dn)       LIKE UPPER(CONCAT(CONCAT('%',:criteria),'%'))))")
+	@Query("SELECT d " + FIND_ALL)
 	Page<DelegateOrg> findAll(String user, String criteria, DelegateType type, Pageable page);
 
 	/**
@@ -0,0 +1,57 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.metrics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory timers of an instrumentation, by operation name. The metrics are only exposed by the REST resources of the
+ * instrumentations, there is no export to a monitoring system.
+ */
+public class MetricsRegistry {
+
+	private final long[] buckets;
+
+	private final Map<String, MetricsTimer> timers = new ConcurrentHashMap<>();
+
+	/**
+	 * Registry constructor.
+	 *
+	 * @param buckets The upper bounds of the latency histogram buckets of each timer, in milliseconds. When empty,
+	 *                there is no histogram.
+	 */
+	public MetricsRegistry(final long... buckets) {
+		this.buckets = buckets;
+	}
+
+	/**
+	 * Return the timer of an operation, created when missing.
+	 *
+	 * @param name The operation name.
+	 * @return The timer.
+	 */
+	public MetricsTimer timer(final String name) {
+		return timers.computeIfAbsent(name, n -> new MetricsTimer(n, buckets));
+	}
+
+	/**
+	 * Return the metrics of the operations, the slowest first.
+	 *
+	 * @return The metrics ordered by descending mean duration, then by name.
+	 */
+	public List<MetricsVo> getMetrics() {
+		return timers.values().stream().map(MetricsTimer::toVo).sorted(Comparator
+				.comparingDouble(MetricsVo::getMeanTime).reversed().thenComparing(MetricsVo::getName)).toList();
+	}
+
+	/**
+	 * Forget all the metrics.
+	 */
+	public void reset() {
+		timers.clear();
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe metrics of a timed operation: calls, errors, running calls, durations, an optional latency histogram and
+ * some named counters.
+ */
+public final class MetricsTimer {
+
+	private static final long NANOS_BY_MILLI = 1000000;
+
+	private final String name;
+	private final long[] buckets;
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLongArray histogram;
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	/**
+	 * Timer constructor.
+	 *
+	 * @param name    The timed operation name.
+	 * @param buckets The upper bounds of the latency histogram buckets, in milliseconds. The last bucket is unbounded.
+	 *                When empty, there is no histogram.
+	 */
+	MetricsTimer(final String name, final long... buckets) {
+		this.name = name;
+		this.buckets = buckets;
+		this.histogram = buckets.length == 0 ? null : new AtomicLongArray(buckets.length + 1);
+	}
+
+	/**
+	 * Start a call.
+	 *
+	 * @return The start time to give to {@link #stop(long, boolean)}.
+	 */
+	public long start() {
+		inFlight.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Complete a call started with {@link #start()}.
+	 *
+	 * @param start  The start time.
+	 * @param failed When <code>true</code>, the call is counted as an error.
+	 * @return The call duration, in nanoseconds.
+	 */
+	public long stop(final long start, final boolean failed) {
+		final var duration = System.nanoTime() - start;
+		inFlight.decrementAndGet();
+		calls.increment();
+		if (failed) {
+			errors.increment();
+		}
+		totalNanos.add(duration);
+		maxNanos.accumulateAndGet(duration, Math::max);
+		if (histogram != null) {
+			final var millis = duration / NANOS_BY_MILLI;
+			var bucket = 0;
+			while (bucket < buckets.length && millis > buckets[bucket]) {
+				bucket++;
+			}
+			histogram.incrementAndGet(bucket);
+		}
+		return duration;
+	}
+
+	/**
+	 * Add a value to a named counter.
+	 *
+	 * @param counter The counter name.
+	 * @param value   The value to add.
+	 */
+	public void add(final String counter, final long value) {
+		counters.computeIfAbsent(counter, c -> new LongAdder()).add(value);
+	}
+
+	/**
+	 * Return a snapshot of the metrics.
+	 *
+	 * @return The metrics, the durations are in milliseconds.
+	 */
+	public MetricsVo toVo() {
+		final var vo = new MetricsVo();
+		vo.setName(name);
+		vo.setCalls(calls.sum());
+		vo.setErrors(errors.sum());
+		vo.setInFlight(inFlight.get());
+		final var total = totalNanos.sum();
+		vo.setTotalTime(total / NANOS_BY_MILLI);
+		vo.setMaxTime(maxNanos.get() / NANOS_BY_MILLI);
+		vo.setMeanTime(vo.getCalls() == 0 ? 0 : (double) total / NANOS_BY_MILLI / vo.getCalls());
+		if (histogram != null) {
+			final var values = new long[histogram.length()];
+			for (var i = 0; i < values.length; i++) {
+				values[i] = histogram.get(i);
+			}
+			vo.setHistogram(values);
+		}
+		if (!counters.isEmpty()) {
+			final var values = new TreeMap<String, Long>();
+			counters.forEach((c, v) -> values.put(c, v.sum()));
+			vo.setCounters(values);
+		}
+		return vo;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.metrics;
+
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Metrics of the calls of an operation.
+ */
+@Getter
+@Setter
+public class MetricsVo {
+
+	/**
+	 * The operation name.
+	 */
+	private String name;
+
+	/**
+	 * Amount of completed calls.
+	 */
+	private long calls;
+
+	/**
+	 * Amount of failed calls.
+	 */
+	private long errors;
+
+	/**
+	 * Amount of running calls.
+	 */
+	private int inFlight;
+
+	/**
+	 * Total duration of the calls, in milliseconds.
+	 */
+	private long totalTime;
+
+	/**
+	 * Mean duration of a call, in milliseconds.
+	 */
+	private double meanTime;
+
+	/**
+	 * Maximal duration of a call, in milliseconds.
+	 */
+	private long maxTime;
+
+	/**
+	 * Amount of calls by duration bucket, the last bucket is unbounded. <code>null</code> without histogram.
+	 */
+	private long[] histogram;
+
+	/**
+	 * Instrumentation specific counters, such as the returned rows. <code>null</code> without counter.
+	 */
+	private Map<String, Long> counters;
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+import org.ligoj.bootstrap.core.model.AbstractPersistable;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A finished run of a long task. Unlike the task status, reused by the next run of the same locked entity, a run is
+ * never updated.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "LIGOJ_TASK_RUN", indexes = { @Index(columnList = "type,locked"), @Index(columnList = "end") })
+public class LongTaskRun extends AbstractPersistable<Integer> {
+
+	/**
+	 * The task entity class name.
+	 */
+	@NotNull
+	private String type;
+
+	/**
+	 * The locked entity's identifier.
+	 */
+	@NotNull
+	private String locked;
+
+	/**
+	 * User proceeding the task.
+	 */
+	@NotNull
+	private String author;
+
+	@NotNull
+	private Date start;
+
+	@NotNull
+	private Date end;
+
+	/**
+	 * Duration in milliseconds.
+	 */
+	private long duration;
+
+	/**
+	 * Final status. <code>true</code> means failed.
+	 */
+	private boolean failed;
+
+	/**
+	 * Amount of steps of the task run on the ending member. The counter is kept in the memory of each member, so the
+	 * steps run by another member before a fail-over are not counted.
+	 */
+	private int steps;
+}
@@ -4,6 +4,7 @@
 package org.ligoj.app.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
@@ -24,7 +25,8 @@ import lombok.ToString;
 @Setter
 @Entity
 @Table(name = "LIGOJ_PARAMETER_VALUE", uniqueConstraints = { @UniqueConstraint(columnNames = { "parameter", "node" }),
-		@UniqueConstraint(columnNames = { "parameter", "subscription" }) })
+		@UniqueConstraint(columnNames = { "parameter", "subscription" }) }, indexes = {
+				@Index(columnList = "node"), @Index(columnList = "subscription") })
 @ToString(of = { "parameter", "data" })
 public class ParameterValue extends AbstractAudited<Integer> implements NodeScoped<Integer> {
 
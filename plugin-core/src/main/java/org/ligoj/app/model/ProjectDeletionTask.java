@@ -0,0 +1,41 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+import org.ligoj.bootstrap.core.model.ToIdSerializer;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Deletion status of a project and the remote data of its subscriptions. Is deleted with the project.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "LIGOJ_PROJECT_DELETION")
+public class ProjectDeletionTask extends AbstractLongTask<Project, Integer> {
+
+	@ManyToOne
+	@NotNull
+	@JsonSerialize(using = ToIdSerializer.class)
+	private Project locked;
+
+	/**
+	 * Amount of subscriptions to delete.
+	 */
+	private int total;
+
+	/**
+	 * Amount of deleted subscriptions, each one committed with its remote data.
+	 */
+	private int deleted;
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.bootstrap.core.json.PaginationJson;
+import org.ligoj.bootstrap.core.json.datatable.DataTableAttributes;
+import org.ligoj.bootstrap.core.validation.ValidationJsonException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Keyset pagination of the DataTables endpoints. Instead of an offset, the client sends the position of the last seen
+ * row, so the cost of a page does not depend on its depth. The sort is the one of the DataTables request, restricted to
+ * the mapped columns, and the identifier is added as tie-breaker. The case of the text columns is ignored when the sort
+ * requires it. Supported query parameters:
+ * <ul>
+ * <li>{@value #CURSOR}: enables this mode. Empty for the first page, then the {@link CursorTableItem#getNext()} value
+ * of the previous page.</li>
+ * <li>{@value #COUNT}: when <code>true</code>, the filtered count is also computed. Usually requested with the first
+ * page only.</li>
+ * </ul>
+ * The <code>null</code> values of the sort column come first in ascending order, and last in descending order.
+ */
+@Component
+public class CursorPagination {
+
+	/**
+	 * Query parameter of the cursor.
+	 */
+	public static final String CURSOR = "cursor";
+
+	/**
+	 * Query parameter requesting the count.
+	 */
+	public static final String COUNT = "count";
+
+	/**
+	 * Identifier attribute, used as tie-breaker and default sort.
+	 */
+	private static final String ID = "id";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@PersistenceContext(unitName = "pu")
+	private EntityManager em;
+
+	@Autowired
+	private PaginationJson paginationJson;
+
+	/**
+	 * Indicate the cursor mode is requested.
+	 *
+	 * @param uriInfo The request parameters.
+	 * @return <code>true</code> when the {@value #CURSOR} parameter is present.
+	 */
+	public boolean isRequested(final UriInfo uriInfo) {
+		return uriInfo.getQueryParameters().containsKey(CURSOR);
+	}
+
+	/**
+	 * Return the page following the cursor of the request.
+	 *
+	 * @param uriInfo The request parameters: the cursor, the page length and the sort.
+	 * @param query   The query to paginate.
+	 * @param mapping The allowed sort columns, key is the DataTables column, value is the entity attribute.
+	 * @param mapper  The converter of the result rows.
+	 * @param <E>     The result row type.
+	 * @param <T>     The converted type.
+	 * @return The requested page.
+	 */
+	public <E, T> CursorTableItem<T> findAll(final UriInfo uriInfo, final CursorQuery query,
+			final Map<String, String> mapping, final Function<E, T> mapper) {
+		return this.<E, T>findAllBatch(uriInfo, query, mapping, rows -> mapper);
+	}
+
+	/**
+	 * Return the page following the cursor of the request, with a converter built from the whole page. This allows the
+	 * converter to resolve the related data of the page with a single lookup.
+	 *
+	 * @param uriInfo   The request parameters: the cursor, the page length and the sort.
+	 * @param query     The query to paginate.
+	 * @param mapping   The allowed sort columns, key is the DataTables column, value is the entity attribute.
+	 * @param converter The converter factory, called once with the result rows of the page.
+	 * @param <E>       The result row type.
+	 * @param <T>       The converted type.
+	 * @return The requested page.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E, T> CursorTableItem<T> findAllBatch(final UriInfo uriInfo, final CursorQuery query,
+			final Map<String, String> mapping, final Function<List<E>, Function<E, T>> converter) {
+		final var parameters = uriInfo.getQueryParameters();
+		final var size = paginationJson.getPageLength(parameters);
+		final var order = paginationJson.getPageRequest(uriInfo, mapping).getSort().stream().findFirst()
+				.orElseGet(() -> Sort.Order.asc(ID));
+		final var property = order.getProperty();
+		final var asc = order.isAscending();
+		final var type = getType(query.getEntity(), property);
+		final var path = query.getAlias() + "." + property;
+		final var ignoreCase = order.isIgnoreCase() && type == String.class;
+		final var key = ignoreCase ? "LOWER(" + path + ")" : path;
+		final var id = query.getAlias() + "." + ID;
+		final var cursor = decode(parameters.getFirst(CURSOR), type, getType(query.getEntity(), ID));
+
+		// Build the query with the cursor condition and the stable order
+		final var jpql = new StringBuilder("SELECT ").append(query.getSelect()).append(' ').append(query.getFrom());
+		if (cursor != null) {
+			jpql.append(" AND (").append(getCondition(key, ignoreCase ? "LOWER(:cursorKey)" : ":cursorKey", id, asc,
+					cursor[0] == null)).append(')');
+		}
+		jpql.append(query.getGroupBy()).append(" ORDER BY ").append(key)
+				.append(asc ? " ASC NULLS FIRST, " : " DESC NULLS LAST, ").append(id).append(asc ? " ASC" : " DESC");
+		final var jpaQuery = em.createQuery(jpql.toString());
+		query.getParameters().forEach(jpaQuery::setParameter);
+		if (cursor != null) {
+			if (cursor[0] != null) {
+				jpaQuery.setParameter("cursorKey", cursor[0]);
+			}
+			jpaQuery.setParameter("cursorId", cursor[1]);
+		}
+
+		// One more row to detect the next page
+		final var rows = jpaQuery.setMaxResults(size + 1).getResultList();
+		final var result = new CursorTableItem<T>();
+		final var data = rows.stream().limit(size).map(r -> (E) r).toList();
+		result.setData(data.stream().map(converter.apply(data)).toList());
+		if (rows.size() > size) {
+			final var last = PropertyAccessorFactory.forBeanPropertyAccess(query.getRow().apply(rows.get(size - 1)));
+			result.setNext(encode(last.getPropertyValue(property), last.getPropertyValue(ID)));
+		}
+		final var count = Boolean.parseBoolean(parameters.getFirst(COUNT)) ? count(query) : -1;
+		result.setRecordsTotal(count);
+		result.setRecordsFiltered(count);
+		result.setDraw(parameters.getFirst(DataTableAttributes.ECHO));
+		return result;
+	}
+
+	/**
+	 * Return the condition of the rows after the cursor.
+	 */
+	private String getCondition(final String key, final String cursorKey, final String id, final boolean asc,
+			final boolean nullKey) {
+		final var op = asc ? " > " : " < ";
+		if (nullKey) {
+			// Null keys are first in ascending order, last in descending order
+			return key + " IS NULL AND " + id + op + ":cursorId" + (asc ? " OR " + key + " IS NOT NULL" : "");
+		}
+		return key + op + cursorKey + " OR (" + key + " = " + cursorKey + " AND " + id + op + ":cursorId)"
+				+ (asc ? "" : " OR " + key + " IS NULL");
+	}
+
+	private long count(final CursorQuery query) {
+		final var jpaQuery = em.createQuery("SELECT COUNT(DISTINCT " + query.getAlias() + ") " + query.getFrom(),
+				Long.class);
+		query.getParameters().forEach(jpaQuery::setParameter);
+		return jpaQuery.getSingleResult();
+	}
+
+	/**
+	 * Return the Java type of a sortable attribute.
+	 */
+	private Class<?> getType(final Class<?> entity, final String property) {
+		try {
+			return em.getMetamodel().entity(entity).getSingularAttribute(property).getJavaType();
+		} catch (final IllegalArgumentException e) {
+			// Computed column, not supported with cursor
+			throw new ValidationJsonException(CURSOR, "invalid-cursor-order", "column", property);
+		}
+	}
+
+	private String encode(final Object key, final Object id) {
+		try {
+			return Base64.getUrlEncoder().withoutPadding()
+					.encodeToString(MAPPER.writeValueAsBytes(new Object[] { key, id }));
+		} catch (final IOException e) {
+			throw new IllegalStateException("Unable to build the cursor", e);
+		}
+	}
+
+	/**
+	 * Decode a cursor to the sort key and the identifier. <code>null</code> for the first page.
+	 */
+	private Object[] decode(final String cursor, final Class<?> keyType, final Class<?> idType) {
+		if (StringUtils.isEmpty(cursor)) {
+			return null;
+		}
+		try {
+			final var values = MAPPER.readTree(Base64.getUrlDecoder().decode(cursor));
+			return new Object[] { values.get(0).isNull() ? null : MAPPER.convertValue(values.get(0), keyType),
+					MAPPER.convertValue(values.get(1), idType) };
+		} catch (final IOException | RuntimeException e) {
+			throw new ValidationJsonException(CURSOR, "invalid-cursor", "cursor", cursor);
+		}
+	}
+}
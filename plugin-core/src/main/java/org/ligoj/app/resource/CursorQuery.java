@@ -0,0 +1,103 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import lombok.Getter;
+
+/**
+ * A JPQL query to paginate with a cursor. The <code>FROM</code> part must include a <code>WHERE</code> clause, the
+ * cursor condition is appended to it.
+ */
+@Getter
+public class CursorQuery {
+
+	/**
+	 * The paginated entity, also the one holding the sort columns.
+	 */
+	private final Class<?> entity;
+
+	/**
+	 * The alias of the paginated entity.
+	 */
+	private final String alias;
+
+	/**
+	 * The <code>FROM ... WHERE ...</code> part of the query.
+	 */
+	private final String from;
+
+	/**
+	 * The selected columns, the entity alias by default.
+	 */
+	private String select;
+
+	/**
+	 * The optional <code>GROUP BY</code> part of the query.
+	 */
+	private String groupBy = "";
+
+	/**
+	 * The named parameters of the query.
+	 */
+	private final Map<String, Object> parameters = new HashMap<>();
+
+	/**
+	 * Extract the paginated entity from a result row.
+	 */
+	private Function<Object, Object> row = Function.identity();
+
+	/**
+	 * Query of a single entity.
+	 *
+	 * @param entity The paginated entity.
+	 * @param alias  The alias of the paginated entity.
+	 * @param from   The <code>FROM ... WHERE ...</code> part of the query.
+	 */
+	public CursorQuery(final Class<?> entity, final String alias, final String from) {
+		this.entity = entity;
+		this.alias = alias;
+		this.from = from;
+		this.select = alias;
+	}
+
+	/**
+	 * Set the selected columns.
+	 *
+	 * @param select The selected columns.
+	 * @param row    Extract the paginated entity from a result row.
+	 * @return This instance.
+	 */
+	public CursorQuery select(final String select, final Function<Object, Object> row) {
+		this.select = select;
+		this.row = row;
+		return this;
+	}
+
+	/**
+	 * Set the <code>GROUP BY</code> part.
+	 *
+	 * @param groupBy The <code>GROUP BY ...</code> part of the query.
+	 * @return This instance.
+	 */
+	public CursorQuery groupBy(final String groupBy) {
+		this.groupBy = " " + groupBy;
+		return this;
+	}
+
+	/**
+	 * Add a named parameter.
+	 *
+	 * @param name  The parameter name.
+	 * @param value The parameter value. May be <code>null</code>.
+	 * @return This instance.
+	 */
+	public CursorQuery parameter(final String name, final Object value) {
+		parameters.put(name, value);
+		return this;
+	}
+}
@@ -0,0 +1,25 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource;
+
+import org.ligoj.bootstrap.core.json.TableItem;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A page of a cursor pagination. The counters are <code>-1</code> when they have not been requested.
+ *
+ * @param <K> The item type.
+ */
+@Getter
+@Setter
+public class CursorTableItem<K> extends TableItem<K> {
+
+	/**
+	 * The opaque position of the next page. <code>null</code> when this page is the last one.
+	 */
+	private String next;
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource;
+
+import java.util.List;
+
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+import org.ligoj.app.dao.QueryMetrics;
+import org.ligoj.app.dao.QuerySampleVo;
+import org.ligoj.app.metrics.MetricsVo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Repository calls metrics, see {@link QueryMetrics}.
+ */
+@Path("/system/query-metrics")
+@Service
+@Produces(MediaType.APPLICATION_JSON)
+public class QueryMetricsResource {
+
+	@Autowired
+	private QueryMetrics metrics;
+
+	/**
+	 * Return the slowest repository methods.
+	 *
+	 * @param limit The maximal amount of returned methods.
+	 * @return The metrics ordered by descending mean duration.
+	 */
+	@GET
+	public List<MetricsVo> findAll(@DefaultValue("10") @QueryParam("limit") final int limit) {
+		return metrics.getMetrics().stream().limit(Math.max(0, limit)).toList();
+	}
+
+	/**
+	 * Return the slow repository calls.
+	 *
+	 * @return The samples, the most recent first.
+	 */
+	@GET
+	@Path("samples")
+	public List<QuerySampleVo> findAllSamples() {
+		return metrics.getSamples();
+	}
+
+	/**
+	 * Forget all the metrics and samples.
+	 */
+	@DELETE
+	public void reset() {
+		metrics.reset();
+	}
+}
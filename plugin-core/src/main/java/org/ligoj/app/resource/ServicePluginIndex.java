@@ -0,0 +1,134 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.api.ServicePlugin;
+
+/**
+ * Immutable index of {@link ServicePlugin} beans by their key. The index is a trie over the <code>:</code> separated
+ * segments of the keys, so the nearest plug-in of a node is resolved in <code>O(depth)</code> without any bean factory
+ * lookup. The resolution follows the node hierarchy: the exact key first, then the parents down to the service level
+ * (two segments).
+ */
+public final class ServicePluginIndex {
+
+	/**
+	 * A trie entry: the beans registered with the exact key of this entry, and the children by segment.
+	 */
+	private static final class Entry {
+		private final Map<String, Entry> children = new HashMap<>();
+		private final List<String> names = new ArrayList<>(1);
+		private final List<ServicePlugin> plugins = new ArrayList<>(1);
+	}
+
+	private final Entry root = new Entry();
+
+	/**
+	 * Build the index from the given beans.
+	 *
+	 * @param plugins The plug-in beans, key is the bean name. The iteration order is the resolution order when several
+	 *                beans share the same key.
+	 */
+	public ServicePluginIndex(final Map<String, ServicePlugin> plugins) {
+		plugins.forEach((name, plugin) -> {
+			if (plugin.getKey() != null) {
+				var entry = root;
+				for (final var segment : StringUtils.splitPreserveAllTokens(plugin.getKey(), ':')) {
+					entry = entry.children.computeIfAbsent(segment, s -> new Entry());
+				}
+				entry.names.add(name);
+				entry.plugins.add(plugin);
+			}
+		});
+	}
+
+	/**
+	 * Return the path of the trie entries matching the segments of the given key. The path stops at the first missing
+	 * segment.
+	 */
+	private List<Entry> getPath(final String service) {
+		final var segments = StringUtils.splitPreserveAllTokens(service, ':');
+		final var path = new ArrayList<Entry>(segments.length);
+		var entry = root;
+		for (final var segment : segments) {
+			entry = entry.children.get(segment);
+			if (entry == null) {
+				break;
+			}
+			path.add(entry);
+		}
+		return path;
+	}
+
+	/**
+	 * Return the index of the first candidate entry of the path: the exact match, or a parent having at least two
+	 * segments.
+	 */
+	private int getMinDepth(final List<Entry> path, final String service) {
+		final var depth = StringUtils.countMatches(service, ':') + 1;
+		return path.size() == depth ? Math.min(depth - 1, 1) : 1;
+	}
+
+	/**
+	 * Return the bean name of the nearest plug-in of the given service key.
+	 *
+	 * @param service The service key.
+	 * @return The nearest plug-in bean name or <code>null</code> when not found.
+	 */
+	public String getName(final String service) {
+		final var path = getPath(service);
+		for (var i = path.size() - 1; i >= getMinDepth(path, service); i--) {
+			if (!path.get(i).names.isEmpty()) {
+				return path.get(i).names.get(0);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the nearest plug-in of the given service key implementing the required type.
+	 *
+	 * @param service      The service key.
+	 * @param requiredType The required resource class.
+	 * @param <T>          The required resource type.
+	 * @return The nearest plug-in or <code>null</code> when not found.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(final String service, final Class<T> requiredType) {
+		final var path = getPath(service);
+		for (var i = path.size() - 1; i >= getMinDepth(path, service); i--) {
+			final var plugins = path.get(i).plugins;
+			if (!plugins.isEmpty()) {
+				if (requiredType.isInstance(plugins.get(0))) {
+					return (T) plugins.get(0);
+				}
+				// The nearest plug-in does not match, try the parent
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return all indexed plug-ins.
+	 *
+	 * @return All indexed plug-ins.
+	 */
+	public List<ServicePlugin> getPlugins() {
+		final var result = new ArrayList<ServicePlugin>();
+		addPlugins(root, result);
+		return Collections.unmodifiableList(result);
+	}
+
+	private void addPlugins(final Entry entry, final List<ServicePlugin> result) {
+		result.addAll(entry.plugins);
+		entry.children.values().forEach(c -> addPlugins(c, result));
+	}
+}
@@ -3,8 +3,8 @@
  */
 package org.ligoj.app.resource;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Optional;
 
 import javax.cache.annotation.CacheKey;
@@ -17,15 +17,15 @@ import org.ligoj.app.api.ToolPlugin;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
 
-import lombok.Setter;
-
 /**
  * Locate service resource from the plug-in key.
  */
 @Component
-public class ServicePluginLocator implements ApplicationContextAware {
+public class ServicePluginLocator implements ApplicationContextAware, ApplicationListener<ContextRefreshedEvent> {
 
 	/**
 	 * Used for "this" and forcing proxying.
@@ -33,9 +33,19 @@ public class ServicePluginLocator implements ApplicationContextAware {
 	@Autowired
 	protected ServicePluginLocator self;
 
-	@Setter
 	private ApplicationContext applicationContext;
 
+	/**
+	 * The plug-in index, built at the first use and on each context refresh.
+	 */
+	private volatile ServicePluginIndex index;
+
+	@Override
+	public void setApplicationContext(final ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+		this.index = null;
+	}
+
 	/**
 	 * Return the plug-in from the service key.
 	 *
@@ -54,27 +64,14 @@ public class ServicePluginLocator implements ApplicationContextAware {
 	 * @param <T>          The required resource type. For sample <code>ServicePlugin</code>
 	 * @return the plug-in from the service key. <code>null</code> if not found.
 	 */
-	@SuppressWarnings("unchecked")
 	public <T> T getResource(final String service, final Class<T> requiredType) {
 		if (service == null) {
 			// No service, may be from the recursive call ...
 			return null;
 		}
 
-		// Search the resource
-		final var name = self.getResourceName(service);
-		if (name == null) {
-			// Bean does not exists
-			return null;
-		}
-
-		// Check the type
-		final var bean = applicationContext.getBean(name, ServicePlugin.class);
-		if (requiredType.isInstance(bean)) {
-			return (T) bean;
-		}
-		// Try the parent
-		return getResource(getParent(bean.getKey()), requiredType);
+		// Search the nearest resource of the required type
+		return getIndex().get(service, requiredType);
 	}
 
 	/**
@@ -98,62 +95,53 @@ public class ServicePluginLocator implements ApplicationContextAware {
 	 */
 	@CacheResult(cacheName = "services")
 	public String getResourceName(@CacheKey final String service) {
-		return getResources(service).stream().findFirst().orElse(null);
-	}
-
-	/**
-	 * Return all Spring context bean of type {@link ServicePlugin}
-	 */
-	private String[] getPluginResources() {
-		return applicationContext.getBeanNamesForType(ServicePlugin.class);
+		return getIndex().getName(service);
 	}
 
 	/**
-	 * Return the plug-in from the service key.
+	 * Return all registered plug-ins.
 	 *
-	 * @param service the service name.
-	 * @return the plug-in from the service key.
+	 * @return All Spring context beans of type {@link ServicePlugin}.
 	 */
-	private List<String> getResources(final String service) {
-		return getResources(getPluginResources(), service);
+	public Collection<ServicePlugin> getPlugins() {
+		return getIndex().getPlugins();
 	}
 
 	/**
-	 * Return the resource of required service.
+	 * Return the plug-in index, built as needed.
+	 *
+	 * @return The plug-in index of the current context.
 	 */
-	private List<String> getResources(final String[] registeredServices, final String service) {
-		final var result = getExactResources(registeredServices, service);
-		if (result.isEmpty()) {
-			return getParentResources(registeredServices, service, result);
+	protected ServicePluginIndex getIndex() {
+		var result = index;
+		if (result == null) {
+			result = refresh();
 		}
 		return result;
 	}
 
 	/**
-	 * Return the resources implementing the parent of given service key.
+	 * Rebuild the plug-in index from the registered {@link ServicePlugin} beans. Should be called when the plug-ins
+	 * are reloaded.
+	 *
+	 * @return The new plug-in index.
 	 */
-	private List<String> getParentResources(final String[] registeredServices, final String service,
-			final List<String> result) {
-		// Try the parent
-		final var parentService = getParent(service);
-		if (parentService == null) {
-			return result;
+	public ServicePluginIndex refresh() {
+		final var plugins = new LinkedHashMap<String, ServicePlugin>();
+		for (final var name : applicationContext.getBeanNamesForType(ServicePlugin.class)) {
+			plugins.put(name, applicationContext.getBean(name, ServicePlugin.class));
 		}
-		return getResources(registeredServices, parentService);
+		final var result = new ServicePluginIndex(plugins);
+		index = result;
+		return result;
 	}
 
-	/**
-	 * Return the resources implementing the exact given service key.
-	 */
-	private List<String> getExactResources(final String[] registeredServices, final String service) {
-		final var result = new ArrayList<String>();
-		for (final var plugin : registeredServices) {
-			final var bean = applicationContext.getBean(plugin, ServicePlugin.class);
-			if (service.equals(bean.getKey())) {
-				result.add(plugin);
-			}
+	@Override
+	public void onApplicationEvent(final ContextRefreshedEvent event) {
+		if (event.getApplicationContext() == applicationContext) {
+			// Plug-ins may have been reloaded
+			refresh();
 		}
-		return result;
 	}
 
 	/**
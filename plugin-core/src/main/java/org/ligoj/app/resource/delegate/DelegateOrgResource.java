@@ -5,6 +5,8 @@ package org.ligoj.app.resource.delegate;
 
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -37,6 +39,8 @@ import org.ligoj.app.iam.dao.DelegateOrgRepository;
 import org.ligoj.app.iam.model.DelegateOrg;
 import org.ligoj.app.iam.model.DelegateType;
 import org.ligoj.app.iam.model.ReceiverType;
+import org.ligoj.app.resource.CursorPagination;
+import org.ligoj.app.resource.CursorQuery;
 import org.ligoj.app.validation.DistinguishNameValidator;
 import org.ligoj.bootstrap.core.NamedBean;
 import org.ligoj.bootstrap.core.json.PaginationJson;
@@ -65,6 +69,9 @@ public class DelegateOrgResource {
 	@Autowired
 	private PaginationJson paginationJson;
 
+	@Autowired
+	private CursorPagination cursorPagination;
+
 	@Autowired
 	protected IamProvider[] iamProvider;
 
@@ -104,14 +111,44 @@ public class DelegateOrgResource {
 	 * @return The initialized bean corresponding to the entity with fetched description for related user and group.
 	 */
 	public DelegateOrgLightVo toVo(final DelegateOrg entity) {
+		return toVo(List.of(entity)).apply(entity);
+	}
+
+	/**
+	 * Return a converter from {@link DelegateOrg} to {@link DelegateOrgLightVo} for the given page. The related users
+	 * and groups of the whole page are resolved once.
+	 *
+	 * @param entities The entities of the page to convert.
+	 * @return The converter of the entities of this page.
+	 */
+	public Function<DelegateOrg, DelegateOrgLightVo> toVo(final List<DelegateOrg> entities) {
+		final var logins = new HashSet<String>();
+		final var groupIds = new HashSet<String>();
+		entities.forEach(e -> {
+			logins.add(e.getCreatedBy());
+			logins.add(e.getLastModifiedBy());
+			if (e.getReceiverType() == ReceiverType.USER) {
+				logins.add(e.getReceiver());
+			}
+			if (e.getType() == DelegateType.GROUP) {
+				groupIds.add(e.getReferenceID());
+			}
+		});
+		final var toUser = getUser().toUsers(logins);
+		final var groups = groupIds.isEmpty() ? Map.<String, GroupOrg>of() : getGroup().findAllById(groupIds);
+		return e -> toVo(e, toUser, groups);
+	}
+
+	private DelegateOrgLightVo toVo(final DelegateOrg entity, final Function<String, UserOrg> toUser,
+			final Map<String, GroupOrg> groups) {
 		final var vo = new DelegateOrgLightVo();
 		NamedBean.copy(entity, vo);
-		vo.copyAuditData(entity, (Function<String, UserOrg>) getUser()::toUser);
+		vo.copyAuditData(entity, toUser);
 
 		// Map the receiver
 		vo.setReceiverType(entity.getReceiverType());
 		if (entity.getReceiverType() == ReceiverType.USER) {
-			vo.setReceiver(getUser().toUser(entity.getReceiver()));
+			vo.setReceiver(toUser.apply(entity.getReceiver()));
 		} else {
 			vo.setReceiver(new NamedBean<>(entity.getReceiver(), entity.getReceiver()));
 		}
@@ -122,7 +159,6 @@ public class DelegateOrgResource {
 		// Flag to indicate the principal user can manage this entry
 		vo.setManaged(isManagedDelegate(entity));
 		if (entity.getType() == DelegateType.GROUP) {
-			final var groups = getGroup().findAll();
 			if (groups.containsKey(entity.getReferenceID())) {
 				// Make nicer the display for group using the CN
 				vo.setName(groups.get(entity.getReferenceID()).getName());
@@ -144,7 +180,7 @@ public class DelegateOrgResource {
 	}
 
 	/**
-	 * Retrieve all elements with pagination
+	 * Retrieve all elements with pagination, or with a cursor when requested, see {@link CursorPagination}.
 	 *
 	 * @param uriInfo    pagination data.
 	 * @param typeSearch Optional {@link DelegateType} search.
@@ -156,12 +192,20 @@ public class DelegateOrgResource {
 		// Trigger cache loading
 		getUser().findAll();
 
+		if (cursorPagination.isRequested(uriInfo)) {
+			return cursorPagination.<DelegateOrg, DelegateOrgLightVo>findAllBatch(uriInfo,
+					new CursorQuery(DelegateOrg.class, "d", DelegateOrgRepository.FIND_ALL)
+							.parameter("user", securityHelper.getLogin())
+							.parameter("criteria", DataTableAttributes.getSearch(uriInfo)).parameter("type", typeSearch),
+					ORDERED_COLUMNS, this::toVo);
+		}
+
 		final var pageRequest = paginationJson.getPageRequest(uriInfo, ORDERED_COLUMNS);
 		final var findAll = repository.findAll(securityHelper.getLogin(), DataTableAttributes.getSearch(uriInfo),
 				typeSearch, pageRequest);
 
 		// apply pagination and prevent lazy initialization issue
-		return paginationJson.applyPagination(uriInfo, findAll, this::toVo);
+		return paginationJson.applyPagination(uriInfo, findAll, toVo(findAll.getContent()));
 	}
 
 	/**
@@ -24,6 +24,8 @@ import jakarta.ws.rs.core.UriInfo;
 import org.apache.commons.lang3.StringUtils;
 import org.ligoj.app.dao.DelegateNodeRepository;
 import org.ligoj.app.model.DelegateNode;
+import org.ligoj.app.resource.CursorPagination;
+import org.ligoj.app.resource.CursorQuery;
 import org.ligoj.bootstrap.core.json.PaginationJson;
 import org.ligoj.bootstrap.core.json.TableItem;
 import org.ligoj.bootstrap.core.json.datatable.DataTableAttributes;
@@ -49,6 +51,9 @@ public class DelegateNodeResource {
 	@Autowired
 	private PaginationJson paginationJson;
 
+	@Autowired
+	private CursorPagination cursorPagination;
+
 	/**
 	 * Ordered columns.
 	 */
@@ -64,7 +69,7 @@ public class DelegateNodeResource {
 	}
 
 	/**
-	 * Retrieve all elements with pagination
+	 * Retrieve all elements with pagination, or with a cursor when requested, see {@link CursorPagination}.
 	 *
 	 * @param uriInfo  pagination data.
 	 * @param criteria Optional text to match.
@@ -73,6 +78,13 @@ public class DelegateNodeResource {
 	@GET
 	public TableItem<DelegateNode> findAll(@Context final UriInfo uriInfo,
 			@QueryParam(DataTableAttributes.SEARCH) final String criteria) {
+		if (cursorPagination.isRequested(uriInfo)) {
+			return cursorPagination.findAll(uriInfo,
+					new CursorQuery(DelegateNode.class, "d", DelegateNodeRepository.FIND_ALL)
+							.parameter("user", securityHelper.getLogin())
+							.parameter("criteria", StringUtils.trimToNull(criteria)),
+					ORDERED_COLUMNS, Function.<DelegateNode>identity());
+		}
 		final var pageRequest = paginationJson.getPageRequest(uriInfo, ORDERED_COLUMNS);
 		final var findAll = repository.findAll(securityHelper.getLogin(), StringUtils.trimToNull(criteria),
 				pageRequest);
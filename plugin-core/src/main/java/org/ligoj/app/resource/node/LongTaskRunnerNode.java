@@ -7,12 +7,16 @@ import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import org.ligoj.app.dao.NodeRepository;
 import org.ligoj.app.dao.task.LongTaskNodeRepository;
 import org.ligoj.app.model.AbstractLongTaskNode;
 import org.ligoj.app.model.Node;
+import org.ligoj.app.resource.plugin.LongTaskExecutor;
 import org.ligoj.app.resource.plugin.LongTaskRunner;
+import org.ligoj.bootstrap.core.SpringUtils;
 import org.ligoj.bootstrap.core.resource.OnNullReturn404;
 
 /**
@@ -79,6 +83,24 @@ public interface LongTaskRunnerNode<T extends AbstractLongTaskNode, R extends Lo
 	@OnNullReturn404
 	default T cancel(@PathParam("node") final String node) {
 		checkVisible(node);
-		return endTask(node, true);
+		final var task = endTask(node, true);
+
+		// Interrupt the execution when running on this member
+		SpringUtils.getBean(LongTaskExecutor.class).cancel(this, node);
+		return task;
+	}
+
+	/**
+	 * Stream the progress of the task started with {@link LongTaskExecutor} as server-sent events.
+	 *
+	 * @param node The locked node identifier.
+	 * @return The event stream: the <code>progress</code> events, then the <code>end</code> event.
+	 */
+	@GET
+	@Path("{node:service:.+}/task/progress")
+	@Produces("text/event-stream")
+	default StreamingOutput getTaskProgress(@PathParam("node") final String node) {
+		checkVisible(node);
+		return SpringUtils.getBean(LongTaskExecutor.class).stream(this, node);
 	}
 }
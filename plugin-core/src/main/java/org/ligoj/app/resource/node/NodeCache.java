@@ -3,38 +3,137 @@
  */
 package org.ligoj.app.resource.node;
 
-import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
 import java.util.function.Function;
 
 import javax.cache.expiry.Duration;
 import javax.cache.expiry.ModifiedExpiryPolicy;
 
 import org.ligoj.bootstrap.resource.system.cache.CacheManagerAware;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
 import org.springframework.stereotype.Component;
 
 import com.hazelcast.cache.HazelcastCacheManager;
+import com.hazelcast.cache.ICache;
 import com.hazelcast.config.CacheConfig;
 import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MaxSizePolicy;
+
+import lombok.extern.slf4j.Slf4j;
 
 /**
- * Nodes data cache configurations.
+ * Nodes data cache configurations. Each cache is tuned from the properties declared in {@value #CONFIGURATION} and
+ * can be overridden by the environment with the same keys. Supported properties for a cache named <code>name</code>:
+ * <ul>
+ * <li><code>cache.name.size</code>: maximal entry count per member before LRU eviction. <code>0</code> keeps the
+ * provider's default.</li>
+ * <li><code>cache.name.ttl</code>: time to live in seconds since the last modification. <code>0</code> means
+ * eternal.</li>
+ * <li><code>cache.name.format</code>: in-memory format, <code>BINARY</code> or <code>OBJECT</code>.</li>
+ * <li><code>cache.name.statistics</code>: when <code>true</code>, hit/miss/eviction statistics are collected.</li>
+ * </ul>
  */
 @Component
+@Slf4j
 public class NodeCache implements CacheManagerAware {
 
+	/**
+	 * Default tuning of node caches.
+	 */
+	public static final String CONFIGURATION = "META-INF/node-cache.properties";
+
+	/**
+	 * Managed caches.
+	 */
+	public static final List<String> CACHES = List.of("nodes", "node-parameters", "services", "node-enablement",
+			"curl-tokens", "subscription-parameters", "plugin-data");
+
+	@Autowired
+	private Environment environment;
+
+	private HazelcastCacheManager cacheManager;
+
 	@Override
 	public void onCreate(final HazelcastCacheManager cacheManager, final Function<String, CacheConfig<?, ?>> provider) {
-		cacheManager.createCache("nodes", provider.apply("nodes"));
-		cacheManager.createCache("node-parameters", provider.apply("node-parameters"));
-		cacheManager.createCache("services", provider.apply("services"));
-		cacheManager.createCache("node-enablement", provider.apply("node-enablement"));
-		final CacheConfig<?, ?> tokens = provider.apply("curl-tokens");
-		tokens.setExpiryPolicyFactory(ModifiedExpiryPolicy.factoryOf(new Duration(HOURS, 10)));
-		tokens.setEvictionConfig(new EvictionConfig());
-		cacheManager.createCache("curl-tokens", tokens);
-		cacheManager.createCache("subscription-parameters", provider.apply("subscription-parameters"));
-		cacheManager.createCache("plugin-data", provider.apply("plugin-data"));
+		this.cacheManager = cacheManager;
+		final var defaults = loadDefaults();
+		CACHES.forEach(name -> cacheManager.createCache(name, configure(name, provider.apply(name), defaults)));
+	}
+
+	/**
+	 * Load the default tuning from the class-path.
+	 */
+	private Properties loadDefaults() {
+		try {
+			return PropertiesLoaderUtils.loadProperties(new ClassPathResource(CONFIGURATION));
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Apply the tuning to a cache configuration.
+	 *
+	 * @param name     The cache name.
+	 * @param config   The configuration to complete.
+	 * @param defaults The default tuning.
+	 * @return The given configuration.
+	 */
+	protected CacheConfig<?, ?> configure(final String name, final CacheConfig<?, ?> config,
+			final Properties defaults) {
+		final var size = Integer.parseInt(getProperty(name, "size", defaults, "0"));
+		if (size > 0) {
+			config.setEvictionConfig(new EvictionConfig().setSize(size).setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+					.setEvictionPolicy(EvictionPolicy.LRU));
+		}
+		final var ttl = Long.parseLong(getProperty(name, "ttl", defaults, "0"));
+		if (ttl > 0) {
+			config.setExpiryPolicyFactory(ModifiedExpiryPolicy.factoryOf(new Duration(SECONDS, ttl)));
+		}
+		config.setInMemoryFormat(InMemoryFormat
+				.valueOf(getProperty(name, "format", defaults, InMemoryFormat.BINARY.name()).toUpperCase(Locale.ENGLISH)));
+		config.setStatisticsEnabled(Boolean.parseBoolean(getProperty(name, "statistics", defaults, "true")));
+		log.info("Cache {} configured with size={}, ttl={}s, format={}, statistics={}", name, size, ttl,
+				config.getInMemoryFormat(), config.isStatisticsEnabled());
+		return config;
+	}
+
+	private String getProperty(final String name, final String property, final Properties defaults,
+			final String defaultValue) {
+		final var key = "cache." + name + "." + property;
+		return environment.getProperty(key, defaults.getProperty(key, defaultValue)).trim();
+	}
+
+	/**
+	 * Return the local statistics of the node caches.
+	 *
+	 * @return The statistics of each managed cache. Empty when the caches are not yet created.
+	 */
+	public List<NodeCacheStatisticsVo> getStatistics() {
+		return Optional.ofNullable(cacheManager).map(m -> CACHES.stream().map(name -> {
+			final var statistics = m.getCache(name).unwrap(ICache.class).getLocalCacheStatistics();
+			final var vo = new NodeCacheStatisticsVo();
+			vo.setId(name);
+			vo.setSize(statistics.getOwnedEntryCount());
+			vo.setHits(statistics.getCacheHits());
+			vo.setMisses(statistics.getCacheMisses());
+			vo.setEvictions(statistics.getCacheEvictions());
+			vo.setPuts(statistics.getCachePuts());
+			vo.setAverageGetTime(statistics.getAverageGetTime());
+			return vo;
+		}).toList()).orElseGet(List::of);
 	}
 
 }
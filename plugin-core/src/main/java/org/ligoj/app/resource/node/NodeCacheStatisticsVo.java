@@ -0,0 +1,51 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.node;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Local statistics of a node cache.
+ */
+@Getter
+@Setter
+public class NodeCacheStatisticsVo {
+
+	/**
+	 * Cache name.
+	 */
+	private String id;
+
+	/**
+	 * Entries owned by the current member.
+	 */
+	private long size;
+
+	/**
+	 * Successful reads.
+	 */
+	private long hits;
+
+	/**
+	 * Failed reads.
+	 */
+	private long misses;
+
+	/**
+	 * Evicted entries by size or expiry.
+	 */
+	private long evictions;
+
+	/**
+	 * Entries put.
+	 */
+	private long puts;
+
+	/**
+	 * Average read time in micro seconds.
+	 */
+	private float averageGetTime;
+
+}
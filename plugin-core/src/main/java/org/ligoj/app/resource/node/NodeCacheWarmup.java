@@ -0,0 +1,116 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.node;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.ligoj.app.api.ServicePlugin;
+import org.ligoj.app.dao.NodeRepository;
+import org.ligoj.app.model.Node;
+import org.ligoj.app.resource.ServicePluginLocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opt-in warm-up of the node caches after the context refresh: <code>nodes</code>, <code>node-parameters</code>,
+ * <code>services</code> and <code>node-enablement</code>. Enabled with <code>cache.warmup.enabled=true</code>, the
+ * amount of loading threads is set with <code>cache.warmup.threads</code>.
+ */
+@Component
+@Slf4j
+public class NodeCacheWarmup implements ApplicationListener<ContextRefreshedEvent> {
+
+	@Autowired
+	private NodeRepository repository;
+
+	@Autowired
+	private NodeResource nodeResource;
+
+	@Autowired
+	private ParameterValueResource pvResource;
+
+	@Autowired
+	private ServicePluginLocator locator;
+
+	@Value("${cache.warmup.enabled:false}")
+	private boolean enabled;
+
+	@Value("${cache.warmup.threads:4}")
+	private int threads;
+
+	/**
+	 * The current warm-up status.
+	 */
+	@Getter
+	private final NodeCacheWarmupVo status = new NodeCacheWarmupVo();
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	@Override
+	public void onApplicationEvent(final ContextRefreshedEvent event) {
+		status.setEnabled(enabled);
+		if (!enabled) {
+			// Nothing to load, the caches are filled on demand
+			status.setReady(true);
+			return;
+		}
+		if (started.compareAndSet(false, true)) {
+			// Only the first refresh triggers the warm-up
+			CompletableFuture.runAsync(this::warmup);
+		}
+	}
+
+	/**
+	 * Pre-populate the node caches in parallel. The status becomes ready at the end of the warm-up, even when some
+	 * entries failed to load.
+	 */
+	public void warmup() {
+		status.setReady(false);
+		status.setStart(System.currentTimeMillis());
+		log.info("Cache warm-up started with {} threads", threads);
+		final var executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			final var tasks = new ArrayList<CompletableFuture<Void>>();
+			tasks.add(CompletableFuture.runAsync(nodeResource::findAll, executor));
+			final var keys = new ArrayList<>(repository.findAll().stream().map(Node::getId).toList());
+			locator.getPlugins().stream().map(ServicePlugin::getKey).forEach(keys::add);
+			keys.stream().distinct().forEach(key -> {
+				tasks.add(load(executor, locator::getResourceName, key));
+				tasks.add(load(executor, locator::isEnabled, key));
+				tasks.add(load(executor, pvResource::getNodeParameters, key));
+			});
+			CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+		} catch (final RuntimeException e) {
+			log.error("Cache warm-up failed", e);
+		} finally {
+			executor.shutdown();
+			status.setDuration(System.currentTimeMillis() - status.getStart());
+			status.setReady(true);
+			log.info("Cache warm-up done in {}ms", status.getDuration());
+		}
+	}
+
+	private CompletableFuture<Void> load(final Executor executor, final Consumer<String> loader,
+			final String key) {
+		return CompletableFuture.runAsync(() -> {
+			try {
+				loader.accept(key);
+			} catch (final RuntimeException e) {
+				// Not blocking, this entry will be loaded on demand
+				log.warn("Cache warm-up of {} failed: {}", key, e.getMessage());
+			}
+		}, executor);
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.node;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Node cache warm-up status.
+ */
+@Getter
+@Setter
+public class NodeCacheWarmupVo {
+
+	/**
+	 * When <code>true</code>, the warm-up is enabled.
+	 */
+	private boolean enabled;
+
+	/**
+	 * When <code>true</code>, the warm-up is finished or disabled.
+	 */
+	private volatile boolean ready;
+
+	/**
+	 * Start timestamp of the warm-up. <code>null</code> when not started.
+	 */
+	private Long start;
+
+	/**
+	 * Duration in milliseconds of the finished warm-up.
+	 */
+	private Long duration;
+
+}
@@ -24,6 +24,7 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.ServiceUnavailableException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.UriInfo;
@@ -46,7 +47,10 @@ import org.ligoj.app.model.Node;
 import org.ligoj.app.model.Parameter;
 import org.ligoj.app.model.ParameterValue;
 import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.CursorPagination;
+import org.ligoj.app.resource.CursorQuery;
 import org.ligoj.app.resource.ServicePluginLocator;
+import org.ligoj.app.resource.plugin.LigojPluginsClassLoader;
 import org.ligoj.app.resource.plugin.LongTaskRunner;
 import org.ligoj.bootstrap.core.NamedBean;
 import org.ligoj.bootstrap.core.json.PaginationJson;
@@ -99,9 +103,23 @@ public class NodeResource extends AbstractLockedResource<Node, String> {
 	@Autowired
 	private PaginationJson paginationJson;
 
+	@Autowired
+	private NodeCache nodeCache;
+
+	@Autowired
+	private NodeCacheWarmup nodeCacheWarmup;
+
 	@Autowired
 	protected NodeResource self;
 
+	@Autowired
+	private CursorPagination cursorPagination;
+
+	/**
+	 * Maximal amount of identifiers of a bulk delete statement.
+	 */
+	private static final int DELETE_CHUNK = 500;
+
 	/**
 	 * Mapped columns.
 	 */
@@ -361,10 +379,16 @@ public class NodeResource extends AbstractLockedResource<Node, String> {
 		// Delegate the deletion
 		deleteWithTasks(id, id, true);
 
-		pvResource.deleteByNode(id);
-		parameterRepository.deleteByNode(id);
-		eventRepository.deleteByNode(id);
+		// Delete the associations of the node and its sub-nodes by chunk
+		for (final var chunk : ListUtils.partition(repository.findAllIdentifiers(id), DELETE_CHUNK)) {
+			pvResource.deleteByNodes(chunk);
+			parameterRepository.deleteByNodes(chunk);
+			eventRepository.deleteByNodes(chunk);
+		}
 		repository.deleteById(id);
+
+		// Forget the resolved data paths of the deleted nodes
+		Optional.ofNullable(LigojPluginsClassLoader.getInstance()).ifPresent(c -> c.evictPath(id));
 	}
 
 	@Override
@@ -597,6 +621,32 @@ public class NodeResource extends AbstractLockedResource<Node, String> {
 				.map(v -> EnumUtils.getEnum(NodeStatus.class, v)).orElse(null);
 	}
 
+	/**
+	 * Retrieve the local statistics of the node caches.
+	 *
+	 * @return Hit, miss and eviction statistics of each node cache.
+	 */
+	@GET
+	@Path("cache")
+	public List<NodeCacheStatisticsVo> getCacheStatistics() {
+		return nodeCache.getStatistics();
+	}
+
+	/**
+	 * Return the node cache warm-up status. Can be used as readiness probe.
+	 *
+	 * @return The warm-up status. When the warm-up is not finished, a 503 error is returned.
+	 */
+	@GET
+	@Path("cache/warmup")
+	public NodeCacheWarmupVo getCacheWarmup() {
+		final var status = nodeCacheWarmup.getStatus();
+		if (!status.isReady()) {
+			throw new ServiceUnavailableException();
+		}
+		return status;
+	}
+
 	/**
 	 * Retrieve node statistics.
 	 *
@@ -663,13 +713,22 @@ public class NodeResource extends AbstractLockedResource<Node, String> {
 	 *                 <code>1</code> means refined is a service, so nodes are basically tool only. <code>2</code> means
 	 *                 refined is a tool, so nodes are basically instances only. For the other cases, there is no limit,
 	 *                 and corresponds to the default behavior.
-	 * @return All visible nodes with the hierarchy but without UI data.
+	 * @return All visible nodes with the hierarchy but without UI data. A {@link CursorPagination} page when the cursor
+	 *         mode is requested.
 	 */
 	@GET
 	@org.springframework.transaction.annotation.Transactional(readOnly = true)
 	public TableItem<NodeVo> findAll(@Context final UriInfo uriInfo,
 			@QueryParam(DataTableAttributes.SEARCH) final String criteria, @QueryParam("refined") final String refined,
 			@QueryParam("mode") final SubscriptionMode mode, @QueryParam("depth") @DefaultValue("-1") final int depth) {
+		if (cursorPagination.isRequested(uriInfo)) {
+			return cursorPagination.findAll(uriInfo,
+					new CursorQuery(Node.class, "n", NodeRepository.FIND_ALL_VISIBLE)
+							.parameter("user", securityHelper.getLogin())
+							.parameter("criteria", StringUtils.trimToEmpty(criteria)).parameter("parent", refined)
+							.parameter("mode", mode).parameter("depth", depth),
+					ORM_MAPPING, (Node n) -> toVo(n, locator));
+		}
 		final var findAll = repository.findAllVisible(securityHelper.getLogin(), StringUtils.trimToEmpty(criteria),
 				refined, mode, depth, paginationJson.getPageRequest(uriInfo, ORM_MAPPING));
 
@@ -695,9 +754,19 @@ public class NodeResource extends AbstractLockedResource<Node, String> {
 	 * @return The corresponding and also validated {@link Parameter} entities.
 	 */
 	public List<Parameter> checkInputParameters(final AbstractParameterizedVo vo) {
-		final var acceptedParameters = parameterRepository.getOrphanParameters(vo.getNode(), vo.getMode(),
-				securityHelper.getLogin());
+		return checkInputParameters(vo, parameterRepository.getOrphanParameters(vo.getNode(), vo.getMode(),
+				securityHelper.getLogin()));
+	}
 
+	/**
+	 * Check the parameters that are being attached to this node against already resolved accepted parameters.
+	 *
+	 * @param vo                 The parameterized object.
+	 * @param acceptedParameters The accepted parameters of the node in the mode of the given object.
+	 * @return The given accepted parameters.
+	 */
+	public List<Parameter> checkInputParameters(final AbstractParameterizedVo vo,
+			final List<Parameter> acceptedParameters) {
 		// Check all mandatory parameters for the current subscription mode
 		vo.setParameters(ListUtils.emptyIfNull(vo.getParameters()));
 
@@ -4,8 +4,10 @@
 package org.ligoj.app.resource.node;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -54,6 +56,7 @@ import org.ligoj.bootstrap.core.resource.BusinessException;
 import org.ligoj.bootstrap.core.security.SecurityHelper;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Persistable;
 import org.springframework.stereotype.Service;
@@ -115,6 +118,9 @@ public class ParameterValueResource {
 	@Autowired
 	private CacheManager cacheManager;
 
+	@Autowired
+	protected ParameterValueResource self;
+
 	@AllArgsConstructor
 	private static class ParameterValueMapper<X> {
 		private final BiConsumer<BasicParameterValueVo, X> setter;
@@ -362,6 +368,15 @@ public class ParameterValueResource {
 		Optional.ofNullable(cacheManager.getCache(cache)).ifPresent(c -> c.evict(entity.getId()));
 	}
 
+	/**
+	 * Remove all entries of the resolved parameters caches. A node value is inherited by the sub-nodes and the
+	 * subscriptions, so the whole caches are concerned by a change.
+	 */
+	private void clearResolved() {
+		List.of("node-parameters", "subscription-parameters")
+				.forEach(c -> Optional.ofNullable(cacheManager.getCache(c)).ifPresent(Cache::clear));
+	}
+
 	/**
 	 * Update the given node parameter values. The old not updated values are deleted.
 	 *
@@ -369,8 +384,8 @@ public class ParameterValueResource {
 	 * @param node   The related node.
 	 */
 	public void update(final List<ParameterValueCreateVo> values, final Node node) {
-		// Build the old parameter values
-		final var oldList = repository.getParameterValues(node.getId());
+		// Build the old parameter values, only the ones owned by this node
+		final var oldList = repository.findAllBy("node.id", node.getId());
 		final var oldMap = oldList.stream()
 				.collect(Collectors.toMap(v -> v.getParameter().getId(), Function.identity()));
 
@@ -381,7 +396,7 @@ public class ParameterValueResource {
 
 		// Delete the existing but not provided values
 		CollectionUtils.removeAll(oldMap.keySet(), newParam).stream().map(oldMap::get).forEach(repository::delete);
-		evict("node-parameters", node);
+		clearResolved();
 	}
 
 	/**
@@ -403,16 +418,13 @@ public class ParameterValueResource {
 	 */
 	public void create(final List<ParameterValueCreateVo> values, final Node node) {
 		create(values, v -> v.setNode(node));
-		evict("node-parameters", node);
+		clearResolved();
 	}
 
 	private void create(final List<ParameterValueCreateVo> values, final Consumer<ParameterValue> presave) {
-		// Persist each not blank parameter
-		values.stream().map(this::createInternal).filter(Objects::nonNull).forEach(v -> {
-			// Link this value to the subscription
-			presave.accept(v);
-			repository.saveAndFlush(v);
-		});
+		// Persist each not blank parameter, and flush them at once
+		repository.saveAll(values.stream().map(this::createInternal).filter(Objects::nonNull).peek(presave).toList());
+		repository.flush();
 	}
 
 	/**
@@ -521,7 +533,8 @@ public class ParameterValueResource {
 	 *         {@link org.ligoj.app.model.Parameter}
 	 */
 	public Map<String, String> getNonSecuredSubscriptionParameters(final int subscription) {
-		return toMapValues(repository.findAllSecureBySubscription(subscription));
+		return toMapValues(getSubscriptionValues(subscription).stream().filter(v -> !v.getParameter().isSecured())
+				.toList());
 	}
 
 	/**
@@ -533,7 +546,60 @@ public class ParameterValueResource {
 	 */
 	@CacheResult(cacheName = "subscription-parameters")
 	public Map<String, String> getSubscriptionParameters(@CacheKey final int subscription) {
-		return toMapValues(repository.findAllBySubscription(subscription));
+		// The resolved node values are shared by all subscriptions of this node
+		final var result = new HashMap<>(Optional.ofNullable(subscriptionRepository.findNodeId(subscription))
+				.map(self::getNodeParameters).orElseGet(Map::of));
+		result.putAll(toMapValues(repository.findAllOwnedBySubscription(subscription)));
+		return result;
+	}
+
+	/**
+	 * Return the node chain of the given node: the node itself, then its parents up to the service level. The hierarchy
+	 * is read from the identifier, since a refining node identifier is always prefixed by the one of its parent.
+	 *
+	 * @param node The node identifier.
+	 * @return The node chain, the deepest first.
+	 */
+	public static List<String> getNodeChain(final String node) {
+		final var chain = new ArrayList<String>(3);
+		var current = node;
+		chain.add(current);
+		while (StringUtils.countMatches(current, ':') > 1) {
+			current = StringUtils.substringBeforeLast(current, ":");
+			chain.add(current);
+		}
+		return chain;
+	}
+
+	/**
+	 * Return the resolved parameter values of a node: the ones attached to the node and the ones inherited from its
+	 * parents. The whole node chain is loaded with one query, and for each parameter the value of the deepest node
+	 * wins: instance, then tool, then service.
+	 *
+	 * @param node The node identifier.
+	 * @return The resolved values, one per parameter.
+	 */
+	public List<ParameterValue> getInheritedValues(final String node) {
+		final var result = new LinkedHashMap<String, ParameterValue>();
+		repository.findAllByNodes(getNodeChain(node)).stream()
+				.sorted(Comparator.comparingInt(v -> v.getNode().getId().length()))
+				.forEach(v -> result.put(v.getParameter().getId(), v));
+		return new ArrayList<>(result.values());
+	}
+
+	/**
+	 * Return the resolved parameter values of a subscription: the inherited values of the subscribed node overridden
+	 * by the values of the subscription.
+	 *
+	 * @param subscription The subscription identifier.
+	 * @return The resolved values, one per parameter.
+	 */
+	public List<ParameterValue> getSubscriptionValues(final int subscription) {
+		final var result = new LinkedHashMap<String, ParameterValue>();
+		Optional.ofNullable(subscriptionRepository.findNodeId(subscription)).map(this::getInheritedValues)
+				.ifPresent(l -> l.forEach(v -> result.put(v.getParameter().getId(), v)));
+		repository.findAllOwnedBySubscription(subscription).forEach(v -> result.put(v.getParameter().getId(), v));
+		return new ArrayList<>(result.values());
 	}
 
 	private ParameterValue saveOrUpdate(final Map<String, ParameterValue> existing,
@@ -565,14 +631,35 @@ public class ParameterValueResource {
 		repository.deleteAllBy("subscription.id", subscription);
 	}
 
+	/**
+	 * Delete all parameter values associated to given subscriptions.
+	 *
+	 * @param subscriptions the associated subscriptions to delete.
+	 */
+	public void deleteBySubscriptions(final Collection<Integer> subscriptions) {
+		repository.deleteBySubscriptions(subscriptions);
+		Optional.ofNullable(cacheManager.getCache("subscription-parameters"))
+				.ifPresent(c -> subscriptions.forEach(c::evict));
+	}
+
+	/**
+	 * Delete all parameter values associated to given nodes, without subscription.
+	 *
+	 * @param nodes The nodes to delete.
+	 */
+	public void deleteByNodes(final Collection<String> nodes) {
+		repository.deleteByNodes(nodes);
+		clearResolved();
+	}
+
 	/**
 	 * Delete all parameter values associated to given node. This includes the related subscriptions parameter values.
 	 *
 	 * @param node The parent node.
 	 */
-	@CacheRemove(cacheName = "node-parameters")
-	public void deleteByNode(@CacheKey final String node) {
+	public void deleteByNode(final String node) {
 		repository.deleteByNode(node);
+		clearResolved();
 	}
 
 	/**
@@ -617,8 +704,8 @@ public class ParameterValueResource {
 	}
 
 	/**
-	 * Return the parameter values associated to the given node. Not exposed as web-service, contains secured data. The
-	 * result is cached.
+	 * Return the parameter values associated to the given node, including the inherited ones. Not exposed as
+	 * web-service, contains secured data. The result is cached.
 	 *
 	 * @param node the node identifier.
 	 * @return the parameters of given node as {@link Map}.
@@ -626,8 +713,8 @@ public class ParameterValueResource {
 	@org.springframework.transaction.annotation.Transactional(readOnly = true)
 	@CacheResult(cacheName = "node-parameters")
 	public Map<String, String> getNodeParameters(@CacheKey final String node) {
-		// Get parameters of given node
-		return toMapValues(repository.getParameterValues(node));
+		// Get parameters of given node and its parents
+		return toMapValues(getInheritedValues(node));
 	}
 
 	/**
@@ -644,7 +731,7 @@ public class ParameterValueResource {
 	public List<ParameterNodeVo> getNodeParameters(@PathParam("node") final String node,
 			@PathParam("mode") final SubscriptionMode mode) {
 		final var parameters = parameterResource.getNotProvidedAndAssociatedParameters(node, mode);
-		final var vmap = repository.getParameterValues(node).stream()
+		final var vmap = getInheritedValues(node).stream()
 				.collect(Collectors.toMap(v -> v.getParameter().getId(), Function.identity()));
 		return parameters.stream().map(p -> {
 			final var vo = new ParameterNodeVo();
@@ -0,0 +1,208 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.routing.DefaultProxyRoutePlanner;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.ligoj.app.metrics.MetricsRegistry;
+import org.ligoj.app.metrics.MetricsVo;
+import org.ligoj.bootstrap.core.curl.CurlProcessor;
+import org.ligoj.bootstrap.core.curl.CurlRequest;
+import org.ligoj.bootstrap.core.curl.DefaultHttpResponseCallback;
+import org.ligoj.bootstrap.core.curl.HttpResponseCallback;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shared HTTP client of the plug-ins outbound calls. The connections are pooled and kept alive, so the connection setup
+ * and the TLS handshake are paid once per host instead of once per call as with a {@link CurlProcessor}. Supported
+ * properties:
+ * <ul>
+ * <li><code>http.pool.max</code>: maximal amount of connections.</li>
+ * <li><code>http.pool.route</code>: maximal amount of connections to the same host.</li>
+ * <li><code>http.pool.idle</code>: delay before an idle connection is closed, in milliseconds.</li>
+ * <li><code>http.timeout.connect</code>: connection timeout, in milliseconds.</li>
+ * <li><code>http.timeout.response</code>: default response timeout, in milliseconds.</li>
+ * </ul>
+ * The proxy is configured with the same system properties as {@link CurlProcessor}.
+ */
+@Component
+@Slf4j
+public class HttpClientService {
+
+	private static final HttpResponseCallback DEFAULT_CALLBACK = new DefaultHttpResponseCallback();
+
+	/**
+	 * Metrics key of the malformed URLs.
+	 */
+	private static final String UNKNOWN_HOST = "unknown";
+
+	@Value("${http.pool.max:200}")
+	private int maxTotal = 200;
+
+	@Value("${http.pool.route:20}")
+	private int maxPerRoute = 20;
+
+	@Value("${http.pool.idle:30000}")
+	private long idle = 30000;
+
+	@Value("${http.timeout.connect:5000}")
+	private long connectTimeout = 5000;
+
+	@Value("${http.timeout.response:20000}")
+	private long responseTimeout = 20000;
+
+	private PoolingHttpClientConnectionManager manager;
+
+	private RequestConfig requestConfig;
+
+	/**
+	 * The shared client. Must not be closed by the borrowers.
+	 */
+	@Getter
+	private CloseableHttpClient client;
+
+	/**
+	 * Metrics of the calls, name is the host. A failed call is not accepted by the callback, or has no response.
+	 */
+	private final MetricsRegistry registry = new MetricsRegistry();
+
+	/**
+	 * Build the pooled client.
+	 */
+	@PostConstruct
+	public void initialize() {
+		manager = new PoolingHttpClientConnectionManager(CurlProcessor.newSslContext());
+		manager.setMaxTotal(maxTotal);
+		manager.setDefaultMaxPerRoute(maxPerRoute);
+		manager.setDefaultConnectionConfig(ConnectionConfig.custom()
+				.setConnectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+				.setValidateAfterInactivity(TimeValue.ofSeconds(1)).build());
+		requestConfig = RequestConfig.custom().setRedirectsEnabled(false)
+				.setResponseTimeout(responseTimeout, TimeUnit.MILLISECONDS).build();
+		final var builder = HttpClientBuilder.create().setConnectionManager(manager)
+				.setDefaultRequestConfig(requestConfig)
+				.disableRedirectHandling().disableCookieManagement().evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofMilliseconds(idle));
+		final var proxyHost = System.getProperty("https.proxyHost");
+		if (proxyHost != null) {
+			builder.setRoutePlanner(new DefaultProxyRoutePlanner(
+					new HttpHost(proxyHost, Integer.parseInt(System.getProperty("https.proxyPort")))));
+		}
+		client = builder.build();
+	}
+
+	/**
+	 * Close the pooled connections.
+	 */
+	@PreDestroy
+	public void close() {
+		client.close(CloseMode.GRACEFUL);
+	}
+
+	/**
+	 * Execute a request with the shared client, and give the response to the callback.
+	 *
+	 * @param request  The request to execute. The status is updated.
+	 * @param callback The response callback. When <code>null</code>, the response is saved in the request when the
+	 *                 status is accepted, like {@link CurlProcessor} does.
+	 * @return The callback result, <code>false</code> when the request failed.
+	 */
+	public boolean process(final CurlRequest request, final HttpResponseCallback callback) {
+		final var timer = registry.timer(toHost(request.getUrl()));
+		final var start = timer.start();
+		var success = false;
+		try {
+			final var builder = ClassicRequestBuilder.create(request.getMethod()).setUri(request.getUrl());
+			request.getHeaders().forEach(builder::addHeader);
+			if (request.getContent() != null) {
+				builder.setEntity(new StringEntity(request.getContent(), StandardCharsets.UTF_8));
+			}
+			final var context = HttpClientContext.create();
+			if (request.getTimeout() != null) {
+				context.setRequestConfig(RequestConfig.copy(requestConfig)
+						.setResponseTimeout(request.getTimeout(), TimeUnit.MILLISECONDS).build());
+			}
+			// The handler form releases the connection to the pool on every path
+			success = client.execute(builder.build(), context, response -> {
+				request.setStatus(response.getCode());
+				// The classic client always handles its own closeable response type
+				return ObjectUtils.defaultIfNull(callback, DEFAULT_CALLBACK).onResponse(request,
+						(CloseableHttpResponse) response);
+			});
+		} catch (final Exception e) {
+			log.error("Request execution '{} {}' failed : {}", request.getMethod(), request.getUrl(), e.getMessage());
+		} finally {
+			timer.stop(start, !success);
+		}
+		return success;
+	}
+
+	/**
+	 * Return the response of a GET request.
+	 *
+	 * @param url     The URL to get.
+	 * @param headers The optional headers, formatted as <code>name:value</code>.
+	 * @return The response content, or <code>null</code> when the request failed or the status is not accepted.
+	 */
+	public String get(final String url, final String... headers) {
+		final var request = new CurlRequest("GET", url, null, headers);
+		request.setSaveResponse(true);
+		return process(request, null) ? request.getResponse() : null;
+	}
+
+	private String toHost(final String url) {
+		try {
+			final var uri = URI.create(url);
+			return uri.getHost() == null ? UNKNOWN_HOST : uri.getScheme() + "://" + uri.getAuthority();
+		} catch (final IllegalArgumentException e) {
+			return UNKNOWN_HOST;
+		}
+	}
+
+	/**
+	 * Return the metrics of the calls by host.
+	 *
+	 * @return The metrics, key is the host, ordered by host.
+	 */
+	public Map<String, MetricsVo> getMetrics() {
+		final var result = new TreeMap<String, MetricsVo>();
+		registry.getMetrics().forEach(m -> result.put(m.getName(), m));
+		return result;
+	}
+
+	/**
+	 * Return the statistics of the connection pool.
+	 *
+	 * @return The total pool statistics: leased, available, pending and maximal connections.
+	 */
+	public PoolStats getPoolStats() {
+		return manager.getTotalStats();
+	}
+}
@@ -4,16 +4,24 @@
 package org.ligoj.app.resource.plugin;
 
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.FileUtils;
 import org.ligoj.app.model.Node;
 import org.ligoj.app.model.Subscription;
 import org.ligoj.bootstrap.core.plugin.PluginsClassLoader;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 /**
@@ -22,6 +30,12 @@ import lombok.Getter;
 @Getter
 public class LigojPluginsClassLoader extends PluginsClassLoader {
 
+	/**
+	 * Resolved and created directories of the nodes, key is the node identifier.
+	 */
+	@Getter(AccessLevel.NONE)
+	private final Map<String, Path> nodePaths = new ConcurrentHashMap<>();
+
 	/**
 	 * Default constructor.
 	 *
@@ -58,7 +72,7 @@ public class LigojPluginsClassLoader extends PluginsClassLoader {
 
 	/**
 	 * Get a file reference for a specific node. This file will use the node as a context to isolate it. The parent
-	 * directories are created as needed.
+	 * directories are created as needed, once: the resolved path is cached until {@link #evictPath(String)}.
 	 *
 	 * @param node The related node.
 	 * @return The {@link Path} reference.
@@ -66,11 +80,58 @@ public class LigojPluginsClassLoader extends PluginsClassLoader {
 	 * @since 2.2.4
 	 */
 	public Path toPath(final Node node) throws IOException {
+		final var cached = nodePaths.get(node.getId());
+		if (cached != null) {
+			return cached;
+		}
 		final var file = toPath(toFragments(node));
 		FileUtils.forceMkdir(file.toFile());
+		nodePaths.put(node.getId(), file);
 		return file;
 	}
 
+	/**
+	 * Forget the resolved paths of a node and its sub-nodes, usually deleted. The files are not deleted.
+	 *
+	 * @param node The node identifier.
+	 */
+	public void evictPath(final String node) {
+		nodePaths.keySet().removeIf(id -> id.equals(node) || id.startsWith(node + ":"));
+	}
+
+	/**
+	 * Open a channel to a file of a specific subscription, for large files. The parent directories are created as
+	 * needed.
+	 *
+	 * @param subscription The subscription used a context of the file.
+	 * @param options      The open options, such as {@link StandardOpenOption#READ} or
+	 *                     {@link StandardOpenOption#CREATE} and {@link StandardOpenOption#WRITE}.
+	 * @param fragments    The file fragments.
+	 * @return The opened channel, to be closed by the caller.
+	 * @throws IOException When the file cannot be opened.
+	 * @see #toPath(Subscription, String...)
+	 */
+	public FileChannel newChannel(final Subscription subscription, final Set<? extends OpenOption> options,
+			final String... fragments) throws IOException {
+		return FileChannel.open(toPath(subscription, fragments), options);
+	}
+
+	/**
+	 * Map in memory a file of a specific subscription, in read only mode. The mapping remains valid after this call,
+	 * without open file handle, until the buffer is garbage collected.
+	 *
+	 * @param subscription The subscription used a context of the file.
+	 * @param fragments    The file fragments.
+	 * @return The mapped content. Limited to 2GB.
+	 * @throws IOException When the file cannot be read.
+	 * @see #toPath(Subscription, String...)
+	 */
+	public MappedByteBuffer map(final Subscription subscription, final String... fragments) throws IOException {
+		try (var channel = FileChannel.open(toPath(subscription, fragments), StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
 	/**
 	 * Convert a {@link Node} to a {@link Path} inside the given parent directory.
 	 *
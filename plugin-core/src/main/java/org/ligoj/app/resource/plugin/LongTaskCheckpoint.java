@@ -0,0 +1,218 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+
+import org.ligoj.app.model.AbstractLongTask;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Persistable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import lombok.Getter;
+
+/**
+ * Checkpoint policy of {@link LongTaskRunner#nextStep(Serializable, Consumer)}. The steps are applied to an in-memory
+ * copy of the task, then persisted together with the cancellation check in a new transaction when one of these limits
+ * is reached, so a throttled step uses neither a connection nor a transaction:
+ * <ul>
+ * <li><code>task.checkpoint.steps</code>: amount of pending steps. The default <code>1</code> persists each
+ * step.</li>
+ * <li><code>task.checkpoint.period</code>: delay since the last persistence, in milliseconds. Disabled when
+ * <code>0</code>.</li>
+ * </ul>
+ * The pending steps are persisted by {@link LongTaskRunner#endTask(Serializable, boolean, Consumer)}. A runner can
+ * override this policy. The steps of the tasks run by {@link LongTaskExecutor} follow the same policy.
+ */
+@Component
+public class LongTaskCheckpoint {
+
+	/**
+	 * Pending steps of a task.
+	 */
+	private static final class State<T> {
+		private T task;
+		private long time;
+		private final List<Consumer<T>> pending = new ArrayList<>();
+	}
+
+	/**
+	 * Default amount of steps between two persistences.
+	 */
+	@Getter
+	@Value("${task.checkpoint.steps:1}")
+	private int steps;
+
+	/**
+	 * Default delay between two persistences, in milliseconds.
+	 */
+	@Getter
+	@Value("${task.checkpoint.period:0}")
+	private long period;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * The transaction of a persistence, always a new one.
+	 */
+	private TransactionTemplate transaction;
+
+	/**
+	 * Pending steps, key is the runner and the locked entity's identifier.
+	 */
+	private final Map<String, State<?>> states = new ConcurrentHashMap<>();
+
+	/**
+	 * Amount of steps of the running tasks, key is the runner and the locked entity's identifier.
+	 */
+	private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+	/**
+	 * Create the transaction of the persistences.
+	 */
+	@PostConstruct
+	public void initialize() {
+		transaction = new TransactionTemplate(transactionManager);
+		transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	private String toKey(final LongTaskRunner<?, ?, ?, ?, ?, ?> runner, final Serializable lockedId) {
+		return ClassUtils.getUserClass(runner).getName() + ":" + lockedId;
+	}
+
+	/**
+	 * Apply a step to the task, and persist the pending steps when a limit of the runner's policy is reached.
+	 *
+	 * @param runner   The task runner.
+	 * @param lockedId The locked entity's identifier.
+	 * @param stepper  The function to call to update the task for this next step.
+	 * @param <T>      Type of task entity.
+	 * @param <L>      Type of locked entity.
+	 * @param <I>      Type of locked entity's identifier.
+	 * @return The updated task, persisted or not.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends AbstractLongTask<L, I>, L extends Persistable<I>, I extends Serializable> T step(
+			final LongTaskRunner<T, ?, L, I, ?, ?> runner, final I lockedId, final Consumer<T> stepper) {
+		final var key = toKey(runner, lockedId);
+		counters.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+		final var maxSteps = runner.getCheckpointSteps();
+		final var maxPeriod = runner.getCheckpointPeriod();
+		if (maxSteps <= 1 && maxPeriod <= 0) {
+			// Not throttled
+			return persist(runner, lockedId, stepper);
+		}
+		final var state = (State<T>) states.computeIfAbsent(key, k -> new State<T>());
+		synchronized (state) {
+			try {
+				final var now = System.currentTimeMillis();
+				if (state.task == null) {
+					// The in-memory copy is never managed
+					state.task = runner.newTask().get();
+					BeanUtils.copyProperties(load(runner, lockedId), state.task);
+					state.time = now;
+				}
+				stepper.accept(state.task);
+				state.pending.add(stepper);
+				if (state.pending.size() >= maxSteps || maxPeriod > 0 && now - state.time >= maxPeriod) {
+					final var pending = List.copyOf(state.pending);
+					state.pending.clear();
+					state.time = now;
+					persist(runner, lockedId, t -> pending.forEach(s -> s.accept(t)));
+				}
+				return state.task;
+			} catch (final RuntimeException e) {
+				// Not found or already finished, the pending steps are dropped
+				states.remove(key, state);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Apply the pending steps to the given task, and forget them.
+	 *
+	 * @param runner   The task runner.
+	 * @param lockedId The locked entity's identifier.
+	 * @param task     The task to update, usually about to be ended.
+	 * @param <T>      Type of task entity.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends AbstractLongTask<?, ?>> void flush(final LongTaskRunner<T, ?, ?, ?, ?, ?> runner,
+			final Serializable lockedId, final T task) {
+		final var state = (State<T>) states.remove(toKey(runner, lockedId));
+		if (state != null) {
+			synchronized (state) {
+				state.pending.forEach(s -> s.accept(task));
+				state.pending.clear();
+			}
+		}
+	}
+
+	/**
+	 * Forget the pending steps of a task.
+	 *
+	 * @param runner   The task runner.
+	 * @param lockedId The locked entity's identifier.
+	 */
+	public void reset(final LongTaskRunner<?, ?, ?, ?, ?, ?> runner, final Serializable lockedId) {
+		final var key = toKey(runner, lockedId);
+		states.remove(key);
+		counters.remove(key);
+	}
+
+	/**
+	 * Return the amount of steps of a task on this member, and forget it.
+	 *
+	 * @param runner   The task runner.
+	 * @param lockedId The locked entity's identifier.
+	 * @return The amount of steps since the start of the task.
+	 */
+	public int count(final LongTaskRunner<?, ?, ?, ?, ?, ?> runner, final Serializable lockedId) {
+		final var counter = counters.remove(toKey(runner, lockedId));
+		return counter == null ? 0 : counter.get();
+	}
+
+	/**
+	 * Return the running task, checked as not finished.
+	 */
+	private <T extends AbstractLongTask<L, I>, L extends Persistable<I>, I extends Serializable> T load(
+			final LongTaskRunner<T, ?, L, I, ?, ?> runner, final I lockedId) {
+		final var task = runner.getTaskInternal(lockedId);
+		if (task == null) {
+			throw new EntityNotFoundException(lockedId.toString());
+		}
+		runner.checkNotFinished(task);
+		return task;
+	}
+
+	/**
+	 * Persist a step in the running task, in a new transaction.
+	 */
+	private <T extends AbstractLongTask<L, I>, L extends Persistable<I>, I extends Serializable> T persist(
+			final LongTaskRunner<T, ?, L, I, ?, ?> runner, final I lockedId, final Consumer<T> stepper) {
+		return transaction.execute(s -> {
+			final var task = load(runner, lockedId);
+			stepper.accept(task);
+			runner.getTaskRepository().saveAndFlush(task);
+			return task;
+		});
+	}
+}
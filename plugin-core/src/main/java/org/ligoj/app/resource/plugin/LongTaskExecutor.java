@@ -0,0 +1,337 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.ligoj.app.model.AbstractLongTask;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Persistable;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Managed execution of the {@link LongTaskRunner} tasks. The task is started in the caller's thread, then the work is
+ * run by a shared pool with the caller's security context, and the task is ended with the outcome of the work. The
+ * progress is reported with a {@link LongTaskHandle}, and persisted according to the checkpoint policy of the runner,
+ * see {@link LongTaskCheckpoint}. Supported properties:
+ * <ul>
+ * <li><code>task.executor.threads</code>: amount of threads running the tasks.</li>
+ * <li><code>task.executor.queue</code>: amount of waiting tasks, the next ones are rejected.</li>
+ * <li><code>task.executor.plugin</code>: amount of running or waiting tasks of the same runner.</li>
+ * <li><code>task.executor.progress</code>: minimal delay between two progress events, in milliseconds. This is also
+ * the delay between two reads of a task running on another member.</li>
+ * <li><code>task.executor.keep-alive</code>: delay between two keep-alive comments of an event stream without
+ * progress, in milliseconds.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class LongTaskExecutor {
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${task.executor.threads:4}")
+	private int threads;
+
+	@Value("${task.executor.queue:100}")
+	private int queue;
+
+	@Value("${task.executor.plugin:2}")
+	private int limit;
+
+	@Value("${task.executor.progress:1000}")
+	private long progress;
+
+	@Value("${task.executor.keep-alive:15000}")
+	private long keepAlive;
+
+	private ExecutorService executor;
+
+	/**
+	 * Running or waiting tasks, key is the runner and the locked entity's identifier.
+	 */
+	private final Map<String, LongTaskHandle<?>> handles = new ConcurrentHashMap<>();
+
+	/**
+	 * Available slots of each runner.
+	 */
+	private final Map<String, Semaphore> plugins = new ConcurrentHashMap<>();
+
+	/**
+	 * Create the bounded pool.
+	 */
+	@PostConstruct
+	public void initialize() {
+		final var size = Math.max(1, threads);
+		executor = new DelegatingSecurityContextExecutorService(new ThreadPoolExecutor(size, size, 0L,
+				TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queue))));
+	}
+
+	/**
+	 * Interrupt the running tasks.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private String toPlugin(final LongTaskRunner<?, ?, ?, ?, ?, ?> runner) {
+		return ClassUtils.getUserClass(runner).getName();
+	}
+
+	private String toKey(final LongTaskRunner<?, ?, ?, ?, ?, ?> runner, final Serializable lockedId) {
+		return toPlugin(runner) + ":" + lockedId;
+	}
+
+	/**
+	 * Start a task and run the given work asynchronously. The task is ended when the work completes: failed when the
+	 * work throws an exception. The slot of the runner is released when the work returns, even when cancelled.
+	 *
+	 * @param runner      The task runner bean, so the task is committed before the work starts.
+	 * @param lockedId    The locked entity's identifier.
+	 * @param initializer The function to call while initializing the task.
+	 * @param work        The work to run, reporting its progress with the given handle.
+	 * @param <T>         Type of task entity.
+	 * @param <L>         Type of locked entity.
+	 * @param <I>         Type of locked entity's identifier.
+	 * @return The handle of the started task.
+	 */
+	public <T extends AbstractLongTask<L, I>, L extends Persistable<I>, I extends Serializable> LongTaskHandle<T> submit(
+			final LongTaskRunner<T, ?, L, I, ?, ?> runner, final I lockedId, final Consumer<T> initializer,
+			final Consumer<LongTaskHandle<T>> work) {
+		final var plugin = toPlugin(runner);
+		final var slots = plugins.computeIfAbsent(plugin, p -> new Semaphore(Math.max(1, limit)));
+		if (!slots.tryAcquire()) {
+			throw new BusinessException("task-plugin-limit", plugin, limit);
+		}
+		final LongTaskHandle<T> handle;
+		try {
+			handle = new LongTaskHandle<>(runner.startTask(lockedId, initializer), s -> runner.nextStep(lockedId, s),
+					() -> Optional.ofNullable(runner.getTaskInternal(lockedId)).map(runner::isFinished).orElse(true));
+		} catch (final RuntimeException e) {
+			slots.release();
+			throw e;
+		}
+		final var key = toKey(runner, lockedId);
+		handles.put(key, handle);
+
+		// The resources are released once, by the execution, or by the cancellation before the execution
+		final var claimed = new AtomicBoolean();
+		final Runnable release = () -> {
+			handles.remove(key, handle);
+			slots.release();
+			handle.end();
+		};
+		final var future = new FutureTask<Void>(() -> {
+			if (claimed.compareAndSet(false, true)) {
+				try {
+					run(runner, lockedId, handle, work);
+				} finally {
+					release.run();
+				}
+			}
+		}, null) {
+			@Override
+			protected void done() {
+				if (claimed.compareAndSet(false, true)) {
+					// Cancelled before the start
+					release.run();
+				}
+			}
+		};
+		handle.future = future;
+		try {
+			executor.execute(future);
+		} catch (final RejectedExecutionException e) {
+			claimed.set(true);
+			handles.remove(key, handle);
+			slots.release();
+			runner.endTask(lockedId, true);
+			throw new BusinessException("task-queue-full", e, queue);
+		}
+		return handle;
+	}
+
+	private <T extends AbstractLongTask<L, I>, L extends Persistable<I>, I extends Serializable> void run(
+			final LongTaskRunner<T, ?, L, I, ?, ?> runner, final I lockedId, final LongTaskHandle<T> handle,
+			final Consumer<LongTaskHandle<T>> work) {
+		try {
+			work.accept(handle);
+			handle.checkCancelled();
+			runner.endTask(lockedId, false);
+		} catch (final CancellationException e) {
+			// Already ended by the cancellation
+			log.info("Task {} of {} cancelled", lockedId, toPlugin(runner));
+		} catch (final RuntimeException e) {
+			log.error("Task {} of {} failed", lockedId, toPlugin(runner), e);
+			end(runner, lockedId);
+		}
+	}
+
+	/**
+	 * End a failed task, unless it is already ended.
+	 */
+	private <I extends Serializable> void end(final LongTaskRunner<?, ?, ?, I, ?, ?> runner, final I lockedId) {
+		try {
+			runner.endTask(lockedId, true);
+		} catch (final BusinessException e) {
+			log.info("Task {} of {} already ended", lockedId, toPlugin(runner));
+		}
+	}
+
+	/**
+	 * Cancel the task running on this member for the given locked entity.
+	 *
+	 * @param runner   The task runner.
+	 * @param lockedId The locked entity's identifier.
+	 * @return <code>true</code> when a task was running on this member.
+	 */
+	public boolean cancel(final LongTaskRunner<?, ?, ?, ?, ?, ?> runner, final Serializable lockedId) {
+		final var handle = handles.get(toKey(runner, lockedId));
+		if (handle == null) {
+			return false;
+		}
+		handle.cancel();
+		return true;
+	}
+
+	/**
+	 * Return the handle of the task running on this member for the given locked entity.
+	 *
+	 * @param runner   The task runner.
+	 * @param lockedId The locked entity's identifier.
+	 * @return The task handle, or <code>null</code> when there is no running task.
+	 */
+	public LongTaskHandle<?> getHandle(final LongTaskRunner<?, ?, ?, ?, ?, ?> runner, final Serializable lockedId) {
+		return handles.get(toKey(runner, lockedId));
+	}
+
+	/**
+	 * Stream the progress of a task as server-sent events. A <code>progress</code> event is sent with the in-memory
+	 * task when a step is notified by its handle, then an <code>end</code> event with the persisted task once the task
+	 * is ended. When the task is running on another member, there is no handle on this member: the persisted task is
+	 * read periodically instead, so the progress is the one of the last checkpoint of the other member. A keep-alive
+	 * comment is sent while there is no progress, so the stream of a disconnected client is closed.
+	 *
+	 * @param runner   The task runner.
+	 * @param lockedId The locked entity's identifier.
+	 * @param <I>      Type of locked entity's identifier.
+	 * @return The event stream.
+	 */
+	public <I extends Serializable> StreamingOutput stream(final LongTaskRunner<?, ?, ?, I, ?, ?> runner,
+			final I lockedId) {
+		final var key = toKey(runner, lockedId);
+		return out -> {
+			final var writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			try {
+				final var handle = handles.get(key);
+				if (handle == null) {
+					streamPersisted(writer, runner, lockedId);
+				} else {
+					stream(writer, handle);
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			send(writer, "end", toJson(runner.getTaskInternal(lockedId)));
+		};
+	}
+
+	/**
+	 * Send the steps notified by the handle of a task running on this member.
+	 */
+	private void stream(final Writer writer, final LongTaskHandle<?> handle) throws IOException, InterruptedException {
+		var version = -1L;
+		while (!handle.isEnded()) {
+			final var current = handle.await(version, keepAlive);
+			if (handle.isEnded()) {
+				break;
+			}
+			if (current == version) {
+				keepAlive(writer);
+			} else {
+				version = current;
+				send(writer, "progress", handle.read(this::toJson));
+
+				// Coalesce the next steps, but not the end
+				handle.awaitEnd(progress);
+			}
+		}
+	}
+
+	/**
+	 * Send the checkpoints of a task running on another member.
+	 */
+	private <I extends Serializable> void streamPersisted(final Writer writer,
+			final LongTaskRunner<?, ?, ?, I, ?, ?> runner, final I lockedId) throws IOException, InterruptedException {
+		String last = null;
+		var silent = 0L;
+		AbstractLongTask<?, ?> task;
+		while ((task = runner.getTaskInternal(lockedId)) != null && !task.isFinished()) {
+			final var json = toJson(task);
+			if (json.equals(last)) {
+				silent += progress;
+				if (silent >= keepAlive) {
+					silent = 0;
+					keepAlive(writer);
+				}
+			} else {
+				last = json;
+				silent = 0;
+				send(writer, "progress", json);
+			}
+			Thread.sleep(progress);
+		}
+	}
+
+	private String toJson(final Object task) {
+		try {
+			return objectMapper.writeValueAsString(task);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void send(final Writer writer, final String event, final String data) throws IOException {
+		writer.write("event: " + event + "\ndata: " + data + "\n\n");
+		writer.flush();
+	}
+
+	private void keepAlive(final Writer writer) throws IOException {
+		writer.write(":\n\n");
+		writer.flush();
+	}
+}
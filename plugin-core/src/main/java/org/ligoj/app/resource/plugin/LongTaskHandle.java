@@ -0,0 +1,183 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.io.Serializable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.ligoj.app.model.AbstractLongTask;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+
+import lombok.Getter;
+
+/**
+ * Progress of a task run by {@link LongTaskExecutor}. Each step is given to
+ * {@link LongTaskRunner#nextStep(Serializable, Consumer)}, so the steps are persisted according to the checkpoint
+ * policy of the runner, see {@link LongTaskCheckpoint}. The last updated task, persisted or not, is kept to report the
+ * progress. A cancellation is detected by {@link #step(Consumer)}: either requested on this member, or found by the
+ * checkpoint when the persisted task is already finished. The other failures of a step are propagated. The readers
+ * can wait for the next step with {@link #await(long, long)}, instead of polling the version.
+ *
+ * @param <T> Type of task entity.
+ */
+public class LongTaskHandle<T extends AbstractLongTask<?, ?>> {
+
+	/**
+	 * The last updated task.
+	 */
+	private T task;
+
+	/**
+	 * Apply the given step to the task entity, and return the updated task.
+	 */
+	private final Function<Consumer<T>, T> next;
+
+	/**
+	 * Indicate the persisted task is finished.
+	 */
+	private final BooleanSupplier finished;
+
+	/**
+	 * When <code>true</code>, the task has been cancelled.
+	 */
+	@Getter
+	private volatile boolean cancelled;
+
+	/**
+	 * Counter of the applied steps.
+	 */
+	@Getter
+	private volatile long version;
+
+	/**
+	 * Released at the end of the execution, ended or cancelled.
+	 */
+	private final CountDownLatch ending = new CountDownLatch(1);
+
+	/**
+	 * The execution of the task.
+	 */
+	Future<?> future;
+
+	/**
+	 * Build a handle of a started task.
+	 *
+	 * @param task     The started task.
+	 * @param next     The function applying a step to the task entity, and returning the updated task.
+	 * @param finished The function checking the persisted task is finished, or deleted.
+	 */
+	public LongTaskHandle(final T task, final Function<Consumer<T>, T> next, final BooleanSupplier finished) {
+		this.task = task;
+		this.next = next;
+		this.finished = finished;
+	}
+
+	/**
+	 * Apply a step to the task.
+	 *
+	 * @param stepper The function updating the task for this step.
+	 * @throws CancellationException When the task has been cancelled.
+	 */
+	public synchronized void step(final Consumer<T> stepper) {
+		checkCancelled();
+		try {
+			task = next.apply(stepper);
+		} catch (final BusinessException e) {
+			if (!finished.getAsBoolean()) {
+				// Not a cancellation
+				throw e;
+			}
+
+			// The persisted task is finished, cancelled from another member
+			cancelled = true;
+			checkCancelled();
+		}
+		version++;
+		notifyAll();
+	}
+
+	/**
+	 * Wait for a step after the given version, or for the end of the execution.
+	 *
+	 * @param known   The last known version.
+	 * @param timeout The maximal delay to wait, in milliseconds.
+	 * @return The current version, unchanged when the delay is elapsed.
+	 * @throws InterruptedException When the waiting thread is interrupted.
+	 */
+	public synchronized long await(final long known, final long timeout) throws InterruptedException {
+		final var deadline = System.currentTimeMillis() + timeout;
+		var remaining = timeout;
+		while (version == known && !isEnded() && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+		return version;
+	}
+
+	/**
+	 * Wait for the end of the execution, ignoring the steps.
+	 *
+	 * @param timeout The maximal delay to wait, in milliseconds.
+	 * @return <code>true</code> when the execution is ended.
+	 * @throws InterruptedException When the waiting thread is interrupted.
+	 */
+	public boolean awaitEnd(final long timeout) throws InterruptedException {
+		return ending.await(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Indicate the end of the execution.
+	 *
+	 * @return <code>true</code> when the execution is ended or cancelled.
+	 */
+	public boolean isEnded() {
+		return ending.getCount() == 0;
+	}
+
+	/**
+	 * Notify the readers of the end of the execution.
+	 */
+	synchronized void end() {
+		ending.countDown();
+		notifyAll();
+	}
+
+	/**
+	 * Check the task has not been cancelled.
+	 *
+	 * @throws CancellationException When the task has been cancelled.
+	 */
+	void checkCancelled() {
+		if (cancelled) {
+			throw new CancellationException("Task cancelled");
+		}
+	}
+
+	/**
+	 * Read the last updated task, without concurrent step.
+	 *
+	 * @param reader The function reading the task.
+	 * @param <X>    The returned type.
+	 * @return The reader's result.
+	 */
+	public synchronized <X> X read(final Function<T, X> reader) {
+		return reader.apply(task);
+	}
+
+	/**
+	 * Cancel the task: the next step fails, and the execution is interrupted.
+	 */
+	void cancel() {
+		cancelled = true;
+		if (future != null) {
+			future.cancel(true);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.ligoj.bootstrap.resource.system.cache.CacheManagerAware;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import com.hazelcast.cache.HazelcastCacheManager;
+import com.hazelcast.config.CacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lock guarding the start of the {@link LongTaskRunner} tasks. The lock is keyed by the task type and the locked
+ * entity's identifier, so the tasks of unrelated entities start in parallel, and the concurrent starts of the same
+ * entity are serialized, then rejected by the running task check. The lock is held until the completion of the
+ * transaction creating the task, so the next start always sees the committed task. Supported modes, set with
+ * <code>task.lock.mode</code>:
+ * <ul>
+ * <li><code>local</code>: default, striped locks of this member. The stripe count is set with
+ * <code>task.lock.stripes</code>.</li>
+ * <li><code>hazelcast</code>: Hazelcast CP <code>FencedLock</code> shared by the cluster members. The local mode is
+ * used while the Hazelcast instance is not available.</li>
+ * <li><code>database</code>: pessimistic write lock of the locked entity's row, shared by all members using the same
+ * database.</li>
+ * </ul>
+ * The wait for the lock is bounded by <code>task.lock.timeout</code>, in seconds.
+ */
+@Component
+@Slf4j
+public class LongTaskLock implements CacheManagerAware {
+
+	/**
+	 * Mode using the locks of this member.
+	 */
+	public static final String LOCAL = "local";
+
+	/**
+	 * Mode using the Hazelcast CP locks.
+	 */
+	public static final String HAZELCAST = "hazelcast";
+
+	/**
+	 * Mode using the database row locks.
+	 */
+	public static final String DATABASE = "database";
+
+	/**
+	 * Task and locked entity types of a runner.
+	 */
+	private record Types(String task, Class<?> locked) {
+	}
+
+	@PersistenceContext(unitName = "pu")
+	private EntityManager em;
+
+	@Value("${task.lock.mode:local}")
+	private String mode;
+
+	@Value("${task.lock.stripes:64}")
+	private int stripes;
+
+	@Value("${task.lock.timeout:30}")
+	private long timeout;
+
+	private Lock[] locks;
+
+	private HazelcastInstance hazelcast;
+
+	private final Map<Class<?>, Types> types = new ConcurrentHashMap<>();
+
+	/**
+	 * Create the local stripes.
+	 */
+	@PostConstruct
+	public void initialize() {
+		locks = new Lock[Math.max(1, stripes)];
+		for (var i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		log.info("Long task lock mode: {}", mode);
+	}
+
+	@Override
+	public void onCreate(final HazelcastCacheManager cacheManager, final Function<String, CacheConfig<?, ?>> provider) {
+		this.hazelcast = cacheManager.getHazelcastInstance();
+	}
+
+	/**
+	 * Run the given supplier while holding the lock of the given locked entity.
+	 *
+	 * @param runner   The task runner.
+	 * @param lockedId The locked entity's identifier.
+	 * @param supplier The function to call with the lock.
+	 * @param <X>      The returned type.
+	 * @return The supplier's result.
+	 */
+	public <X> X execute(final LongTaskRunner<?, ?, ?, ?, ?, ?> runner, final Serializable lockedId,
+			final Supplier<X> supplier) {
+		final var type = types.computeIfAbsent(ClassUtils.getUserClass(runner), this::resolve);
+		if (DATABASE.equals(mode) && type.locked != null) {
+			// The row lock is released by the transaction completion
+			em.find(type.locked, lockedId, LockModeType.PESSIMISTIC_WRITE);
+			return supplier.get();
+		}
+		final var lock = getLock(type.task, lockedId);
+		try {
+			if (!lock.tryLock(timeout, TimeUnit.SECONDS)) {
+				throw new BusinessException("concurrent-task-lock", lockedId);
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException("concurrent-task-lock", e, lockedId);
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// Keep the lock until the task is visible to the other starts
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(final int status) {
+					lock.unlock();
+				}
+			});
+			return supplier.get();
+		}
+		try {
+			return supplier.get();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Return the lock of a task type and a locked entity.
+	 */
+	private Lock getLock(final String task, final Serializable lockedId) {
+		if (HAZELCAST.equals(mode) && hazelcast != null) {
+			return hazelcast.getCPSubsystem().getLock("task:" + task + ":" + lockedId);
+		}
+		return locks[Math.floorMod(Objects.hash(task, lockedId), locks.length)];
+	}
+
+	/**
+	 * Resolve the task and locked entity types from the generic declaration of the runner.
+	 */
+	private Types resolve(final Class<?> runner) {
+		final var generics = ResolvableType.forClass(runner).as(LongTaskRunner.class);
+		final var task = generics.getGeneric(0).resolve();
+		return new Types(task == null ? runner.getName() : task.getName(), generics.getGeneric(2).resolve());
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.dao.task.LongTaskRunRepository;
+import org.ligoj.app.model.AbstractLongTask;
+import org.ligoj.app.model.LongTaskRun;
+import org.ligoj.bootstrap.core.json.PaginationJson;
+import org.ligoj.bootstrap.core.json.TableItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * History of the long task runs, see {@link LongTaskRunner#endTask(java.io.Serializable, boolean)}. Supported
+ * properties:
+ * <ul>
+ * <li><code>task.run.retention</code>: amount of days a run is kept.</li>
+ * <li><code>task.run.purge</code>: cron expression of the purge of the older runs.</li>
+ * </ul>
+ */
+@Path("/task")
+@Service
+@Slf4j
+@Produces(MediaType.APPLICATION_JSON)
+@Transactional
+public class LongTaskRunResource {
+
+	@Autowired
+	private LongTaskRunRepository repository;
+
+	@Autowired
+	private PaginationJson paginationJson;
+
+	@Setter
+	@Value("${task.run.retention:90}")
+	private int retention = 90;
+
+	/**
+	 * Ordered columns.
+	 */
+	private static final Map<String, String> ORDERED_COLUMNS = Map.of("type", "type", "locked", "locked", "author",
+			"author", "start", "start", "end", "end", "duration", "duration", "failed", "failed", "steps", "steps");
+
+	/**
+	 * Record the run of an ended task.
+	 *
+	 * @param task  The ended task.
+	 * @param steps The amount of steps of this run.
+	 * @return The recorded run.
+	 */
+	public LongTaskRun record(final AbstractLongTask<?, ?> task, final int steps) {
+		final var run = new LongTaskRun();
+		run.setType(task.getClass().getName());
+		run.setLocked(String.valueOf(task.getLocked().getId()));
+		run.setAuthor(task.getAuthor());
+		run.setStart(task.getStart());
+		run.setEnd(task.getEnd());
+		run.setDuration(Math.max(0, task.getEnd().getTime() - task.getStart().getTime()));
+		run.setFailed(task.isFailed());
+		run.setSteps(steps);
+		return repository.saveAndFlush(run);
+	}
+
+	/**
+	 * Return the runs matching the optional filters.
+	 *
+	 * @param uriInfo pagination data.
+	 * @param type    The optional task entity class name.
+	 * @param locked  The optional locked entity's identifier.
+	 * @return The runs with pagination.
+	 */
+	@GET
+	@Path("run")
+	public TableItem<LongTaskRun> findAll(@Context final UriInfo uriInfo, @QueryParam("type") final String type,
+			@QueryParam("locked") final String locked) {
+		final var findAll = repository.findAll(StringUtils.trimToNull(type), StringUtils.trimToNull(locked),
+				paginationJson.getPageRequest(uriInfo, ORDERED_COLUMNS));
+		return paginationJson.applyPagination(uriInfo, findAll, Function.identity());
+	}
+
+	/**
+	 * Return the statistics of the runs ended during the last days, by task type.
+	 *
+	 * @param days The amount of days to consider.
+	 * @return The statistics by task type, ordered by type.
+	 */
+	@GET
+	@Path("statistics")
+	public List<LongTaskStatisticsVo> getStatistics(@QueryParam("days") @DefaultValue("30") final int days) {
+		final var since = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+		// Only the aggregates and the ranked durations are read
+		return repository.findAllStatistics(since).stream().map(rs -> {
+			final var statistics = new LongTaskStatisticsVo();
+			statistics.setType((String) rs[0]);
+			statistics.setRuns(((Number) rs[1]).intValue());
+			statistics.setFailures(((Number) rs[2]).intValue());
+			statistics.setFailureRate((double) statistics.getFailures() / statistics.getRuns());
+			statistics.setMax(((Number) rs[3]).longValue());
+			statistics.setP50(percentile(statistics, since, 50));
+			statistics.setP95(percentile(statistics, since, 95));
+			return statistics;
+		}).toList();
+	}
+
+	/**
+	 * Return the nearest-rank percentile of the durations of a type.
+	 */
+	private long percentile(final LongTaskStatisticsVo statistics, final Date since, final int percentile) {
+		final var rank = Math.max(0, (int) Math.ceil(percentile / 100d * statistics.getRuns()) - 1);
+		return repository.findAllDurations(statistics.getType(), since, PageRequest.of(rank, 1)).get(0);
+	}
+
+	/**
+	 * Daily, delete the runs ended before the retention.
+	 */
+	@Scheduled(cron = "${task.run.purge:0 0 3 * * ?}")
+	public void purge() {
+		final var deleted = repository.deleteAllBefore(
+				new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retention)));
+		log.info("{} task runs older than {} days have been deleted", deleted, retention);
+	}
+}
@@ -9,7 +9,6 @@ import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import jakarta.transaction.Transactional.TxType;
 
@@ -101,7 +100,8 @@ public interface LongTaskRunner<T extends AbstractLongTask<L, I>, R extends Long
 	}
 
 	/**
-	 * Release the lock on the locked entity by its identifier. The task is considered as finished.
+	 * Release the lock on the locked entity by its identifier. The task is considered as finished, and this run is
+	 * recorded in the history, see {@link LongTaskRunResource}.
 	 *
 	 * @param lockedId  The locked entity's identifier.
 	 * @param failed    The task status as resolution of this task.
@@ -110,14 +110,20 @@ public interface LongTaskRunner<T extends AbstractLongTask<L, I>, R extends Long
 	 */
 	@Transactional(value = TxType.REQUIRES_NEW)
 	default T endTask(final I lockedId, final boolean failed, final Consumer<T> finalizer) {
+		final var checkpoint = SpringUtils.getBean(LongTaskCheckpoint.class);
 		return Optional.ofNullable(getTaskInternal(lockedId)).map(task -> {
 			checkNotFinished(task);
+
+			// Persist the throttled steps
+			checkpoint.flush(this, lockedId, task);
 			task.setEnd(new Date());
 			task.setFailed(failed);
 			finalizer.accept(task);
 
-			// Save now the new state
-			return getTaskRepository().saveAndFlush(task);
+			// Save now the new state, and keep the history of this run
+			final var saved = getTaskRepository().saveAndFlush(task);
+			SpringUtils.getBean(LongTaskRunResource.class).record(saved, checkpoint.count(this, lockedId));
+			return saved;
 		}).orElse(null);
 	}
 
@@ -133,6 +139,7 @@ public interface LongTaskRunner<T extends AbstractLongTask<L, I>, R extends Long
 
 	/**
 	 * Check there no running task within the same scope of the locked object 's identifier and starts a new task.
+	 * The concurrent starts of the same locked entity are serialized by {@link LongTaskLock}.
 	 *
 	 * @param lockedId    The locked entity's identifier.
 	 * @param initializer The function to call while initializing the task.
@@ -140,7 +147,8 @@ public interface LongTaskRunner<T extends AbstractLongTask<L, I>, R extends Long
 	 */
 	@Transactional(value = TxType.REQUIRES_NEW)
 	default T startTask(final I lockedId, final Consumer<T> initializer) {
-		synchronized (getLockedRepository()) {
+		// Only the starts of the same locked entity are serialized
+		return SpringUtils.getBean(LongTaskLock.class).execute(this, lockedId, () -> {
 
 			// Check there is no running task on the same node
 			Optional.ofNullable(getTaskRepository().findNotFinishedByLocked(lockedId)).ifPresent(t -> {
@@ -148,15 +156,16 @@ public interface LongTaskRunner<T extends AbstractLongTask<L, I>, R extends Long
 				throw new BusinessException("concurrent-task", t.getAuthor(), t.getStart(), lockedId);
 			});
 
-			// Build a new task as needed
+			// Build a new task as needed, without the steps of a previous run
 			final var task = createAsNeeded(lockedId);
+			SpringUtils.getBean(LongTaskCheckpoint.class).reset(this, lockedId);
 
 			// Reset the specific fields
 			initializer.accept(task);
 
 			// Save this entity inside this transaction
 			return getTaskRepository().saveAndFlush(task);
-		}
+		});
 	}
 
 	/**
@@ -199,20 +208,37 @@ public interface LongTaskRunner<T extends AbstractLongTask<L, I>, R extends Long
 	}
 
 	/**
-	 * Move forward the next step of given import status.
+	 * Move forward the next step of given import status. The step is persisted according to the checkpoint policy of
+	 * this runner, see {@link #getCheckpointSteps()} and {@link #getCheckpointPeriod()}. Only the persistence opens a
+	 * new transaction.
 	 *
 	 * @param lockedId The locked resource identifier.
 	 * @param stepper  The function to call to update the task for this next step.
-	 * @return The updated task.
+	 * @return The updated task, may be the in-memory copy when this step is not yet persisted.
 	 */
-	@Transactional(value = TxType.REQUIRES_NEW)
 	default T nextStep(final I lockedId, final Consumer<T> stepper) {
-		final var task = Optional.ofNullable(getTaskInternal(lockedId))
-				.orElseThrow(() -> new EntityNotFoundException(lockedId.toString()));
-		checkNotFinished(task);
-		stepper.accept(task);
-		getTaskRepository().saveAndFlush(task);
-		return task;
+		return SpringUtils.getBean(LongTaskCheckpoint.class).step(this, lockedId, stepper);
+	}
+
+	/**
+	 * Return the amount of steps between two persistences of {@link #nextStep(Serializable, Consumer)}.
+	 *
+	 * @return The amount of steps. <code>1</code> persists each step.
+	 * @see LongTaskCheckpoint
+	 */
+	default int getCheckpointSteps() {
+		return SpringUtils.getBean(LongTaskCheckpoint.class).getSteps();
+	}
+
+	/**
+	 * Return the maximal delay between two persistences of {@link #nextStep(Serializable, Consumer)}. This delay also
+	 * bounds the detection of a cancellation.
+	 *
+	 * @return The delay in milliseconds. <code>0</code> disables this limit.
+	 * @see LongTaskCheckpoint
+	 */
+	default long getCheckpointPeriod() {
+		return SpringUtils.getBean(LongTaskCheckpoint.class).getPeriod();
 	}
 
 	/**
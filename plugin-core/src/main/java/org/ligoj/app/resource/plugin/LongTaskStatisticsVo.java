@@ -0,0 +1,50 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Statistics of the runs of a task type.
+ */
+@Getter
+@Setter
+public class LongTaskStatisticsVo {
+
+	/**
+	 * The task entity class name.
+	 */
+	private String type;
+
+	/**
+	 * Amount of runs.
+	 */
+	private int runs;
+
+	/**
+	 * Amount of failed runs.
+	 */
+	private int failures;
+
+	/**
+	 * Ratio of failed runs, from <code>0</code> to <code>1</code>.
+	 */
+	private double failureRate;
+
+	/**
+	 * Median duration in milliseconds.
+	 */
+	private long p50;
+
+	/**
+	 * 95th percentile of the duration in milliseconds.
+	 */
+	private long p95;
+
+	/**
+	 * Maximal duration in milliseconds.
+	 */
+	private long max;
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import lombok.Setter;
+
+/**
+ * Shared pool delegating the calls of a bulk operation to the plug-ins, with the caller's security context. The pool
+ * size is <code>plugin.executor.threads</code>, and each operation bounds its own amount of running calls, so the
+ * waiting calls are bounded by the amount of running operations.
+ */
+@Component
+public class PluginExecutor {
+
+	@Setter
+	@Value("${plugin.executor.threads:8}")
+	private int threads;
+
+	private ExecutorService executor;
+
+	/**
+	 * Create the bounded pool.
+	 */
+	@PostConstruct
+	public void initialize() {
+		final var size = Math.max(1, threads);
+		executor = new DelegatingSecurityContextExecutorService(
+				new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()));
+	}
+
+	/**
+	 * Interrupt the running calls.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Run the given calls with at most <code>parallelism</code> running calls, and give each result to the consumer in
+	 * the caller's thread, in completion order. After the first failure, of a call or of the consumer, the next calls
+	 * are not submitted, the running ones are awaited and consumed with their failures suppressed, then the first
+	 * failure is thrown. An interruption of the caller is handled as a failure, without interrupting the running calls.
+	 *
+	 * @param calls       The calls to run.
+	 * @param parallelism The maximal amount of running calls.
+	 * @param completed   The consumer of each result.
+	 * @param <V>         The result type.
+	 * @throws Exception The first failure. {@link CancellationException} when the caller is interrupted.
+	 */
+	public <V> void invokeAll(final Collection<? extends Callable<V>> calls, final int parallelism,
+			final Consumer<V> completed) throws Exception {
+		final var service = new ExecutorCompletionService<V>(executor);
+		final var remaining = calls.iterator();
+		final var max = Math.max(1, parallelism);
+		Exception failure = null;
+		var interrupted = false;
+		var running = 0;
+		while (running > 0 || failure == null && remaining.hasNext()) {
+			while (failure == null && running < max && remaining.hasNext()) {
+				service.submit(remaining.next());
+				running++;
+			}
+			try {
+				completed.accept(service.take().get());
+			} catch (final InterruptedException e) {
+				// Await the running calls before leaving
+				interrupted = true;
+				failure = suppress(failure, new CancellationException("Interrupted"));
+				continue;
+			} catch (final ExecutionException e) {
+				failure = suppress(failure, e.getCause() instanceof Exception cause ? cause : e);
+			} catch (final RuntimeException e) {
+				failure = suppress(failure, e);
+			}
+			running--;
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private Exception suppress(final Exception first, final Exception next) {
+		if (first == null) {
+			return next;
+		}
+		first.addSuppressed(next);
+		return first;
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.ligoj.app.api.ServicePlugin;
+import org.ligoj.app.api.ToolPlugin;
+import org.ligoj.app.metrics.MetricsRegistry;
+import org.ligoj.app.metrics.MetricsVo;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Instrumentation of the {@link ServicePlugin} beans. The plug-in lifecycle and status methods are timed, and the
+ * errors and in-flight calls are counted, by plug-in key and method name. The already proxied beans are advised in
+ * place, the other ones are proxied with their class, so the resolution by type of {@link ServicePluginLocator} is not
+ * changed.
+ */
+@Component
+@Slf4j
+public class PluginMetrics implements BeanPostProcessor, MethodInterceptor {
+
+	/**
+	 * The instrumented methods of {@link ServicePlugin} and {@link ToolPlugin}.
+	 */
+	private static final Set<String> METHODS = Set.of("create", "link", "delete", "checkStatus",
+			"checkSubscriptionStatus", "getVersion", "getLastVersion");
+
+	/**
+	 * Metrics, name is the plug-in key and the method name, separated by <code>#</code>.
+	 */
+	private final MetricsRegistry registry = new MetricsRegistry();
+
+	/**
+	 * Instrumentation decision of each method.
+	 */
+	private final Map<Method, Boolean> instrumented = new ConcurrentHashMap<>();
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+		if (!(bean instanceof ServicePlugin)) {
+			return bean;
+		}
+		if (bean instanceof Advised advised && !advised.isFrozen()) {
+			advised.addAdvice(0, this);
+			return bean;
+		}
+		if (AopUtils.isAopProxy(bean) || Modifier.isFinal(bean.getClass().getModifiers())) {
+			log.info("Plug-in bean {} cannot be instrumented", beanName);
+			return bean;
+		}
+		final var factory = new ProxyFactory(bean);
+		factory.setProxyTargetClass(true);
+		factory.addAdvice(this);
+		return factory.getProxy(ClassUtils.getDefaultClassLoader());
+	}
+
+	/**
+	 * Return <code>true</code> when the method is a {@link ServicePlugin} or {@link ToolPlugin} one to instrument.
+	 */
+	private boolean isInstrumented(final Method method) {
+		return instrumented.computeIfAbsent(method,
+				m -> METHODS.contains(m.getName())
+						&& (ReflectionUtils.findMethod(ToolPlugin.class, m.getName(), m.getParameterTypes()) != null
+								|| ReflectionUtils.findMethod(ServicePlugin.class, m.getName(),
+										m.getParameterTypes()) != null));
+	}
+
+	@Override
+	public Object invoke(final MethodInvocation invocation) throws Throwable {
+		final var method = invocation.getMethod();
+		if (!isInstrumented(method)) {
+			return invocation.proceed();
+		}
+		final var timer = registry.timer(((ServicePlugin) invocation.getThis()).getKey() + "#" + method.getName());
+		final var start = timer.start();
+		var failed = true;
+		try {
+			final var result = invocation.proceed();
+			failed = false;
+			return result;
+		} finally {
+			timer.stop(start, failed);
+		}
+	}
+
+	/**
+	 * Return the metrics of the plug-in methods, the slowest first.
+	 *
+	 * @return The metrics ordered by descending mean duration.
+	 */
+	public List<MetricsVo> getMetrics() {
+		return registry.getMetrics();
+	}
+
+	/**
+	 * Forget all the metrics.
+	 */
+	public void reset() {
+		registry.reset();
+	}
+}
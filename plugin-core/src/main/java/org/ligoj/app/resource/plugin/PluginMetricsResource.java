@@ -0,0 +1,49 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.util.List;
+
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+import org.ligoj.app.metrics.MetricsVo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Plug-in calls metrics, see {@link PluginMetrics}.
+ */
+@Path("/system/plugin-metrics")
+@Service
+@Produces(MediaType.APPLICATION_JSON)
+public class PluginMetricsResource {
+
+	@Autowired
+	private PluginMetrics metrics;
+
+	/**
+	 * Return the slowest plug-in methods.
+	 *
+	 * @param limit The maximal amount of returned methods.
+	 * @return The metrics ordered by descending mean duration.
+	 */
+	@GET
+	public List<MetricsVo> findAll(@DefaultValue("10") @QueryParam("limit") final int limit) {
+		return metrics.getMetrics().stream().limit(Math.max(0, limit)).toList();
+	}
+
+	/**
+	 * Forget all the metrics.
+	 */
+	@DELETE
+	public void reset() {
+		metrics.reset();
+	}
+}
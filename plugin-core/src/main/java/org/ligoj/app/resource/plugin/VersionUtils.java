@@ -4,20 +4,46 @@
 package org.ligoj.app.resource.plugin;
 
 import java.io.IOException;
-import java.util.List;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
-import org.apache.commons.lang3.ObjectUtils;
-import org.ligoj.bootstrap.core.curl.CurlProcessor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.ligoj.bootstrap.core.curl.CurlRequest;
+import org.ligoj.bootstrap.core.curl.HttpResponseCallback;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
 /**
- * Version utilities.
+ * Version utilities. The latest versions are cached by server and project, then revalidated with a conditional
+ * request once expired. When the cache is full, the expired versions are evicted first, then the ones expiring first.
+ * Out of Spring, a private HTTP client and pool are created on the first request, and released by {@link #shutdown()}.
  */
 @Component
+@Slf4j
 public class VersionUtils {
 
 	/**
@@ -25,6 +51,109 @@ public class VersionUtils {
 	 */
 	private static final Pattern VERSION_PATTERN = Pattern.compile("^\\d.*$");
 
+	/**
+	 * Shared mapper, thread safe once configured.
+	 */
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	/**
+	 * Cached latest version.
+	 */
+	private static final class Entry {
+		private AtlassianVersion version;
+		private String etag;
+		private String lastModified;
+		private long expire;
+	}
+
+	/**
+	 * Delay before a cached version is revalidated, in milliseconds.
+	 */
+	@Setter
+	@Value("${version.cache.ttl:3600000}")
+	private long ttl = 3600000;
+
+	/**
+	 * Maximal amount of concurrent requests of {@link #getLatestReleasedVersions(String, Collection)}, shared by all
+	 * the callers.
+	 */
+	@Setter
+	@Value("${version.threads:4}")
+	private int threads = 4;
+
+	/**
+	 * Maximal amount of cached versions.
+	 */
+	@Setter
+	@Value("${version.cache.max:1000}")
+	private int cacheMax = 1000;
+
+	private ExecutorService executor;
+
+	/**
+	 * The shared HTTP client.
+	 */
+	@Setter
+	@Autowired
+	private HttpClientService httpClient;
+
+	/**
+	 * The HTTP client created when none is injected.
+	 */
+	private HttpClientService ownClient;
+
+	/**
+	 * Cached versions, key is the server URL and the project.
+	 */
+	private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Pending requests, key is the server URL and the project. Concurrent callers share the same request.
+	 */
+	private final Map<String, CompletableFuture<AtlassianVersion>> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * Create the bounded pool of the concurrent requests.
+	 */
+	@PostConstruct
+	public synchronized void initialize() {
+		final var size = Math.max(1, threads);
+		executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+	}
+
+	/**
+	 * Stop the pool of the concurrent requests, and close the HTTP client created when none is injected.
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		if (ownClient != null) {
+			ownClient.close();
+			ownClient = null;
+			httpClient = null;
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			initialize();
+		}
+		return executor;
+	}
+
+	private synchronized HttpClientService getHttpClient() {
+		if (httpClient == null) {
+			ownClient = new HttpClientService();
+			ownClient.initialize();
+			httpClient = ownClient;
+		}
+		return httpClient;
+	}
+
 	/**
 	 * Return the lasted version for the given JIRA project.
 	 *
@@ -34,26 +163,164 @@ public class VersionUtils {
 	 * @throws IOException When version cannot be read from the remote URL.
 	 */
 	public AtlassianVersion getLatestReleasedVersion(final String serverUrl, final String project) throws IOException {
-		// Get the download index
-		try (final var processor = new CurlProcessor()) {
-			final var versionsAsJson = ObjectUtils
-					.defaultIfNull(processor.get(serverUrl + "/rest/api/2/project/" + project + "/versions"), "[]");
-			final var versionsRaw = new ObjectMapper().readValue(versionsAsJson,
-					new TypeReference<List<AtlassianVersion>>() {
-						// Nothing to override
-					});
-
-			// Find the last download link
-			AtlassianVersion lastVersion = null;
-			for (final var jiraVersion : versionsRaw) {
+		final var key = serverUrl + "|" + project;
+		final var entry = cache.get(key);
+		if (entry != null && entry.expire > System.currentTimeMillis()) {
+			return entry.version;
+		}
+		final var future = new CompletableFuture<AtlassianVersion>();
+		final var existing = pending.putIfAbsent(key, future);
+		if (existing != null) {
+			// Another caller is already requesting this version
+			return join(existing);
+		}
+		try {
+			future.complete(revalidate(key, entry, serverUrl + "/rest/api/2/project/" + project + "/versions"));
+		} catch (final RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			pending.remove(key, future);
+		}
+		return future.join();
+	}
+
+	/**
+	 * Wait for a request of another caller, and give its failure as is, like the requesting caller gets it.
+	 */
+	private static AtlassianVersion join(final CompletableFuture<AtlassianVersion> future) {
+		try {
+			return future.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Request the versions, conditionally when a previous version is known, and update the cache.
+	 */
+	private AtlassianVersion revalidate(final String key, final Entry previous, final String url) {
+		final var request = new CurlRequest("GET", url, null);
+		request.setSaveResponse(false);
+		if (previous != null) {
+			if (previous.etag != null) {
+				request.getHeaders().put(HttpHeaders.IF_NONE_MATCH, previous.etag);
+			}
+			if (previous.lastModified != null) {
+				request.getHeaders().put(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified);
+			}
+		}
+		final var entry = new Entry();
+		if (!getHttpClient().process(request, new VersionsCallback(previous, entry))) {
+			// Not cached failure, the stale version is better than nothing
+			return previous == null ? null : previous.version;
+		}
+		entry.expire = System.currentTimeMillis() + ttl;
+		cache.put(key, entry);
+		if (cache.size() > cacheMax) {
+			evict();
+		}
+		return entry.version;
+	}
+
+	/**
+	 * Remove the expired versions, then the ones expiring first until the cache is not full.
+	 */
+	private void evict() {
+		final var now = System.currentTimeMillis();
+		cache.values().removeIf(e -> e.expire <= now);
+		cache.entrySet().stream().sorted(Comparator.comparingLong(e -> e.getValue().expire))
+				.limit(Math.max(0, cache.size() - cacheMax)).map(Map.Entry::getKey).toList().forEach(cache::remove);
+	}
+
+	/**
+	 * Read the latest version from the streamed response, or keep the previous one when not modified.
+	 */
+	private class VersionsCallback implements HttpResponseCallback {
+		private final Entry previous;
+		private final Entry entry;
+
+		private VersionsCallback(final Entry previous, final Entry entry) {
+			this.previous = previous;
+			this.entry = entry;
+		}
+
+		@Override
+		public boolean onResponse(final CurlRequest request, final CloseableHttpResponse response) throws IOException {
+			if (response.getCode() == HttpStatus.SC_NOT_MODIFIED && previous != null) {
+				entry.version = previous.version;
+				entry.etag = previous.etag;
+				entry.lastModified = previous.lastModified;
+				return true;
+			}
+			if (response.getCode() != HttpStatus.SC_OK || response.getEntity() == null) {
+				return false;
+			}
+			entry.etag = getHeader(response, HttpHeaders.ETAG);
+			entry.lastModified = getHeader(response, HttpHeaders.LAST_MODIFIED);
+			try (var input = response.getEntity().getContent()) {
+				entry.version = getLatestReleasedVersion(input);
+			}
+			return true;
+		}
+
+		private String getHeader(final CloseableHttpResponse response, final String name) {
+			final var header = response.getFirstHeader(name);
+			return header == null ? null : header.getValue();
+		}
+	}
+
+	/**
+	 * Return the lasted version from a JSON array of versions. The array is streamed, only the current best version is
+	 * kept in memory.
+	 *
+	 * @param input The JSON versions.
+	 * @return <code>null</code> or latest version. <code>null</code> too when the input is not a JSON array.
+	 * @throws IOException When the input cannot be read.
+	 */
+	public AtlassianVersion getLatestReleasedVersion(final InputStream input) throws IOException {
+		AtlassianVersion lastVersion = null;
+		try (var parser = MAPPER.createParser(input)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				return null;
+			}
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				final var jiraVersion = MAPPER.readValue(parser, AtlassianVersion.class);
 				if (isValidVersion(lastVersion, jiraVersion)) {
 					lastVersion = jiraVersion;
 				}
 			}
-
-			// Return the last read version
-			return lastVersion;
 		}
+
+		// Return the last read version
+		return lastVersion;
+	}
+
+	/**
+	 * Return the lasted versions of several JIRA projects of the same server. The projects are requested concurrently.
+	 *
+	 * @param serverUrl The server base URL like "<a href="http://jira.codehaus.org">JIRA</a>"
+	 * @param projects  The JIRA project identifiers.
+	 * @return The latest versions, key is the project, in the given order. The value is <code>null</code> when there is
+	 *         no version, or when the versions cannot be read.
+	 */
+	public Map<String, AtlassianVersion> getLatestReleasedVersions(final String serverUrl,
+			final Collection<String> projects) {
+		final var futures = new LinkedHashMap<String, CompletableFuture<AtlassianVersion>>();
+		projects.forEach(p -> futures.put(p, CompletableFuture.supplyAsync(() -> {
+			try {
+				return getLatestReleasedVersion(serverUrl, p);
+			} catch (final IOException e) {
+				log.info("Unable to read the versions of {} from {}", p, serverUrl, e);
+				return null;
+			}
+		}, getExecutor())));
+		final var result = new LinkedHashMap<String, AtlassianVersion>();
+		futures.forEach((p, f) -> result.put(p, join(f)));
+		return result;
 	}
 
 	/**
@@ -0,0 +1,50 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A flat XML element read by {@link XmlUtils#visit(java.io.InputStream, String, java.util.function.Consumer)}: its
+ * attributes, its own text and the text content of its direct children.
+ */
+@Getter
+@Setter
+public class XmlElement {
+
+	/**
+	 * The local name of this element.
+	 */
+	private String name;
+
+	/**
+	 * The attributes of this element, key is the attribute local name.
+	 */
+	private Map<String, String> attributes = new LinkedHashMap<>();
+
+	/**
+	 * The trimmed text directly inside this element. Empty content is considered as <code>null</code>.
+	 */
+	private String text;
+
+	/**
+	 * The trimmed text content of the direct children, key is the child local name. Only the first child of a name is
+	 * kept.
+	 */
+	private Map<String, String> children = new LinkedHashMap<>();
+
+	/**
+	 * Return the text content of a direct child.
+	 *
+	 * @param child The child local name.
+	 * @return The trimmed text content of the first child with this name, or <code>null</code>.
+	 */
+	public String getChild(final String child) {
+		return children.get(child);
+	}
+}
@@ -6,12 +6,24 @@ package org.ligoj.app.resource.plugin;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
@@ -36,6 +48,66 @@ public class XmlUtils {
 	 */
 	public final XPathFactory xpathFactory = XPathFactory.newInstance();
 
+	/**
+	 * The shared and secured StAX factory. Thread safe once configured.
+	 */
+	private final XMLInputFactory inputFactory = newInputFactory();
+
+	/**
+	 * The document builders, one per thread since a builder is not thread safe. Reset before each reuse.
+	 */
+	private final ThreadLocal<DocumentBuilder> builders = new ThreadLocal<>();
+
+	/**
+	 * Maximal amount of compiled XPATH expressions kept by each thread.
+	 */
+	private static final int XPATH_CACHE_SIZE = 64;
+
+	/**
+	 * The XPATH evaluators, one per thread since neither the factory nor the evaluator is thread safe.
+	 */
+	private final ThreadLocal<XPath> xpaths = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+	/**
+	 * The compiled XPATH expressions, key is the expression. One bounded cache per thread, since a compiled expression
+	 * is not thread safe. The least recently used expression is evicted first.
+	 */
+	private final ThreadLocal<Map<String, XPathExpression>> expressions = ThreadLocal
+			.withInitial(() -> new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<String, XPathExpression> eldest) {
+					return size() > XPATH_CACHE_SIZE;
+				}
+			});
+
+	private static XMLInputFactory newInputFactory() {
+		final var factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	}
+
+	/**
+	 * Return the secured document builder of the current thread.
+	 */
+	private DocumentBuilder getBuilder() throws ParserConfigurationException {
+		var builder = builders.get();
+		if (builder == null) {
+			final var factory = DocumentBuilderFactory.newInstance();
+			factory.setValidating(false);
+			factory.setCoalescing(false);
+			factory.setExpandEntityReferences(false);
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			builder = factory.newDocumentBuilder();
+			builders.set(builder);
+		} else {
+			builder.reset();
+		}
+		return builder;
+	}
+
 	/**
 	 * Build and return a secured document builder.
 	 *
@@ -47,14 +119,85 @@ public class XmlUtils {
 	 *                                      creates cannot support this feature.
 	 */
 	public Document parse(final InputStream input) throws SAXException, IOException, ParserConfigurationException {
-		final var factory = DocumentBuilderFactory.newInstance();
-		factory.setValidating(false);
-		factory.setCoalescing(false);
-		factory.setExpandEntityReferences(false);
-		factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-		factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-		final var newDocumentBuilder = factory.newDocumentBuilder();
-		return newDocumentBuilder.parse(input, StandardCharsets.UTF_8.name());
+		return getBuilder().parse(input, StandardCharsets.UTF_8.name());
+	}
+
+	/**
+	 * Visit the elements of the given name without building the document: the input is streamed, and only the current
+	 * element is held in memory. The elements nested inside a visited element are not visited.
+	 *
+	 * @param input   Input to parse. Not closed by this method.
+	 * @param tag     The local name of the elements to visit.
+	 * @param visitor The function called for each matching element, in the document order.
+	 * @return The amount of visited elements.
+	 * @throws XMLStreamException If any parse errors occur.
+	 */
+	public int visit(final InputStream input, final String tag, final Consumer<XmlElement> visitor)
+			throws XMLStreamException {
+		final var reader = inputFactory.createXMLStreamReader(input, StandardCharsets.UTF_8.name());
+		try {
+			var count = 0;
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(tag)) {
+					visitor.accept(readElement(reader));
+					count++;
+				}
+			}
+			return count;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Return the text of the elements of the given name without building the document.
+	 *
+	 * @param input Input to parse. Not closed by this method.
+	 * @param tag   The local name of the elements to read.
+	 * @return Not <code>null</code> trimmed texts, in the document order. Empty texts are ignored.
+	 * @throws XMLStreamException If any parse errors occur.
+	 * @see #visit(InputStream, String, Consumer)
+	 */
+	public List<String> getTagTexts(final InputStream input, final String tag) throws XMLStreamException {
+		final var result = new ArrayList<String>();
+		visit(input, tag, e -> {
+			if (e.getText() != null) {
+				result.add(e.getText());
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Read the current element until its end: attributes, own text and text content of the direct children.
+	 */
+	private XmlElement readElement(final XMLStreamReader reader) throws XMLStreamException {
+		final var element = new XmlElement();
+		element.setName(reader.getLocalName());
+		for (var i = 0; i < reader.getAttributeCount(); i++) {
+			element.getAttributes().put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		}
+		final var text = new StringBuilder();
+		var depth = 0;
+		String child = null;
+		final var childText = new StringBuilder();
+		while (depth >= 0) {
+			final var event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (depth++ == 0) {
+					child = reader.getLocalName();
+					childText.setLength(0);
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (--depth == 0) {
+					element.getChildren().putIfAbsent(child, StringUtils.trimToNull(childText.toString()));
+				}
+			} else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+				(depth == 0 ? text : childText).append(reader.getText());
+			}
+		}
+		element.setText(StringUtils.trimToNull(text.toString()));
+		return element;
 	}
 
 	/**
@@ -102,10 +245,60 @@ public class XmlUtils {
 	 */
 	public NodeList getXpath(final String input, final String expression)
 			throws XPathExpressionException, SAXException, IOException, ParserConfigurationException {
-		final var xPath = xpathFactory.newXPath();
-		return (NodeList) xPath.compile(expression).evaluate(
-				parse(IOUtils.toInputStream(ObjectUtils.defaultIfNull(input, ""), StandardCharsets.UTF_8)),
-				XPathConstants.NODESET);
+		return getXpath(parse(IOUtils.toInputStream(ObjectUtils.defaultIfNull(input, ""), StandardCharsets.UTF_8)),
+				expression);
+	}
+
+	/**
+	 * Return list of tags matching the XPATH expression from an already parsed node.
+	 *
+	 * @param node       The context node, usually a parsed document.
+	 * @param expression The XPATH expression.
+	 * @return Not <code>null</code> tag list.
+	 * @throws XPathExpressionException If {@code expression} cannot be compiled or evaluated.
+	 */
+	public NodeList getXpath(final Node node, final String expression) throws XPathExpressionException {
+		return (NodeList) compile(expression).evaluate(node, XPathConstants.NODESET);
+	}
+
+	/**
+	 * Return list of tags for each XPATH expression, with a single parse of the input.
+	 *
+	 * @param input       Input to parse. May be <code>null</code>.
+	 * @param expressions The XPATH expressions.
+	 * @return The tag lists, key is the expression, in the given order.
+	 * @throws IOException                  If any IO errors occur.
+	 * @throws SAXException                 If any parse errors occur.
+	 * @throws ParserConfigurationException if this {@code DocumentBuilderFactory} or the {@code DocumentBuilder}s it
+	 *                                      creates cannot support this feature.
+	 * @throws XPathExpressionException     If an expression cannot be compiled.
+	 */
+	public Map<String, NodeList> getXpaths(final String input, final String... expressions)
+			throws XPathExpressionException, SAXException, IOException, ParserConfigurationException {
+		final var document = parse(IOUtils.toInputStream(ObjectUtils.defaultIfNull(input, ""), StandardCharsets.UTF_8));
+		final var result = new LinkedHashMap<String, NodeList>();
+		for (final var expression : expressions) {
+			result.put(expression, getXpath(document, expression));
+		}
+		return result;
+	}
+
+	/**
+	 * Return the compiled XPATH expression from the cache of the current thread. The returned expression must not be
+	 * shared with another thread.
+	 *
+	 * @param expression The XPATH expression.
+	 * @return The compiled expression.
+	 * @throws XPathExpressionException If {@code expression} cannot be compiled.
+	 */
+	public XPathExpression compile(final String expression) throws XPathExpressionException {
+		final var cache = expressions.get();
+		var compiled = cache.get(expression);
+		if (compiled == null) {
+			compiled = xpaths.get().compile(expression);
+			cache.put(expression, compiled);
+		}
+		return compiled;
 	}
 
 	/**
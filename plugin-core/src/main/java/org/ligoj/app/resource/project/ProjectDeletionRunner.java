@@ -0,0 +1,125 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.project;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import jakarta.transaction.Transactional;
+
+import org.ligoj.app.dao.ProjectRepository;
+import org.ligoj.app.dao.task.ProjectDeletionTaskRepository;
+import org.ligoj.app.model.Project;
+import org.ligoj.app.model.ProjectDeletionTask;
+import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.plugin.LongTaskExecutor;
+import org.ligoj.app.resource.plugin.LongTaskRunner;
+import org.ligoj.app.resource.plugin.PluginExecutor;
+import org.ligoj.app.resource.subscription.SubscriptionResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+
+/**
+ * Deletion of a project and the remote data of its subscriptions, run by {@link LongTaskExecutor}. Each subscription
+ * is deleted in its own transaction with its plug-in data, events and parameter values, and counted as a step of the
+ * task. The subscriptions are delegated to the plug-ins by the shared {@link PluginExecutor}, with a concurrency
+ * bounded by <code>subscription.delete.threads</code>. A failed or cancelled deletion leaves the project with its
+ * remaining subscriptions, all intact: the next subscriptions are not submitted, and the running ones are awaited. The
+ * project and its task are deleted after the last subscription, the run is kept in the history.
+ */
+@Component
+public class ProjectDeletionRunner implements
+		LongTaskRunner<ProjectDeletionTask, ProjectDeletionTaskRepository, Project, Integer, ProjectRepository, ProjectResource> {
+
+	@Autowired
+	@Getter
+	private ProjectDeletionTaskRepository taskRepository;
+
+	@Autowired
+	@Getter
+	private ProjectRepository lockedRepository;
+
+	@Autowired
+	@Getter
+	private ProjectResource lockedResource;
+
+	@Autowired
+	private SubscriptionResource subscriptionResource;
+
+	@Autowired
+	private ProjectSearchIndex searchIndex;
+
+	@Autowired
+	private LongTaskExecutor executor;
+
+	@Autowired
+	private PluginExecutor pluginExecutor;
+
+	@Autowired
+	private ProjectDeletionRunner self;
+
+	/**
+	 * Maximal amount of subscriptions delegated to the plug-ins at the same time during a project deletion.
+	 */
+	@Value("${subscription.delete.threads:4}")
+	private int deleteThreads;
+
+	@Override
+	public Supplier<ProjectDeletionTask> newTask() {
+		return ProjectDeletionTask::new;
+	}
+
+	/**
+	 * Start the deletion of a visible project and the remote data of its subscriptions.
+	 *
+	 * @param id The project identifier.
+	 * @return The started task.
+	 */
+	public ProjectDeletionTask delete(final int id) {
+		final var subscriptions = lockedResource.checkVisible(id).getSubscriptions().stream().map(Subscription::getId)
+				.<Callable<Integer>>map(s -> () -> {
+					subscriptionResource.delete(s, true);
+					return s;
+				}).toList();
+		return executor.submit(self, id, t -> {
+			t.setTotal(subscriptions.size());
+			t.setDeleted(0);
+		}, h -> {
+			deleteSubscriptions(subscriptions, s -> h.step(t -> t.setDeleted(t.getDeleted() + 1)));
+			self.deleteProject(id);
+		}).read(Function.identity());
+	}
+
+	/**
+	 * Delete the subscriptions with their remote data, each one in its own transaction.
+	 */
+	private void deleteSubscriptions(final List<Callable<Integer>> subscriptions, final Consumer<Integer> deleted) {
+		try {
+			pluginExecutor.invokeAll(subscriptions, deleteThreads, deleted);
+		} catch (final RuntimeException e) {
+			throw e;
+		} catch (final Exception e) {
+			throw new IllegalStateException("Unable to delete the subscriptions", e);
+		}
+	}
+
+	/**
+	 * End the task, then delete it with the project, now without subscription.
+	 *
+	 * @param id The project identifier.
+	 */
+	@Transactional
+	public void deleteProject(final int id) {
+		endTask(id, false);
+		taskRepository.deleteAllBy("locked.id", id);
+		lockedRepository.deleteById(id);
+		searchIndex.delete(id);
+	}
+}
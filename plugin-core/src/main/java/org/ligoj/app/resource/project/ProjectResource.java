@@ -3,7 +3,9 @@
  */
 package org.ligoj.app.resource.project;
 
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiFunction;
@@ -21,22 +23,40 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
 
 import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.api.ServicePlugin;
+import org.ligoj.app.dao.ParameterValueRepository;
 import org.ligoj.app.dao.ProjectRepository;
 import org.ligoj.app.dao.SubscriptionRepository;
+import org.ligoj.app.dao.task.LongTaskRepository;
 import org.ligoj.app.iam.IamProvider;
 import org.ligoj.app.iam.UserOrg;
+import org.ligoj.app.model.AbstractLongTask;
 import org.ligoj.app.model.Project;
-import org.ligoj.app.resource.ServicePluginLocator;
+import org.ligoj.app.model.ProjectDeletionTask;
+import org.ligoj.app.resource.CursorPagination;
+import org.ligoj.app.resource.CursorQuery;
+import org.ligoj.app.resource.node.AbstractLockedResource;
+import org.ligoj.app.resource.node.NodeResource;
+import org.ligoj.app.resource.node.ParameterValueResource;
+import org.ligoj.app.resource.plugin.LongTaskExecutor;
+import org.ligoj.app.resource.plugin.LongTaskRunner;
 import org.ligoj.app.resource.subscription.SubscriptionResource;
 import org.ligoj.bootstrap.core.DescribedBean;
+import org.ligoj.bootstrap.core.dao.RestRepository;
 import org.ligoj.bootstrap.core.json.PaginationJson;
 import org.ligoj.bootstrap.core.json.TableItem;
 import org.ligoj.bootstrap.core.json.datatable.DataTableAttributes;
+import org.ligoj.bootstrap.core.resource.OnNullReturn404;
 import org.ligoj.bootstrap.core.security.SecurityHelper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 /**
@@ -46,7 +66,7 @@ import org.springframework.stereotype.Service;
 @Service
 @Transactional
 @Produces(MediaType.APPLICATION_JSON)
-public class ProjectResource {
+public class ProjectResource extends AbstractLockedResource<Project, Integer> {
 
 	@Autowired
 	private ProjectRepository repository;
@@ -64,11 +84,33 @@ public class ProjectResource {
 	private SubscriptionResource subscriptionResource;
 
 	@Autowired
-	private ServicePluginLocator locator;
+	private ParameterValueRepository parameterValueRepository;
+
+	@Autowired
+	private NodeResource nodeResource;
+
+	@Autowired
+	private ProjectSearchIndex searchIndex;
+
+	@Autowired
+	private ProjectDeletionRunner deletionRunner;
+
+	@Autowired
+	private LongTaskExecutor taskExecutor;
+
+	@Autowired
+	private CursorPagination cursorPagination;
 
 	@Autowired
 	protected IamProvider[] iamProvider;
 
+	/**
+	 * Maximal amount of ranked candidates filtered by the database. Above this limit, the search is fully delegated to
+	 * the database.
+	 */
+	@Value("${project.search.candidates:1000}")
+	private int maxCandidates;
+
 	/**
 	 * Ordered columns.
 	 */
@@ -92,14 +134,17 @@ public class ProjectResource {
 	 * @return The project description with subscriptions.
 	 */
 	public ProjectVo toVo(final Project project) {
-		// Get subscriptions
-		final var subscriptionsResultSet = subscriptionRepository.findAllWithValuesSecureByProject(project.getId());
+		// Get subscriptions with their status
+		final var subscriptions = subscriptionRepository.findAllLightByProject(project.getId());
 
-		// Get subscriptions status
-		final var subscriptionStatus = subscriptionResource.getStatusByProject(project.getId());
+		// Get the values of the subscriptions and the inherited ones
+		final var nodes = subscriptions.stream().map(rs -> (String) rs[1]).distinct()
+				.flatMap(n -> ParameterValueResource.getNodeChain(n).stream()).distinct().toList();
+		final var values = subscriptions.isEmpty() ? List.<Object[]>of()
+				: parameterValueRepository.findAllSecureByProject(project.getId(), nodes);
 
 		// Convert users, project and subscriptions
-		final var projectVo = new ToVoConverter(locator, toUser(), subscriptionsResultSet, subscriptionStatus)
+		final var projectVo = new ToVoConverter(toUser(), subscriptions, values, nodeResource.findAll())
 				.apply(project);
 		projectVo.setManageSubscriptions(repository.isManageSubscription(project.getId(), securityHelper.getLogin()));
 		return projectVo;
@@ -151,7 +196,11 @@ public class ProjectResource {
 	}
 
 	/**
-	 * Retrieve all project with pagination, and filtered. A visible project is attached to a visible group.
+	 * Retrieve all project with pagination, and filtered. A visible project is attached to a visible group. When there
+	 * is a criteria, the candidates are resolved from the {@link ProjectSearchIndex}, and only these candidates are
+	 * checked for visibility. Without explicit ordering, the result is ordered by relevance. In cursor mode, see
+	 * {@link CursorPagination}, the criteria is matched by the database and the subscription count cannot be used as
+	 * sort column.
 	 *
 	 * @param uriInfo  pagination data.
 	 * @param criteria the optional criteria to match.
@@ -160,13 +209,50 @@ public class ProjectResource {
 	@GET
 	public TableItem<ProjectLightVo> findAll(@Context final UriInfo uriInfo,
 			@QueryParam(DataTableAttributes.SEARCH) final String criteria) {
-		final var findAll = repository.findAllLight(securityHelper.getLogin(), StringUtils.trimToEmpty(criteria),
-				paginationJson.getPageRequest(uriInfo, ORDERED_COLUMNS));
+		final var user = securityHelper.getLogin();
+		final var search = StringUtils.trimToEmpty(criteria);
+		if (cursorPagination.isRequested(uriInfo)) {
+			return cursorPagination.findAll(uriInfo,
+					new CursorQuery(Project.class, "p", ProjectRepository.FIND_ALL_LIGHT)
+							.select("p, COUNT(DISTINCT s.id)", rs -> ((Object[]) rs)[0]).groupBy("GROUP BY p")
+							.parameter("user", user).parameter("criteria", search),
+					ORDERED_COLUMNS, this::toVoLightCount);
+		}
+		final var page = paginationJson.getPageRequest(uriInfo, ORDERED_COLUMNS);
+		final var candidates = search.isEmpty() ? null : searchIndex.search(search);
+		final Page<Object[]> findAll;
+		if (candidates == null || candidates.size() > maxCandidates) {
+			// Full database search
+			findAll = repository.findAllLight(user, search, page);
+		} else if (candidates.isEmpty()) {
+			findAll = Page.empty(page);
+		} else if (page.getSort().isSorted()) {
+			// Explicit ordering
+			findAll = repository.findAllLight(user, search, candidates, page);
+		} else {
+			// Relevance ordering of the visible candidates
+			findAll = toRankedPage(candidates,
+					repository.findAllLight(user, search, candidates, Pageable.unpaged()).getContent(), page);
+		}
 
 		// apply pagination and prevent lazy initialization issue
 		return paginationJson.applyPagination(uriInfo, findAll, this::toVoLightCount);
 	}
 
+	/**
+	 * Order the visible candidates by relevance and return the requested page.
+	 */
+	private Page<Object[]> toRankedPage(final List<Integer> ranked, final List<Object[]> visible,
+			final Pageable page) {
+		final var ranks = new HashMap<Integer, Integer>();
+		ranked.forEach(id -> ranks.put(id, ranks.size()));
+		final var sorted = visible.stream().sorted(Comparator.comparing(rs -> ranks.get(((Project) rs[0]).getId())))
+				.toList();
+		final var from = (int) Math.min(page.getOffset(), sorted.size());
+		final var to = Math.min(from + page.getPageSize(), sorted.size());
+		return new PageImpl<>(sorted.subList(from, to), page, sorted.size());
+	}
+
 	/**
 	 * Return a project with all subscription parameters and their status.
 	 *
@@ -210,7 +296,9 @@ public class ProjectResource {
 	 */
 	@POST
 	public int create(final ProjectEditionVo vo) {
-		return repository.saveAndFlush(ProjectResource.toEntity(vo)).getId();
+		final var entity = repository.saveAndFlush(ProjectResource.toEntity(vo));
+		searchIndex.put(entity);
+		return entity.getId();
 	}
 
 	/**
@@ -230,10 +318,11 @@ public class ProjectResource {
 		DescribedBean.copy(vo, project);
 		project.setTeamLeader(vo.getTeamLeader());
 		repository.saveAndFlush(project);
+		searchIndex.put(project);
 	}
 
 	/**
-	 * Delete entity. Should be protected with RBAC.
+	 * Delete entity. Should be protected with RBAC. Note that remote data are not deleted.
 	 *
 	 * @param id The entity identifier.
 	 * @throws Exception When the deletion fails. Managed at JAX-RS level.
@@ -241,11 +330,106 @@ public class ProjectResource {
 	@DELETE
 	@Path("{id:\\d+}")
 	public void delete(@PathParam("id") final int id) throws Exception {
-		final var project = findOneVisible(repository::findOneVisible, id, Function.identity());
-		for (final var subscription : project.getSubscriptions()) {
-			subscriptionResource.delete(subscription.getId());
+		delete(id, false);
+	}
+
+	/**
+	 * Delete entity and its subscriptions. Should be protected with RBAC. When the remote data are also deleted, the
+	 * deletion is a long task: the subscriptions are deleted each one in its own transaction, then the project.
+	 * Otherwise, the deletion is refused while a deletion task is running, and the finished tasks are deleted.
+	 *
+	 * @param id               The entity identifier.
+	 * @param deleteRemoteData When <code>true</code>, remote data of the subscriptions will be also destroyed.
+	 * @return The started deletion task when the remote data are deleted, otherwise <code>null</code> and the project
+	 *         is already deleted.
+	 * @throws Exception When the deletion fails. Managed at JAX-RS level.
+	 * @see SubscriptionResource#deleteAll(List)
+	 * @see ProjectDeletionRunner
+	 */
+	@DELETE
+	@Path("{id:\\d+}/{deleteRemoteData}")
+	public ProjectDeletionTask delete(@PathParam("id") final int id,
+			@PathParam("deleteRemoteData") final boolean deleteRemoteData) throws Exception {
+		if (deleteRemoteData) {
+			return deletionRunner.delete(id);
 		}
+		final var project = checkVisible(id);
+		deletionRunner.deleteTask(id);
+		subscriptionResource.deleteAll(project.getSubscriptions());
+
+		// The subscriptions are already deleted, nothing to cascade
+		project.getSubscriptions().clear();
 		repository.delete(project);
+		repository.flush();
+		searchIndex.delete(id);
+		return null;
+	}
+
+	/**
+	 * Return the status of the deletion task of a project.
+	 *
+	 * @param id The project identifier.
+	 * @return The deletion task. May be <code>null</code> when there is no previous deletion.
+	 */
+	@GET
+	@Path("{id:\\d+}/task")
+	public ProjectDeletionTask getDeletionTask(@PathParam("id") final int id) {
+		checkVisible(id);
+		return deletionRunner.getTaskInternal(id);
+	}
+
+	/**
+	 * Cancel the deletion task of a project. The subscriptions already deleted are not restored.
+	 *
+	 * @param id The project identifier.
+	 * @return The ended task if present or <code>null</code>.
+	 */
+	@DELETE
+	@Path("{id:\\d+}/task")
+	@OnNullReturn404
+	public ProjectDeletionTask cancelDeletion(@PathParam("id") final int id) {
+		checkVisible(id);
+		final var task = deletionRunner.endTask(id, true);
+
+		// Interrupt the execution when running on this member
+		taskExecutor.cancel(deletionRunner, id);
+		return task;
+	}
+
+	/**
+	 * Stream the progress of the deletion task of a project as server-sent events. The <code>end</code> event has no
+	 * task when the project is deleted.
+	 *
+	 * @param id The project identifier.
+	 * @return The event stream: the <code>progress</code> events, then the <code>end</code> event.
+	 */
+	@GET
+	@Path("{id:\\d+}/task/progress")
+	@Produces("text/event-stream")
+	public StreamingOutput getDeletionProgress(@PathParam("id") final int id) {
+		checkVisible(id);
+		return taskExecutor.stream(deletionRunner, id);
+	}
+
+	@Override
+	public Project checkVisible(final Integer id) {
+		return findOneVisible(repository::findOneVisible, id, Function.identity());
+	}
+
+	@Override
+	protected void delete(final ServicePlugin plugin, final Integer id, final boolean deleteRemoteData) {
+		// Projects are not managed by the plug-ins
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected <
+			T extends AbstractLongTask<Project, Integer>,
+			R extends LongTaskRepository<T, Project, Integer>,
+			A extends RestRepository<Project, Integer>,
+			S extends AbstractLockedResource<Project, Integer>
+			> Class<? extends LongTaskRunner<T, R, Project, Integer, A, S>> getLongTaskRunnerClass() {
+		return (Class<? extends LongTaskRunner<T, R, Project, Integer, A, S>>) (Class<?>) ProjectDeletionRunner.class;
 	}
 
 	private <T, K> T findOneVisible(final BiFunction<K, String, Project> finder, final K key,
@@ -0,0 +1,363 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.project;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.dao.ProjectRepository;
+import org.ligoj.app.model.Project;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local full-text index of the projects over the name, pkey, description and team leader. A project matches when the
+ * criteria is a case-insensitive substring of one of these fields, like the database search. The candidates are
+ * resolved from a tri-gram inverted index, then ranked by relevance: exact pkey or name first, then prefixes, then
+ * substrings.
+ * <p>
+ * The index is built on demand, and is kept in sync by {@link ProjectResource}. At most once per
+ * <code>project.search.check</code> milliseconds, a light signature of the table (count, sum of the identifiers and
+ * last modification) is compared to the indexed one, so the changes made by another member are caught with a full
+ * rebuild. A local change rolled back invalidates the index.
+ * </p>
+ * <p>
+ * The searches run concurrently under a read lock. A rebuild is made aside, the searches continue on the previous index
+ * until it is replaced.
+ * </p>
+ * The visibility is not handled here: the candidates have to be filtered by the caller.
+ */
+@Component
+@Slf4j
+public class ProjectSearchIndex {
+
+	/**
+	 * Length of the indexed grams.
+	 */
+	private static final int GRAM = 3;
+
+	/**
+	 * Indexed project: the searchable fields in lower case.
+	 */
+	private static final class Entry {
+		private final int id;
+		private final String name;
+		private final String pkey;
+		private final String description;
+		private final String teamLeader;
+
+		private Entry(final int id, final String name, final String pkey, final String description,
+				final String teamLeader) {
+			this.id = id;
+			this.name = normalize(name);
+			this.pkey = normalize(pkey);
+			this.description = normalize(description);
+			this.teamLeader = normalize(teamLeader);
+		}
+
+		private Stream<String> fields() {
+			return Stream.of(name, pkey, description, teamLeader);
+		}
+	}
+
+	/**
+	 * Light signature of the project table.
+	 */
+	private record Signature(long count, long ids, long modified) {
+	}
+
+	/**
+	 * A ranked candidate.
+	 */
+	private record Match(Entry entry, int score) {
+	}
+
+	/**
+	 * Indexed projects and their grams.
+	 */
+	private static final class Index {
+
+		/**
+		 * Indexed projects by identifier.
+		 */
+		private final Map<Integer, Entry> entries = new HashMap<>();
+
+		/**
+		 * Project identifiers by gram.
+		 */
+		private final Map<String, Set<Integer>> grams = new HashMap<>();
+
+		private void add(final Entry entry) {
+			entries.put(entry.id, entry);
+			entry.fields().flatMap(f -> toGrams(f).stream()).distinct()
+					.forEach(g -> grams.computeIfAbsent(g, k -> new HashSet<>()).add(entry.id));
+		}
+
+		private void remove(final int id) {
+			final var entry = entries.remove(id);
+			if (entry != null) {
+				entry.fields().flatMap(f -> toGrams(f).stream()).distinct().forEach(g -> {
+					final var ids = grams.get(g);
+					ids.remove(id);
+					if (ids.isEmpty()) {
+						grams.remove(g);
+					}
+				});
+			}
+		}
+	}
+
+	@Autowired
+	private ProjectRepository repository;
+
+	/**
+	 * Minimal delay between two checks of the table signature, in milliseconds. <code>0</code> checks it before each
+	 * search.
+	 */
+	@Setter
+	@Value("${project.search.check:10000}")
+	private long checkPeriod = 10000;
+
+	/**
+	 * Guards the current index: shared by the searches, exclusive for the changes and the replacement.
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Serializes the signature checks, the rebuilds and the local changes.
+	 */
+	private final Lock building = new ReentrantLock();
+
+	private Index index = new Index();
+
+	/**
+	 * Signature of the indexed table. <code>null</code> when the index has to be built.
+	 */
+	private volatile Signature signature;
+
+	/**
+	 * Time of the last signature check.
+	 */
+	private volatile long checked;
+
+	private static String normalize(final String value) {
+		return StringUtils.defaultString(value).toLowerCase(Locale.ENGLISH);
+	}
+
+	private static Set<String> toGrams(final String value) {
+		final var result = new HashSet<String>();
+		for (var i = 0; i + GRAM <= value.length(); i++) {
+			result.add(value.substring(i, i + GRAM));
+		}
+		return result;
+	}
+
+	private Signature getSignature() {
+		final var rs = repository.getSearchSignature().get(0);
+		return new Signature(((Number) rs[0]).longValue(), rs[1] == null ? 0 : ((Number) rs[1]).longValue(),
+				rs[2] == null ? 0 : ((Date) rs[2]).getTime());
+	}
+
+	/**
+	 * Keep the index in sync when the current signature is the expected one after a local change. Otherwise, another
+	 * change happened and the index will be rebuilt by the next search.
+	 */
+	private void sync(final Signature expected) {
+		final var current = getSignature();
+		checked = System.currentTimeMillis();
+		signature = current.equals(expected) ? current : null;
+	}
+
+	private boolean isChecked() {
+		return signature != null && System.currentTimeMillis() - checked < checkPeriod;
+	}
+
+	/**
+	 * Rebuild the index from the database when the table has changed since the last synchronization. The signature is
+	 * checked by one thread at a time, the others use the current index when there is one.
+	 */
+	private void ensureIndex() {
+		final var built = signature != null;
+		if (isChecked() || built && !building.tryLock()) {
+			return;
+		}
+		if (!built) {
+			building.lock();
+		}
+		try {
+			if (isChecked()) {
+				// Checked by another thread meanwhile
+				return;
+			}
+			final var current = getSignature();
+			checked = System.currentTimeMillis();
+			if (!current.equals(signature)) {
+				final var start = System.currentTimeMillis();
+				final var rebuilt = new Index();
+				repository.findAllSearchable().forEach(rs -> rebuilt.add(
+						new Entry((Integer) rs[0], (String) rs[1], (String) rs[2], (String) rs[3], (String) rs[4])));
+				update(() -> index = rebuilt);
+				signature = current;
+				log.info("Project search index built with {} projects in {}ms", rebuilt.entries.size(),
+						System.currentTimeMillis() - start);
+			}
+		} finally {
+			building.unlock();
+		}
+	}
+
+	/**
+	 * Change the index without concurrent search.
+	 */
+	private void update(final Runnable change) {
+		lock.writeLock().lock();
+		try {
+			change.run();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Apply a local change, unless the index is not built. The index is invalidated when the current transaction is
+	 * not committed.
+	 */
+	private void change(final Function<Signature, Signature> change) {
+		building.lock();
+		try {
+			if (signature != null) {
+				sync(change.apply(signature));
+				if (TransactionSynchronizationManager.isSynchronizationActive()) {
+					TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+						@Override
+						public void afterCompletion(final int status) {
+							if (status != STATUS_COMMITTED) {
+								invalidate();
+							}
+						}
+					});
+				}
+			}
+		} finally {
+			building.unlock();
+		}
+	}
+
+	/**
+	 * Add or replace a project in the index. Nothing is done while the index is not built.
+	 *
+	 * @param project The created or updated project, already flushed.
+	 */
+	public void put(final Project project) {
+		change(previous -> {
+			final var modified = Optional.ofNullable(project.getLastModifiedDate()).map(Date::getTime).orElse(0L);
+			final var created = index.entries.containsKey(project.getId()) ? 0 : 1;
+			update(() -> {
+				index.remove(project.getId());
+				index.add(new Entry(project.getId(), project.getName(), project.getPkey(), project.getDescription(),
+						project.getTeamLeader()));
+			});
+			return new Signature(previous.count + created, previous.ids + created * project.getId(),
+					Math.max(previous.modified, modified));
+		});
+	}
+
+	/**
+	 * Remove a project from the index. Nothing is done while the index is not built.
+	 *
+	 * @param id The deleted project identifier, already flushed.
+	 */
+	public void delete(final int id) {
+		change(previous -> {
+			update(() -> index.remove(id));
+			return new Signature(previous.count - 1, previous.ids - id, previous.modified);
+		});
+	}
+
+	/**
+	 * Invalidate the index, the next search rebuilds it.
+	 */
+	public void invalidate() {
+		signature = null;
+	}
+
+	/**
+	 * Return the identifiers of the projects matching the given criteria, ordered by relevance.
+	 *
+	 * @param criteria The criteria to match: a case-insensitive substring of the name, pkey, description or team
+	 *                 leader.
+	 * @return The matching project identifiers, most relevant first. The visibility is not checked.
+	 */
+	public List<Integer> search(final String criteria) {
+		ensureIndex();
+		final var value = normalize(StringUtils.trimToEmpty(criteria));
+		lock.readLock().lock();
+		try {
+			final var entries = index.entries;
+			return getCandidates(value).map(entries::get).filter(Objects::nonNull)
+					.map(e -> new Match(e, score(e, value))).filter(m -> m.score > 0)
+					.sorted(Comparator.comparingInt(Match::score).reversed().thenComparing(m -> m.entry.name)
+							.thenComparingInt(m -> m.entry.id))
+					.map(m -> m.entry.id).toList();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Return the identifiers of the projects containing all the grams of the criteria. When the criteria is shorter
+	 * than a gram, all projects are candidates.
+	 */
+	private Stream<Integer> getCandidates(final String value) {
+		if (value.length() < GRAM) {
+			return new ArrayList<>(index.entries.keySet()).stream();
+		}
+		final var postings = toGrams(value).stream().map(g -> index.grams.getOrDefault(g, Set.of()))
+				.sorted(Comparator.comparingInt(Set::size)).toList();
+		final var result = new HashSet<>(postings.get(0));
+		postings.stream().skip(1).forEach(result::retainAll);
+		return result.stream();
+	}
+
+	/**
+	 * Return the relevance of a project. <code>0</code> when the project does not match.
+	 */
+	private static int score(final Entry entry, final String value) {
+		return score(entry.pkey, value, 100, 50, 15) + score(entry.name, value, 90, 40, 20)
+				+ score(entry.teamLeader, value, 10, 5, 5) + score(entry.description, value, 1, 1, 1);
+	}
+
+	private static int score(final String field, final String value, final int exact, final int prefix,
+			final int contains) {
+		if (field.equals(value)) {
+			return exact;
+		}
+		if (field.startsWith(value)) {
+			return prefix;
+		}
+		return field.contains(value) ? contains : 0;
+	}
+}
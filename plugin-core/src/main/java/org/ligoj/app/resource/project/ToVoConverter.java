@@ -3,7 +3,9 @@
  */
 package org.ligoj.app.resource.project;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,55 +13,67 @@ import java.util.TreeMap;
 import java.util.function.Function;
 
 import org.ligoj.app.api.NodeStatus;
+import org.ligoj.app.api.NodeVo;
 import org.ligoj.app.iam.UserOrg;
+import org.ligoj.app.model.Parameter;
+import org.ligoj.app.model.ParameterType;
 import org.ligoj.app.model.ParameterValue;
 import org.ligoj.app.model.Project;
 import org.ligoj.app.model.Subscription;
-import org.ligoj.app.resource.ServicePluginLocator;
-import org.ligoj.app.resource.node.EventVo;
-import org.ligoj.app.resource.node.NodeResource;
 import org.ligoj.app.resource.node.ParameterValueResource;
 import org.ligoj.app.resource.node.ParameterValueVo;
 import org.ligoj.app.resource.subscription.SubscriptionVo;
 import org.ligoj.bootstrap.core.DescribedBean;
+import org.ligoj.bootstrap.core.NamedBean;
 
 /**
- * JPA {@link Project} to detailed {@link ProjectVo} converter.
+ * JPA {@link Project} to detailed {@link ProjectVo} converter. The node descriptions are taken from the cached nodes
+ * and converted once per node.
  */
 class ToVoConverter implements Function<Project, ProjectVo> {
 
 	/**
 	 * Subscriptions.
 	 */
-	private final List<Object[]> subscriptionsAndParam;
+	private final List<Object[]> subscriptions;
 
 	/**
-	 * Subscriptions status
+	 * Non secured parameter values of the subscriptions and of the subscribed nodes.
 	 */
-	private final Map<Integer, EventVo> subscriptionStatus;
+	private final List<Object[]> values;
 
 	/**
 	 * User converter used to serialize a safe data.
 	 */
 	private final Function<String, ? extends UserOrg> userConverter;
 
-	private final ServicePluginLocator locator;
+	/**
+	 * All nodes, key is the node identifier.
+	 */
+	private final Map<String, NodeVo> nodes;
+
+	/**
+	 * Already converted nodes.
+	 */
+	private final Map<String, NodeVo> nodeVos = new HashMap<>();
 
 	/**
 	 * Constructor holding the data used to convert a {@link Project} to {@link ProjectVo}.
 	 *
-	 * @param locator               The locator instance.
-	 * @param userConverter         The {@link Function} used to convert internal user identifier to described user.
-	 * @param subscriptionsAndParam The subscription (index 0, type {@link Subscription}) with parameter values (index
-	 *                              1, type {@link ParameterValue}).
-	 * @param subscriptionStatus    The subscriptions statuses. Key is the subscription identifier.
+	 * @param userConverter The {@link Function} used to convert internal user identifier to described user.
+	 * @param subscriptions The subscriptions: identifier, node identifier, created by, created date, last modified by,
+	 *                      last modified date and last event value.
+	 * @param values        The parameter values: subscription identifier, node identifier, parameter identifier,
+	 *                      parameter type and data. Only one of the subscription or node identifier is not
+	 *                      <code>null</code>.
+	 * @param nodes         All nodes, key is the node identifier.
 	 */
-	protected ToVoConverter(final ServicePluginLocator locator, final Function<String, ? extends UserOrg> userConverter,
-			final List<Object[]> subscriptionsAndParam, final Map<Integer, EventVo> subscriptionStatus) {
-		this.locator = locator;
-		this.subscriptionsAndParam = subscriptionsAndParam;
-		this.subscriptionStatus = subscriptionStatus;
+	protected ToVoConverter(final Function<String, ? extends UserOrg> userConverter,
+			final List<Object[]> subscriptions, final List<Object[]> values, final Map<String, NodeVo> nodes) {
+		this.subscriptions = subscriptions;
+		this.values = values;
 		this.userConverter = userConverter;
+		this.nodes = nodes;
 	}
 
 	@Override
@@ -70,48 +84,102 @@ class ToVoConverter implements Function<Project, ProjectVo> {
 		vo.setPkey(entity.getPkey());
 		vo.setTeamLeader(userConverter.apply(entity.getTeamLeader()));
 
-		// Build the subscriptions
-		final var subscriptions = new TreeMap<Integer, SubscriptionVo>();
-		for (final var resultSet : this.subscriptionsAndParam) {
-			// Add subscription value
-			final var parameterValue = (ParameterValue) resultSet[1];
-			addVo(subscriptions, (Subscription) resultSet[0]).getParameters().put(parameterValue.getParameter().getId(),
-					ParameterValueResource.parseValue(parameterValue, new ParameterValueVo()));
+		// Index the parameter values by subscription and by node
+		final var bySubscription = new HashMap<Integer, List<ParameterValue>>();
+		final var byNode = new HashMap<String, List<ParameterValue>>();
+		for (final var rs : values) {
+			final var value = toValue(rs);
+			if (rs[0] == null) {
+				byNode.computeIfAbsent((String) rs[1], k -> new ArrayList<>()).add(value);
+			} else {
+				bySubscription.computeIfAbsent((Integer) rs[0], k -> new ArrayList<>()).add(value);
+			}
 		}
 
-		// Merge with subscription without parameters
-		entity.getSubscriptions().forEach(s -> addVo(subscriptions, s));
+		// Build the subscriptions
+		final var subscriptionsVo = new TreeMap<Integer, SubscriptionVo>();
+		for (final var rs : subscriptions) {
+			final var subscription = toVo(rs);
+			subscriptionsVo.put(subscription.getId(), subscription);
+
+			// Inherited values first: service, then tool, then node, then subscription
+			final var chain = ParameterValueResource.getNodeChain(subscription.getNode().getId());
+			for (var i = chain.size(); i-- > 0;) {
+				byNode.getOrDefault(chain.get(i), List.of()).forEach(v -> addValue(subscription, v));
+			}
+			bySubscription.getOrDefault(subscription.getId(), List.of()).forEach(v -> addValue(subscription, v));
+		}
 
 		// Return the subscription to order by the related node
-		vo.setSubscriptions(subscriptions.values().stream()
+		vo.setSubscriptions(subscriptionsVo.values().stream()
 				.sorted(Comparator.comparing(s -> s.getNode().getId(), String::compareTo)).toList());
 		return vo;
 	}
 
+	private void addValue(final SubscriptionVo subscription, final ParameterValue value) {
+		subscription.getParameters().put(value.getParameter().getId(),
+				ParameterValueResource.parseValue(value, new ParameterValueVo()));
+	}
+
 	/**
-	 * Convert a {@link Subscription} to a {@link SubscriptionVo} with status, and put it in the target map if not
-	 * existing.
-	 *
-	 * @param subscriptions The map of already converted entities.
-	 * @param entity        The {@link Subscription}
-	 * @return The related converted {@link SubscriptionVo} newly created or existing one.
+	 * Build a transient {@link ParameterValue} from a projection.
 	 */
-	private SubscriptionVo addVo(final Map<Integer, SubscriptionVo> subscriptions, final Subscription entity) {
-		return subscriptions.computeIfAbsent(entity.getId(), id -> {
-			// Build the subscription root instance
-			final var vo = new SubscriptionVo();
-			vo.copyAuditData(entity, userConverter);
-			vo.setId(entity.getId());
-			vo.setNode(NodeResource.toVo(entity.getNode(), locator));
-			vo.setParameters(new HashMap<>());
-
-			// Add subscription status
-			final var lastEvent = subscriptionStatus.get(entity.getId());
-			if (lastEvent != null) {
-				vo.setStatus(NodeStatus.valueOf(lastEvent.getValue()));
+	private ParameterValue toValue(final Object[] rs) {
+		final var parameter = new Parameter();
+		parameter.setId((String) rs[2]);
+		parameter.setType((ParameterType) rs[3]);
+		final var value = new ParameterValue();
+		value.setParameter(parameter);
+		value.setData((String) rs[4]);
+		return value;
+	}
+
+	/**
+	 * Convert a subscription projection to a {@link SubscriptionVo} with status.
+	 */
+	private SubscriptionVo toVo(final Object[] rs) {
+		final var entity = new Subscription();
+		entity.setId((Integer) rs[0]);
+		entity.setCreatedBy((String) rs[2]);
+		entity.setCreatedDate((Date) rs[3]);
+		entity.setLastModifiedBy((String) rs[4]);
+		entity.setLastModifiedDate((Date) rs[5]);
+
+		// Build the subscription root instance
+		final var vo = new SubscriptionVo();
+		vo.copyAuditData(entity, userConverter);
+		vo.setId(entity.getId());
+		vo.setNode(toVo((String) rs[1]));
+		vo.setParameters(new HashMap<>());
+
+		// Add subscription status
+		if (rs[6] != null) {
+			vo.setStatus(NodeStatus.valueOf((String) rs[6]));
+		}
+		return vo;
+	}
+
+	/**
+	 * Return the light description of a node from the cached nodes, with the same instance for the same node.
+	 */
+	private NodeVo toVo(final String node) {
+		var vo = nodeVos.get(node);
+		if (vo == null) {
+			vo = new NodeVo();
+			vo.setId(node);
+			final var cached = nodes.get(node);
+			if (cached != null) {
+				NamedBean.copy(cached, vo);
+				vo.setMode(cached.getMode());
+				vo.setUiClasses(cached.getUiClasses());
+				vo.setEnabled(cached.getEnabled());
+				if (cached.getRefined() != null) {
+					vo.setRefined(toVo(cached.getRefined().getId()));
+				}
 			}
-			return vo;
-		});
+			nodeVos.put(node, vo);
+		}
+		return vo;
 	}
 
 }
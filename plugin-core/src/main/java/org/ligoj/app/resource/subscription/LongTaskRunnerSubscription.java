@@ -7,12 +7,16 @@ import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import org.ligoj.app.dao.SubscriptionRepository;
 import org.ligoj.app.dao.task.LongTaskSubscriptionRepository;
 import org.ligoj.app.model.AbstractLongTaskSubscription;
 import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.plugin.LongTaskExecutor;
 import org.ligoj.app.resource.plugin.LongTaskRunner;
+import org.ligoj.bootstrap.core.SpringUtils;
 import org.ligoj.bootstrap.core.resource.OnNullReturn404;
 
 /**
@@ -79,7 +83,25 @@ public interface LongTaskRunnerSubscription<T extends AbstractLongTaskSubscripti
 	@OnNullReturn404
 	default T cancel(@PathParam("subscription") final int subscription) {
 		checkVisible(subscription);
-		return endTask(subscription, true);
+		final var task = endTask(subscription, true);
+
+		// Interrupt the execution when running on this member
+		SpringUtils.getBean(LongTaskExecutor.class).cancel(this, subscription);
+		return task;
+	}
+
+	/**
+	 * Stream the progress of the task started with {@link LongTaskExecutor} as server-sent events.
+	 *
+	 * @param subscription The locked subscription identifier.
+	 * @return The event stream: the <code>progress</code> events, then the <code>end</code> event.
+	 */
+	@GET
+	@Path("{subscription:\\d+}/task/progress")
+	@Produces("text/event-stream")
+	default StreamingOutput getTaskProgress(@PathParam("subscription") final int subscription) {
+		checkVisible(subscription);
+		return SpringUtils.getBean(LongTaskExecutor.class).stream(this, subscription);
 	}
 
 }
@@ -0,0 +1,41 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.subscription;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Result of a subscription creation within a bulk request.
+ */
+@Getter
+@Setter
+public class SubscriptionBulkResultVo {
+
+	/**
+	 * Position of the subscription in the bulk request.
+	 */
+	private int index;
+
+	/**
+	 * Subscribing project.
+	 */
+	private int project;
+
+	/**
+	 * Subscribed node.
+	 */
+	private String node;
+
+	/**
+	 * Created subscription identifier. <code>null</code> when the creation failed.
+	 */
+	private Integer id;
+
+	/**
+	 * Failure message. <code>null</code> when the creation succeeded.
+	 */
+	private String error;
+
+}
@@ -0,0 +1,22 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.subscription;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A page of subscriptions, with only the related projects and nodes.
+ */
+@Getter
+@Setter
+public class SubscriptionPageVo extends SubscriptionListVo {
+
+	/**
+	 * The position of the next page: the identifier of the last subscription of this page. <code>null</code> when
+	 * this page is the last one.
+	 */
+	private Integer next;
+
+}
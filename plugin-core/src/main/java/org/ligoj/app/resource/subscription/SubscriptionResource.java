@@ -3,21 +3,29 @@
  */
 package org.ligoj.app.resource.subscription;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
@@ -26,8 +34,11 @@ import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.ligoj.app.api.ConfigurablePlugin;
 import org.ligoj.app.api.ConfigurationVo;
 import org.ligoj.app.api.NodeVo;
@@ -36,6 +47,7 @@ import org.ligoj.app.api.SubscriptionMode;
 import org.ligoj.app.api.SubscriptionStatusWithData;
 import org.ligoj.app.dao.EventRepository;
 import org.ligoj.app.dao.NodeRepository;
+import org.ligoj.app.dao.ParameterRepository;
 import org.ligoj.app.dao.ProjectRepository;
 import org.ligoj.app.dao.SubscriptionRepository;
 import org.ligoj.app.model.EventType;
@@ -50,15 +62,20 @@ import org.ligoj.app.resource.node.NodeResource;
 import org.ligoj.app.resource.node.ParameterValueCreateVo;
 import org.ligoj.app.resource.node.ParameterValueResource;
 import org.ligoj.app.resource.plugin.LongTaskRunner;
+import org.ligoj.app.resource.plugin.PluginExecutor;
 import org.ligoj.bootstrap.core.DescribedBean;
 import org.ligoj.bootstrap.core.NamedBean;
 import org.ligoj.bootstrap.core.resource.BusinessException;
 import org.ligoj.bootstrap.core.security.SecurityHelper;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Persistable;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -71,6 +88,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SubscriptionResource extends AbstractLockedResource<Subscription, Integer> {
 
+	/**
+	 * Maximal amount of subscriptions fetched per query.
+	 */
+	public static final int PAGE_SIZE = 1000;
+
 	@Autowired
 	private SubscriptionRepository repository;
 
@@ -95,6 +117,35 @@ public class SubscriptionResource extends AbstractLockedResource<Subscription, I
 	@Autowired
 	private NodeResource nodeResource;
 
+	@Autowired
+	private ParameterRepository parameterRepository;
+
+	@Autowired
+	private PluginExecutor pluginExecutor;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	protected SubscriptionResource self;
+
+	/**
+	 * Maximal amount of subscriptions delegated to the plug-ins at the same time during a bulk creation.
+	 */
+	@Value("${subscription.bulk.threads:4}")
+	private int bulkThreads;
+
+	/**
+	 * Maximal amount of subscriptions of a bulk creation.
+	 */
+	@Value("${subscription.bulk.max:100}")
+	private int bulkMax;
+
+	/**
+	 * Maximal amount of identifiers of a bulk delete statement.
+	 */
+	private static final int DELETE_CHUNK = 500;
+
 	/**
 	 * {@link SubscriptionEditionVo} to JPA entity transformer.
 	 *
@@ -197,12 +248,26 @@ public class SubscriptionResource extends AbstractLockedResource<Subscription, I
 		// Validate entities
 		final var project = checkVisibleProject(vo.getProject());
 		checkManagedProject(vo.getProject());
-		final var node = checkManagedNodeForSubscription(vo.getNode());
-		final var acceptedParameters = checkInputParameters(vo);
+		checkManagedNodeForSubscription(vo.getNode());
+		return create(vo, checkInputParameters(vo));
+	}
 
+	/**
+	 * Create a subscription of a validated project and node in a new transaction. The project and the node are loaded
+	 * in this transaction, so this method can be called from another thread than the validation one.
+	 *
+	 * @param vo                 the subscription, with the visible and managed project, and the node the principal
+	 *                           user can subscribe.
+	 * @param acceptedParameters The accepted parameters of the node.
+	 * @return the created {@link Subscription} identifier.
+	 * @throws Exception When the creation fails. The transaction is rolled back.
+	 */
+	@Transactional(value = TxType.REQUIRES_NEW, rollbackOn = Exception.class)
+	public int create(final SubscriptionEditionVo vo, final List<Parameter> acceptedParameters) throws Exception {
 		// Create subscription and parameters that would be removed in case of
 		// roll-back because of invalid parameters
-		final var entity = toEntity(vo, project, node);
+		final var project = projectRepository.findOneExpected(vo.getProject());
+		final var entity = toEntity(vo, project, nodeRepository.findOneExpected(vo.getNode()));
 
 		// Expose the real entity for plug-in since we have loaded it
 		entity.setProject(project);
@@ -221,6 +286,94 @@ public class SubscriptionResource extends AbstractLockedResource<Subscription, I
 		return entity.getId();
 	}
 
+	/**
+	 * Create several subscriptions. The rights on the projects and the nodes are checked once per distinct identifier,
+	 * then each subscription is created in its own transaction, and delegated to the plug-ins by the shared
+	 * {@link PluginExecutor}, with a concurrency bounded by <code>subscription.bulk.threads</code>. A failure is
+	 * isolated to its subscription. The amount of subscriptions is limited by <code>subscription.bulk.max</code>.
+	 *
+	 * @param vos The subscriptions to create.
+	 * @return The result of each subscription, in the same order.
+	 * @throws Exception When the execution of the creations is interrupted.
+	 */
+	@POST
+	@Path("bulk")
+	@Transactional(TxType.NOT_SUPPORTED)
+	public List<SubscriptionBulkResultVo> createAll(final List<SubscriptionEditionVo> vos) throws Exception {
+		if (vos.size() > bulkMax) {
+			throw new BusinessException("subscription-bulk-limit", vos.size(), bulkMax);
+		}
+		final var projects = new HashMap<Integer, Supplier<Project>>();
+		final var nodes = new HashMap<String, Supplier<Node>>();
+		final var parameters = new HashMap<String, List<Parameter>>();
+		final var results = new ArrayList<SubscriptionBulkResultVo>(vos.size());
+		final var calls = new ArrayList<Callable<Void>>(vos.size());
+		for (final var vo : vos) {
+			final var result = new SubscriptionBulkResultVo();
+			result.setIndex(results.size());
+			result.setProject(vo.getProject());
+			result.setNode(vo.getNode());
+			results.add(result);
+			try {
+				// Validate entities, only once per project and per node
+				projects.computeIfAbsent(vo.getProject(), id -> memoize(() -> {
+					final var entity = checkVisibleProject(id);
+					checkManagedProject(id);
+					return entity;
+				})).get();
+				nodes.computeIfAbsent(vo.getNode(), id -> memoize(() -> checkManagedNodeForSubscription(id))).get();
+				final var orphans = parameters.computeIfAbsent(vo.getNode() + "/" + vo.getMode(),
+						k -> parameterRepository.getOrphanParameters(vo.getNode(), vo.getMode(),
+								securityHelper.getLogin()));
+				final var acceptedParameters = checkInputParameters(vo, nodeResource.checkInputParameters(vo, orphans));
+				calls.add(() -> {
+					create(vo, acceptedParameters, result);
+					return null;
+				});
+			} catch (final RuntimeException e) {
+				fail(result, e);
+			}
+		}
+		pluginExecutor.invokeAll(calls, bulkThreads, r -> {
+			// The failures are already in the results
+		});
+		return results;
+	}
+
+	/**
+	 * Create a subscription of a bulk request and complete its result.
+	 */
+	private void create(final SubscriptionEditionVo vo, final List<Parameter> acceptedParameters,
+			final SubscriptionBulkResultVo result) {
+		try {
+			result.setId(self.create(vo, acceptedParameters));
+			log.info("Subscription of project {} to service {}", vo.getProject(), vo.getNode());
+		} catch (final Exception e) {
+			fail(result, e);
+		}
+	}
+
+	private void fail(final SubscriptionBulkResultVo result, final Exception e) {
+		log.warn("Subscription of project {} to service {} failed: {}", result.getProject(), result.getNode(),
+				e.getMessage());
+		result.setError(ObjectUtils.defaultIfNull(e.getMessage(), e.getClass().getSimpleName()));
+	}
+
+	/**
+	 * Return a supplier computing once the given check, and then returning the same result or raising the same
+	 * failure.
+	 */
+	private static <T> Supplier<T> memoize(final Supplier<T> check) {
+		try {
+			final var value = check.get();
+			return () -> value;
+		} catch (final RuntimeException e) {
+			return () -> {
+				throw e;
+			};
+		}
+	}
+
 	/**
 	 * Delegates the creation to the hierarchy of the related plug-in, and starting from the related plug-in. <br>
 	 * Exception appearing there causes to roll-back the previous persists.
@@ -244,8 +397,14 @@ public class SubscriptionResource extends AbstractLockedResource<Subscription, I
 	 * Check the parameters that are being attached to this subscription.
 	 */
 	private List<Parameter> checkInputParameters(final SubscriptionEditionVo vo) {
-		final var acceptedParameters = nodeResource.checkInputParameters(vo);
+		return checkInputParameters(vo, nodeResource.checkInputParameters(vo));
+	}
 
+	/**
+	 * Check the mandatory parameters attached to this subscription against the accepted parameters.
+	 */
+	private List<Parameter> checkInputParameters(final SubscriptionEditionVo vo,
+			final List<Parameter> acceptedParameters) {
 		// Check all mandatory parameters for the current subscription mode
 		vo.setParameters(ObjectUtils.defaultIfNull(vo.getParameters(), new ArrayList<>()));
 		checkMandatoryParameters(vo.getParameters(), acceptedParameters, vo.getMode());
@@ -335,6 +494,31 @@ public class SubscriptionResource extends AbstractLockedResource<Subscription, I
 		repository.delete(entity);
 	}
 
+	/**
+	 * Delete the given subscriptions and their cascaded associations: tasks, plug-in data, events and parameter values.
+	 * The visibility of the subscriptions is not checked, only the management of their projects. The database rows are
+	 * deleted by chunks of identifiers. Note that remote data are not deleted.
+	 *
+	 * @param subscriptions The subscriptions to delete.
+	 * @throws Exception When a plug-in deletion fails.
+	 */
+	public void deleteAll(final List<Subscription> subscriptions) throws Exception {
+		subscriptions.stream().map(s -> s.getProject().getId()).distinct().forEach(this::checkManagedProject);
+
+		// Delegate the deletion
+		for (final var subscription : subscriptions) {
+			deleteWithTasks(subscription.getNode().getId(), subscription.getId(), false);
+		}
+
+		// Delete the associations and the subscriptions by chunk
+		final var ids = subscriptions.stream().map(Subscription::getId).toList();
+		for (final var chunk : ListUtils.partition(ids, DELETE_CHUNK)) {
+			eventRepository.deleteBySubscriptions(chunk);
+			parameterValueResource.deleteBySubscriptions(chunk);
+			repository.deleteAll(chunk);
+		}
+	}
+
 	@Override
 	protected void delete(final ServicePlugin plugin, final Integer id, final boolean deleteRemoteData)
 			throws Exception {
@@ -384,77 +568,132 @@ public class SubscriptionResource extends AbstractLockedResource<Subscription, I
 	 *
 	 * @return Status of each subscription of each project and each node.
 	 */
-	@GET
 	@org.springframework.transaction.annotation.Transactional(readOnly = true)
 	public SubscriptionListVo findAll() {
 		final var result = new SubscriptionListVo();
+		final var subscriptions = new ArrayList<SubscriptionLightVo>();
+		final var collector = new SubscriptionCollector(nodeResource.findAll());
+		forEachVisible(securityHelper.getLogin(), "", rs -> subscriptions.add(collector.add(rs)));
+		result.setSubscriptions(subscriptions);
+		result.setProjects(collector.projects.values());
+		result.setNodes(collector.nodes.values());
+		return result;
+	}
 
-		// First, list visible projects having at least one subscription
-		final var projects = projectRepository.findAllHavingSubscription(securityHelper.getLogin());
-
-		// Fill the projects
-		final var projectsMap = toProjects(projects);
-		result.setProjects(projectsMap.values());
-
-		/*
-		 * List visible projects having at least one subscription, return involved subscriptions relating these
-		 * projects. SQL "IN" is not used, because of size limitations. Structure : id, project.id, service.id
-		 */
-		result.setSubscriptions(toSubscriptions(repository.findAllLight(), projectsMap));
+	/**
+	 * Return all visible subscriptions and related projects and nodes as a streamed JSON object with the same
+	 * structure as {@link SubscriptionListVo}. The subscriptions are fetched by pages and written as they come, the
+	 * related projects and nodes are written at the end.
+	 *
+	 * @param criteria The optional criteria to match: project name, project pkey or node identifier.
+	 * @return The streamed {@link SubscriptionListVo}.
+	 */
+	@GET
+	public StreamingOutput findAll(@QueryParam("q") final String criteria) {
+		final var user = securityHelper.getLogin();
+		final var filter = StringUtils.trimToEmpty(criteria);
+		final var collector = new SubscriptionCollector(nodeResource.findAll());
+		return out -> {
+			try (var generator = objectMapper.getFactory().createGenerator(out)) {
+				generator.writeStartObject();
+				generator.writeArrayFieldStart("subscriptions");
+				forEachVisible(user, filter, rs -> {
+					try {
+						generator.writeObject(collector.add(rs));
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				generator.writeEndArray();
+				generator.writeObjectField("projects", collector.projects.values());
+				generator.writeObjectField("nodes", collector.nodes.values());
+				generator.writeEndObject();
+			}
+		};
+	}
 
-		/*
-		 * Then, fetch all nodes. SQL "IN" is not used, because of size limitations. They will be filtered against
-		 * subscriptions associated to a visible project.
-		 */
-		result.setNodes(toNodes(nodeResource.findAll(), result.getSubscriptions()).values());
+	/**
+	 * Return a page of the visible subscriptions and related projects and nodes. The pagination uses the position of
+	 * the previous page, so the cost of a page does not depend on its position.
+	 *
+	 * @param criteria The optional criteria to match: project name, project pkey or node identifier.
+	 * @param after    The optional identifier of the last subscription of the previous page, see
+	 *                 {@link SubscriptionPageVo#getNext()}.
+	 * @param size     The page size, at most {@value #PAGE_SIZE}.
+	 * @return A page of subscriptions ordered by project name and then by identifier.
+	 */
+	@GET
+	@Path("page")
+	@org.springframework.transaction.annotation.Transactional(readOnly = true)
+	public SubscriptionPageVo findAll(@QueryParam("q") final String criteria, @QueryParam("after") final Integer after,
+			@QueryParam("size") @DefaultValue("100") final int size) {
+		final var limit = Math.max(1, Math.min(size, PAGE_SIZE));
+		final var result = new SubscriptionPageVo();
+		final var subscriptions = new ArrayList<SubscriptionLightVo>();
+		final var collector = new SubscriptionCollector(nodeResource.findAll());
+		final var rows = repository.findAllVisible(securityHelper.getLogin(), StringUtils.trimToEmpty(criteria),
+				Optional.ofNullable(after).map(repository::findProjectName).orElse(""),
+				Optional.ofNullable(after).orElse(0), PageRequest.of(0, limit));
+		rows.forEach(rs -> subscriptions.add(collector.add(rs)));
+		result.setSubscriptions(subscriptions);
+		result.setProjects(collector.projects.values());
+		result.setNodes(collector.nodes.values());
+		if (rows.size() == limit) {
+			// There may be more subscriptions
+			result.setNext(subscriptions.get(limit - 1).getId());
+		}
 		return result;
 	}
 
 	/**
-	 * Extract the distinct nodes from the subscriptions.
+	 * Consume the visible subscriptions by pages of {@value #PAGE_SIZE} subscriptions.
 	 */
-	private Map<String, SubscribedNodeVo> toNodes(final Map<String, NodeVo> nodes,
-			final Collection<SubscriptionLightVo> subscriptions) {
-		final var filteredNodes = new TreeMap<String, SubscribedNodeVo>();
-		// Add the related node of each subscription
-		subscriptions.stream().map(SubscriptionLightVo::getNode).map(nodes::get)
-				.forEach(n -> addNodeAsNeeded(filteredNodes, nodes, n));
-		return filteredNodes;
+	private void forEachVisible(final String user, final String criteria, final Consumer<Object[]> consumer) {
+		var name = "";
+		var id = 0;
+		List<Object[]> rows;
+		do {
+			rows = repository.findAllVisible(user, criteria, name, id, PageRequest.of(0, PAGE_SIZE));
+			rows.forEach(consumer);
+			if (!rows.isEmpty()) {
+				// Move the position after the last subscription
+				final var last = rows.get(rows.size() - 1);
+				id = (Integer) last[0];
+				name = (String) last[5];
+			}
+		} while (rows.size() == PAGE_SIZE);
 	}
 
 	/**
-	 * Convert the subscriptions result set to {@link SubscriptionLightVo}
+	 * Collect the distinct projects and nodes related to the visited subscriptions.
 	 */
-	private Collection<SubscriptionLightVo> toSubscriptions(final List<Object[]> subscriptions,
-			final Map<Integer, SubscribingProjectVo> projects) {
-		// Prepare the subscriptions container with project name ordering
-		return subscriptions.stream().filter(rs -> projects.containsKey(rs[1])).map(rs -> {
-			// Build the subscription data
+	private class SubscriptionCollector {
+		private final Map<String, NodeVo> allNodes;
+		private final Map<Integer, SubscribingProjectVo> projects = new LinkedHashMap<>();
+		private final Map<String, SubscribedNodeVo> nodes = new TreeMap<>();
+
+		private SubscriptionCollector(final Map<String, NodeVo> allNodes) {
+			this.allNodes = allNodes;
+		}
+
+		/**
+		 * Convert a subscription row to {@link SubscriptionLightVo} and collect the related project and nodes.
+		 */
+		private SubscriptionLightVo add(final Object[] rs) {
 			final var vo = new SubscriptionLightVo();
 			vo.setId((Integer) rs[0]);
 			vo.setProject((Integer) rs[1]);
 			vo.setNode((String) rs[2]);
+			projects.computeIfAbsent(vo.getProject(), id -> {
+				final var project = new SubscribingProjectVo();
+				project.setId(id);
+				project.setName((String) rs[3]);
+				project.setPkey((String) rs[4]);
+				return project;
+			});
+			addNodeAsNeeded(nodes, allNodes, allNodes.get(vo.getNode()));
 			return vo;
-		}).collect(
-				() -> new TreeSet<>((o1, o2) -> (projects.get(o1.getProject()).getName() + "," + o1.getId())
-						.compareToIgnoreCase(projects.get(o2.getProject()).getName() + "," + o2.getId())),
-				TreeSet::add, TreeSet::addAll);
-	}
-
-	/**
-	 * Convert the project result set to {@link SubscribingProjectVo}
-	 */
-	private Map<Integer, SubscribingProjectVo> toProjects(final List<Object[]> projects) {
-		return projects.stream().map(rs -> {
-			// Build the project
-			final var project = new SubscribingProjectVo();
-			project.setId((Integer) rs[0]);
-			project.setName((String) rs[1]);
-			project.setPkey((String) rs[2]);
-
-			// Also save it for indexed search
-			return project;
-		}).collect(Collectors.toMap(SubscribingProjectVo::getId, Function.identity()));
+		}
 	}
 
 	/**
@@ -0,0 +1,104 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ligoj.app.resource.delegate.DelegateOrgResource;
+import org.ligoj.app.resource.node.NodeResource;
+import org.ligoj.app.resource.project.ProjectResource;
+import org.ligoj.app.resource.subscription.SubscriptionResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Test class of {@link DatasetGenerator} and {@link LoadHarness} against the plug-in core schema and resources. Not
+ * transactional, the data set is committed and then cleaned.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = "classpath:/META-INF/spring/application-context-test.xml")
+class DatasetGeneratorTest extends AbstractAppTest {
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private ProjectResource projectResource;
+
+	@Autowired
+	private NodeResource nodeResource;
+
+	@Autowired
+	private SubscriptionResource subscriptionResource;
+
+	@Autowired
+	private DelegateOrgResource delegateOrgResource;
+
+	private final DatasetGenerator generator = new DatasetGenerator();
+
+	@BeforeEach
+	void generate() throws SQLException {
+		generator.setEvents(5000);
+		final var counts = generator.generate(dataSource);
+		Assertions.assertEquals(5 + 5 * 4 + 5 * 4 * 3, counts.get("node"));
+		Assertions.assertEquals(100, counts.get("project"));
+		Assertions.assertEquals(1000, counts.get("subscription"));
+		Assertions.assertEquals(1000, counts.get("cache_user"));
+		Assertions.assertEquals(49 + 1000 * 2, counts.get("cache_membership"));
+		Assertions.assertEquals(5000, counts.get("event"));
+		clearAllCache();
+	}
+
+	@AfterEach
+	void clean() throws SQLException {
+		generator.clean(dataSource);
+		clearAllCache();
+	}
+
+	@Test
+	void generateAndClean() throws SQLException {
+		Assertions.assertEquals(1000L, em.createQuery("SELECT COUNT(id) FROM Subscription WHERE id >= 1000000")
+				.getSingleResult());
+		Assertions.assertEquals(10L, em.createQuery("SELECT COUNT(id) FROM CacheUser WHERE id LIKE 'load-user-1_'")
+				.getSingleResult());
+		Assertions.assertEquals("load-group-0", em
+				.createQuery("SELECT group.id FROM CacheMembership WHERE subGroup.id = 'load-group-1'", String.class)
+				.getSingleResult());
+		Assertions.assertEquals("ou=load-company-1,ou=load-company-0,ou=people,dc=sample,dc=com",
+				em.createQuery("SELECT description FROM CacheCompany WHERE id = 'load-company-1'", String.class)
+						.getSingleResult());
+		generator.clean(dataSource);
+		Assertions.assertEquals(0L, em.createQuery("SELECT COUNT(id) FROM Event WHERE id >= 1000000")
+				.getSingleResult());
+		Assertions.assertEquals(0L, em.createQuery("SELECT COUNT(id) FROM Node WHERE id LIKE 'service:load%'")
+				.getSingleResult());
+	}
+
+	@Test
+	void load() throws InterruptedException {
+		final var harness = new LoadHarness();
+		harness.setThreads(4);
+		harness.setIterations(5);
+		harness.setWarmup(1);
+		harness.setInitializer(() -> initSpringSecurityContext(DEFAULT_USER));
+		harness.add("project.findAll", () -> projectResource.findAll(newUriInfo(), null))
+				.add("node.findAll", () -> nodeResource.findAll())
+				.add("subscription.findAll", () -> subscriptionResource.findAll())
+				.add("delegateOrg.findAll", () -> delegateOrgResource.findAll(newUriInfo(), null));
+		final var reports = harness.run();
+		Assertions.assertEquals(4, reports.size());
+		reports.values().forEach(r -> {
+			Assertions.assertEquals(20, r.getCalls(), r.getName());
+			Assertions.assertEquals(0, r.getErrors(), r.getName());
+		});
+	}
+}
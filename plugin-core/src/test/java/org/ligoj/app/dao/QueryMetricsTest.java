@@ -0,0 +1,100 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ligoj.app.AbstractAppTest;
+import org.ligoj.app.model.DelegateNode;
+import org.ligoj.app.model.Node;
+import org.ligoj.app.model.Parameter;
+import org.ligoj.app.model.ParameterValue;
+import org.ligoj.app.model.Project;
+import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.QueryMetricsResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Test class of {@link QueryMetrics} and {@link QueryMetricsResource}
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = "classpath:/META-INF/spring/application-context-test.xml")
+@Rollback
+@Transactional
+class QueryMetricsTest extends AbstractAppTest {
+
+	@Autowired
+	private QueryMetrics metrics;
+
+	@Autowired
+	private QueryMetricsResource resource;
+
+	@Autowired
+	private NodeRepository nodeRepository;
+
+	@BeforeEach
+	void prepareData() throws IOException {
+		persistEntities("csv",
+				new Class[] { Node.class, Parameter.class, Project.class, Subscription.class, ParameterValue.class,
+						DelegateNode.class },
+				StandardCharsets.UTF_8);
+		metrics.setSlow(500);
+		resource.reset();
+	}
+
+	@Test
+	void findAll() {
+		final var nodes = nodeRepository.findAll();
+		nodeRepository.findAll();
+		Assertions.assertNull(nodeRepository.findOne("any"));
+
+		final var result = resource.findAll(10);
+		final var findAll = result.stream().filter(m -> m.getName().equals("NodeRepository.findAll")).findFirst()
+				.get();
+		Assertions.assertEquals(2, findAll.getCalls());
+		Assertions.assertEquals(0, findAll.getErrors());
+		Assertions.assertEquals(nodes.size() * 2L, findAll.getCounters().get("rows"));
+		Assertions.assertTrue(findAll.getCounters().get("statements") >= 2);
+		Assertions.assertEquals(2, Arrays.stream(findAll.getHistogram()).sum());
+		Assertions.assertEquals(QueryMetrics.BUCKETS.length + 1, findAll.getHistogram().length);
+		final var findOne = result.stream().filter(m -> m.getName().equals("NodeRepository.findOne")).findFirst()
+				.get();
+		Assertions.assertEquals(0L, findOne.getCounters().get("rows"));
+		Assertions.assertTrue(resource.findAllSamples().isEmpty());
+		Assertions.assertEquals(1, resource.findAll(1).size());
+	}
+
+	@Test
+	void samples() {
+		metrics.setSlow(0);
+		nodeRepository.findAllIdentifiers("service:bt");
+		final var samples = resource.findAllSamples();
+		Assertions.assertEquals(1, samples.size());
+		final var sample = samples.get(0);
+		Assertions.assertEquals("NodeRepository.findAllIdentifiers", sample.getQuery());
+		Assertions.assertFalse(sample.isFailed());
+		Assertions.assertEquals(List.of("String"), sample.getParameters());
+		Assertions.assertEquals(1, sample.getStatements().size());
+		Assertions.assertFalse(sample.getStatements().get(0).contains("service:bt"));
+	}
+
+	@Test
+	void redact() {
+		Assertions.assertEquals("select n1_0.id from node n1_0 where n1_0.id=? or n1_0.id like ? limit ?",
+				QueryMetrics.redact(
+						"select n1_0.id from node n1_0 where n1_0.id=? or n1_0.id like 'it''s' limit 10"));
+	}
+}
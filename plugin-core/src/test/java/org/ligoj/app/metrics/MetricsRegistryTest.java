@@ -0,0 +1,56 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link MetricsRegistry}
+ */
+class MetricsRegistryTest {
+
+	@Test
+	void getMetrics() throws InterruptedException {
+		final var registry = new MetricsRegistry(1, 5);
+		final var fast = registry.timer("fast");
+		fast.stop(fast.start(), false);
+		fast.add("rows", 2);
+		fast.add("rows", 3);
+		final var slow = registry.timer("slow");
+		final var start = slow.start();
+		Assertions.assertEquals(1, slow.toVo().getInFlight());
+		Thread.sleep(10);
+		slow.stop(start, true);
+		Assertions.assertSame(slow, registry.timer("slow"));
+
+		// The slowest first
+		final var result = registry.getMetrics();
+		Assertions.assertEquals(2, result.size());
+		final var first = result.get(0);
+		Assertions.assertEquals("slow", first.getName());
+		Assertions.assertEquals(1, first.getCalls());
+		Assertions.assertEquals(1, first.getErrors());
+		Assertions.assertEquals(0, first.getInFlight());
+		Assertions.assertTrue(first.getMaxTime() >= 10);
+		Assertions.assertEquals(first.getMaxTime(), first.getTotalTime());
+		Assertions.assertArrayEquals(new long[] { 0, 0, 1 }, first.getHistogram());
+		Assertions.assertNull(first.getCounters());
+		final var second = result.get(1);
+		Assertions.assertEquals("fast", second.getName());
+		Assertions.assertEquals(0, second.getErrors());
+		Assertions.assertEquals(1, second.getHistogram()[0]);
+		Assertions.assertEquals(5L, second.getCounters().get("rows"));
+
+		registry.reset();
+		Assertions.assertTrue(registry.getMetrics().isEmpty());
+	}
+
+	@Test
+	void noHistogram() {
+		final var timer = new MetricsRegistry().timer("any");
+		Assertions.assertNull(timer.toVo().getHistogram());
+		Assertions.assertEquals(0, timer.toVo().getMeanTime());
+	}
+}
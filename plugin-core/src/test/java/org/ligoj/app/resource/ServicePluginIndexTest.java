@@ -0,0 +1,84 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource;
+
+import java.util.LinkedHashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.api.ServicePlugin;
+import org.ligoj.app.api.ToolPlugin;
+import org.mockito.Mockito;
+
+/**
+ * Test class of {@link ServicePluginIndex}
+ */
+class ServicePluginIndexTest {
+
+	private ServicePluginIndex index;
+
+	private ServicePlugin service;
+
+	private ToolPlugin tool;
+
+	private ServicePlugin root;
+
+	@BeforeEach
+	void prepare() {
+		root = Mockito.mock(ServicePlugin.class);
+		Mockito.when(root.getKey()).thenReturn("service");
+		service = Mockito.mock(ServicePlugin.class);
+		Mockito.when(service.getKey()).thenReturn("service:bt");
+		tool = Mockito.mock(ToolPlugin.class);
+		Mockito.when(tool.getKey()).thenReturn("service:bt:jira");
+		final var duplicate = Mockito.mock(ServicePlugin.class);
+		Mockito.when(duplicate.getKey()).thenReturn("service:bt:jira");
+		final var noKey = Mockito.mock(ServicePlugin.class);
+		final var plugins = new LinkedHashMap<String, ServicePlugin>();
+		plugins.put("root", root);
+		plugins.put("service", service);
+		plugins.put("tool", tool);
+		plugins.put("duplicate", duplicate);
+		plugins.put("noKey", noKey);
+		index = new ServicePluginIndex(plugins);
+	}
+
+	@Test
+	void getName() {
+		Assertions.assertEquals("tool", index.getName("service:bt:jira"));
+		Assertions.assertEquals("tool", index.getName("service:bt:jira:6"));
+		Assertions.assertEquals("service", index.getName("service:bt:any:6"));
+		Assertions.assertEquals("service", index.getName("service:bt"));
+		Assertions.assertEquals("root", index.getName("service"));
+	}
+
+	@Test
+	void getNameNotFound() {
+		Assertions.assertNull(index.getName("service:any"));
+		Assertions.assertNull(index.getName("service:any:jira"));
+		Assertions.assertNull(index.getName("any"));
+		Assertions.assertNull(index.getName(""));
+	}
+
+	@Test
+	void get() {
+		Assertions.assertSame(tool, index.get("service:bt:jira:6", ServicePlugin.class));
+		Assertions.assertSame(tool, index.get("service:bt:jira:6", ToolPlugin.class));
+		Assertions.assertSame(service, index.get("service:bt:any", ServicePlugin.class));
+		Assertions.assertSame(root, index.get("service", ServicePlugin.class));
+	}
+
+	@Test
+	void getParentType() {
+		Assertions.assertNull(index.get("service:bt:any", ToolPlugin.class));
+		Assertions.assertNull(index.get("service:bt", ToolPlugin.class));
+		Assertions.assertNull(index.get("service", ToolPlugin.class));
+	}
+
+	@Test
+	void getPlugins() {
+		Assertions.assertEquals(4, index.getPlugins().size());
+	}
+}
@@ -69,6 +69,11 @@ class ServicePluginLocatorTest extends AbstractAppTest {
 		Assertions.assertNull(component.getResource(ConfluencePluginResource.KEY, ConfigurablePlugin.class));
 	}
 
+	@Test
+	void getPlugins() {
+		Assertions.assertTrue(component.getPlugins().stream().anyMatch(p -> JiraBaseResource.KEY.equals(p.getKey())));
+	}
+
 	@Test
 	void getResource() {
 		Assertions.assertEquals(JiraBaseResource.KEY, component.getResource(JiraBaseResource.KEY).getKey());
@@ -3,6 +3,9 @@
  */
 package org.ligoj.app.resource.delegate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.core.UriInfo;
@@ -19,6 +22,8 @@ import org.ligoj.app.iam.model.DelegateOrg;
 import org.ligoj.app.iam.model.DelegateType;
 import org.ligoj.app.iam.model.ReceiverType;
 import org.ligoj.app.resource.AbstractOrgTest;
+import org.ligoj.app.resource.CursorPagination;
+import org.ligoj.app.resource.CursorTableItem;
 import org.ligoj.bootstrap.MatcherUtil;
 import org.ligoj.bootstrap.core.json.datatable.DataTableAttributes;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
@@ -149,6 +154,47 @@ class DelegateOrgResourceTest extends AbstractOrgTest {
 		checkDelegateTree(result.getData().get(3));
 	}
 
+	@Test
+	void findAllBatchLookup() {
+		final var configuration = iamProvider.getConfiguration();
+		final var users = Mockito.spy(configuration.getUserRepository());
+		final var groups = Mockito.spy(configuration.getGroupRepository());
+		configuration.setUserRepository(users);
+		configuration.setGroupRepository(groups);
+		final var uriInfo = newFindAllParameters();
+		uriInfo.getQueryParameters().putSingle("length", "100");
+
+		final var result = resource.findAll(uriInfo, null);
+		Assertions.assertEquals(23, result.getData().size());
+		checkDelegateGroup2(result.getData().get(11));
+
+		// Users and groups of the page are resolved once
+		Mockito.verify(users).findAllById(Mockito.any());
+		Mockito.verify(users, Mockito.never()).findById(Mockito.anyString());
+		Mockito.verify(groups).findAllById(Mockito.any());
+		Mockito.verify(groups).findAll();
+	}
+
+	@Test
+	void findAllCursor() {
+		final var ids = new ArrayList<Integer>();
+		var cursor = "";
+		do {
+			final var uriInfo = newFindAllParameters();
+			uriInfo.getQueryParameters().putSingle("length", "5");
+			uriInfo.getQueryParameters().putSingle("columns[0][data]", "canAdmin");
+			uriInfo.getQueryParameters().putSingle("order[0][dir]", "desc");
+			uriInfo.getQueryParameters().putSingle(CursorPagination.CURSOR, cursor);
+			uriInfo.getQueryParameters().putSingle(CursorPagination.COUNT, String.valueOf(ids.isEmpty()));
+			final var result = (CursorTableItem<DelegateOrgLightVo>) resource.findAll(uriInfo, null);
+			Assertions.assertEquals(ids.isEmpty() ? 23 : -1, result.getRecordsTotal());
+			result.getData().forEach(d -> ids.add(d.getId()));
+			cursor = result.getNext();
+		} while (cursor != null);
+		Assertions.assertEquals(23, ids.size());
+		Assertions.assertEquals(23, new HashSet<>(ids).size());
+	}
+
 	/**
 	 * A delegate visible by user "alongchu". This delegate add visibility of company "ing" for all mambers of
 	 * "ligoj-gstack". And user "alongchu" is member of group "ligoj-gstack".
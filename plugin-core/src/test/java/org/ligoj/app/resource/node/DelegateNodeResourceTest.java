@@ -23,6 +23,8 @@ import org.ligoj.app.model.Parameter;
 import org.ligoj.app.model.ParameterValue;
 import org.ligoj.app.model.Project;
 import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.CursorPagination;
+import org.ligoj.app.resource.CursorTableItem;
 import org.ligoj.bootstrap.AbstractJpaTest;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -268,4 +270,26 @@ class DelegateNodeResourceTest extends AbstractJpaTest {
 		Assertions.assertTrue(delegateNode.isCanSubscribe());
 	}
 
+	@Test
+	void findAllCursor() {
+		final var uriInfo = Mockito.mock(UriInfo.class);
+		Mockito.when(uriInfo.getQueryParameters()).thenReturn(new MetadataMap<>());
+		uriInfo.getQueryParameters().add("length", "2");
+		uriInfo.getQueryParameters().add("columns[0][data]", "receiver");
+		uriInfo.getQueryParameters().add("order[0][column]", "0");
+		uriInfo.getQueryParameters().add("order[0][dir]", "desc");
+		uriInfo.getQueryParameters().add(CursorPagination.CURSOR, "");
+		uriInfo.getQueryParameters().add(CursorPagination.COUNT, "true");
+		final var page1 = (CursorTableItem<DelegateNode>) resource.findAll(uriInfo, " ");
+		Assertions.assertEquals(2, page1.getData().size());
+		Assertions.assertEquals(3, page1.getRecordsTotal());
+		Assertions.assertEquals("junit", page1.getData().get(1).getReceiver());
+		Assertions.assertNotNull(page1.getNext());
+
+		uriInfo.getQueryParameters().putSingle(CursorPagination.CURSOR, page1.getNext());
+		final var page2 = (CursorTableItem<DelegateNode>) resource.findAll(uriInfo, " ");
+		Assertions.assertEquals(1, page2.getData().size());
+		Assertions.assertNull(page2.getNext());
+	}
+
 }
@@ -0,0 +1,69 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.node;
+
+import jakarta.ws.rs.ServiceUnavailableException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ligoj.app.AbstractAppTest;
+import org.ligoj.app.resource.node.sample.JiraBaseResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * {@link NodeCacheWarmup} test cases.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = "classpath:/META-INF/spring/application-context-test.xml")
+class NodeCacheWarmupTest extends AbstractAppTest {
+
+	@Autowired
+	private NodeCacheWarmup warmup;
+
+	@Autowired
+	private NodeResource resource;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@BeforeEach
+	@AfterEach
+	void cleanNodeCache() {
+		super.clearAllCache();
+	}
+
+	@Test
+	void disabled() {
+		// Disabled by default, ready as soon as the context is refreshed
+		final var status = resource.getCacheWarmup();
+		Assertions.assertTrue(status.isReady());
+		Assertions.assertFalse(status.isEnabled());
+	}
+
+	@Test
+	void warmup() {
+		warmup.warmup();
+		final var status = resource.getCacheWarmup();
+		Assertions.assertTrue(status.isReady());
+		Assertions.assertNotNull(status.getDuration());
+		Assertions.assertNotNull(cacheManager.getCache("services").get(JiraBaseResource.KEY));
+		Assertions.assertNotNull(cacheManager.getCache("node-enablement").get(JiraBaseResource.KEY));
+	}
+
+	@Test
+	void notReady() {
+		warmup.getStatus().setReady(false);
+		try {
+			Assertions.assertThrows(ServiceUnavailableException.class, resource::getCacheWarmup);
+		} finally {
+			warmup.getStatus().setReady(true);
+		}
+	}
+}
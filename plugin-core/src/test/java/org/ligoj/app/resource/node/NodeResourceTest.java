@@ -5,6 +5,7 @@ package org.ligoj.app.resource.node;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -19,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.ligoj.app.AbstractAppTest;
 import org.ligoj.app.api.NodeStatus;
+import org.ligoj.app.api.NodeVo;
 import org.ligoj.app.api.SubscriptionMode;
 import org.ligoj.app.api.SubscriptionStatusWithData;
 import org.ligoj.app.api.ToolPlugin;
@@ -36,6 +38,8 @@ import org.ligoj.app.model.Parameter;
 import org.ligoj.app.model.ParameterValue;
 import org.ligoj.app.model.Project;
 import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.CursorPagination;
+import org.ligoj.app.resource.CursorTableItem;
 import org.ligoj.app.resource.ServicePluginLocator;
 import org.ligoj.app.resource.node.sample.BugTrackerResource;
 import org.ligoj.app.resource.node.sample.BuildResource;
@@ -47,6 +51,7 @@ import org.ligoj.app.resource.node.sample.KmResource;
 import org.ligoj.app.resource.node.sample.KpiResource;
 import org.ligoj.app.resource.node.sample.LdapPluginResource;
 import org.ligoj.app.resource.node.sample.SonarPluginResource;
+import org.ligoj.bootstrap.MatcherUtil;
 import org.ligoj.bootstrap.core.resource.BusinessException;
 import org.ligoj.bootstrap.core.resource.TechnicalException;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
@@ -832,6 +837,18 @@ class NodeResourceTest extends AbstractAppTest {
 		Assertions.assertNull(service.getUiClasses());
 	}
 
+	@Test
+	void getCacheStatistics() {
+		resource.findAll();
+		resource.findAll();
+		final var statistics = resource.getCacheStatistics();
+		Assertions.assertEquals(NodeCache.CACHES.size(), statistics.size());
+		final var nodes = statistics.stream().filter(s -> s.getId().equals("nodes")).findFirst().orElseThrow();
+		Assertions.assertEquals(1, nodes.getSize());
+		Assertions.assertTrue(nodes.getHits() >= 1);
+		Assertions.assertTrue(nodes.getMisses() >= 1);
+	}
+
 	@Test
 	void findAllByDepth() {
 		final var newUriInfo = newUriInfo();
@@ -847,6 +864,37 @@ class NodeResourceTest extends AbstractAppTest {
 		Assertions.assertEquals(33, resource.findAll(newUriInfo, null, null, null, 2).getData().size());
 	}
 
+	@Test
+	void findAllCursor() {
+		final var uriInfoAll = newUriInfo();
+		uriInfoAll.getQueryParameters().putSingle("length", "100");
+		final var all = resource.findAll(uriInfoAll, null, null, null, 2).getData().stream().map(NodeVo::getId)
+				.sorted().toList();
+		final var ids = new ArrayList<String>();
+		var cursor = "";
+		do {
+			final var uriInfo = newUriInfo();
+			uriInfo.getQueryParameters().putSingle("length", "7");
+			uriInfo.getQueryParameters().putSingle(CursorPagination.CURSOR, cursor);
+			final var result = (CursorTableItem<NodeVo>) resource.findAll(uriInfo, null, null, null, 2);
+			Assertions.assertEquals(-1, result.getRecordsTotal());
+			result.getData().forEach(n -> ids.add(n.getId()));
+			cursor = result.getNext();
+		} while (cursor != null);
+
+		// Same nodes, ordered by identifier
+		Assertions.assertEquals(33, ids.size());
+		Assertions.assertEquals(all, ids);
+	}
+
+	@Test
+	void findAllCursorInvalid() {
+		final var uriInfo = newUriInfo();
+		uriInfo.getQueryParameters().putSingle(CursorPagination.CURSOR, "invalid");
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class,
+				() -> resource.findAll(uriInfo, null, null, null, 2)), CursorPagination.CURSOR, "invalid-cursor");
+	}
+
 	@Test
 	void findAllByParentFilterModeCreate() {
 		final var resources = resource.findAll(newUriInfo(), null, LdapPluginResource.KEY, SubscriptionMode.CREATE, -1)
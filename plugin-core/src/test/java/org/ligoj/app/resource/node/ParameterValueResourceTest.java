@@ -62,6 +62,7 @@ class ParameterValueResourceTest extends AbstractAppTest {
 				new Class[] { Node.class, Parameter.class, Project.class, Subscription.class, ParameterValue.class },
 				StandardCharsets.UTF_8.name());
 		persistSystemEntities();
+		clearAllCache();
 
 		// For JPA coverage
 		//noinspection ResultOfMethodCallIgnored
@@ -583,6 +584,48 @@ class ParameterValueResourceTest extends AbstractAppTest {
 		Assertions.assertEquals("ligoj-bootstrap", parameters.get("service:build:jenkins:job"));
 	}
 
+	@Test
+	void getNodeChain() {
+		Assertions.assertEquals(List.of("service:bt:jira:6", "service:bt:jira", "service:bt"),
+				ParameterValueResource.getNodeChain("service:bt:jira:6"));
+		Assertions.assertEquals(List.of("service:bt"), ParameterValueResource.getNodeChain("service:bt"));
+	}
+
+	private void persistValue(final String node, final String parameter, final String data) {
+		final var value = newParameterValue(data, em.find(Parameter.class, parameter));
+		value.setNode(em.find(Node.class, node));
+		em.persist(value);
+	}
+
+	@Test
+	void getNodeParametersInherited() {
+		persistValue("service:bt", "c_2", "service-value");
+		persistValue("service:bt:jira", "c_2", "tool-value");
+		persistValue("service:bt:jira", "service:bt:jira:url", "http://tool");
+		persistValue("service:bt", "c_3", "1");
+		em.flush();
+		em.clear();
+
+		// Instance > tool > service
+		final var parameters = resource.getNodeParameters("service:bt:jira:6");
+		Assertions.assertEquals("tool-value", parameters.get("c_2"));
+		Assertions.assertEquals("1", parameters.get("c_3"));
+		Assertions.assertEquals("http://localhost:8120", parameters.get("service:bt:jira:url"));
+		Assertions.assertEquals("http://tool", resource.getNodeParameters("service:bt:jira").get("service:bt:jira:url"));
+		Assertions.assertEquals("service-value", resource.getNodeParameters("service:bt").get("c_2"));
+
+		// Subscription > instance
+		final var subscription = resource.getSubscriptionParameters(getSubscription("MDA"));
+		Assertions.assertEquals("tool-value", subscription.get("c_2"));
+		Assertions.assertEquals("MDA", subscription.get("service:bt:jira:pkey"));
+		Assertions.assertEquals("tool-value", resource.getNonSecuredSubscriptionParameters(getSubscription("MDA")).get("c_2"));
+	}
+
+	@Test
+	void getSubscriptionParametersNotExists() {
+		Assertions.assertTrue(resource.getSubscriptionParameters(-1).isEmpty());
+	}
+
 	@Test
 	void deleteBySubscription() {
 		final var subscription = getSubscription("MDA");
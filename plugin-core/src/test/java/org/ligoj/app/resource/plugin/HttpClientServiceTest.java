@@ -0,0 +1,90 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.AbstractServerTest;
+import org.ligoj.bootstrap.core.curl.CurlRequest;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+
+/**
+ * Test class of {@link HttpClientService}. No Spring involved.
+ */
+class HttpClientServiceTest extends AbstractServerTest {
+
+	private static final String SERVER = "http://localhost:" + MOCK_PORT;
+
+	private HttpClientService resource;
+
+	@BeforeEach
+	void prepareResource() {
+		resource = new HttpClientService();
+		resource.initialize();
+	}
+
+	@AfterEach
+	void closeClient() {
+		resource.close();
+	}
+
+	@Test
+	void get() {
+		httpServer.stubFor(WireMock.get(WireMock.urlPathEqualTo("/ok")).withHeader("Accept", WireMock.equalTo("text/plain"))
+				.willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_OK).withBody("ok")));
+		httpServer.start();
+		Assertions.assertEquals("ok", resource.get(SERVER + "/ok", "Accept:text/plain"));
+		Assertions.assertEquals("ok", resource.get(SERVER + "/ok", "Accept:text/plain"));
+
+		// The connection is reused
+		Assertions.assertEquals(1, resource.getPoolStats().getAvailable());
+		Assertions.assertEquals(0, resource.getPoolStats().getLeased());
+		final var metrics = resource.getMetrics().get(SERVER);
+		Assertions.assertEquals(SERVER, metrics.getName());
+		Assertions.assertEquals(2, metrics.getCalls());
+		Assertions.assertEquals(0, metrics.getErrors());
+		Assertions.assertTrue(metrics.getTotalTime() >= metrics.getMaxTime());
+	}
+
+	@Test
+	void getNotFound() {
+		httpServer.stubFor(WireMock.get(WireMock.urlPathEqualTo("/any"))
+				.willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_NOT_FOUND)));
+		httpServer.start();
+		Assertions.assertNull(resource.get(SERVER + "/any"));
+		Assertions.assertEquals(1, resource.getMetrics().get(SERVER).getErrors());
+	}
+
+	@Test
+	void getInvalidUrl() {
+		Assertions.assertNull(resource.get("any:some"));
+		Assertions.assertEquals(1, resource.getMetrics().get("unknown").getErrors());
+	}
+
+	@Test
+	void processContent() {
+		httpServer.stubFor(WireMock.post(WireMock.urlPathEqualTo("/post")).withRequestBody(WireMock.equalTo("body"))
+				.willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_CREATED).withBody("created")));
+		httpServer.start();
+		final var request = new CurlRequest("POST", SERVER + "/post", "body");
+		request.setSaveResponse(true);
+		Assertions.assertTrue(resource.process(request, null));
+		Assertions.assertEquals(HttpStatus.SC_CREATED, request.getStatus());
+		Assertions.assertEquals("created", request.getResponse());
+	}
+
+	@Test
+	void processTimeout() {
+		httpServer.stubFor(WireMock.get(WireMock.urlPathEqualTo("/slow"))
+				.willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_OK).withFixedDelay(2000)));
+		httpServer.start();
+		final var request = new CurlRequest("GET", SERVER + "/slow", null);
+		request.setTimeout(200);
+		Assertions.assertFalse(resource.process(request, (r, response) -> true));
+	}
+}
@@ -7,8 +7,11 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -64,6 +67,52 @@ class LigojPluginsClassLoaderTest {
 		}
 	}
 
+	@Test
+	void toPathCached() throws IOException, NoSuchAlgorithmException {
+		final var nodeDir = new File(USER_HOME_DIRECTORY, ".ligoj/service-id/ldap/server1");
+		FileUtils.deleteQuietly(new File(USER_HOME_DIRECTORY, ".ligoj/service-id"));
+		try {
+			System.setProperty("ligoj.home", USER_HOME_DIRECTORY + "/.ligoj");
+			try (var classLoader = checkClassLoader()) {
+				final var node = newSubscription().getNode();
+				final var path = classLoader.toPath(node);
+				Assertions.assertTrue(nodeDir.exists());
+
+				// Cached, the directory is not created again
+				FileUtils.deleteQuietly(nodeDir);
+				Assertions.assertSame(path, classLoader.toPath(node));
+				Assertions.assertFalse(nodeDir.exists());
+
+				// Evicted by the parent node
+				classLoader.evictPath("service:id:ldap");
+				Assertions.assertEquals(path, classLoader.toPath(node));
+				Assertions.assertTrue(nodeDir.exists());
+			}
+		} finally {
+			System.clearProperty("ligoj.home");
+		}
+	}
+
+	@Test
+	void newChannelAndMap() throws IOException, NoSuchAlgorithmException {
+		FileUtils.deleteQuietly(new File(USER_HOME_DIRECTORY, ".ligoj/service-id"));
+		try {
+			System.setProperty("ligoj.home", USER_HOME_DIRECTORY + "/.ligoj");
+			try (var classLoader = checkClassLoader()) {
+				final var subscription = newSubscription();
+				try (var channel = classLoader.newChannel(subscription,
+						Set.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE), "foo", "data.bin")) {
+					channel.write(ByteBuffer.wrap("DATA".getBytes(StandardCharsets.UTF_8)));
+				}
+				final var buffer = classLoader.map(subscription, "foo", "data.bin");
+				Assertions.assertEquals(4, buffer.remaining());
+				Assertions.assertEquals("DATA", StandardCharsets.UTF_8.decode(buffer).toString());
+			}
+		} finally {
+			System.clearProperty("ligoj.home");
+		}
+	}
+
 	private Subscription newSubscription() {
 		var subscription = new Subscription();
 		var node = new Node();
@@ -0,0 +1,316 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ligoj.app.AbstractAppTest;
+import org.ligoj.app.dao.TaskSampleNodeRepository;
+import org.ligoj.app.model.TaskSampleNode;
+import org.ligoj.app.resource.node.LongTaskRunnerNode;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Test class of {@link LongTaskExecutor} and {@link LongTaskHandle}
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = "classpath:/META-INF/spring/application-context-test.xml")
+class LongTaskExecutorTest extends AbstractAppTest {
+
+	@Autowired
+	private LongTaskExecutor executor;
+
+	@Autowired
+	private LongTaskCheckpoint checkpoint;
+
+	private LongTaskRunnerNode<TaskSampleNode, TaskSampleNodeRepository> runner;
+
+	/**
+	 * The task as persisted by the runner.
+	 */
+	private TaskSampleNode persisted;
+
+	@SuppressWarnings("unchecked")
+	@BeforeEach
+	void mockRunner() {
+		persisted = new TaskSampleNode();
+		runner = Mockito.mock(LongTaskRunnerNode.class);
+		Mockito.when(runner.startTask(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenAnswer(i -> {
+			i.getArgument(1, Consumer.class).accept(persisted);
+			return persisted;
+		});
+		Mockito.when(runner.nextStep(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenAnswer(i -> {
+			i.getArgument(1, Consumer.class).accept(persisted);
+			return persisted;
+		});
+		Mockito.when(runner.getTaskInternal(ArgumentMatchers.anyString())).thenReturn(persisted);
+	}
+
+	@Test
+	void submit() throws Exception {
+		final var handle = executor.submit(runner, "service:s", t -> t.setData("init"), h -> {
+			h.step(t -> t.setData(t.getData() + "-1"));
+			h.step(t -> t.setData(t.getData() + "-2"));
+		});
+		handle.future.get(5, TimeUnit.SECONDS);
+
+		// Each step is given to the runner
+		Assertions.assertEquals("init-1-2", persisted.getData());
+		Assertions.assertEquals("init-1-2", handle.read(TaskSampleNode::getData));
+		Assertions.assertEquals(2, handle.getVersion());
+		Mockito.verify(runner, Mockito.times(2)).nextStep(ArgumentMatchers.eq("service:s"), ArgumentMatchers.any());
+		Mockito.verify(runner).endTask("service:s", false);
+		Assertions.assertNull(executor.getHandle(runner, "service:s"));
+	}
+
+	@Test
+	void submitFailed() throws Exception {
+		final var handle = executor.submit(runner, "service:s", t -> t.setData("init"), h -> {
+			throw new IllegalStateException();
+		});
+		handle.future.get(5, TimeUnit.SECONDS);
+		Mockito.verify(runner).endTask("service:s", true);
+		Mockito.verify(runner, Mockito.never()).endTask("service:s", false);
+	}
+
+	@Test
+	void submitNotStarted() {
+		Mockito.when(runner.startTask(ArgumentMatchers.eq("service:s"), ArgumentMatchers.any()))
+				.thenThrow(new BusinessException("concurrent-task"));
+		Assertions.assertThrows(BusinessException.class,
+				() -> executor.submit(runner, "service:s", t -> t.setData("init"), h -> {
+					// Never called
+				}));
+
+		// The slots are released
+		final var handles = new ArrayList<LongTaskHandle<TaskSampleNode>>();
+		handles.add(executor.submit(runner, "service:s1", t -> t.setData("init"), h -> {}));
+		handles.add(executor.submit(runner, "service:s2", t -> t.setData("init"), h -> {}));
+		Assertions.assertEquals(2, handles.size());
+	}
+
+	@Test
+	void submitPluginLimit() throws Exception {
+		final var release = new CountDownLatch(1);
+		final Consumer<LongTaskHandle<TaskSampleNode>> work = h -> await(release);
+		final var handles = List.of(executor.submit(runner, "service:s1", t -> t.setData("init"), work),
+				executor.submit(runner, "service:s2", t -> t.setData("init"), work));
+		try {
+			Assertions.assertEquals("task-plugin-limit", Assertions.assertThrows(BusinessException.class,
+					() -> executor.submit(runner, "service:s3", t -> t.setData("init"), work)).getMessage());
+		} finally {
+			release.countDown();
+		}
+		for (final var handle : handles) {
+			handle.future.get(5, TimeUnit.SECONDS);
+		}
+		Mockito.verify(runner, Mockito.never()).startTask(ArgumentMatchers.eq("service:s3"), ArgumentMatchers.any());
+	}
+
+	@Test
+	void cancel() throws Exception {
+		Assertions.assertFalse(executor.cancel(runner, "service:s"));
+		final var started = new CountDownLatch(1);
+		final var handle = executor.submit(runner, "service:s", t -> t.setData("init"), h -> {
+			started.countDown();
+			while (true) {
+				h.step(t -> t.setData("step"));
+			}
+		});
+		Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(executor.cancel(runner, "service:s"));
+		Assertions.assertTrue(handle.isCancelled());
+		Assertions.assertThrows(CancellationException.class, () -> handle.future.get(5, TimeUnit.SECONDS));
+
+		// The interrupted work releases its slot without ending the task
+		final var timeout = System.currentTimeMillis() + 5000;
+		while (executor.getHandle(runner, "service:s") != null && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		Assertions.assertNull(executor.getHandle(runner, "service:s"));
+		Mockito.verify(runner, Mockito.never()).endTask(ArgumentMatchers.anyString(), ArgumentMatchers.anyBoolean());
+	}
+
+	@Test
+	void cancelRunning() throws Exception {
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var handle = executor.submit(runner, "service:s", t -> t.setData("init"), h -> {
+			started.countDown();
+
+			// Plug-in code ignoring the interruption
+			var waiting = true;
+			while (waiting) {
+				try {
+					waiting = !release.await(5, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					// Ignored
+				}
+			}
+		});
+		Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(executor.cancel(runner, "service:s"));
+
+		// The slot and the handle are kept until the work is really ended
+		Assertions.assertFalse(handle.awaitEnd(100));
+		Assertions.assertSame(handle, executor.getHandle(runner, "service:s"));
+		release.countDown();
+		Assertions.assertTrue(handle.awaitEnd(5000));
+		Assertions.assertNull(executor.getHandle(runner, "service:s"));
+	}
+
+	@Test
+	void stream() throws Exception {
+		final var release = new CountDownLatch(1);
+		final var handle = executor.submit(runner, "service:s", t -> t.setData("init"), h -> {
+			h.step(t -> t.setData("step"));
+			await(release);
+		});
+		final var out = new ByteArrayOutputStream();
+		final var stream = CompletableFuture.runAsync(() -> {
+			try {
+				executor.stream(runner, "service:s").write(out);
+			} catch (final Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(200);
+		release.countDown();
+		handle.future.get(5, TimeUnit.SECONDS);
+		stream.get(5, TimeUnit.SECONDS);
+		final var events = out.toString(StandardCharsets.UTF_8);
+		Assertions.assertTrue(events.contains("event: progress\ndata: {"));
+		Assertions.assertTrue(events.contains("\"data\":\"step\""));
+		Assertions.assertTrue(events.endsWith("\n\n"));
+		Assertions.assertTrue(events.contains("event: end\ndata: {"));
+	}
+
+	@Test
+	void streamRemote() throws Exception {
+		// Running on another member, without handle on this member
+		persisted.setData("remote");
+		final var out = new ByteArrayOutputStream();
+		final var stream = CompletableFuture.runAsync(() -> {
+			try {
+				executor.stream(runner, "service:s").write(out);
+			} catch (final Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(200);
+		Assertions.assertFalse(stream.isDone());
+		persisted.setData("done");
+		persisted.setEnd(new Date());
+		stream.get(5, TimeUnit.SECONDS);
+		final var events = out.toString(StandardCharsets.UTF_8);
+		Assertions.assertTrue(events.startsWith("event: progress\ndata: {"));
+		Assertions.assertTrue(events.contains("\"data\":\"remote\""));
+		Assertions.assertTrue(events.contains("event: end\ndata: {"));
+		Assertions.assertTrue(events.contains("\"data\":\"done\""));
+	}
+
+	@Test
+	void await() throws Exception {
+		final var handle = new LongTaskHandle<TaskSampleNode>(new TaskSampleNode(), s -> null, () -> false);
+		Assertions.assertEquals(0, handle.await(0, 10));
+		final var waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return handle.await(0, 5000);
+			} catch (final InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(100);
+		handle.step(t -> t.setData("step"));
+		Assertions.assertEquals(1, waiting.get(1, TimeUnit.SECONDS));
+		Assertions.assertFalse(handle.awaitEnd(10));
+		handle.end();
+		Assertions.assertTrue(handle.isEnded());
+		Assertions.assertTrue(handle.awaitEnd(10));
+		Assertions.assertEquals(1, handle.await(1, 5000));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void submitCheckpoint() throws Exception {
+		// The runner's policy persists every two steps
+		final var repository = Mockito.mock(TaskSampleNodeRepository.class);
+		Mockito.when(repository.saveAndFlush(ArgumentMatchers.any())).then(i -> i.getArgument(0));
+		Mockito.when(runner.getTaskRepository()).thenReturn(repository);
+		Mockito.when(runner.newTask()).thenReturn(TaskSampleNode::new);
+		Mockito.when(runner.getCheckpointSteps()).thenReturn(2);
+		Mockito.doAnswer(i -> checkpoint.step(runner, i.getArgument(0), i.getArgument(1, Consumer.class))).when(runner)
+				.nextStep(ArgumentMatchers.anyString(), ArgumentMatchers.any());
+		Mockito.when(runner.endTask("service:s", false)).thenAnswer(i -> {
+			checkpoint.flush(runner, "service:s", persisted);
+			return persisted;
+		});
+
+		final var persistedSteps = new ArrayList<String>();
+		final var handle = executor.submit(runner, "service:s", t -> t.setData("init"), h -> {
+			for (var i = 1; i <= 3; i++) {
+				final var step = i;
+				h.step(t -> t.setData(t.getData() + "-" + step));
+				persistedSteps.add(persisted.getData());
+			}
+			persistedSteps.add(h.read(TaskSampleNode::getData));
+		});
+		handle.future.get(5, TimeUnit.SECONDS);
+
+		// Persisted by the checkpoint policy only, the progress is the in-memory copy
+		Assertions.assertEquals(List.of("init", "init-1-2", "init-1-2", "init-1-2-3"), persistedSteps);
+		Mockito.verify(repository).saveAndFlush(persisted);
+
+		// The last pending step is persisted at the end
+		Assertions.assertEquals("init-1-2-3", persisted.getData());
+		Assertions.assertEquals(3, handle.getVersion());
+	}
+
+	@Test
+	void checkpointCancelled() {
+		final var handle = new LongTaskHandle<TaskSampleNode>(new TaskSampleNode(), s -> {
+			throw new BusinessException("Already finished");
+		}, () -> true);
+		Assertions.assertThrows(CancellationException.class, () -> handle.step(t -> t.setData("1")));
+		Assertions.assertTrue(handle.isCancelled());
+		Assertions.assertThrows(CancellationException.class, () -> handle.step(t -> t.setData("2")));
+	}
+
+	@Test
+	void stepFailed() {
+		final var handle = new LongTaskHandle<TaskSampleNode>(new TaskSampleNode(), s -> {
+			throw new BusinessException("invalid");
+		}, () -> false);
+		Assertions.assertEquals("invalid",
+				Assertions.assertThrows(BusinessException.class, () -> handle.step(t -> t.setData("1"))).getMessage());
+		Assertions.assertFalse(handle.isCancelled());
+		Assertions.assertEquals(0, handle.getVersion());
+	}
+
+	private void await(final CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
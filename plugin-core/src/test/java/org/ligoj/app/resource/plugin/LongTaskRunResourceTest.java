@@ -0,0 +1,109 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.util.Date;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ligoj.app.AbstractAppTest;
+import org.ligoj.app.dao.task.LongTaskRunRepository;
+import org.ligoj.app.model.LongTaskRun;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Test class of {@link LongTaskRunResource}
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = "classpath:/META-INF/spring/application-context-test.xml")
+@Rollback
+@Transactional
+class LongTaskRunResourceTest extends AbstractAppTest {
+
+	@Autowired
+	private LongTaskRunResource resource;
+
+	@Autowired
+	private LongTaskRunRepository repository;
+
+	@BeforeEach
+	void prepareData() {
+		// 10 runs of 10ms to 100ms, 2 failed
+		for (var i = 1; i <= 10; i++) {
+			repository.save(newRun("type-a", "s" + i, i * 10L, i % 5 == 0, 0));
+		}
+		repository.save(newRun("type-b", "s1", 5, false, 0));
+
+		// Too old run
+		repository.save(newRun("type-b", "s1", 1000, true, 100));
+		repository.flush();
+	}
+
+	private LongTaskRun newRun(final String type, final String locked, final long duration, final boolean failed,
+			final int days) {
+		final var run = new LongTaskRun();
+		run.setType(type);
+		run.setLocked(locked);
+		run.setAuthor(DEFAULT_USER);
+		run.setEnd(new Date(System.currentTimeMillis() - days * 24L * 3600 * 1000));
+		run.setStart(new Date(run.getEnd().getTime() - duration));
+		run.setDuration(duration);
+		run.setFailed(failed);
+		return run;
+	}
+
+	@Test
+	void getStatistics() {
+		final var statistics = resource.getStatistics(30);
+		Assertions.assertEquals(2, statistics.size());
+		final var typeA = statistics.get(0);
+		Assertions.assertEquals("type-a", typeA.getType());
+		Assertions.assertEquals(10, typeA.getRuns());
+		Assertions.assertEquals(2, typeA.getFailures());
+		Assertions.assertEquals(0.2, typeA.getFailureRate(), 0.001);
+		Assertions.assertEquals(50, typeA.getP50());
+		Assertions.assertEquals(100, typeA.getP95());
+		Assertions.assertEquals(100, typeA.getMax());
+
+		final var typeB = statistics.get(1);
+		Assertions.assertEquals("type-b", typeB.getType());
+		Assertions.assertEquals(1, typeB.getRuns());
+		Assertions.assertEquals(0, typeB.getFailureRate());
+		Assertions.assertEquals(5, typeB.getP50());
+		Assertions.assertEquals(5, typeB.getP95());
+
+		// Including the old runs
+		Assertions.assertEquals(2, resource.getStatistics(365).get(1).getRuns());
+	}
+
+	@Test
+	void getStatisticsEmpty() {
+		repository.deleteAll();
+		Assertions.assertTrue(resource.getStatistics(30).isEmpty());
+	}
+
+	@Test
+	void purge() {
+		resource.setRetention(90);
+		resource.purge();
+		Assertions.assertEquals(11, repository.count());
+		Assertions.assertEquals(1, resource.getStatistics(365).get(1).getRuns());
+	}
+
+	@Test
+	void findAll() {
+		Assertions.assertEquals(12, resource.findAll(newUriInfo(), null, null).getRecordsTotal());
+		Assertions.assertEquals(10, resource.findAll(newUriInfo(), "type-a", null).getRecordsTotal());
+		final var runs = resource.findAll(newUriInfo(), "type-b", "s1");
+		Assertions.assertEquals(2, runs.getRecordsTotal());
+		Assertions.assertEquals("s1", runs.getData().get(0).getLocked());
+	}
+}
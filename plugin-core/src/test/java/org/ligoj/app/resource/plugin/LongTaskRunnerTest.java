@@ -6,16 +6,23 @@ package org.ligoj.app.resource.plugin;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.ligoj.app.dao.TaskSampleNodeRepository;
 import org.ligoj.app.dao.TaskSampleSubscriptionRepository;
+import org.ligoj.app.dao.task.LongTaskRunRepository;
 import org.ligoj.app.model.DelegateNode;
 import org.ligoj.app.model.Event;
 import org.ligoj.app.model.Node;
@@ -31,6 +38,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Test class of {@link LongTaskRunner}
@@ -48,6 +60,12 @@ class LongTaskRunnerTest extends AbstractOrgTest {
 	protected TaskSampleSubscriptionRepository repository;
 	@Autowired
 	protected TaskSampleNodeRepository repositoryNode;
+	@Autowired
+	protected LongTaskRunRepository runRepository;
+	@Autowired
+	private LongTaskCheckpoint checkpoint;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
 
 	protected int subscription;
 
@@ -58,6 +76,18 @@ class LongTaskRunnerTest extends AbstractOrgTest {
 		this.resource = applicationContext.getAutowireCapableBeanFactory()
 				.createBean(TaskSampleSubscriptionResource.class);
 		this.resourceNode = applicationContext.getAutowireCapableBeanFactory().createBean(TaskSampleNodeResource.class);
+
+		// Persist the steps in the test transaction
+		setCheckpointTransaction(transactionManager);
+	}
+
+	@AfterEach
+	void restoreCheckpoint() {
+		checkpoint.initialize();
+	}
+
+	private void setCheckpointTransaction(final PlatformTransactionManager manager) {
+		ReflectionTestUtils.setField(checkpoint, "transaction", new TransactionTemplate(manager));
 	}
 
 	@Test
@@ -177,6 +207,22 @@ class LongTaskRunnerTest extends AbstractOrgTest {
 		Assertions.assertNotNull(task.getEnd());
 	}
 
+	@Test
+	void endTaskHistory() {
+		resource.startTask(subscription, t -> t.setData("init"));
+		resource.nextStep(subscription, t -> t.setData("step1"));
+		resource.nextStep(subscription, t -> t.setData("step2"));
+		resource.endTask(subscription, false);
+		final var runs = runRepository.findAllBy("locked", String.valueOf(subscription));
+		Assertions.assertEquals(1, runs.size());
+		final var run = runs.get(0);
+		Assertions.assertEquals(TaskSampleSubscription.class.getName(), run.getType());
+		Assertions.assertEquals(DEFAULT_USER, run.getAuthor());
+		Assertions.assertEquals(2, run.getSteps());
+		Assertions.assertFalse(run.isFailed());
+		Assertions.assertEquals(run.getEnd().getTime() - run.getStart().getTime(), run.getDuration());
+	}
+
 	@Test
 	void endTaskAlreadyFinished() {
 		repository.saveAndFlush(newTaskSample());
@@ -230,6 +276,112 @@ class LongTaskRunnerTest extends AbstractOrgTest {
 		Assertions.assertThrows(BusinessException.class, () -> resource.nextStep(subscription, null));
 	}
 
+	private TaskSampleSubscriptionResource newThrottledResource(final int steps, final long period) {
+		final var throttled = new TaskSampleSubscriptionResource() {
+
+			@Override
+			public int getCheckpointSteps() {
+				return steps;
+			}
+
+			@Override
+			public long getCheckpointPeriod() {
+				return period;
+			}
+		};
+		applicationContext.getAutowireCapableBeanFactory().autowireBean(throttled);
+		return throttled;
+	}
+
+	private String getPersistedData() {
+		em.clear();
+		return repository.findBy("locked.id", subscription).getData();
+	}
+
+	@Test
+	void nextStepThrottled() {
+		repository.saveAndFlush(newTaskSample());
+		resource = newThrottledResource(3, 0);
+		resource.startTask(subscription, t -> t.setData("init"));
+		resource.nextStep(subscription, t -> t.setData(t.getData() + "-1"));
+		final var memory = resource.nextStep(subscription, t -> t.setData(t.getData() + "-2"));
+		Assertions.assertEquals("init-1-2", memory.getData());
+		Assertions.assertEquals("init", getPersistedData());
+
+		// Third step, all pending steps are persisted once
+		resource.nextStep(subscription, t -> t.setData(t.getData() + "-3"));
+		Assertions.assertEquals("init-1-2-3", getPersistedData());
+
+		// The remaining steps are persisted at the end
+		resource.nextStep(subscription, t -> t.setData(t.getData() + "-4"));
+		Assertions.assertEquals("init-1-2-3", getPersistedData());
+		resource.endTask(subscription, false);
+		Assertions.assertEquals("init-1-2-3-4", getPersistedData());
+	}
+
+	@Test
+	void nextStepThrottledTransactions() {
+		final var transactions = new AtomicInteger();
+		setCheckpointTransaction(new PlatformTransactionManager() {
+
+			@Override
+			public TransactionStatus getTransaction(final TransactionDefinition definition) {
+				transactions.incrementAndGet();
+				return transactionManager.getTransaction(definition);
+			}
+
+			@Override
+			public void commit(final TransactionStatus status) {
+				transactionManager.commit(status);
+			}
+
+			@Override
+			public void rollback(final TransactionStatus status) {
+				transactionManager.rollback(status);
+			}
+		});
+		final var task = newTaskSample();
+		task.setEnd(null);
+		repository.saveAndFlush(task);
+		resource = newThrottledResource(5, 0);
+		for (var i = 0; i < 10; i++) {
+			resource.nextStep(subscription, t -> t.setData("step"));
+		}
+
+		// Only the checkpoints use a transaction
+		Assertions.assertEquals(2, transactions.get());
+	}
+
+	@Test
+	void nextStepThrottledPeriod() throws InterruptedException {
+		final var task = newTaskSample();
+		task.setEnd(null);
+		repository.saveAndFlush(task);
+		resource = newThrottledResource(1000, 10);
+		resource.nextStep(subscription, t -> t.setData("step1"));
+		Assertions.assertEquals("custom", getPersistedData());
+		Thread.sleep(20);
+		resource.nextStep(subscription, t -> t.setData("step2"));
+		Assertions.assertEquals("step2", getPersistedData());
+	}
+
+	@Test
+	void nextStepThrottledCancelled() {
+		final var task = newTaskSample();
+		task.setEnd(null);
+		repository.saveAndFlush(task);
+		resource = newThrottledResource(2, 0);
+		resource.nextStep(subscription, t -> t.setData("step1"));
+
+		// Cancelled from another member, detected by the next checkpoint
+		final var persisted = repository.findBy("locked.id", subscription);
+		persisted.setEnd(new Date());
+		repository.saveAndFlush(persisted);
+		Assertions.assertThrows(BusinessException.class,
+				() -> resource.nextStep(subscription, t -> t.setData("step2")));
+		Assertions.assertEquals("custom", getPersistedData());
+	}
+
 	/**
 	 * There is already a running task on this subscription.
 	 */
@@ -261,6 +413,46 @@ class LongTaskRunnerTest extends AbstractOrgTest {
 		Assertions.assertThrows(BusinessException.class, () -> resource.startTask(subscription, null));
 	}
 
+	/**
+	 * The starts of unrelated locked entities are not serialized, the starts of the same locked entity are.
+	 */
+	@Test
+	void startTaskLock() throws Exception {
+		final var lock = applicationContext.getBean(LongTaskLock.class);
+		final var holding = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var executor = Executors.newFixedThreadPool(3);
+		try {
+			final var first = executor.submit(() -> lock.execute(resource, 1, () -> {
+				holding.countDown();
+				return await(release);
+			}));
+			Assertions.assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+			// Another locked entity is not blocked
+			Assertions.assertEquals("other", executor.submit(() -> lock.execute(resource, 2, () -> "other")).get(5,
+					TimeUnit.SECONDS));
+
+			// The same locked entity waits for the release
+			final var same = executor.submit(() -> lock.execute(resource, 1, () -> "same"));
+			Assertions.assertThrows(TimeoutException.class, () -> same.get(200, TimeUnit.MILLISECONDS));
+			release.countDown();
+			Assertions.assertEquals("released", first.get(5, TimeUnit.SECONDS));
+			Assertions.assertEquals("same", same.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private String await(final CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "released";
+	}
+
 	private void assertTask(TaskSampleSubscription task) {
 		assertTask(task, "custom");
 	}
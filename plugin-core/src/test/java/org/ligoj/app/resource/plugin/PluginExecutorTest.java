@@ -0,0 +1,115 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link PluginExecutor}
+ */
+class PluginExecutorTest {
+
+	private PluginExecutor executor;
+
+	@BeforeEach
+	void initialize() {
+		executor = new PluginExecutor();
+		executor.setThreads(4);
+		executor.initialize();
+	}
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void invokeAll() throws Exception {
+		final var running = new AtomicInteger();
+		final var max = new AtomicInteger();
+		final var calls = IntStream.range(0, 10).<Callable<Integer>>mapToObj(i -> () -> {
+			max.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(10);
+			running.decrementAndGet();
+			return i;
+		}).toList();
+		final var results = new ArrayList<Integer>();
+		executor.invokeAll(calls, 2, results::add);
+		Assertions.assertEquals(10, results.size());
+		Assertions.assertTrue(max.get() <= 2);
+	}
+
+	@Test
+	void invokeAllFailure() {
+		final var calls = new ArrayList<Callable<Integer>>();
+		final var called = new AtomicInteger();
+		calls.add(() -> {
+			called.incrementAndGet();
+			throw new IllegalStateException("first");
+		});
+		IntStream.range(0, 5).forEach(i -> calls.add(called::incrementAndGet));
+		final var e = Assertions.assertThrows(IllegalStateException.class,
+				() -> executor.invokeAll(calls, 1, r -> {
+					// Nothing to do
+				}));
+		Assertions.assertEquals("first", e.getMessage());
+		Assertions.assertEquals(1, called.get());
+	}
+
+	@Test
+	void invokeAllConsumerFailure() {
+		final var results = new ArrayList<Integer>();
+		final var calls = IntStream.range(0, 5).<Callable<Integer>>mapToObj(i -> () -> i).toList();
+		Assertions.assertThrows(CancellationException.class, () -> executor.invokeAll(calls, 1, r -> {
+			results.add(r);
+			throw new CancellationException();
+		}));
+		Assertions.assertEquals(List.of(0), results);
+	}
+
+	@Test
+	void invokeAllInterrupted() throws InterruptedException {
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var done = new AtomicInteger();
+		final List<Callable<Integer>> calls = List.of(() -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return done.incrementAndGet();
+		}, done::incrementAndGet);
+		final var failure = new ArrayList<Exception>();
+		final var caller = new Thread(() -> {
+			try {
+				executor.invokeAll(calls, 1, r -> {
+					// Nothing to do
+				});
+			} catch (final Exception e) {
+				failure.add(e);
+			}
+		});
+		caller.start();
+		Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+		caller.interrupt();
+		Thread.sleep(50);
+
+		// The running call is awaited, the next one is not submitted
+		Assertions.assertTrue(caller.isAlive());
+		release.countDown();
+		caller.join(5000);
+		Assertions.assertTrue(failure.get(0) instanceof CancellationException);
+		Assertions.assertEquals(1, done.get());
+	}
+}
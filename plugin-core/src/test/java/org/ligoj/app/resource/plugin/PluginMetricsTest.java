@@ -0,0 +1,104 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ligoj.app.resource.ServicePluginLocator;
+import org.ligoj.app.resource.node.sample.BuildResource;
+import org.ligoj.app.resource.node.sample.KmResource;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Test class of {@link PluginMetrics} and {@link PluginMetricsResource}
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = "classpath:/META-INF/spring/application-context-test.xml")
+class PluginMetricsTest {
+
+	@Autowired
+	private PluginMetrics metrics;
+
+	@Autowired
+	private PluginMetricsResource resource;
+
+	@Autowired
+	private ServicePluginLocator locator;
+
+	/**
+	 * A plug-in whose creation fails for negative subscriptions.
+	 */
+	public static class FailingPlugin extends AbstractServicePlugin {
+
+		@Override
+		public String getKey() {
+			return "service:failing";
+		}
+
+		@Override
+		public void create(final int subscription) throws Exception {
+			if (subscription < 0) {
+				throw new IllegalArgumentException("negative");
+			}
+			Thread.sleep(5);
+		}
+	}
+
+	@BeforeEach
+	void reset() {
+		resource.reset();
+	}
+
+	@Test
+	void locatedPlugin() throws Exception {
+		final var plugin = locator.getResource(BuildResource.SERVICE_KEY);
+		Assertions.assertTrue(AopUtils.isAopProxy(plugin));
+		Assertions.assertTrue(plugin instanceof BuildResource);
+		plugin.link(1);
+		plugin.link(2);
+		plugin.getInstalledEntities();
+		locator.getResource(KmResource.SERVICE_KEY).delete(1, false);
+
+		final var result = resource.findAll(10);
+		Assertions.assertEquals(2, result.size());
+		final var link = result.stream().filter(m -> m.getName().equals(BuildResource.SERVICE_KEY + "#link"))
+				.findFirst().get();
+		Assertions.assertEquals(2, link.getCalls());
+		Assertions.assertEquals(0, link.getErrors());
+		Assertions.assertEquals(0, link.getInFlight());
+		Assertions.assertTrue(result.stream().anyMatch(m -> m.getName().equals(KmResource.SERVICE_KEY + "#delete")));
+		Assertions.assertEquals(1, resource.findAll(1).size());
+	}
+
+	@Test
+	void errors() throws Exception {
+		final var plugin = (FailingPlugin) metrics.postProcessAfterInitialization(new FailingPlugin(), "failing");
+		Assertions.assertTrue(AopUtils.isCglibProxy(plugin));
+		plugin.create(1);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> plugin.create(-1));
+		locator.getResource(BuildResource.SERVICE_KEY).link(1);
+
+		// The slowest first
+		final var result = resource.findAll(10);
+		Assertions.assertEquals(2, result.size());
+		final var create = result.get(0);
+		Assertions.assertEquals("service:failing#create", create.getName());
+		Assertions.assertEquals(2, create.getCalls());
+		Assertions.assertEquals(1, create.getErrors());
+		Assertions.assertTrue(create.getMaxTime() >= 5);
+		Assertions.assertTrue(create.getMeanTime() >= 2.5);
+		Assertions.assertTrue(create.getTotalTime() >= create.getMaxTime());
+	}
+
+	@Test
+	void notPlugin() {
+		final var bean = new Object();
+		Assertions.assertSame(bean, metrics.postProcessAfterInitialization(bean, "any"));
+	}
+}
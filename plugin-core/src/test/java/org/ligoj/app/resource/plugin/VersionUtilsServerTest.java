@@ -0,0 +1,188 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.plugin;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.AbstractServerTest;
+import org.ligoj.bootstrap.core.curl.CurlRequest;
+import org.mockito.Mockito;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+
+/**
+ * Test class of {@link VersionUtils} with a mocked JIRA server. No Spring involved.
+ */
+class VersionUtilsServerTest extends AbstractServerTest {
+
+	private static final String VERSIONS = "[{\"name\":\"1.0\",\"released\":true,\"releaseDate\":\"2020-01-01\"},"
+			+ "{\"name\":\"1.2\",\"released\":true,\"releaseDate\":\"2020-03-01\",\"any\":{\"nested\":[1,2]}},"
+			+ "{\"name\":\"2.0\",\"released\":false},"
+			+ "{\"name\":\"1.3\",\"released\":true,\"archived\":true,\"releaseDate\":\"2020-04-01\"},"
+			+ "{\"name\":\"1.1\",\"released\":true,\"releaseDate\":\"2020-02-01\"}]";
+
+	private static final String SERVER = "http://localhost:" + MOCK_PORT;
+
+	private VersionUtils resource;
+
+	private HttpClientService httpClient;
+
+	@BeforeEach
+	void prepareResource() {
+		httpClient = new HttpClientService();
+		httpClient.initialize();
+		resource = new VersionUtils();
+		resource.setHttpClient(httpClient);
+		resource.setThreads(2);
+		resource.initialize();
+	}
+
+	@AfterEach
+	void closeClient() {
+		resource.shutdown();
+		httpClient.close();
+	}
+
+	private void stubVersions(final String project, final String body) {
+		httpServer.stubFor(WireMock.get(WireMock.urlPathEqualTo("/rest/api/2/project/" + project + "/versions"))
+				.willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_OK).withHeader("ETag", "\"v1\"")
+						.withBody(body)));
+	}
+
+	@Test
+	void getLatestReleasedVersion() throws IOException {
+		stubVersions("JRA", VERSIONS);
+		httpServer.start();
+		final var version = resource.getLatestReleasedVersion(SERVER, "JRA");
+		Assertions.assertEquals("1.2", version.getName());
+		Assertions.assertNotNull(version.getReleaseDate());
+
+		// Cached
+		Assertions.assertEquals("1.2", resource.getLatestReleasedVersionName(SERVER, "JRA"));
+		httpServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathMatching(".*")));
+	}
+
+	@Test
+	void getLatestReleasedVersionNotModified() throws IOException {
+		stubVersions("JRA", VERSIONS);
+		httpServer.stubFor(WireMock.get(WireMock.urlPathEqualTo("/rest/api/2/project/JRA/versions"))
+				.withHeader("If-None-Match", WireMock.equalTo("\"v1\""))
+				.willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_NOT_MODIFIED)));
+		httpServer.start();
+		resource.setTtl(0);
+		Assertions.assertEquals("1.2", resource.getLatestReleasedVersionName(SERVER, "JRA"));
+
+		// Revalidated
+		Assertions.assertEquals("1.2", resource.getLatestReleasedVersionName(SERVER, "JRA"));
+		httpServer.verify(2, WireMock.getRequestedFor(WireMock.urlPathMatching(".*")));
+		httpServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathMatching(".*")).withHeader("If-None-Match",
+				WireMock.equalTo("\"v1\"")));
+	}
+
+	@Test
+	void getLatestReleasedVersionStale() throws IOException {
+		stubVersions("JRA", VERSIONS);
+		httpServer.start();
+		resource.setTtl(0);
+		Assertions.assertEquals("1.2", resource.getLatestReleasedVersionName(SERVER, "JRA"));
+
+		// The server fails, the stale version is returned
+		httpServer.stubFor(WireMock.get(WireMock.urlPathEqualTo("/rest/api/2/project/JRA/versions"))
+				.willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR)));
+		Assertions.assertEquals("1.2", resource.getLatestReleasedVersionName(SERVER, "JRA"));
+	}
+
+	@Test
+	void getLatestReleasedVersionNotArray() throws IOException {
+		stubVersions("JRA", "{\"errorMessages\":[\"No project\"]}");
+		httpServer.start();
+		Assertions.assertNull(resource.getLatestReleasedVersion(SERVER, "JRA"));
+	}
+
+	@Test
+	void getLatestReleasedVersions() {
+		stubVersions("P1", VERSIONS);
+		stubVersions("P2", "[]");
+		httpServer.start();
+		final var versions = resource.getLatestReleasedVersions(SERVER, List.of("P1", "P2", "P3"));
+		Assertions.assertEquals(List.of("P1", "P2", "P3"), List.copyOf(versions.keySet()));
+		Assertions.assertEquals("1.2", versions.get("P1").getName());
+		Assertions.assertNull(versions.get("P2"));
+		Assertions.assertNull(versions.get("P3"));
+
+		// The connections are kept alive
+		final var metrics = httpClient.getMetrics().get(SERVER);
+		Assertions.assertEquals(3, metrics.getCalls());
+		Assertions.assertEquals(1, metrics.getErrors());
+		Assertions.assertTrue(httpClient.getPoolStats().getAvailable() > 0);
+	}
+
+	@Test
+	void getLatestReleasedVersionCacheMax() throws IOException {
+		stubVersions("P1", VERSIONS);
+		stubVersions("P2", VERSIONS);
+		httpServer.start();
+		resource.setCacheMax(1);
+		Assertions.assertEquals("1.2", resource.getLatestReleasedVersionName(SERVER, "P1"));
+		Assertions.assertEquals("1.2", resource.getLatestReleasedVersionName(SERVER, "P2"));
+
+		// P1 has been evicted, P2 is still cached
+		Assertions.assertEquals("1.2", resource.getLatestReleasedVersionName(SERVER, "P1"));
+		httpServer.verify(2, WireMock.getRequestedFor(WireMock.urlPathMatching(".*P1.*")));
+		httpServer.verify(1, WireMock.getRequestedFor(WireMock.urlPathMatching(".*P2.*")));
+	}
+
+	@Test
+	void getLatestReleasedVersionsNotInjected() {
+		stubVersions("JRA", VERSIONS);
+		httpServer.start();
+		final var standalone = new VersionUtils();
+		try {
+			Assertions.assertEquals("1.2", standalone.getLatestReleasedVersions(SERVER, List.of("JRA")).get("JRA")
+					.getName());
+		} finally {
+			standalone.shutdown();
+		}
+	}
+
+	@Test
+	void getLatestReleasedVersionSharedFailure() throws Exception {
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var failing = Mockito.mock(HttpClientService.class);
+		Mockito.when(failing.process(Mockito.any(CurlRequest.class), Mockito.any())).then(i -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			throw new IllegalStateException("failure");
+		});
+		resource.setHttpClient(failing);
+		final var first = CompletableFuture.runAsync(() -> resource.getLatestReleasedVersions(SERVER, List.of("JRA")));
+		started.await(5, TimeUnit.SECONDS);
+		final var second = CompletableFuture.runAsync(() -> {
+			try {
+				resource.getLatestReleasedVersion(SERVER, "JRA");
+			} catch (final IOException e) {
+				throw new IllegalArgumentException(e);
+			}
+		});
+		Thread.sleep(200);
+		release.countDown();
+
+		// Both the requesting and the joining callers get the raw exception
+		final var firstError = Assertions.assertThrows(CompletionException.class, first::join);
+		Assertions.assertEquals(IllegalStateException.class, firstError.getCause().getClass());
+		final var secondError = Assertions.assertThrows(CompletionException.class, second::join);
+		Assertions.assertEquals(IllegalStateException.class, secondError.getCause().getClass());
+	}
+}
@@ -5,8 +5,12 @@ package org.ligoj.app.resource.plugin;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.xpath.XPathExpressionException;
 
 import org.apache.commons.io.IOUtils;
@@ -59,6 +63,88 @@ class XmlUtilsTest {
 						"root/tag1").getLength());
 	}
 
+	@Test
+	void getXpaths() throws SAXException, IOException, ParserConfigurationException, XPathExpressionException {
+		final var result = resource.getXpaths(
+				"<root>any <tag1>value1</tag1> some <tag2>value2</tag2> some <tag1>value3</tag1></root>", "root/tag1",
+				"root/tag2", "root/tag3");
+		Assertions.assertEquals(List.of("root/tag1", "root/tag2", "root/tag3"), List.copyOf(result.keySet()));
+		Assertions.assertEquals(2, result.get("root/tag1").getLength());
+		Assertions.assertEquals("value2", result.get("root/tag2").item(0).getTextContent());
+		Assertions.assertEquals(0, result.get("root/tag3").getLength());
+	}
+
+	@Test
+	void compile() throws Exception {
+		final var compiled = resource.compile("root/tag1");
+		Assertions.assertSame(compiled, resource.compile("root/tag1"));
+
+		// Not shared with another thread
+		final var other = CompletableFuture.supplyAsync(() -> {
+			try {
+				return resource.compile("root/tag1");
+			} catch (final XPathExpressionException e) {
+				throw new IllegalStateException(e);
+			}
+		}).get();
+		Assertions.assertNotSame(compiled, other);
+
+		// Bounded cache
+		for (var i = 0; i < 100; i++) {
+			resource.compile("root/tag" + i);
+		}
+		Assertions.assertNotSame(compiled, resource.compile("root/tag1"));
+		Assertions.assertThrows(XPathExpressionException.class, () -> resource.compile("root/["));
+	}
+
+	@Test
+	void visit() throws XMLStreamException {
+		final var elements = new ArrayList<XmlElement>();
+		final var input = IOUtils.toInputStream(
+				"<hudson><job _class='a'><name> job1 </name><color>blue</color><sub><name>n</name></sub></job>"
+						+ "<!-- some --><job><name><![CDATA[job2]]></name>any<color/></job>"
+						+ "<job><job>nested</job></job></hudson>",
+				StandardCharsets.UTF_8);
+		Assertions.assertEquals(3, resource.visit(input, "job", elements::add));
+		Assertions.assertEquals("job", elements.get(0).getName());
+		Assertions.assertEquals("a", elements.get(0).getAttributes().get("_class"));
+		Assertions.assertEquals("job1", elements.get(0).getChild("name"));
+		Assertions.assertEquals("blue", elements.get(0).getChild("color"));
+		Assertions.assertEquals("n", elements.get(0).getChild("sub"));
+		Assertions.assertNull(elements.get(0).getText());
+		Assertions.assertEquals("job2", elements.get(1).getChild("name"));
+		Assertions.assertEquals("any", elements.get(1).getText());
+		Assertions.assertNull(elements.get(1).getChild("color"));
+		Assertions.assertTrue(elements.get(1).getAttributes().isEmpty());
+
+		// Nested elements are not visited
+		Assertions.assertEquals("nested", elements.get(2).getChild("job"));
+	}
+
+	@Test
+	void getTagTexts() throws XMLStreamException {
+		final var input = IOUtils.toInputStream(
+				"<metadata><versioning><versions><version>1.0</version><version> </version><version>1.1</version>"
+						+ "</versions></versioning></metadata>",
+				StandardCharsets.UTF_8);
+		Assertions.assertEquals(List.of("1.0", "1.1"), resource.getTagTexts(input, "version"));
+	}
+
+	@Test
+	void visitDoctype() {
+		final var input = IOUtils.toInputStream(
+				"<!DOCTYPE a [<!ENTITY x SYSTEM 'file:///etc/passwd'>]><a><b>&x;</b></a>", StandardCharsets.UTF_8);
+		Assertions.assertThrows(XMLStreamException.class, () -> resource.visit(input, "b", e -> {
+			// Not visited
+		}));
+	}
+
+	@Test
+	void parseReuse() throws SAXException, IOException, ParserConfigurationException {
+		Assertions.assertEquals("a", resource.parse("<a/>").getNodeName());
+		Assertions.assertEquals("b", resource.parse("<b/>").getNodeName());
+	}
+
 	@Test
 	void getTagsLink() throws SAXException, IOException, ParserConfigurationException {
 		var tags = resource.getTags(null, "tag1");
@@ -0,0 +1,215 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.ligoj.app.dao.ParameterValueRepository;
+import org.ligoj.app.dao.ProjectRepository;
+import org.ligoj.app.dao.task.LongTaskRunRepository;
+import org.ligoj.app.dao.task.ProjectDeletionTaskRepository;
+import org.ligoj.app.iam.model.CacheCompany;
+import org.ligoj.app.iam.model.CacheGroup;
+import org.ligoj.app.iam.model.CacheMembership;
+import org.ligoj.app.iam.model.CacheUser;
+import org.ligoj.app.iam.model.DelegateOrg;
+import org.ligoj.app.model.CacheProjectGroup;
+import org.ligoj.app.model.DelegateNode;
+import org.ligoj.app.model.Event;
+import org.ligoj.app.model.LongTaskRun;
+import org.ligoj.app.model.Node;
+import org.ligoj.app.model.Parameter;
+import org.ligoj.app.model.ParameterValue;
+import org.ligoj.app.model.Project;
+import org.ligoj.app.model.ProjectDeletionTask;
+import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.AbstractOrgTest;
+import org.ligoj.app.resource.plugin.LongTaskExecutor;
+import org.ligoj.app.resource.subscription.SubscriptionResource;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.ligoj.bootstrap.model.system.SystemAuthorization;
+import org.ligoj.bootstrap.model.system.SystemRole;
+import org.ligoj.bootstrap.model.system.SystemRoleAssignment;
+import org.ligoj.bootstrap.model.system.SystemUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test class of {@link ProjectDeletionRunner}. Not transactional, since each subscription is deleted in its own
+ * transaction by another thread: the data are committed and then cleaned.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = "classpath:/META-INF/spring/application-context-test.xml")
+class ProjectDeletionRunnerTest extends AbstractOrgTest {
+
+	@Autowired
+	private ProjectResource resource;
+
+	@Autowired
+	private ProjectDeletionRunner runner;
+
+	@Autowired
+	private LongTaskExecutor executor;
+
+	@Autowired
+	private ProjectRepository repository;
+
+	@Autowired
+	private ProjectDeletionTaskRepository taskRepository;
+
+	@Autowired
+	private ParameterValueRepository parameterValueRepository;
+
+	@Autowired
+	private LongTaskRunRepository runRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private int project;
+
+	private List<Integer> subscriptions;
+
+	@Override
+	@BeforeEach
+	protected void setUpEntities() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(s -> {
+			try {
+				super.setUpEntities();
+				persistEntities("csv", new Class[] { Event.class, DelegateNode.class }, StandardCharsets.UTF_8.name());
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			project = em.createQuery("SELECT id FROM Project WHERE name='gStack'", Integer.class).getSingleResult();
+			subscriptions = em.createQuery("SELECT id FROM Subscription WHERE project.id = :project", Integer.class)
+					.setParameter("project", project).getResultList();
+		});
+		clearAllCache();
+	}
+
+	@AfterEach
+	void cleanEntities() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(s -> List
+				.of(Event.class, DelegateNode.class, ParameterValue.class, ProjectDeletionTask.class, LongTaskRun.class,
+						Subscription.class, CacheProjectGroup.class, Project.class, Parameter.class, Node.class,
+						DelegateOrg.class, CacheMembership.class, CacheUser.class, CacheGroup.class, CacheCompany.class,
+						SystemRoleAssignment.class, SystemAuthorization.class, SystemUser.class, SystemRole.class)
+				.forEach(csvForJpa::cleanup));
+		clearAllCache();
+	}
+
+	private void awaitEnd() throws InterruptedException {
+		final var handle = executor.getHandle(runner, project);
+		if (handle != null) {
+			Assertions.assertTrue(handle.awaitEnd(10000));
+		}
+	}
+
+	@Test
+	void delete() throws Exception {
+		Assertions.assertFalse(subscriptions.isEmpty());
+		final var task = resource.delete(project, true);
+		Assertions.assertEquals(subscriptions.size(), task.getTotal());
+		Assertions.assertEquals(0, task.getDeleted());
+		awaitEnd();
+
+		// The subscriptions, then the project and its task are deleted
+		Assertions.assertFalse(repository.existsById(project));
+		subscriptions
+				.forEach(id -> Assertions.assertTrue(parameterValueRepository.findAllBySubscription(id).isEmpty()));
+		Assertions.assertEquals(0, taskRepository.count());
+
+		// The run is kept
+		final var run = runRepository.findAll().get(0);
+		Assertions.assertEquals(ProjectDeletionTask.class.getName(), run.getType());
+		Assertions.assertEquals(String.valueOf(project), run.getLocked());
+		Assertions.assertFalse(run.isFailed());
+		Assertions.assertEquals(subscriptions.size(), run.getSteps());
+	}
+
+	@Test
+	void deleteFinished() throws Exception {
+		// The task is ended before the deletion of the project, nothing is rolled back
+		final var task = new TransactionTemplate(transactionManager).execute(s -> {
+			final var t = new ProjectDeletionTask();
+			t.setLocked(em.find(Project.class, project));
+			t.setAuthor(DEFAULT_USER);
+			t.setStart(new Date());
+			t.setEnd(new Date());
+			em.persist(t);
+			return t;
+		});
+		Assertions.assertNotNull(task.getId());
+		Assertions.assertThrows(BusinessException.class, () -> runner.deleteProject(project));
+		Assertions.assertTrue(repository.existsById(project));
+	}
+
+	@Test
+	void deleteAfterFailure() throws Exception {
+		final var subscriptionResource = Mockito.mock(SubscriptionResource.class);
+		Mockito.doThrow(new IllegalStateException("remote")).when(subscriptionResource).delete(Mockito.anyInt(),
+				Mockito.eq(true));
+		final var target = AopTestUtils.getTargetObject(runner);
+		final var previous = ReflectionTestUtils.getField(target, "subscriptionResource");
+		ReflectionTestUtils.setField(target, "subscriptionResource", subscriptionResource);
+		try {
+			resource.delete(project, true);
+			awaitEnd();
+		} finally {
+			ReflectionTestUtils.setField(target, "subscriptionResource", previous);
+		}
+		final var task = resource.getDeletionTask(project);
+		Assertions.assertTrue(task.isFailed());
+		Assertions.assertEquals(0, task.getDeleted());
+		Assertions.assertTrue(repository.existsById(project));
+
+		// The plain deletion deletes the finished task with the project
+		Assertions.assertNull(resource.delete(project, false));
+		Assertions.assertFalse(repository.existsById(project));
+		Assertions.assertEquals(0, taskRepository.count());
+	}
+
+	@Test
+	void deleteRunning() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(s -> {
+			final var t = new ProjectDeletionTask();
+			t.setLocked(em.find(Project.class, project));
+			t.setAuthor(DEFAULT_USER);
+			t.setStart(new Date());
+			em.persist(t);
+		});
+		Assertions.assertThrows(BusinessException.class, () -> resource.delete(project, false));
+		Assertions.assertTrue(repository.existsById(project));
+		Assertions.assertEquals(1, taskRepository.count());
+	}
+
+	@Test
+	void cancelNotRunning() {
+		Assertions.assertNull(resource.getDeletionTask(project));
+		Assertions.assertNull(resource.cancelDeletion(project));
+	}
+
+	@Test
+	void deleteNotVisible() {
+		Assertions.assertThrows(EntityNotFoundException.class, () -> resource.delete(-1, true));
+		Assertions.assertThrows(EntityNotFoundException.class, () -> resource.getDeletionTask(-1));
+	}
+}
@@ -5,6 +5,8 @@ package org.ligoj.app.resource.project;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
@@ -25,6 +27,10 @@ import org.ligoj.app.model.Event;
 import org.ligoj.app.model.Project;
 import org.ligoj.app.model.Subscription;
 import org.ligoj.app.resource.AbstractOrgTest;
+import org.ligoj.app.resource.CursorPagination;
+import org.ligoj.app.resource.CursorTableItem;
+import org.ligoj.bootstrap.MatcherUtil;
+import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ContextConfiguration;
@@ -41,6 +47,9 @@ class ProjectResourceTest extends AbstractOrgTest {
 
 	private ProjectResource resource;
 
+	@Autowired
+	private ProjectSearchIndex searchIndex;
+
 	@Autowired
 	private ProjectRepository repository;
 
@@ -59,6 +68,9 @@ class ProjectResourceTest extends AbstractOrgTest {
 		resource.iamProvider = new IamProvider[] { iamProvider };
 		testProject = repository.findByName("MDA");
 
+		// The data are reloaded for each test, without the search index
+		searchIndex.invalidate();
+
 		// Ensure LDAP cache is loaded
 		em.flush();
 		em.clear();
@@ -102,6 +114,127 @@ class ProjectResourceTest extends AbstractOrgTest {
 		Assertions.assertEquals("gStack", result.getData().get(0).getName());
 	}
 
+	@Test
+	void findAllByTeamLeader() {
+		initSpringSecurityContext("fdaugan");
+		final var result = resource.findAll(newUriInfo(), "FDAUGAN");
+		Assertions.assertEquals(2, result.getData().size());
+		Assertions.assertEquals(2, result.getRecordsFiltered());
+	}
+
+	@Test
+	void findAllRanked() {
+		final var vo = new ProjectEditionVo();
+		vo.setName("Stack Two");
+		vo.setPkey("stack-two");
+		vo.setTeamLeader(DEFAULT_USER);
+		resource.create(vo);
+		em.flush();
+		em.clear();
+
+		// The exact name and pkey prefix is more relevant than the substring
+		final var result = resource.findAll(newUriInfo(), "stack");
+		Assertions.assertEquals(2, result.getData().size());
+		Assertions.assertEquals("Stack Two", result.getData().get(0).getName());
+		Assertions.assertEquals("gStack", result.getData().get(1).getName());
+	}
+
+	@Test
+	void findAllSynchronized() throws Exception {
+		resource.findAll(newUriInfo(), "any");
+		final var vo = new ProjectEditionVo();
+		vo.setName("Zyx");
+		vo.setPkey("zyx");
+		vo.setTeamLeader(DEFAULT_USER);
+		final var id = resource.create(vo);
+		Assertions.assertEquals(1, resource.findAll(newUriInfo(), "zyx").getData().size());
+
+		vo.setId(id);
+		vo.setName("Wvu");
+		resource.update(vo);
+		Assertions.assertEquals(1, resource.findAll(newUriInfo(), "Wvu").getData().size());
+		Assertions.assertEquals(1, resource.findAll(newUriInfo(), "zyx").getData().size());
+
+		em.clear();
+		resource.delete(id);
+		Assertions.assertEquals(0, resource.findAll(newUriInfo(), "zyx").getData().size());
+		Assertions.assertEquals(0, resource.findAll(newUriInfo(), "Wvu").getData().size());
+	}
+
+	@Test
+	void findAllChecked() {
+		resource.findAll(newUriInfo(), "any");
+		final var project = new Project();
+		project.setName("Zyx");
+		project.setPkey("zyx");
+		project.setTeamLeader(DEFAULT_USER);
+		em.persist(project);
+		em.flush();
+
+		// Changed by another member, seen after the next signature check
+		Assertions.assertEquals(0, resource.findAll(newUriInfo(), "zyx").getData().size());
+		searchIndex.setCheckPeriod(0);
+		try {
+			Assertions.assertEquals(1, resource.findAll(newUriInfo(), "zyx").getData().size());
+		} finally {
+			searchIndex.setCheckPeriod(10000);
+		}
+	}
+
+	@Test
+	void findAllCursor() {
+		final var vo = new ProjectEditionVo();
+		vo.setName("No description");
+		vo.setPkey("no-description");
+		vo.setTeamLeader(DEFAULT_USER);
+		resource.create(vo);
+		em.flush();
+		em.clear();
+
+		// Null descriptions first
+		final var names = new ArrayList<String>();
+		var cursor = "";
+		do {
+			final var uriInfo = newFindAllParameters();
+			uriInfo.getQueryParameters().putSingle("length", "1");
+			uriInfo.getQueryParameters().putSingle("columns[0][data]", "description");
+			uriInfo.getQueryParameters().putSingle("order[0][dir]", "asc");
+			uriInfo.getQueryParameters().putSingle(CursorPagination.CURSOR, cursor);
+			final var result = (CursorTableItem<ProjectLightVo>) resource.findAll(uriInfo, null);
+			result.getData().forEach(p -> names.add(p.getName()));
+			cursor = result.getNext();
+		} while (cursor != null);
+		Assertions.assertEquals(List.of("No description", "MDA", "gStack"), names);
+	}
+
+	@Test
+	void findAllCursorDesc() {
+		final var uriInfo = newFindAllParameters();
+		uriInfo.getQueryParameters().putSingle("length", "1");
+		uriInfo.getQueryParameters().putSingle(CursorPagination.CURSOR, "");
+		uriInfo.getQueryParameters().putSingle(CursorPagination.COUNT, "true");
+		final var page1 = (CursorTableItem<ProjectLightVo>) resource.findAll(uriInfo, "a");
+		Assertions.assertEquals(2, page1.getRecordsTotal());
+		Assertions.assertEquals("MDA", page1.getData().get(0).getName());
+		Assertions.assertEquals(1, page1.getData().get(0).getNbSubscriptions());
+
+		uriInfo.getQueryParameters().putSingle(CursorPagination.CURSOR, page1.getNext());
+		uriInfo.getQueryParameters().remove(CursorPagination.COUNT);
+		final var page2 = (CursorTableItem<ProjectLightVo>) resource.findAll(uriInfo, "a");
+		Assertions.assertEquals(-1, page2.getRecordsTotal());
+		Assertions.assertEquals("gStack", page2.getData().get(0).getName());
+		Assertions.assertNull(page2.getNext());
+	}
+
+	@Test
+	void findAllCursorInvalidOrder() {
+		final var uriInfo = newFindAllParameters();
+		uriInfo.getQueryParameters().putSingle("columns[0][data]", "nbSubscriptions");
+		uriInfo.getQueryParameters().putSingle(CursorPagination.CURSOR, "");
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class,
+				() -> resource.findAll(uriInfo, null)), CursorPagination.CURSOR, "invalid-cursor-order");
+	}
+
 	@Test
 	void findAllNotMemberButDelegateGroupVisible() {
 		final var delegate = new DelegateOrg();
@@ -487,10 +620,15 @@ class ProjectResourceTest extends AbstractOrgTest {
 	@Test
 	void delete() throws Exception {
 		final var initCount = repository.count();
+		final var subscriptions = em.createQuery("SELECT id FROM Subscription WHERE project.id = :project", Integer.class)
+				.setParameter("project", testProject.getId()).getResultList();
+		Assertions.assertFalse(subscriptions.isEmpty());
 		em.clear();
 		resource.delete(testProject.getId());
 		em.flush();
 		em.clear();
 		Assertions.assertEquals(initCount - 1, repository.count());
+		Assertions.assertEquals(0, em.createQuery("SELECT COUNT(id) FROM ParameterValue WHERE subscription.id IN :ids",
+				Long.class).setParameter("ids", subscriptions).getSingleResult());
 	}
 }
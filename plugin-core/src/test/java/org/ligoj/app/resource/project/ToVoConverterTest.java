@@ -4,8 +4,6 @@
 package org.ligoj.app.resource.project;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -15,21 +13,10 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.ligoj.app.api.NodeStatus;
 import org.ligoj.app.api.NodeVo;
-import org.ligoj.app.iam.IUserRepository;
-import org.ligoj.app.iam.IamConfiguration;
-import org.ligoj.app.iam.IamProvider;
 import org.ligoj.app.iam.UserOrg;
-import org.ligoj.app.model.Node;
-import org.ligoj.app.model.Parameter;
 import org.ligoj.app.model.ParameterType;
-import org.ligoj.app.model.ParameterValue;
 import org.ligoj.app.model.Project;
-import org.ligoj.app.model.Subscription;
-import org.ligoj.app.resource.ServicePluginLocator;
-import org.ligoj.app.resource.node.EventVo;
 import org.ligoj.app.resource.node.sample.IdentityResource;
-import org.mockito.ArgumentMatchers;
-import org.mockito.Mockito;
 
 /**
  * Test class of {@link ToVoConverter}
@@ -38,10 +25,8 @@ class ToVoConverterTest {
 
 	@Test
 	void applyEmpty() {
-		final var locator = Mockito.mock(ServicePluginLocator.class);
-		final var converter = new ToVoConverter(locator, s -> null, new ArrayList<>(), new HashMap<>());
+		final var converter = new ToVoConverter(s -> null, new ArrayList<>(), new ArrayList<>(), new HashMap<>());
 		final var entity = new Project();
-		entity.setSubscriptions(Collections.emptyList());
 		final var vo = converter.apply(entity);
 		Assertions.assertNull(vo.getName());
 		Assertions.assertNull(vo.getPkey());
@@ -54,74 +39,40 @@ class ToVoConverterTest {
 		Assertions.assertTrue(vo.getSubscriptions().isEmpty());
 	}
 
+	private NodeVo newNode(final String id, final NodeVo refined, final boolean enabled) {
+		final var node = new NodeVo();
+		node.setId(id);
+		node.setName(id.toUpperCase());
+		node.setRefined(refined);
+		node.setEnabled(enabled);
+		node.setParameters(Map.of("secret", "value"));
+		return node;
+	}
+
 	@Test
 	void apply() {
+		// Stub nodes
+		final Map<String, NodeVo> nodes = new HashMap<>();
+		final var service = newNode("service:s", null, true);
+		nodes.put(service.getId(), service);
+		nodes.put("service:s:n1", newNode("service:s:n1", service, true));
+		nodes.put("service:s:n2", newNode("service:s:n2", service, false));
 
-		// Sub user repository
-		final var iamProvider = Mockito.mock(IamProvider.class);
-		final var userRepository = Mockito.mock(IUserRepository.class);
-		final var configuration = new IamConfiguration();
-		configuration.setUserRepository(userRepository);
-		Mockito.when(iamProvider.getConfiguration()).thenReturn(configuration);
-		Mockito.when(userRepository.findById(ArgumentMatchers.anyString()))
-				.then(invocation -> toUser((String) invocation.getArguments()[0]));
-
-		// Stub subscriptions
+		// Stub subscriptions: with status, without status, and on an unknown node
 		final List<Object[]> subscriptions = new ArrayList<>();
-		final var parameter1 = new Parameter();
-		parameter1.setId(IdentityResource.PARAMETER_GROUP);
-		parameter1.setType(ParameterType.TEXT);
-		parameter1.setOwner(new Node());
-		final var parameter2 = new Parameter();
-		parameter2.setId(IdentityResource.PARAMETER_GROUP);
-		parameter2.setType(ParameterType.TEXT);
-		parameter2.setOwner(new Node());
-		final var parameter3 = new Parameter();
-		parameter3.setId("any");
-		parameter3.setType(ParameterType.TEXT);
-		parameter3.setOwner(new Node());
-		final var value1 = new ParameterValue();
-		value1.setId(1);
-		value1.setParameter(parameter1);
-		value1.setData("G");
-		final var value2 = new ParameterValue();
-		value2.setId(2);
-		value2.setParameter(parameter2);
-		value2.setData("any");
-		final var value3 = new ParameterValue();
-		value3.setId(3);
-		value3.setParameter(parameter3);
-		value3.setData("any");
-		final var subscription = new Subscription();
-		subscription.setId(1);
-		final var node = new Node();
-		node.setId("service:n2");
-		subscription.setNode(node);
-		subscriptions.add(new Object[] { subscription, value1 });
-		subscriptions.add(new Object[] { subscription, value2 });
-		subscriptions.add(new Object[] { subscription, value3 });
+		subscriptions.add(new Object[] { 1, "service:s:n2", "U4", new Date(), "U5", new Date(), "UP" });
+		subscriptions.add(new Object[] { -1, "service:s:n1", "U4", new Date(), "U5", new Date(), null });
+		subscriptions.add(new Object[] { 2, "service:s:n1", "U4", new Date(), "U5", new Date(), null });
 
-		// Subscription without status
-		final var subscription2 = new Subscription();
-		subscription2.setId(-1);
-		final var node2 = new Node();
-		node2.setId("service:n1");
-		subscription2.setNode(node2);
-		subscriptions.add(new Object[] { subscription2, value3 });
-
-		// Stub events
-		final Map<Integer, EventVo> events = new HashMap<>();
-		final var event = new EventVo();
-		event.setSubscription(1);
-		event.setNode(new NodeVo());
-		event.setValue("UP");
-		events.put(1, event);
+		// Stub values: the subscription one overrides the inherited one
+		final List<Object[]> values = new ArrayList<>();
+		values.add(new Object[] { 1, null, IdentityResource.PARAMETER_GROUP, ParameterType.TEXT, "G" });
+		values.add(new Object[] { null, "service:s", IdentityResource.PARAMETER_GROUP, ParameterType.TEXT, "any" });
+		values.add(new Object[] { null, "service:s", "any", ParameterType.TEXT, "any" });
+		values.add(new Object[] { null, "service:s:n1", "any", ParameterType.TEXT, "n1" });
 
 		// Call
-		final var locator = Mockito.mock(ServicePluginLocator.class);
-		Mockito.doReturn(true).when(locator).isEnabled("service:n1");
-		Mockito.doReturn(false).when(locator).isEnabled("service:n2");
-		final var converter = new ToVoConverter(locator, this::toUser, subscriptions, events);
+		final var converter = new ToVoConverter(this::toUser, subscriptions, values, nodes);
 		final var entity = new Project();
 		entity.setId(1);
 		entity.setName("N");
@@ -132,7 +83,6 @@ class ToVoConverterTest {
 		entity.setCreatedDate(new Date());
 		entity.setPkey("PK");
 		entity.setTeamLeader("U3");
-		entity.setSubscriptions(Arrays.asList(subscription, subscription2));
 		final var vo = converter.apply(entity);
 
 		// Check
@@ -145,16 +95,31 @@ class ToVoConverterTest {
 		Assertions.assertNotNull(vo.getLastModifiedDate());
 		Assertions.assertEquals("U3", vo.getTeamLeader().getId());
 		Assertions.assertEquals(1, vo.getId().intValue());
-		Assertions.assertEquals(2, vo.getSubscriptions().size());
+		Assertions.assertEquals(3, vo.getSubscriptions().size());
 
 		// Check the statuses and their order by node
 		final var subscriptionsVo = vo.getSubscriptions();
 		Assertions.assertNull(subscriptionsVo.get(0).getStatus());
-		Assertions.assertEquals("service:n1", subscriptionsVo.get(0).getNode().getId());
+		Assertions.assertEquals(-1, subscriptionsVo.get(0).getId());
+		Assertions.assertEquals("U4", subscriptionsVo.get(0).getCreatedBy().getId());
+		Assertions.assertEquals("U5", subscriptionsVo.get(0).getLastModifiedBy().getId());
+		Assertions.assertEquals("service:s:n1", subscriptionsVo.get(0).getNode().getId());
+		Assertions.assertEquals("SERVICE:S:N1", subscriptionsVo.get(0).getNode().getName());
 		Assertions.assertTrue(subscriptionsVo.get(0).getNode().getEnabled());
-		Assertions.assertEquals(NodeStatus.UP, subscriptionsVo.get(1).getStatus());
-		Assertions.assertEquals("service:n2", subscriptionsVo.get(1).getNode().getId());
-		Assertions.assertFalse(subscriptionsVo.get(1).getNode().getEnabled());
+		Assertions.assertNull(subscriptionsVo.get(0).getNode().getParameters());
+		Assertions.assertEquals("any", subscriptionsVo.get(0).getParameters().get(IdentityResource.PARAMETER_GROUP));
+		Assertions.assertEquals("n1", subscriptionsVo.get(0).getParameters().get("any"));
+		Assertions.assertEquals(NodeStatus.UP, subscriptionsVo.get(2).getStatus());
+		Assertions.assertEquals("service:s:n2", subscriptionsVo.get(2).getNode().getId());
+		Assertions.assertFalse(subscriptionsVo.get(2).getNode().getEnabled());
+		Assertions.assertEquals("G", subscriptionsVo.get(2).getParameters().get(IdentityResource.PARAMETER_GROUP));
+		Assertions.assertEquals("any", subscriptionsVo.get(2).getParameters().get("any"));
+
+		// Node descriptions are shared
+		Assertions.assertSame(subscriptionsVo.get(0).getNode(), subscriptionsVo.get(1).getNode());
+		Assertions.assertSame(subscriptionsVo.get(0).getNode().getRefined(),
+				subscriptionsVo.get(2).getNode().getRefined());
+		Assertions.assertEquals("service:s", subscriptionsVo.get(2).getNode().getRefined().getId());
 	}
 
 	private UserOrg toUser(final String login) {
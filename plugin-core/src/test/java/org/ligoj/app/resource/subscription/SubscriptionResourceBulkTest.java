@@ -0,0 +1,148 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.resource.subscription;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ligoj.app.dao.ParameterValueRepository;
+import org.ligoj.app.iam.model.CacheCompany;
+import org.ligoj.app.iam.model.CacheGroup;
+import org.ligoj.app.iam.model.CacheMembership;
+import org.ligoj.app.iam.model.CacheUser;
+import org.ligoj.app.iam.model.DelegateOrg;
+import org.ligoj.app.model.CacheProjectGroup;
+import org.ligoj.app.model.DelegateNode;
+import org.ligoj.app.model.Event;
+import org.ligoj.app.model.Node;
+import org.ligoj.app.model.Parameter;
+import org.ligoj.app.model.ParameterValue;
+import org.ligoj.app.model.Project;
+import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.AbstractOrgTest;
+import org.ligoj.app.resource.node.ParameterValueCreateVo;
+import org.ligoj.app.resource.node.sample.JiraBaseResource;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.ligoj.bootstrap.model.system.SystemAuthorization;
+import org.ligoj.bootstrap.model.system.SystemRole;
+import org.ligoj.bootstrap.model.system.SystemRoleAssignment;
+import org.ligoj.bootstrap.model.system.SystemUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test class of {@link SubscriptionResource#createAll(List)}. Not transactional, since each subscription is created
+ * in its own transaction: the data are committed and then cleaned.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = "classpath:/META-INF/spring/application-context-test.xml")
+class SubscriptionResourceBulkTest extends AbstractOrgTest {
+
+	@Autowired
+	private SubscriptionResource resource;
+
+	@Autowired
+	private ParameterValueRepository parameterValueRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private int project;
+
+	@Override
+	@BeforeEach
+	protected void setUpEntities() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(s -> {
+			try {
+				super.setUpEntities();
+				persistEntities("csv", new Class[] { Event.class, DelegateNode.class }, StandardCharsets.UTF_8.name());
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			em.createQuery("DELETE Parameter WHERE id LIKE ?1").setParameter(1, "c_%").executeUpdate();
+			project = em.createQuery("SELECT id FROM Project WHERE name='gStack'", Integer.class).getSingleResult();
+		});
+		clearAllCache();
+	}
+
+	@AfterEach
+	void cleanEntities() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(s -> List
+				.of(Event.class, DelegateNode.class, ParameterValue.class, Subscription.class, CacheProjectGroup.class,
+						Project.class, Parameter.class, Node.class, DelegateOrg.class, CacheMembership.class,
+						CacheUser.class, CacheGroup.class, CacheCompany.class, SystemRoleAssignment.class,
+						SystemAuthorization.class, SystemUser.class, SystemRole.class)
+				.forEach(csvForJpa::cleanup));
+		clearAllCache();
+	}
+
+	private SubscriptionEditionVo newCreateVo(final int project, final String node) {
+		final var vo = new SubscriptionEditionVo();
+		final var parameters = new ArrayList<ParameterValueCreateVo>();
+		final var projectValue = new ParameterValueCreateVo();
+		projectValue.setParameter(JiraBaseResource.PARAMETER_PROJECT);
+		projectValue.setInteger(10074);
+		parameters.add(projectValue);
+		final var pkeyValue = new ParameterValueCreateVo();
+		pkeyValue.setParameter(JiraBaseResource.PARAMETER_PKEY);
+		pkeyValue.setText("MDA");
+		parameters.add(pkeyValue);
+		vo.setParameters(parameters);
+		vo.setNode(node);
+		vo.setProject(project);
+		return vo;
+	}
+
+	@Test
+	void createAll() throws Exception {
+		final var invalidParameters = newCreateVo(project, "service:bt:jira:6");
+		invalidParameters.getParameters().get(0).setInteger(-1);
+		final var results = resource.createAll(List.of(newCreateVo(project, "service:bt:jira:4"),
+				newCreateVo(-1, "service:bt:jira:4"), newCreateVo(project, "service:any"), invalidParameters,
+				newCreateVo(project, "service:bt:jira:6")));
+		Assertions.assertEquals(5, results.size());
+
+		// Created subscriptions
+		Assertions.assertEquals(0, results.get(0).getIndex());
+		Assertions.assertNull(results.get(0).getError());
+		Assertions.assertEquals(project, results.get(0).getProject());
+		Assertions.assertEquals("service:bt:jira:4", results.get(0).getNode());
+		Assertions.assertEquals("MDA", parameterValueRepository
+				.getSubscriptionParameterValue(results.get(0).getId(), JiraBaseResource.PARAMETER_PKEY));
+		Assertions.assertNull(results.get(4).getError());
+		Assertions.assertNotNull(results.get(4).getId());
+
+		// Isolated failures: project, node and parameters
+		Assertions.assertEquals("-1", results.get(1).getError());
+		Assertions.assertNull(results.get(1).getId());
+		Assertions.assertNotNull(results.get(2).getError());
+		Assertions.assertNull(results.get(2).getId());
+		Assertions.assertNotNull(results.get(3).getError());
+		Assertions.assertNull(results.get(3).getId());
+	}
+
+	@Test
+	void createAllEmpty() throws Exception {
+		Assertions.assertTrue(resource.createAll(List.of()).isEmpty());
+	}
+
+	@Test
+	void createAllLimit() {
+		final var vos = Collections.nCopies(101, newCreateVo(project, "service:bt:jira:4"));
+		Assertions.assertEquals("subscription-bulk-limit",
+				Assertions.assertThrows(BusinessException.class, () -> resource.createAll(vos)).getMessage());
+	}
+}
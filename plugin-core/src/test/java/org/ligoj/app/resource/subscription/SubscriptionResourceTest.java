@@ -3,6 +3,7 @@
  */
 package org.ligoj.app.resource.subscription;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -59,6 +60,8 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * Test class of {@link SubscriptionResource}
  */
@@ -696,6 +699,62 @@ class SubscriptionResourceTest extends AbstractOrgTest {
 
 	}
 
+	@Test
+	void findAllStream() throws IOException {
+		final var output = new ByteArrayOutputStream();
+		resource.findAll((String) null).write(output);
+		final var subscriptionList = new ObjectMapper().readValue(output.toByteArray(), SubscriptionListVo.class);
+		final var expected = resource.findAll();
+		Assertions.assertEquals(expected.getSubscriptions().stream().map(SubscriptionLightVo::getId).toList(),
+				subscriptionList.getSubscriptions().stream().map(SubscriptionLightVo::getId).toList());
+		Assertions.assertEquals(2, subscriptionList.getProjects().size());
+		Assertions.assertEquals(expected.getNodes().size(), subscriptionList.getNodes().size());
+		Assertions.assertEquals("service:bt", subscriptionList.getNodes().iterator().next().getId());
+
+		// Written with the shared mapper, the null values are omitted
+		Assertions.assertFalse(output.toString(StandardCharsets.UTF_8).contains(":null"));
+	}
+
+	@Test
+	void findAllStreamCriteria() throws IOException {
+		final var output = new ByteArrayOutputStream();
+		resource.findAll(" jira:4 ").write(output);
+		final var subscriptionList = new ObjectMapper().readValue(output.toByteArray(), SubscriptionListVo.class);
+		Assertions.assertFalse(subscriptionList.getSubscriptions().isEmpty());
+		Assertions.assertTrue(subscriptionList.getSubscriptions().stream()
+				.allMatch(s -> s.getNode().equals("service:bt:jira:4")));
+	}
+
+	@Test
+	void findAllPage() {
+		final var expected = resource.findAll().getSubscriptions().stream().map(SubscriptionLightVo::getId).toList();
+		final var ids = new ArrayList<Integer>();
+		Integer next = null;
+		do {
+			final var page = resource.findAll(null, next, 2);
+			Assertions.assertTrue(page.getSubscriptions().size() <= 2);
+			page.getSubscriptions().forEach(s -> ids.add(s.getId()));
+			Assertions.assertTrue(page.getProjects().size() <= 2);
+			next = page.getNext();
+		} while (next != null);
+		Assertions.assertEquals(expected, ids);
+	}
+
+	@Test
+	void findAllPageCriteria() {
+		final var page = resource.findAll("MDA", null, 100);
+		Assertions.assertNull(page.getNext());
+		Assertions.assertEquals(1, page.getProjects().size());
+		Assertions.assertEquals("MDA", page.getProjects().iterator().next().getName());
+		Assertions.assertEquals("service:bt", page.getNodes().iterator().next().getId());
+	}
+
+	@Test
+	void findAllPageNotVisible() {
+		initSpringSecurityContext("any");
+		Assertions.assertTrue(resource.findAll(null, null, 100).getSubscriptions().isEmpty());
+	}
+
 	@Test
 	void refreshStatuses() throws IOException {
 		persistEntities("csv", new Class[] { Event.class }, StandardCharsets.UTF_8.name());
@@ -0,0 +1,75 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.empty;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.ligoj.app.iam.ContainerOrg;
+import org.ligoj.app.iam.IContainerRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * An in memory container repository backed by an {@link InMemoryDirectory}.
+ *
+ * @param <T> The container type.
+ */
+public abstract class AbstractInMemoryContainerRepository<T extends ContainerOrg> implements IContainerRepository<T> {
+
+	/**
+	 * The shared directory.
+	 */
+	protected final InMemoryDirectory directory;
+
+	private final String typeName;
+
+	/**
+	 * Constructor with the directory.
+	 *
+	 * @param directory The shared directory.
+	 * @param typeName  The container type name.
+	 */
+	protected AbstractInMemoryContainerRepository(final InMemoryDirectory directory, final String typeName) {
+		this.directory = directory;
+		this.typeName = typeName;
+	}
+
+	@Override
+	public String getTypeName() {
+		return typeName;
+	}
+
+	@Override
+	public Page<T> findAll(final Set<T> containers, final String criteria, final Pageable pageable,
+			final Map<String, Comparator<T>> customComparators) {
+		final var filter = InMemoryDirectory.toCriteria(criteria);
+		final var visible = containers == null ? findAll().values() : containers;
+		return InMemoryDirectory.toPage(
+				visible.stream().filter(c -> filter.isEmpty() || InMemoryDirectory.contains(c.getName(), filter)),
+				toComparator(pageable, customComparators), pageable);
+	}
+
+	/**
+	 * Return the comparator of the requested ordering. The default ordering is the name, case-insensitive.
+	 */
+	private Comparator<T> toComparator(final Pageable pageable,
+			final Map<String, Comparator<T>> customComparators) {
+		final Comparator<T> byName = Comparator.comparing(ContainerOrg::getName, String.CASE_INSENSITIVE_ORDER);
+		final var sort = Optional.ofNullable(pageable).map(Pageable::getSort).orElse(Sort.unsorted());
+		Comparator<T> result = null;
+		for (final var order : sort) {
+			var comparator = Optional.ofNullable(customComparators).map(c -> c.get(order.getProperty()))
+					.orElse(byName);
+			if (order.isDescending()) {
+				comparator = comparator.reversed();
+			}
+			result = result == null ? comparator : result.thenComparing(comparator);
+		}
+		return result == null ? byName : result;
+	}
+}
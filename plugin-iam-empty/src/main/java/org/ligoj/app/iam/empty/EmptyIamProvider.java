@@ -3,6 +3,9 @@
  */
 package org.ligoj.app.iam.empty;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 
 import javax.cache.annotation.CacheResult;
@@ -10,26 +13,122 @@ import javax.cache.annotation.CacheResult;
 import org.ligoj.app.iam.IamConfiguration;
 import org.ligoj.app.iam.IamProvider;
 import org.ligoj.bootstrap.core.plugin.FeaturePlugin;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
 /**
- * Default, and empty {@link IamProvider}.
+ * Default, and empty {@link IamProvider}. An in memory directory is used instead when it is configured, for load tests
+ * and local environments. Supported properties:
+ * <ul>
+ * <li><code>iam.memory.file</code>: JSON file of the directory, see
+ * {@link InMemoryDirectory#load(java.io.InputStream)}.</li>
+ * <li><code>iam.memory.users</code>: when positive and without file, amount of generated users.</li>
+ * <li><code>iam.memory.groups</code>: amount of generated groups.</li>
+ * <li><code>iam.memory.companies</code>: amount of generated companies.</li>
+ * <li><code>iam.memory.memberships</code>: amount of generated groups of a user.</li>
+ * <li><code>iam.memory.seed</code>: seed of the generated directory.</li>
+ * <li><code>iam.memory.password</code>: password of all the generated users.</li>
+ * <li><code>iam.memory.open</code>: when <code>true</code>, the users without password accept any password. Only for
+ * load tests, never for a shared environment.</li>
+ * </ul>
  */
 @Component
 @Order(100)
+@Slf4j
 public class EmptyIamProvider implements IamProvider, FeaturePlugin {
 
 	private IamConfiguration iamConfiguration;
 
 	private EmptyIamProvider self = this;
 
+	@Setter
+	@Value("${iam.memory.file:}")
+	private String file;
+
+	@Setter
+	@Value("${iam.memory.users:0}")
+	private int users;
+
+	@Setter
+	@Value("${iam.memory.groups:1000}")
+	private int groups = 1000;
+
+	@Setter
+	@Value("${iam.memory.companies:100}")
+	private int companies = 100;
+
+	@Setter
+	@Value("${iam.memory.memberships:3}")
+	private int memberships = 3;
+
+	@Setter
+	@Value("${iam.memory.seed:1}")
+	private long seed = 1;
+
+	@Setter
+	@Value("${iam.memory.password:}")
+	private String password;
+
+	@Setter
+	@Value("${iam.memory.open:false}")
+	private boolean open;
+
+	/**
+	 * The in memory directory, built once and kept across the configuration refreshes.
+	 */
+	@Setter
+	private InMemoryDirectory directory;
+
 	@Override
 	public Authentication authenticate(final Authentication authentication) {
+		if (getDirectory() != null && !getConfiguration().getUserRepository().authenticate(authentication.getName(),
+				String.valueOf(authentication.getCredentials()))) {
+			throw new BadCredentialsException("Invalid credentials");
+		}
 		return authentication;
 	}
 
+	/**
+	 * Return the in memory directory, built on the first call.
+	 *
+	 * @return The in memory directory, <code>null</code> when not configured.
+	 */
+	public synchronized InMemoryDirectory getDirectory() {
+		if (directory == null && file != null && !file.isEmpty()) {
+			try (var input = Files.newInputStream(Path.of(file))) {
+				directory = InMemoryDirectory.load(input);
+				log.info("In memory directory loaded from {} with {} users", file, directory.getUsers().size());
+			} catch (final IOException e) {
+				throw new IllegalStateException("Unable to load the in memory directory " + file, e);
+			}
+			applyOpen(directory);
+		} else if (directory == null && users > 0) {
+			final var generator = new InMemoryDirectoryGenerator();
+			generator.setUsers(users);
+			generator.setGroups(groups);
+			generator.setCompanies(companies);
+			generator.setMemberships(memberships);
+			generator.setSeed(seed);
+			generator.setPassword(password == null || password.isEmpty() ? null : password);
+			directory = generator.generate();
+			applyOpen(directory);
+		}
+		return directory;
+	}
+
+	private void applyOpen(final InMemoryDirectory directory) {
+		if (open) {
+			log.warn("In memory directory is open: the users without password accept any password");
+			directory.setOpen(true);
+		}
+	}
+
 	@Override
 	public IamConfiguration getConfiguration() {
 		self.ensureCachedConfiguration();
@@ -48,6 +147,10 @@ public class EmptyIamProvider implements IamProvider, FeaturePlugin {
 	}
 
 	private IamConfiguration refreshConfiguration() {
+		final var memory = getDirectory();
+		if (memory != null) {
+			return refreshConfiguration(memory);
+		}
 		final var configuration = new IamConfiguration();
 		final var companyRepository = new EmptyCompanyRepository();
 		configuration.setCompanyRepository(companyRepository);
@@ -61,6 +164,22 @@ public class EmptyIamProvider implements IamProvider, FeaturePlugin {
 		return configuration;
 	}
 
+	private IamConfiguration refreshConfiguration(final InMemoryDirectory memory) {
+		final var configuration = new IamConfiguration();
+		final var companyRepository = new InMemoryCompanyRepository(memory);
+		final var groupRepository = new InMemoryGroupRepository(memory);
+		final var userRepository = new InMemoryUserRepository(memory);
+		configuration.setCompanyRepository(companyRepository);
+		configuration.setGroupRepository(groupRepository);
+		configuration.setUserRepository(userRepository);
+
+		// Also link user/company/group repositories
+		userRepository.setCompanyRepository(companyRepository);
+		userRepository.setGroupRepository(groupRepository);
+		this.iamConfiguration = configuration;
+		return configuration;
+	}
+
 	@Override
 	public String getKey() {
 		return "feature:iam:empty";
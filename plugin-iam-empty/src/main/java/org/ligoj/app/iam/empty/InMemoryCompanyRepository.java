@@ -0,0 +1,41 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.empty;
+
+import java.util.Map;
+
+import org.ligoj.app.iam.CompanyOrg;
+import org.ligoj.app.iam.ICompanyRepository;
+
+/**
+ * An in memory company repository. The parent of a created company is the one owning the parent DN.
+ */
+public class InMemoryCompanyRepository extends AbstractInMemoryContainerRepository<CompanyOrg>
+		implements ICompanyRepository {
+
+	/**
+	 * Constructor with the directory.
+	 *
+	 * @param directory The shared directory.
+	 */
+	public InMemoryCompanyRepository(final InMemoryDirectory directory) {
+		super(directory, "company");
+	}
+
+	@Override
+	public Map<String, CompanyOrg> findAll() {
+		return directory.getCompanies();
+	}
+
+	@Override
+	public void delete(final CompanyOrg container) {
+		directory.removeCompany(container.getId());
+	}
+
+	@Override
+	public CompanyOrg create(final String dn, final String name) {
+		return directory.putCompany(dn, name, directory.findCompanyByDn(dn.substring(dn.indexOf(',') + 1)));
+	}
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.empty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.ligoj.app.api.Normalizer;
+import org.ligoj.app.iam.CompanyOrg;
+import org.ligoj.app.iam.GroupOrg;
+import org.ligoj.app.iam.UserOrg;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * In memory directory of companies, groups and users, shared by the in memory repositories. Companies and groups are
+ * trees, the users belong to a company and to groups. The membership is maintained on both sides: the group members
+ * and the user groups. The directory is either generated by {@link InMemoryDirectoryGenerator}, or loaded from a JSON
+ * document with {@link #load(InputStream)}.
+ */
+@Getter
+public class InMemoryDirectory {
+
+	/**
+	 * Base DN of all entries.
+	 */
+	public static final String BASE_DN = "dc=sample,dc=com";
+
+	/**
+	 * Base DN of the companies and the users.
+	 */
+	public static final String PEOPLE_DN = "ou=people," + BASE_DN;
+
+	/**
+	 * Base DN of the groups.
+	 */
+	public static final String GROUPS_DN = "ou=groups," + BASE_DN;
+
+	/**
+	 * Companies, key is the normalized identifier.
+	 */
+	private final Map<String, CompanyOrg> companies = new ConcurrentHashMap<>();
+
+	/**
+	 * Groups, key is the normalized identifier.
+	 */
+	private final Map<String, GroupOrg> groups = new ConcurrentHashMap<>();
+
+	/**
+	 * Users, key is the identifier.
+	 */
+	private final Map<String, UserOrg> users = new ConcurrentHashMap<>();
+
+	/**
+	 * Encoded passwords, key is the user identifier.
+	 */
+	private final Map<String, String> passwords = new ConcurrentHashMap<>();
+
+	/**
+	 * When <code>true</code>, a user without password accepts any non empty one. Only for load tests.
+	 */
+	@Setter
+	private boolean open;
+
+	/**
+	 * The password encoder, BCrypt by default and accepting the prefixed encoded passwords.
+	 */
+	private final PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+
+	/**
+	 * Group identifiers, key is the department.
+	 */
+	private final Map<String, String> departments = new ConcurrentHashMap<>();
+
+	/**
+	 * Add a company with a computed DN.
+	 *
+	 * @param name   The company name.
+	 * @param parent The optional parent company identifier.
+	 * @return The new company.
+	 */
+	public CompanyOrg addCompany(final String name, final String parent) {
+		final var parentCompany = parent == null ? null : companies.get(Normalizer.normalize(parent));
+		final var parentDn = parentCompany == null ? PEOPLE_DN : parentCompany.getDn();
+		return putCompany("ou=" + name + "," + parentDn, name, parentCompany);
+	}
+
+	/**
+	 * Add a company with a known DN.
+	 *
+	 * @param dn     The company DN.
+	 * @param name   The company name.
+	 * @param parent The optional parent company.
+	 * @return The new company.
+	 */
+	public CompanyOrg putCompany(final String dn, final String name, final CompanyOrg parent) {
+		final var company = new CompanyOrg(dn, name);
+		if (parent != null) {
+			// The tree starts from the root company
+			company.getCompanyTree().addAll(0, parent.getCompanyTree());
+		}
+		companies.put(company.getId(), company);
+		return company;
+	}
+
+	/**
+	 * Return the company having the given DN.
+	 *
+	 * @param dn The DN to match, case-insensitive.
+	 * @return The company or <code>null</code>.
+	 */
+	public CompanyOrg findCompanyByDn(final String dn) {
+		return companies.values().stream().filter(c -> c.getDn().equalsIgnoreCase(dn)).findFirst().orElse(null);
+	}
+
+	/**
+	 * Remove a company.
+	 *
+	 * @param company The company identifier.
+	 */
+	public void removeCompany(final String company) {
+		companies.remove(company);
+	}
+
+	/**
+	 * Add a group with a computed DN. The nested group is located under its parent.
+	 *
+	 * @param name   The group name.
+	 * @param parent The optional parent group identifier.
+	 * @return The new group.
+	 */
+	public GroupOrg addGroup(final String name, final String parent) {
+		final var parentGroup = parent == null ? null : groups.get(Normalizer.normalize(parent));
+		final var parentDn = parentGroup == null ? GROUPS_DN : parentGroup.getDn();
+		final var group = putGroup("cn=" + name + "," + parentDn, name);
+		if (parentGroup != null) {
+			addSubGroup(group.getId(), parentGroup.getId());
+		}
+		return group;
+	}
+
+	/**
+	 * Add a group with a known DN, without member nor parent.
+	 *
+	 * @param dn   The group DN.
+	 * @param name The group name.
+	 * @return The new group.
+	 */
+	public GroupOrg putGroup(final String dn, final String name) {
+		final var group = new GroupOrg(dn, name, ConcurrentHashMap.newKeySet());
+		group.setGroups(ConcurrentHashMap.newKeySet());
+		group.setSubGroups(ConcurrentHashMap.newKeySet());
+		groups.put(group.getId(), group);
+		return group;
+	}
+
+	/**
+	 * Remove a group, its memberships and its links with the parent and the sub groups.
+	 *
+	 * @param group The group identifier.
+	 */
+	public void removeGroup(final String group) {
+		final var entry = groups.remove(group);
+		if (entry == null) {
+			return;
+		}
+		entry.getMembers().stream().map(users::get).filter(Objects::nonNull).forEach(u -> u.getGroups().remove(group));
+		entry.getGroups().stream().map(groups::get).filter(Objects::nonNull)
+				.forEach(p -> p.getSubGroups().remove(group));
+		entry.getSubGroups().stream().map(groups::get).filter(Objects::nonNull)
+				.forEach(s -> s.getGroups().remove(group));
+		departments.values().removeIf(group::equals);
+	}
+
+	/**
+	 * Nest a group inside another one.
+	 *
+	 * @param group  The nested group identifier.
+	 * @param parent The parent group identifier.
+	 */
+	public void addSubGroup(final String group, final String parent) {
+		groups.get(group).getGroups().add(parent);
+		groups.get(parent).getSubGroups().add(group);
+	}
+
+	/**
+	 * Add a user. The membership of the given user is ignored, see {@link #addMember(String, String)}.
+	 *
+	 * @param user The user to add.
+	 * @return The added user.
+	 */
+	public UserOrg addUser(final UserOrg user) {
+		user.setGroups(ConcurrentHashMap.newKeySet());
+		user.setDn(toDn(user));
+		users.put(user.getId(), user);
+		return user;
+	}
+
+	/**
+	 * Return the DN of a user, located under its company.
+	 *
+	 * @param user The user.
+	 * @return The user DN.
+	 */
+	public String toDn(final UserOrg user) {
+		final var company = user.getCompany() == null ? null : companies.get(user.getCompany());
+		return "uid=" + user.getId() + "," + (company == null ? PEOPLE_DN : company.getDn());
+	}
+
+	/**
+	 * Remove a user and its memberships.
+	 *
+	 * @param user The user identifier.
+	 */
+	public void removeUser(final String user) {
+		final var entry = users.remove(user);
+		if (entry != null) {
+			entry.getGroups().stream().map(groups::get).filter(Objects::nonNull)
+					.forEach(g -> g.getMembers().remove(user));
+		}
+		passwords.remove(user);
+	}
+
+	/**
+	 * Set the password of a user.
+	 *
+	 * @param user     The user identifier.
+	 * @param password The clear password.
+	 */
+	public void setPassword(final String user, final String password) {
+		passwords.put(user, passwordEncoder.encode(password));
+	}
+
+	/**
+	 * Check the password of a user. A user without password is only accepted when this directory is open.
+	 *
+	 * @param user     The user identifier.
+	 * @param password The clear password to check.
+	 * @return <code>true</code> when the password matches.
+	 */
+	public boolean matches(final String user, final String password) {
+		final var encoded = passwords.get(user);
+		return encoded == null ? open : passwordEncoder.matches(password, encoded);
+	}
+
+	/**
+	 * Add a user to a group.
+	 *
+	 * @param user  The user identifier.
+	 * @param group The group identifier.
+	 */
+	public void addMember(final String user, final String group) {
+		final var entry = users.get(user);
+		final var container = groups.get(group);
+		if (entry != null && container != null) {
+			entry.getGroups().add(group);
+			container.getMembers().add(user);
+		}
+	}
+
+	/**
+	 * Remove a user from a group.
+	 *
+	 * @param user  The user identifier.
+	 * @param group The group identifier.
+	 */
+	public void removeMember(final String user, final String group) {
+		Optional.ofNullable(users.get(user)).ifPresent(u -> u.getGroups().remove(group));
+		Optional.ofNullable(groups.get(group)).ifPresent(g -> g.getMembers().remove(user));
+	}
+
+	/**
+	 * Return the page of the sorted entries.
+	 *
+	 * @param <T>        The entry type.
+	 * @param entries    The filtered entries.
+	 * @param comparator The ordering.
+	 * @param pageable   The optional page, when <code>null</code> all the entries are returned.
+	 * @return The page.
+	 */
+	static <T> Page<T> toPage(final Stream<T> entries, final Comparator<T> comparator, final Pageable pageable) {
+		final var sorted = entries.sorted(comparator).toList();
+		if (pageable == null || pageable.isUnpaged()) {
+			return new PageImpl<>(sorted);
+		}
+		final var from = (int) Math.min(pageable.getOffset(), sorted.size());
+		final var to = Math.min(from + pageable.getPageSize(), sorted.size());
+		return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+	}
+
+	/**
+	 * Return the lower case criteria to match.
+	 *
+	 * @param criteria The optional criteria.
+	 * @return The trimmed lower case criteria, empty when <code>null</code>.
+	 */
+	static String toCriteria(final String criteria) {
+		return criteria == null ? "" : criteria.trim().toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Indicate the value contains the lower case criteria, case-insensitive.
+	 *
+	 * @param value    The value to check.
+	 * @param criteria The lower case criteria.
+	 * @return <code>true</code> when the value contains the criteria.
+	 */
+	static boolean contains(final String value, final String criteria) {
+		return value != null && value.toLowerCase(Locale.ENGLISH).contains(criteria);
+	}
+
+	/**
+	 * Load a directory from a JSON document. The parent companies and groups must precede their children. A clear
+	 * <code>password</code> is encoded while loading, an <code>encodedPassword</code> is kept as is. Sample:
+	 *
+	 * <pre>
+	 * {
+	 *  "companies": [{"name": "ligoj"}, {"name": "ing", "parent": "ligoj"}],
+	 *  "groups": [{"name": "DIG", "department": "700"}, {"name": "DIG RHA", "parent": "DIG"}],
+	 *  "users": [{"id": "jdoe", "firstName": "John", "lastName": "Doe", "company": "ing", "mails": ["jdoe@sample.com"],
+	 *             "department": "700", "groups": ["DIG RHA"], "password": "secret"},
+	 *            {"id": "fdaugan", "encodedPassword": "{bcrypt}$2a$10$..."}]
+	 * }
+	 * </pre>
+	 *
+	 * @param input The JSON document.
+	 * @return The loaded directory.
+	 * @throws IOException When the document cannot be read.
+	 */
+	public static InMemoryDirectory load(final InputStream input) throws IOException {
+		final var directory = new InMemoryDirectory();
+		final var root = new ObjectMapper().readTree(input);
+		root.path("companies").forEach(c -> directory.addCompany(c.path("name").asText(), text(c, "parent")));
+		root.path("groups").forEach(g -> {
+			final var group = directory.addGroup(g.path("name").asText(), text(g, "parent"));
+			Optional.ofNullable(text(g, "department")).ifPresent(d -> directory.departments.put(d, group.getId()));
+		});
+		root.path("users").forEach(u -> {
+			final var user = new UserOrg();
+			user.setId(u.path("id").asText());
+			user.setFirstName(text(u, "firstName"));
+			user.setLastName(text(u, "lastName"));
+			user.setCompany(Optional.ofNullable(text(u, "company")).map(Normalizer::normalize).orElse(null));
+			user.setDepartment(text(u, "department"));
+			user.setLocalId(text(u, "localId"));
+			final var mails = new ArrayList<String>();
+			u.path("mails").forEach(m -> mails.add(m.asText()));
+			user.setMails(mails.isEmpty() ? Collections.emptyList() : mails);
+			directory.addUser(user);
+			u.path("groups").forEach(g -> directory.addMember(user.getId(), Normalizer.normalize(g.asText())));
+			Optional.ofNullable(text(u, "password")).ifPresent(p -> directory.setPassword(user.getId(), p));
+			Optional.ofNullable(text(u, "encodedPassword")).ifPresent(p -> directory.passwords.put(user.getId(), p));
+		});
+		return directory;
+	}
+
+	private static String text(final JsonNode node, final String field) {
+		final var value = node.get(field);
+		return value == null || value.isNull() ? null : value.asText();
+	}
+
+	/**
+	 * Return the identifiers of the given group and all its nested groups.
+	 *
+	 * @param group The root group identifier.
+	 * @return The group identifiers, including the given one when it exists.
+	 */
+	public Set<String> getSubGroupsDeep(final String group) {
+		final var result = new LinkedHashSet<String>();
+		final var pending = new ArrayList<String>();
+		pending.add(group);
+		while (!pending.isEmpty()) {
+			final var current = pending.remove(pending.size() - 1);
+			final var entry = groups.get(current);
+			if (entry != null && result.add(current)) {
+				pending.addAll(entry.getSubGroups());
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.empty;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.ligoj.app.iam.UserOrg;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generate a reproducible {@link InMemoryDirectory}. Companies and groups are balanced trees of the given fan-out, the
+ * first groups being the roots. The users are spread over the companies and the groups with a Zipf distribution, so a
+ * few companies and groups are very large, as in a real directory.
+ */
+@Setter
+@Slf4j
+public class InMemoryDirectoryGenerator {
+
+	private static final List<String> FIRST_NAMES = List.of("John", "Jane", "Marc", "Julie", "Paul", "Alice", "Pierre",
+			"Emma", "Louis", "Sarah", "Hugo", "Lea", "Tom", "Chloe", "Jules", "Manon");
+
+	private static final List<String> LAST_NAMES = List.of("Doe", "Martin", "Bernard", "Thomas", "Petit", "Robert",
+			"Richard", "Durand", "Dubois", "Moreau", "Laurent", "Simon", "Michel", "Lefebvre", "Leroy", "Roux");
+
+	/**
+	 * Amount of companies.
+	 */
+	private int companies = 100;
+
+	/**
+	 * Amount of sub companies of a company.
+	 */
+	private int companyFanout = 10;
+
+	/**
+	 * Amount of groups.
+	 */
+	private int groups = 1000;
+
+	/**
+	 * Amount of root groups, and amount of sub groups of a group.
+	 */
+	private int groupFanout = 10;
+
+	/**
+	 * Amount of users.
+	 */
+	private int users = 10000;
+
+	/**
+	 * Amount of groups of a user.
+	 */
+	private int memberships = 3;
+
+	/**
+	 * Zipf exponent of the users distribution over the companies and the groups.
+	 */
+	private double skew = 1;
+
+	/**
+	 * Random seed, the same seed produces the same directory.
+	 */
+	private long seed = 1;
+
+	/**
+	 * Optional clear password shared by all the users. It is encoded once. When <code>null</code>, the users have no
+	 * password and are only authenticated by an open directory.
+	 */
+	private String password;
+
+	/**
+	 * Cumulative Zipf distribution sampler.
+	 */
+	private static final class Zipf {
+		private final double[] cumulative;
+		private final Random random;
+
+		private Zipf(final int size, final double skew, final Random random) {
+			this.random = random;
+			cumulative = new double[size];
+			var sum = 0d;
+			for (var i = 0; i < size; i++) {
+				sum += 1 / Math.pow(i + 1d, skew);
+				cumulative[i] = sum;
+			}
+		}
+
+		private int next() {
+			final var index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+			return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+		}
+	}
+
+	/**
+	 * Return the company name of the given index.
+	 *
+	 * @param index The company index.
+	 * @return The company name.
+	 */
+	public static String getCompany(final int index) {
+		return "company" + index;
+	}
+
+	/**
+	 * Return the group name of the given index.
+	 *
+	 * @param index The group index.
+	 * @return The group name.
+	 */
+	public static String getGroup(final int index) {
+		return "group" + index;
+	}
+
+	/**
+	 * Return the user identifier of the given index.
+	 *
+	 * @param index The user index.
+	 * @return The user identifier.
+	 */
+	public static String getUser(final int index) {
+		return "user" + index;
+	}
+
+	/**
+	 * Generate the directory.
+	 *
+	 * @return The new directory.
+	 */
+	public InMemoryDirectory generate() {
+		final var start = System.currentTimeMillis();
+		final var random = new Random(seed);
+		final var directory = new InMemoryDirectory();
+		for (var i = 0; i < companies; i++) {
+			directory.addCompany(getCompany(i), i == 0 ? null : getCompany((i - 1) / companyFanout));
+		}
+		for (var i = 0; i < groups; i++) {
+			directory.addGroup(getGroup(i), i < groupFanout ? null : getGroup((i - groupFanout) / groupFanout));
+		}
+		final var companySampler = companies == 0 ? null : new Zipf(companies, skew, random);
+		final var groupSampler = groups == 0 ? null : new Zipf(groups, skew, random);
+		final var userGroups = new HashSet<String>();
+		final var encoded = password == null ? null : directory.getPasswordEncoder().encode(password);
+		for (var i = 0; i < users; i++) {
+			final var user = new UserOrg();
+			final var firstName = FIRST_NAMES.get(random.nextInt(FIRST_NAMES.size()));
+			final var lastName = LAST_NAMES.get(random.nextInt(LAST_NAMES.size()));
+			user.setId(getUser(i));
+			user.setFirstName(firstName);
+			user.setLastName(lastName);
+			user.setMails(List.of(firstName.toLowerCase(Locale.ENGLISH) + "." + lastName.toLowerCase(Locale.ENGLISH)
+					+ i + "@sample.com"));
+			if (companySampler != null) {
+				user.setCompany(getCompany(companySampler.next()));
+			}
+			directory.addUser(user);
+			if (encoded != null) {
+				directory.getPasswords().put(user.getId(), encoded);
+			}
+			userGroups.clear();
+			for (var m = 0; groupSampler != null && m < Math.min(memberships, groups); m++) {
+				userGroups.add(getGroup(groupSampler.next()));
+			}
+			userGroups.forEach(g -> directory.addMember(user.getId(), g));
+		}
+		log.info("In memory directory generated with {} companies, {} groups and {} users in {}ms", companies, groups,
+				users, System.currentTimeMillis() - start);
+		return directory;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.empty;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.ligoj.app.iam.GroupOrg;
+import org.ligoj.app.iam.IGroupRepository;
+import org.ligoj.app.iam.UserOrg;
+
+/**
+ * An in memory group repository. The department of a group is its {@value #DEPARTMENT_ATTRIBUTE} attribute.
+ */
+public class InMemoryGroupRepository extends AbstractInMemoryContainerRepository<GroupOrg>
+		implements IGroupRepository {
+
+	/**
+	 * The attribute holding the departments of a group.
+	 */
+	public static final String DEPARTMENT_ATTRIBUTE = "businessCategory";
+
+	/**
+	 * Constructor with the directory.
+	 *
+	 * @param directory The shared directory.
+	 */
+	public InMemoryGroupRepository(final InMemoryDirectory directory) {
+		super(directory, "group");
+	}
+
+	@Override
+	public Map<String, GroupOrg> findAll() {
+		return directory.getGroups();
+	}
+
+	@Override
+	public void delete(final GroupOrg container) {
+		directory.removeGroup(container.getId());
+	}
+
+	@Override
+	public GroupOrg create(final String dn, final String cn) {
+		return directory.putGroup(dn, cn);
+	}
+
+	@Override
+	public GroupOrg findByDepartment(final String department) {
+		return Optional.ofNullable(directory.getDepartments().get(department)).map(this::findById).orElse(null);
+	}
+
+	@Override
+	public void addAttributes(final String dn, final String attribute, final Collection<String> values) {
+		if (DEPARTMENT_ATTRIBUTE.equalsIgnoreCase(attribute)) {
+			findAll().values().stream().filter(g -> g.getDn().equalsIgnoreCase(dn)).findFirst()
+					.ifPresent(g -> values.forEach(d -> directory.getDepartments().put(d, g.getId())));
+		}
+	}
+
+	@Override
+	public void addGroup(final GroupOrg subGroup, final String toGroup) {
+		directory.addSubGroup(subGroup.getId(), toGroup);
+	}
+
+	@Override
+	public void empty(final GroupOrg group, final Map<String, UserOrg> users) {
+		Optional.ofNullable(findById(group.getId())).map(GroupOrg::getMembers).map(List::copyOf)
+				.ifPresent(m -> m.forEach(u -> directory.removeMember(u, group.getId())));
+	}
+
+	@Override
+	public void addUser(final UserOrg user, final String group) {
+		directory.addMember(user.getId(), group);
+	}
+
+	@Override
+	public void removeUser(final UserOrg user, final String group) {
+		directory.removeMember(user.getId(), group);
+	}
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.empty;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.ligoj.app.iam.CompanyOrg;
+import org.ligoj.app.iam.GroupOrg;
+import org.ligoj.app.iam.ICompanyRepository;
+import org.ligoj.app.iam.IGroupRepository;
+import org.ligoj.app.iam.IUserRepository;
+import org.ligoj.app.iam.UserOrg;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * An in memory user repository. The passwords are encoded, a locked user is never authenticated and a user without
+ * password is only authenticated when the directory is open.
+ */
+public class InMemoryUserRepository implements IUserRepository {
+
+	/**
+	 * Sortable properties.
+	 */
+	private static final Map<String, Function<UserOrg, String>> ORDERS = Map.of("id", UserOrg::getId, "firstName",
+			UserOrg::getFirstName, "lastName", UserOrg::getLastName, "company", UserOrg::getCompany, "department",
+			UserOrg::getDepartment, "mail", InMemoryUserRepository::getMail);
+
+	/**
+	 * Searchable attributes, LDAP names are accepted.
+	 */
+	private static final Map<String, Function<UserOrg, String>> ATTRIBUTES = Map.of("id", UserOrg::getId, "uid",
+			UserOrg::getId, "firstName", UserOrg::getFirstName, "givenName", UserOrg::getFirstName, "lastName",
+			UserOrg::getLastName, "sn", UserOrg::getLastName, "company", UserOrg::getCompany, "department",
+			UserOrg::getDepartment, "localId", UserOrg::getLocalId, "employeeNumber", UserOrg::getLocalId);
+
+	private final InMemoryDirectory directory;
+
+	@Getter
+	@Setter
+	private ICompanyRepository companyRepository;
+
+	@Getter
+	@Setter
+	private IGroupRepository groupRepository;
+
+	/**
+	 * Constructor with the directory.
+	 *
+	 * @param directory The shared directory.
+	 */
+	public InMemoryUserRepository(final InMemoryDirectory directory) {
+		this.directory = directory;
+	}
+
+	private static String getMail(final UserOrg user) {
+		return Optional.ofNullable(user.getMails()).filter(m -> !m.isEmpty()).map(m -> m.get(0)).orElse(null);
+	}
+
+	/**
+	 * Return the stored user of the given one, or the given one when not stored.
+	 */
+	private UserOrg toStored(final UserOrg user) {
+		return directory.getUsers().getOrDefault(user.getId(), user);
+	}
+
+	@Override
+	public String getToken(final String login) {
+		return findById(login) == null ? null : login;
+	}
+
+	@Override
+	public UserOrg findByIdNoCache(final String login) {
+		return findById(login);
+	}
+
+	@Override
+	public List<UserOrg> findAllBy(final String attribute, final String value) {
+		final Stream<UserOrg> users = directory.getUsers().values().stream();
+		if ("mail".equalsIgnoreCase(attribute)) {
+			return users.filter(u -> u.getMails() != null && u.getMails().stream().anyMatch(value::equalsIgnoreCase))
+					.toList();
+		}
+		return Optional.ofNullable(ATTRIBUTES.get(attribute))
+				.map(a -> users.filter(u -> value.equalsIgnoreCase(a.apply(u))).toList()).orElse(List.of());
+	}
+
+	@Override
+	public Page<UserOrg> findAll(final Collection<GroupOrg> requiredGroups, final Set<String> companies,
+			final String criteria, final Pageable pageable) {
+		final Stream<UserOrg> users;
+		if (requiredGroups == null) {
+			users = directory.getUsers().values().stream();
+		} else {
+			// Only the members are visited
+			final var members = new HashSet<String>();
+			requiredGroups.stream().map(g -> directory.getGroups().get(g.getId())).filter(Objects::nonNull)
+					.forEach(g -> members.addAll(g.getMembers()));
+			users = members.stream().map(directory.getUsers()::get).filter(Objects::nonNull);
+		}
+		final var filter = InMemoryDirectory.toCriteria(criteria);
+		return InMemoryDirectory.toPage(users.filter(u -> companies == null || companies.contains(u.getCompany()))
+				.filter(u -> filter.isEmpty() || InMemoryDirectory.contains(u.getId(), filter)
+						|| InMemoryDirectory.contains(u.getFirstName(), filter)
+						|| InMemoryDirectory.contains(u.getLastName(), filter)),
+				toComparator(pageable), pageable);
+	}
+
+	/**
+	 * Return the comparator of the requested ordering. The default ordering is the identifier.
+	 */
+	private Comparator<UserOrg> toComparator(final Pageable pageable) {
+		final Comparator<UserOrg> byId = Comparator.comparing(UserOrg::getId);
+		if (pageable == null) {
+			return byId;
+		}
+		Comparator<UserOrg> result = null;
+		for (final var order : pageable.getSort()) {
+			Comparator<UserOrg> comparator = Comparator.comparing(
+					ORDERS.getOrDefault(order.getProperty(), UserOrg::getId),
+					Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+			if (order.isDescending()) {
+				comparator = comparator.reversed();
+			}
+			result = result == null ? comparator : result.thenComparing(comparator);
+		}
+		return result == null ? byId : result.thenComparing(byId);
+	}
+
+	@Override
+	public Map<String, UserOrg> findAll() {
+		return directory.getUsers();
+	}
+
+	@Override
+	public boolean authenticate(final String name, final String password) {
+		final var user = name == null ? null : findById(name);
+		if (user == null || user.getLocked() != null || password == null || password.isEmpty()) {
+			return false;
+		}
+		return directory.matches(name, password);
+	}
+
+	@Override
+	public void setPassword(final UserOrg user, final String password) {
+		directory.setPassword(user.getId(), password);
+	}
+
+	@Override
+	public void setPassword(final UserOrg user, final String password, final String newPassword) {
+		setPassword(user, newPassword);
+	}
+
+	@Override
+	public String getPeopleInternalBaseDn() {
+		return InMemoryDirectory.PEOPLE_DN;
+	}
+
+	@Override
+	public void updateUser(final UserOrg user) {
+		final var stored = toStored(user);
+		stored.setFirstName(user.getFirstName());
+		stored.setLastName(user.getLastName());
+		stored.setMails(user.getMails());
+		stored.setDepartment(user.getDepartment());
+		stored.setLocalId(user.getLocalId());
+	}
+
+	@Override
+	public void move(final UserOrg user, final CompanyOrg company) {
+		final var stored = toStored(user);
+		stored.setCompany(company.getId());
+		stored.setDn(directory.toDn(stored));
+	}
+
+	@Override
+	public void restore(final UserOrg user) {
+		final var stored = toStored(user);
+		if (stored.getIsolated() != null) {
+			stored.setCompany(stored.getIsolated());
+			stored.setDn(directory.toDn(stored));
+			stored.setIsolated(null);
+			unlock(stored);
+		}
+	}
+
+	@Override
+	public void unlock(final UserOrg user) {
+		final var stored = toStored(user);
+		stored.setLocked(null);
+		stored.setLockedBy(null);
+	}
+
+	@Override
+	public void isolate(final String principal, final UserOrg user) {
+		final var stored = toStored(user);
+		if (stored.getIsolated() == null) {
+			lock(principal, stored);
+			stored.setIsolated(stored.getCompany());
+		}
+	}
+
+	@Override
+	public void lock(final String principal, final UserOrg user) {
+		final var stored = toStored(user);
+		if (stored.getLocked() == null) {
+			stored.setLocked(new Date());
+			stored.setLockedBy(principal);
+		}
+	}
+
+	@Override
+	public void delete(final UserOrg user) {
+		directory.removeUser(user.getId());
+	}
+
+	@Override
+	public void updateMembership(final Collection<String> groups, final UserOrg user) {
+		final var stored = toStored(user);
+		Optional.ofNullable(stored.getGroups()).map(List::copyOf).orElse(List.of()).stream()
+				.filter(g -> !groups.contains(g))
+				.forEach(g -> directory.removeMember(stored.getId(), g));
+		groups.forEach(g -> directory.addMember(stored.getId(), g));
+	}
+
+	@Override
+	public UserOrg create(final UserOrg entry) {
+		return directory.addUser(entry);
+	}
+
+	@Override
+	public String toDn(final UserOrg newUser) {
+		return directory.toDn(newUser);
+	}
+}
@@ -9,8 +9,11 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.ligoj.app.iam.empty.EmptyIamProvider;
 import org.ligoj.app.iam.empty.IamEmptyCache;
+import org.ligoj.app.iam.empty.InMemoryUserRepository;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.mockito.Mockito;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 
 import com.hazelcast.cache.HazelcastCacheManager;
@@ -76,4 +79,74 @@ class EmptyIamProviderTest {
 	void getKey() {
 		Assertions.assertEquals("feature:iam:empty", provider.getKey());
 	}
+
+	@Test
+	void getConfigurationGenerated() {
+		final var provider = new EmptyIamProvider();
+		provider.setUsers(50);
+		provider.setGroups(5);
+		provider.setCompanies(3);
+		provider.setMemberships(2);
+		provider.setSeed(2);
+		final var configuration = provider.getConfiguration();
+		Assertions.assertTrue(configuration.getUserRepository() instanceof InMemoryUserRepository);
+		Assertions.assertEquals(50, configuration.getUserRepository().findAll().size());
+		Assertions.assertEquals(5, configuration.getGroupRepository().findAll().size());
+		Assertions.assertEquals(3, configuration.getCompanyRepository().findAll().size());
+		Assertions.assertNull(configuration.getUserRepository().findById("any"));
+		Assertions.assertSame(configuration.getGroupRepository(),
+				configuration.getUserRepository().getGroupRepository());
+
+		// The directory is kept across the refreshes
+		final var user = configuration.getUserRepository().findById("user0");
+		provider.ensureCachedConfiguration();
+		Assertions.assertSame(user, provider.getConfiguration().getUserRepository().findById("user0"));
+	}
+
+	@Test
+	void getConfigurationFile() {
+		final var provider = new EmptyIamProvider();
+		provider.setFile("src/test/resources/iam-memory.json");
+		final var repository = provider.getConfiguration().getUserRepository();
+		Assertions.assertEquals(3, repository.findAll().size());
+		Assertions.assertEquals("ing", repository.findById("jdoe").getCompany());
+	}
+
+	@Test
+	void getConfigurationFileNotFound() {
+		final var provider = new EmptyIamProvider();
+		provider.setFile("src/test/resources/any.json");
+		Assertions.assertThrows(IllegalStateException.class, provider::getConfiguration);
+	}
+
+	@Test
+	void authenticateInMemory() {
+		final var provider = new EmptyIamProvider();
+		provider.setFile("src/test/resources/iam-memory.json");
+		final var authentication = new UsernamePasswordAuthenticationToken("jdoe", "secret");
+		Assertions.assertSame(authentication, provider.authenticate(authentication));
+		final var invalid = new UsernamePasswordAuthenticationToken("jdoe", "any");
+		Assertions.assertThrows(BadCredentialsException.class, () -> provider.authenticate(invalid));
+		final var noPassword = new UsernamePasswordAuthenticationToken("fdaugan", "any");
+		Assertions.assertThrows(BadCredentialsException.class, () -> provider.authenticate(noPassword));
+	}
+
+	@Test
+	void authenticateGenerated() {
+		final var provider = new EmptyIamProvider();
+		provider.setUsers(2);
+		provider.setPassword("secret");
+		Assertions.assertNotNull(provider.authenticate(new UsernamePasswordAuthenticationToken("user1", "secret")));
+		final var invalid = new UsernamePasswordAuthenticationToken("user1", "any");
+		Assertions.assertThrows(BadCredentialsException.class, () -> provider.authenticate(invalid));
+	}
+
+	@Test
+	void authenticateOpen() {
+		final var provider = new EmptyIamProvider();
+		provider.setUsers(2);
+		provider.setOpen(true);
+		Assertions.assertNotNull(provider.authenticate(new UsernamePasswordAuthenticationToken("user1", "any")));
+		Assertions.assertTrue(provider.getDirectory().isOpen());
+	}
 }
@@ -0,0 +1,144 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.pub;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.iam.CompanyOrg;
+import org.ligoj.app.iam.GroupOrg;
+import org.ligoj.app.iam.UserOrg;
+import org.ligoj.app.iam.empty.InMemoryCompanyRepository;
+import org.ligoj.app.iam.empty.InMemoryDirectory;
+import org.ligoj.app.iam.empty.InMemoryGroupRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+/**
+ * Test class of {@link InMemoryCompanyRepository} and {@link InMemoryGroupRepository}
+ */
+class InMemoryContainerRepositoryTest {
+
+	private InMemoryDirectory directory;
+
+	private InMemoryCompanyRepository companyRepository;
+
+	private InMemoryGroupRepository groupRepository;
+
+	@BeforeEach
+	void init() throws IOException {
+		directory = InMemoryDirectoryTest.newDirectory();
+		companyRepository = new InMemoryCompanyRepository(directory);
+		groupRepository = new InMemoryGroupRepository(directory);
+	}
+
+	@Test
+	void findAll() {
+		Assertions.assertEquals(3, companyRepository.findAll().size());
+		Assertions.assertEquals(3, groupRepository.findAll().size());
+		Assertions.assertEquals("DIG", groupRepository.findById("dig").getName());
+		Assertions.assertEquals("company", companyRepository.getTypeName());
+		Assertions.assertEquals("group", groupRepository.getTypeName());
+	}
+
+	@Test
+	void findAllPage() {
+		final var page = groupRepository.findAll(null, " dig ", PageRequest.of(0, 1, Direction.DESC, "name"),
+				Map.of());
+		Assertions.assertEquals(2, page.getTotalElements());
+		Assertions.assertEquals(List.of("dig rha"), page.getContent().stream().map(GroupOrg::getId).toList());
+	}
+
+	@Test
+	void findAllVisible() {
+		final var page = companyRepository.findAll(Set.of(directory.getCompanies().get("ing")), null, null, null);
+		Assertions.assertEquals(List.of("ing"), page.getContent().stream().map(CompanyOrg::getId).toList());
+	}
+
+	@Test
+	void findAllCustomComparator() {
+		final Map<String, Comparator<CompanyOrg>> comparators = Map.of("size",
+				Comparator.comparing(c -> c.getCompanyTree().size()));
+		final var page = companyRepository.findAll(null, "", PageRequest.of(0, 10, Sort.by("size", "name")),
+				comparators);
+		Assertions.assertEquals(List.of("ligoj", "ing", "socygan"),
+				page.getContent().stream().map(CompanyOrg::getId).toList());
+	}
+
+	@Test
+	void findAllPageOut() {
+		final var page = groupRepository.findAll(null, null, PageRequest.of(5, 10), null);
+		Assertions.assertEquals(3, page.getTotalElements());
+		Assertions.assertTrue(page.getContent().isEmpty());
+	}
+
+	@Test
+	void createCompany() {
+		final var company = companyRepository.create("ou=sub,ou=ing,ou=ligoj,ou=people,dc=sample,dc=com", "sub");
+		Assertions.assertEquals(List.of("ligoj", "ing", "sub"),
+				company.getCompanyTree().stream().map(CompanyOrg::getId).toList());
+		Assertions.assertSame(company, companyRepository.findById("sub"));
+		companyRepository.delete(company);
+		Assertions.assertNull(companyRepository.findById("sub"));
+	}
+
+	@Test
+	void createGroup() {
+		final var group = groupRepository.create("cn=new,ou=groups,dc=sample,dc=com", "new");
+		groupRepository.addGroup(group, "dig");
+		Assertions.assertEquals(Set.of("dig"), group.getGroups());
+		Assertions.assertTrue(groupRepository.findById("dig").getSubGroups().contains("new"));
+		groupRepository.delete(group);
+		Assertions.assertNull(groupRepository.findById("new"));
+		Assertions.assertFalse(groupRepository.findById("dig").getSubGroups().contains("new"));
+	}
+
+	@Test
+	void findByDepartment() {
+		Assertions.assertEquals("dig", groupRepository.findByDepartment("700").getId());
+		Assertions.assertNull(groupRepository.findByDepartment("800"));
+		groupRepository.addAttributes("CN=Business Solution,ou=groups,dc=sample,dc=com", "businessCategory",
+				List.of("800"));
+		groupRepository.addAttributes("cn=any,ou=groups,dc=sample,dc=com", "businessCategory", List.of("900"));
+		groupRepository.addAttributes("cn=Business Solution,ou=groups,dc=sample,dc=com", "other", List.of("901"));
+		Assertions.assertEquals("business solution", groupRepository.findByDepartment("800").getId());
+		Assertions.assertNull(groupRepository.findByDepartment("900"));
+		Assertions.assertNull(groupRepository.findByDepartment("901"));
+	}
+
+	@Test
+	void membership() {
+		final var user = directory.getUsers().get("alongchu");
+		groupRepository.addUser(user, "dig");
+		Assertions.assertEquals(Set.of("dig"), Set.copyOf(user.getGroups()));
+		Assertions.assertTrue(groupRepository.findById("dig").getMembers().contains("alongchu"));
+		groupRepository.removeUser(user, "dig");
+		Assertions.assertTrue(user.getGroups().isEmpty());
+
+		// Unknown user or group
+		final var unknown = new UserOrg();
+		unknown.setId("any");
+		groupRepository.addUser(unknown, "dig");
+		groupRepository.addUser(user, "any");
+		Assertions.assertEquals(Set.of("fdaugan"), groupRepository.findById("dig").getMembers());
+		Assertions.assertTrue(user.getGroups().isEmpty());
+	}
+
+	@Test
+	void empty() {
+		final var dig = groupRepository.findById("dig");
+		groupRepository.empty(dig, directory.getUsers());
+		Assertions.assertTrue(dig.getMembers().isEmpty());
+		Assertions.assertEquals(Set.of("business solution"),
+				Set.copyOf(directory.getUsers().get("fdaugan").getGroups()));
+		groupRepository.empty(new GroupOrg("cn=any", "any", Set.of()), directory.getUsers());
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.pub;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.iam.CompanyOrg;
+import org.ligoj.app.iam.empty.InMemoryDirectory;
+import org.ligoj.app.iam.empty.InMemoryDirectoryGenerator;
+
+/**
+ * Test class of {@link InMemoryDirectory} and {@link InMemoryDirectoryGenerator}
+ */
+class InMemoryDirectoryTest {
+
+	static InMemoryDirectory newDirectory() throws IOException {
+		try (var input = InMemoryDirectoryTest.class.getResourceAsStream("/iam-memory.json")) {
+			return InMemoryDirectory.load(input);
+		}
+	}
+
+	@Test
+	void load() throws IOException {
+		final var directory = newDirectory();
+		Assertions.assertEquals(3, directory.getCompanies().size());
+		Assertions.assertEquals(3, directory.getGroups().size());
+		Assertions.assertEquals(3, directory.getUsers().size());
+
+		// Company tree
+		final var ing = directory.getCompanies().get("ing");
+		Assertions.assertEquals("ou=ing,ou=ligoj,ou=people,dc=sample,dc=com", ing.getDn());
+		Assertions.assertEquals(List.of("ligoj", "ing"), ing.getCompanyTree().stream().map(CompanyOrg::getId).toList());
+
+		// Nested groups
+		final var dig = directory.getGroups().get("dig");
+		Assertions.assertEquals(Set.of("dig rha"), dig.getSubGroups());
+		Assertions.assertEquals(Set.of("dig"), directory.getGroups().get("dig rha").getGroups());
+		Assertions.assertEquals("cn=DIG RHA,cn=DIG,ou=groups,dc=sample,dc=com",
+				directory.getGroups().get("dig rha").getDn());
+		Assertions.assertEquals(Set.of("dig", "dig rha"), directory.getSubGroupsDeep("dig"));
+		Assertions.assertEquals("dig", directory.getDepartments().get("700"));
+
+		// Users and membership
+		final var user = directory.getUsers().get("jdoe");
+		Assertions.assertEquals("uid=jdoe,ou=ing,ou=ligoj,ou=people,dc=sample,dc=com", user.getDn());
+		Assertions.assertEquals(Set.of("dig rha"), Set.copyOf(user.getGroups()));
+		Assertions.assertEquals(List.of("john.doe@sample.com"), user.getMails());
+		Assertions.assertEquals("8234", user.getLocalId());
+		Assertions.assertTrue(directory.getPasswords().get("jdoe").startsWith("{bcrypt}"));
+		Assertions.assertTrue(directory.matches("jdoe", "secret"));
+		Assertions.assertFalse(directory.matches("jdoe", "any"));
+		Assertions.assertTrue(directory.getPasswords().get("alongchu").startsWith("{bcrypt}"));
+		Assertions.assertTrue(directory.matches("alongchu", "secret"));
+		Assertions.assertEquals(Set.of("fdaugan"), dig.getMembers());
+		Assertions.assertTrue(directory.getUsers().get("alongchu").getGroups().isEmpty());
+		Assertions.assertTrue(directory.getUsers().get("alongchu").getMails().isEmpty());
+	}
+
+	@Test
+	void removeGroup() throws IOException {
+		final var directory = newDirectory();
+		directory.removeGroup("dig");
+		directory.removeGroup("any");
+		Assertions.assertFalse(directory.getGroups().containsKey("dig"));
+		Assertions.assertTrue(directory.getGroups().get("dig rha").getGroups().isEmpty());
+		Assertions.assertEquals(Set.of("business solution"),
+				Set.copyOf(directory.getUsers().get("fdaugan").getGroups()));
+		Assertions.assertTrue(directory.getDepartments().isEmpty());
+	}
+
+	@Test
+	void removeUser() throws IOException {
+		final var directory = newDirectory();
+		directory.removeUser("jdoe");
+		Assertions.assertFalse(directory.getUsers().containsKey("jdoe"));
+		Assertions.assertTrue(directory.getGroups().get("dig rha").getMembers().isEmpty());
+		Assertions.assertFalse(directory.getPasswords().containsKey("jdoe"));
+	}
+
+	@Test
+	void generate() {
+		final var generator = new InMemoryDirectoryGenerator();
+		generator.setCompanies(21);
+		generator.setCompanyFanout(4);
+		generator.setGroups(30);
+		generator.setGroupFanout(3);
+		generator.setUsers(500);
+		generator.setMemberships(2);
+		final var directory = generator.generate();
+		Assertions.assertEquals(21, directory.getCompanies().size());
+		Assertions.assertEquals(30, directory.getGroups().size());
+		Assertions.assertEquals(500, directory.getUsers().size());
+
+		// Balanced trees
+		Assertions.assertEquals(3, directory.getCompanies().get("company20").getCompanyTree().size());
+		Assertions.assertEquals(Set.of("group0"), directory.getGroups().get("group3").getGroups());
+		Assertions.assertTrue(directory.getGroups().get("group0").getGroups().isEmpty());
+
+		// Membership on both sides
+		final var user = directory.getUsers().get("user42");
+		Assertions.assertFalse(user.getGroups().isEmpty());
+		Assertions.assertTrue(user.getGroups().size() <= 2);
+		user.getGroups()
+				.forEach(g -> Assertions.assertTrue(directory.getGroups().get(g).getMembers().contains("user42")));
+		Assertions.assertNotNull(directory.getCompanies().get(user.getCompany()));
+
+		// Skewed distribution
+		Assertions.assertTrue(directory.getGroups().get("group0").getMembers().size() > directory.getGroups()
+				.get("group29").getMembers().size());
+
+		// No password
+		Assertions.assertTrue(directory.getPasswords().isEmpty());
+		Assertions.assertFalse(directory.matches("user42", "any"));
+
+		// Reproducible
+		Assertions.assertEquals(user.getGroups(), generator.generate().getUsers().get("user42").getGroups());
+	}
+
+	@Test
+	void generatePassword() {
+		final var generator = new InMemoryDirectoryGenerator();
+		generator.setUsers(3);
+		generator.setPassword("secret");
+		final var directory = generator.generate();
+		Assertions.assertEquals(3, directory.getPasswords().size());
+		Assertions.assertTrue(directory.matches("user2", "secret"));
+		Assertions.assertFalse(directory.matches("user2", "any"));
+	}
+
+	@Test
+	void generateLarge() {
+		final var generator = new InMemoryDirectoryGenerator();
+		generator.setUsers(100000);
+		final var directory = generator.generate();
+		Assertions.assertEquals(100000, directory.getUsers().size());
+		Assertions.assertEquals(1000, directory.getGroups().size());
+		Assertions.assertEquals(100, directory.getCompanies().size());
+	}
+
+	@Test
+	void generateEmpty() {
+		final var generator = new InMemoryDirectoryGenerator();
+		generator.setCompanies(0);
+		generator.setGroups(0);
+		generator.setUsers(1);
+		final var user = generator.generate().getUsers().get("user0");
+		Assertions.assertNull(user.getCompany());
+		Assertions.assertEquals("uid=user0,ou=people,dc=sample,dc=com", user.getDn());
+		Assertions.assertTrue(user.getGroups().isEmpty());
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.iam.pub;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.iam.UserOrg;
+import org.ligoj.app.iam.empty.InMemoryDirectory;
+import org.ligoj.app.iam.empty.InMemoryUserRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+/**
+ * Test class of {@link InMemoryUserRepository}
+ */
+class InMemoryUserRepositoryTest {
+
+	private InMemoryDirectory directory;
+
+	private InMemoryUserRepository repository;
+
+	@BeforeEach
+	void init() throws IOException {
+		directory = InMemoryDirectoryTest.newDirectory();
+		repository = new InMemoryUserRepository(directory);
+	}
+
+	private static List<String> toIds(final List<UserOrg> users) {
+		return users.stream().map(UserOrg::getId).toList();
+	}
+
+	@Test
+	void findAll() {
+		Assertions.assertEquals(3, repository.findAll().size());
+		Assertions.assertEquals("John", repository.findById("jdoe").getFirstName());
+		Assertions.assertSame(repository.findById("jdoe"), repository.findByIdNoCache("jdoe"));
+		Assertions.assertNull(repository.findById("any"));
+		Assertions.assertEquals(InMemoryDirectory.PEOPLE_DN, repository.getPeopleInternalBaseDn());
+	}
+
+	@Test
+	void findAllPage() {
+		final var page = repository.findAll(null, null, null, PageRequest.of(0, 2));
+		Assertions.assertEquals(3, page.getTotalElements());
+		Assertions.assertEquals(List.of("alongchu", "fdaugan"), toIds(page.getContent()));
+		Assertions.assertEquals(List.of("alongchu", "fdaugan", "jdoe"),
+				toIds(repository.findAll(null, null, null, null).getContent()));
+	}
+
+	@Test
+	void findAllSort() {
+		Assertions.assertEquals(List.of("fdaugan", "alongchu", "jdoe"), toIds(repository
+				.findAll(null, null, null, PageRequest.of(0, 10, Direction.DESC, "company", "lastName")).getContent()));
+		Assertions.assertEquals(List.of("alongchu", "fdaugan", "jdoe"),
+				toIds(repository.findAll(null, null, null, PageRequest.of(0, 10, Sort.by("mail"))).getContent()));
+		Assertions.assertEquals(List.of("alongchu", "fdaugan", "jdoe"),
+				toIds(repository.findAll(null, null, null, PageRequest.of(0, 10, Sort.by("any"))).getContent()));
+	}
+
+	@Test
+	void findAllCriteria() {
+		Assertions.assertEquals(List.of("jdoe"), toIds(repository.findAll(null, null, "DOE", null).getContent()));
+		Assertions.assertEquals(List.of("fdaugan"), toIds(repository.findAll(null, null, "fabr", null).getContent()));
+		Assertions.assertEquals(List.of("alongchu"), toIds(repository.findAll(null, null, "along", null).getContent()));
+	}
+
+	@Test
+	void findAllGroupsCompanies() {
+		final var groups = directory.getGroups();
+		Assertions.assertEquals(List.of("fdaugan", "jdoe"), toIds(
+				repository.findAll(List.of(groups.get("dig"), groups.get("dig rha")), null, null, null).getContent()));
+		Assertions.assertEquals(List.of("jdoe"), toIds(repository
+				.findAll(List.of(groups.get("dig"), groups.get("dig rha")), Set.of("ing"), null, null).getContent()));
+		Assertions.assertTrue(repository.findAll(List.of(), null, null, null).getContent().isEmpty());
+	}
+
+	@Test
+	void findAllBy() {
+		Assertions.assertEquals(List.of("jdoe"), toIds(repository.findAllBy("mail", "JOHN.DOE@sample.com")));
+		Assertions.assertEquals(List.of("jdoe"), toIds(repository.findAllBy("employeeNumber", "8234")));
+		Assertions.assertEquals(List.of("fdaugan"), toIds(repository.findAllBy("sn", "daugan")));
+		Assertions.assertEquals("jdoe", repository.findOneBy("department", "700").getId());
+		Assertions.assertTrue(repository.findAllBy("any", "any").isEmpty());
+		Assertions.assertTrue(repository.findAllBy("mail", "any").isEmpty());
+	}
+
+	@Test
+	void authenticate() {
+		Assertions.assertTrue(repository.authenticate("jdoe", "secret"));
+		Assertions.assertFalse(repository.authenticate("jdoe", "any"));
+		Assertions.assertFalse(repository.authenticate("fdaugan", "any"));
+		directory.setOpen(true);
+		Assertions.assertTrue(repository.authenticate("fdaugan", "any"));
+		Assertions.assertFalse(repository.authenticate("jdoe", "any"));
+		Assertions.assertFalse(repository.authenticate("fdaugan", ""));
+		Assertions.assertFalse(repository.authenticate("fdaugan", null));
+		Assertions.assertFalse(repository.authenticate("any", "any"));
+		Assertions.assertFalse(repository.authenticate(null, "any"));
+		Assertions.assertEquals("jdoe", repository.getToken("jdoe"));
+		Assertions.assertNull(repository.getToken("any"));
+
+		final var user = repository.findById("fdaugan");
+		repository.setPassword(user, null, "new");
+		Assertions.assertNotEquals("new", directory.getPasswords().get("fdaugan"));
+		Assertions.assertTrue(repository.authenticate("fdaugan", "new"));
+		Assertions.assertFalse(repository.authenticate("fdaugan", "any"));
+	}
+
+	@Test
+	void lockIsolateRestore() {
+		final var user = repository.findById("jdoe");
+		repository.isolate("admin", user);
+		Assertions.assertEquals("admin", user.getLockedBy());
+		Assertions.assertNotNull(user.getLocked());
+		Assertions.assertEquals("ing", user.getIsolated());
+		Assertions.assertFalse(repository.authenticate("jdoe", "secret"));
+
+		// Already isolated/locked
+		repository.isolate("other", user);
+		repository.lock("other", user);
+		Assertions.assertEquals("admin", user.getLockedBy());
+
+		repository.restore(user);
+		Assertions.assertNull(user.getIsolated());
+		Assertions.assertNull(user.getLocked());
+		Assertions.assertNull(user.getLockedBy());
+		Assertions.assertTrue(repository.authenticate("jdoe", "secret"));
+
+		// Not isolated
+		repository.lock("admin", user);
+		repository.restore(user);
+		Assertions.assertNotNull(user.getLocked());
+		repository.unlock(user);
+		Assertions.assertNull(user.getLocked());
+	}
+
+	@Test
+	void createUpdateMoveDelete() {
+		final var entry = new UserOrg();
+		entry.setId("new");
+		entry.setCompany("ing");
+		Assertions.assertEquals("uid=new,ou=ing,ou=ligoj,ou=people,dc=sample,dc=com", repository.toDn(entry));
+		final var user = repository.create(entry);
+		Assertions.assertEquals("uid=new,ou=ing,ou=ligoj,ou=people,dc=sample,dc=com", user.getDn());
+
+		final var update = new UserOrg();
+		update.setId("new");
+		update.setFirstName("First");
+		update.setLastName("Last");
+		update.setMails(List.of("new@sample.com"));
+		repository.updateUser(update);
+		Assertions.assertEquals("First", user.getFirstName());
+		Assertions.assertEquals(List.of("new@sample.com"), user.getMails());
+
+		repository.move(user, directory.getCompanies().get("socygan"));
+		Assertions.assertEquals("socygan", user.getCompany());
+		Assertions.assertEquals("uid=new,ou=socygan,ou=ligoj,ou=people,dc=sample,dc=com", user.getDn());
+
+		repository.updateMembership(List.of("dig", "business solution"), user);
+		Assertions.assertEquals(Set.of("dig", "business solution"), Set.copyOf(user.getGroups()));
+		repository.updateMembership(List.of("dig rha", "dig"), user);
+		Assertions.assertEquals(Set.of("dig", "dig rha"), Set.copyOf(user.getGroups()));
+		Assertions.assertFalse(directory.getGroups().get("business solution").getMembers().contains("new"));
+
+		repository.delete(user);
+		Assertions.assertNull(repository.findById("new"));
+		Assertions.assertFalse(directory.getGroups().get("dig").getMembers().contains("new"));
+	}
+
+	@Test
+	void updateMembershipNotStored() {
+		final var user = new UserOrg();
+		user.setId("any");
+		repository.updateMembership(List.of("dig"), user);
+		Assertions.assertFalse(directory.getGroups().get("dig").getMembers().contains("any"));
+	}
+}